@@ -15,8 +15,10 @@ package org.apache.pekko.http.impl.engine
 
 import java.net.InetSocketAddress
 import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
 
 import scala.concurrent.{ ExecutionContext, Future }
+import scala.concurrent.duration._
 import scala.util.{ Failure, Success }
 
 import org.openjdk.jmh.annotations._
@@ -28,6 +30,7 @@ import pekko.http.impl.util.enhanceString_
 import pekko.http.scaladsl.{ ClientTransport, Http }
 import pekko.http.scaladsl.model.HttpRequest
 import pekko.http.scaladsl.settings.{ ClientConnectionSettings, ConnectionPoolSettings }
+import pekko.pattern.after
 import pekko.stream.scaladsl.Flow
 import pekko.util.ByteString
 
@@ -35,6 +38,9 @@ import com.typesafe.config.ConfigFactory
 
 /**
  * A benchmark that tries to stress the pool and the client infrastructure (but nothing else)
+ *
+ * `singleRequestSkewedLatency` runs against a transport where every fourth connection responds slowly, use it with
+ * the different `slotSelection` strategies to compare how well they avoid the slow connections.
  */
 class ConnectionPoolBenchmark extends CommonBenchmark {
   import ConnectionPoolBenchmark._
@@ -42,19 +48,29 @@ class ConnectionPoolBenchmark extends CommonBenchmark {
   @Param(Array("1", "10", "100", "1000", "10000"))
   var maxConnections: String = null
 
+  @Param(Array("first-idle"))
+  var slotSelection: String = null
+
   implicit var system: ActorSystem = null
   implicit def ec: ExecutionContext = system.dispatcher
 
   private var poolSettings: ConnectionPoolSettings = null
+  private var skewedPoolSettings: ConnectionPoolSettings = null
 
   val request = HttpRequest(uri = "http://localhost:8080")
 
   @Benchmark
   @OperationsPerInvocation(15000)
-  def singleRequest(): Unit = {
+  def singleRequest(): Unit = runBatch(poolSettings)
+
+  @Benchmark
+  @OperationsPerInvocation(15000)
+  def singleRequestSkewedLatency(): Unit = runBatch(skewedPoolSettings)
+
+  private def runBatch(settings: ConnectionPoolSettings): Unit = {
     val latch = new CountDownLatch(NumRequestsPerBatch)
     (1 to NumRequestsPerBatch).foreach { _ =>
-      Http().singleRequest(request, settings = poolSettings)
+      Http().singleRequest(request, settings = settings)
         .onComplete {
           case Success(_) => latch.countDown()
           case Failure(_) => throw new IllegalStateException
@@ -106,8 +122,26 @@ class ConnectionPoolBenchmark extends CommonBenchmark {
             .async
       }
     poolSettings =
-      ConnectionPoolSettings(system).withConnectionSettings(
-        ClientConnectionSettings(system).withTransport(clientTransport))
+      ConnectionPoolSettings(system)
+        .withSlotSelection(ConnectionPoolSettings.SlotSelection(slotSelection))
+        .withConnectionSettings(ClientConnectionSettings(system).withTransport(clientTransport))
+
+    // like `clientTransport` but every fourth connection delays its responses
+    val connectionCounter = new AtomicInteger()
+    val skewedTransport =
+      new ClientTransport {
+        override def connectTo(host: String, port: Int, settings: ClientConnectionSettings)(
+            implicit system: ActorSystem): Flow[ByteString, ByteString, Future[Http.OutgoingConnection]] = {
+          val slow = connectionCounter.getAndIncrement() % 4 == 0
+          clientTransport.connectTo(host, port, settings)
+            .mapAsync(1) { response =>
+              if (slow) after(SlowConnectionDelay)(Future.successful(response))
+              else Future.successful(response)
+            }
+        }
+      }
+    skewedPoolSettings =
+      poolSettings.withConnectionSettings(ClientConnectionSettings(system).withTransport(skewedTransport))
   }
 
   @TearDown
@@ -115,4 +149,5 @@ class ConnectionPoolBenchmark extends CommonBenchmark {
 }
 object ConnectionPoolBenchmark {
   val NumRequestsPerBatch = 15000
+  val SlowConnectionDelay = 1.millis
 }
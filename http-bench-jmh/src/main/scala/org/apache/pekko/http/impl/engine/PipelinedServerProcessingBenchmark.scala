@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+import scala.concurrent.ExecutionContext
+import scala.concurrent.Future
+
+import org.openjdk.jmh.annotations._
+import org.openjdk.jmh.infra.Blackhole
+
+import org.apache.pekko
+import pekko.actor.ActorSystem
+import pekko.event.NoLogging
+import pekko.http.CommonBenchmark
+import pekko.http.impl.engine.server.HttpServerBluePrint
+import pekko.http.scaladsl.Http
+import pekko.http.scaladsl.model.HttpRequest
+import pekko.http.scaladsl.model.HttpResponse
+import pekko.http.scaladsl.settings.ServerSettings
+import pekko.stream.scaladsl.Flow
+import pekko.stream.scaladsl.Source
+import pekko.stream.scaladsl.TLSPlacebo
+import pekko.util.ByteString
+
+import com.typesafe.config.ConfigFactory
+
+/**
+ * Variant of [[ServerProcessingBenchmark]] with a client that pipelines `requestsPerWrite` requests per write and an
+ * asynchronous handler that spends `handlerTokens` of CPU work per request on a separate thread pool, like the handler
+ * passed to `Http().newServerAt(...).bind`.
+ *
+ * With `pipeliningLimit` > 1 the requests of the connection are handled concurrently.
+ */
+class PipelinedServerProcessingBenchmark extends CommonBenchmark {
+  val response = HttpResponse()
+
+  @Param(Array("1", "16"))
+  var pipeliningLimit: Int = _
+
+  @Param(Array("16"))
+  var requestsPerWrite: Int = _
+
+  @Param(Array("1000"))
+  var handlerTokens: Long = _
+
+  var requests: ByteString = _
+  var httpFlow: Flow[ByteString, ByteString, Any] = null
+  var handlerPool: ExecutorService = _
+  implicit var system: ActorSystem = null
+
+  @Benchmark
+  @OperationsPerInvocation(10000)
+  def benchPipelinedRequestProcessing(): Unit = {
+    val numRequests = 10000
+    val latch = new CountDownLatch(numRequests)
+    Source.repeat(requests)
+      .take(numRequests / requestsPerWrite)
+      .via(httpFlow)
+      .runForeach(_ => latch.countDown())
+
+    latch.await()
+  }
+
+  @Setup
+  def setup(): Unit = {
+    val config =
+      ConfigFactory.parseString(
+        """
+           pekko.actor.default-dispatcher.fork-join-executor.parallelism-max = 1
+           pekko.http.server.server-header = "pekko-http-bench"
+        """)
+        .withFallback(ConfigFactory.load())
+    system = ActorSystem("PekkoHttpBenchmarkSystem", config)
+
+    requests = ByteString("GET / HTTP/1.1\r\nHost: localhost\r\nUser-Agent: test\r\n\r\n" * requestsPerWrite)
+    handlerPool = Executors.newFixedThreadPool(4)
+    val handlerEc = ExecutionContext.fromExecutor(handlerPool)
+    val tokens = handlerTokens
+    def handler(request: HttpRequest): Future[HttpResponse] =
+      Future {
+        Blackhole.consumeCPU(tokens)
+        response
+      }(handlerEc)
+
+    val settings = ServerSettings(system).withPipeliningLimit(pipeliningLimit)
+    httpFlow =
+      Flow[HttpRequest].mapAsync(pipeliningLimit)(handler).join(
+        HttpServerBluePrint(settings, NoLogging, false, Http().dateHeaderRendering).atop(
+          TLSPlacebo()))
+  }
+
+  @TearDown
+  def tearDown(): Unit = {
+    handlerPool.shutdown()
+    system.terminate()
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine
+
+import java.util.concurrent.CountDownLatch
+
+import org.openjdk.jmh.annotations._
+
+import org.apache.pekko
+import pekko.actor.ActorSystem
+import pekko.http.CommonBenchmark
+import pekko.http.impl.engine.parsing.HttpHeaderParser
+import pekko.http.impl.engine.parsing.HttpRequestParser
+import pekko.http.impl.settings.WebSocketSettingsImpl
+import pekko.http.scaladsl.settings.ParserSettings
+import pekko.stream.TLSProtocol.SessionBytes
+import pekko.stream.scaladsl.Source
+import pekko.stream.scaladsl.TLSPlacebo
+import pekko.util.ByteString
+
+import com.typesafe.config.ConfigFactory
+
+/**
+ * Measures request parsing for small bodyless requests.
+ *
+ * With `arrival = single` every request arrives in one `ByteString` and is handled by the parser's fast path,
+ * with `arrival = split` the header section is split across two `ByteString`s, which forces the general parsing
+ * logic. Run with `-prof gc` to compare the allocation rate per request of both paths.
+ */
+class RequestParserBenchmark extends CommonBenchmark {
+  val request = "GET /api/v1/items?page=2 HTTP/1.1\r\n" +
+    "Host: localhost\r\n" +
+    "User-Agent: test\r\n" +
+    "Accept: application/json\r\n" +
+    "Connection: keep-alive\r\n" +
+    "\r\n"
+
+  @Param(Array("single", "split"))
+  var arrival: String = _
+
+  var requestChunks: List[SessionBytes] = Nil
+  var parser: HttpRequestParser = null
+  implicit var system: ActorSystem = null
+
+  @Benchmark
+  @OperationsPerInvocation(10000)
+  def benchRequestParsing(): Unit = {
+    val numRequests = 10000
+    val latch = new CountDownLatch(numRequests)
+    Source.repeat(requestChunks)
+      .take(numRequests)
+      .mapConcat(identity)
+      .via(parser)
+      .runForeach(_ => latch.countDown())
+
+    latch.await()
+  }
+
+  @Setup
+  def setup(): Unit = {
+    val config =
+      ConfigFactory.parseString(
+        """
+           pekko.actor.default-dispatcher.fork-join-executor.parallelism-max = 1
+        """)
+        .withFallback(ConfigFactory.load())
+    system = ActorSystem("RequestParserBenchmark", config)
+
+    val bytes = ByteString(request)
+    val chunks =
+      if (arrival == "single") bytes :: Nil
+      else {
+        val (first, second) = bytes.splitAt(request.indexOf("Accept"))
+        first :: second :: Nil
+      }
+    requestChunks = chunks.map(SessionBytes(TLSPlacebo.dummySession, _))
+
+    val settings = ParserSettings.forServer(system)
+    parser = new HttpRequestParser(settings, WebSocketSettingsImpl.serverFromRoot(system.settings.config),
+      rawRequestUriHeader = false, HttpHeaderParser(settings, system.log))
+  }
+
+  @TearDown
+  def tearDown(): Unit = {
+    system.terminate()
+  }
+}
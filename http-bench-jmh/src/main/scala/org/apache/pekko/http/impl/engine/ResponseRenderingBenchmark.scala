@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine
+
+import java.util.concurrent.CountDownLatch
+
+import org.openjdk.jmh.annotations._
+
+import org.apache.pekko
+import pekko.actor.ActorSystem
+import pekko.http.CommonBenchmark
+import pekko.http.impl.engine.rendering.HttpResponseRendererFactory
+import pekko.http.impl.engine.rendering.ResponseRenderingContext
+import pekko.http.scaladsl.Http
+import pekko.http.scaladsl.model.ContentTypes
+import pekko.http.scaladsl.model.HttpEntity
+import pekko.http.scaladsl.model.HttpResponse
+import pekko.http.scaladsl.model.headers
+import pekko.stream.scaladsl.Source
+import pekko.util.ByteString
+
+import com.typesafe.config.ConfigFactory
+
+/**
+ * Measures response rendering of typical JSON API responses with and without a per-connection rendering buffer
+ * (`response-rendering-buffer-size`) and pre-rendered headers.
+ *
+ * Run with `-prof gc` and compare `gc.alloc.rate.norm`, which is the number of bytes allocated per rendered
+ * response.
+ */
+class ResponseRenderingBenchmark extends CommonBenchmark {
+
+  @Param(Array("0", "16384"))
+  var renderingBufferSize: Int = _
+
+  @Param(Array("100", "2000"))
+  var entitySize: Int = _
+
+  @Param(Array("false", "true"))
+  var preRenderedHeaders: Boolean = _
+
+  var responseContext: ResponseRenderingContext = _
+  var rendererFactory: HttpResponseRendererFactory = _
+  implicit var system: ActorSystem = _
+
+  @Benchmark
+  @OperationsPerInvocation(10000)
+  def benchResponseRendering(): Unit = {
+    val numResponses = 10000
+    val latch = new CountDownLatch(numResponses)
+    Source.repeat(responseContext)
+      .take(numResponses)
+      .via(rendererFactory.renderer)
+      .runForeach(_ => latch.countDown())
+
+    latch.await()
+  }
+
+  @Setup
+  def setup(): Unit = {
+    val config =
+      ConfigFactory.parseString(
+        """
+           pekko.actor.default-dispatcher.fork-join-executor.parallelism-max = 1
+        """)
+        .withFallback(ConfigFactory.load())
+    system = ActorSystem("ResponseRenderingBenchmark", config)
+
+    val entity = HttpEntity(ContentTypes.`application/json`, ByteString("x" * entitySize))
+    val responseHeaders = List(
+      headers.`Cache-Control`(headers.CacheDirectives.`no-cache`),
+      headers.`Access-Control-Allow-Origin`.*,
+      headers.RawHeader("X-Request-Id", "8c0b9c1e-4b3c-4d1f-9a8e-5f3b2c1d0e9f"))
+    responseContext = ResponseRenderingContext(HttpResponse(
+      headers = if (preRenderedHeaders) responseHeaders.map(headers.PreRenderedHeader(_)) else responseHeaders,
+      entity = entity))
+    rendererFactory = new HttpResponseRendererFactory(Some(headers.Server("pekko-http/bench")),
+      responseHeaderSizeHint = 512, system.log, Http().dateHeaderRendering, renderingBufferSize)
+  }
+
+  @TearDown
+  def tearDown(): Unit = {
+    system.terminate()
+  }
+}
@@ -26,7 +26,7 @@ import pekko.actor.ActorSystem
 import pekko.http.CommonBenchmark
 import pekko.http.impl.engine.server.ServerTerminator
 import pekko.http.scaladsl.Http
-import pekko.http.scaladsl.model.{ HttpRequest, HttpResponse }
+import pekko.http.scaladsl.model.{ ContentTypes, HttpEntity, HttpRequest, HttpResponse }
 import pekko.http.scaladsl.settings.{ ClientConnectionSettings, ServerSettings }
 import pekko.stream.TLSProtocol.{ SslTlsInbound, SslTlsOutbound }
 import pekko.stream.scaladsl.{ BidiFlow, Flow, Keep, Sink, Source }
@@ -40,16 +40,31 @@ import com.typesafe.config.ConfigFactory
  */
 class H2ClientServerBenchmark extends CommonBenchmark with H2RequestResponseBenchmark {
   var httpFlow: Flow[HttpRequest, HttpResponse, Any] = null
+  var largeEntitiesHttpFlow: Flow[HttpRequest, HttpResponse, Any] = null
   implicit var system: ActorSystem = null
 
   val numRequests = 1000
 
+  val numLargeEntityRequests = 100
+  // large entities span several DATA frames and exceed the initial flow-control windows
+  val largeEntitySize = 64 * 1024
+  var largeEntityRequest: HttpRequest = null
+
   @Param(Array("[]", "[\"reset\"]"))
   var frameTypeThrottleFrameTypes: String = null
 
   @Benchmark
   @OperationsPerInvocation(1000) // should be same as numRequest
-  def benchRequestProcessing(): Unit = {
+  def benchRequestProcessing(): Unit =
+    runRequests(httpFlow, request, numRequests)
+
+  @Benchmark
+  @OperationsPerInvocation(100) // should be same as numLargeEntityRequests
+  def benchLargeEntities(): Unit =
+    runRequests(largeEntitiesHttpFlow, largeEntityRequest, numLargeEntityRequests)
+
+  private def runRequests(
+      httpFlow: Flow[HttpRequest, HttpResponse, Any], request: HttpRequest, numRequests: Int): Unit = {
     implicit val ec: ExecutionContext = system.dispatcher
 
     val latch = new CountDownLatch(numRequests)
@@ -79,6 +94,14 @@ class H2ClientServerBenchmark extends CommonBenchmark with H2RequestResponseBenc
     val throttleConfig = ConfigFactory.parseString(
       s"pekko.http.server.http2.frame-type-throttle.frame-types=$frameTypeThrottleFrameTypes")
     system = ActorSystem("PekkoHttpBenchmarkSystem", throttleConfig.withFallback(config))
+    httpFlow = clientServerFlow(response)
+
+    val largeEntity = HttpEntity(ContentTypes.`application/octet-stream`, ByteString(new Array[Byte](largeEntitySize)))
+    largeEntityRequest = request.withEntity(largeEntity)
+    largeEntitiesHttpFlow = clientServerFlow(response.withEntity(largeEntity))
+  }
+
+  private def clientServerFlow(response: HttpResponse): Flow[HttpRequest, HttpResponse, Any] = {
     val settings = implicitly[ServerSettings]
     val log = system.log
     implicit val ec = system.dispatcher
@@ -97,7 +120,7 @@ class H2ClientServerBenchmark extends CommonBenchmark with H2RequestResponseBenc
     val server: Flow[ByteString, ByteString, Any] = Http2.priorKnowledge(http1, http2)
     val client: BidiFlow[HttpRequest, ByteString, ByteString, HttpResponse, NotUsed] =
       Http2Blueprint.clientStack(ClientConnectionSettings(system), log, NoOpTelemetry)
-    httpFlow = client.join(server)
+    client.join(server)
   }
 
   @TearDown
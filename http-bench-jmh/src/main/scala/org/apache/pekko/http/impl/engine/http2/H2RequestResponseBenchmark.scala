@@ -13,10 +13,15 @@
 
 package org.apache.pekko.http.impl.engine.http2
 
+import java.util.concurrent.CountDownLatch
+
+import scala.annotation.tailrec
+
 import org.openjdk.jmh.annotations.Param
 
 import org.apache.pekko
 import pekko.http.impl.engine.http2.FrameEvent.{ DataFrame, HeadersFrame }
+import pekko.http.impl.engine.http2.Http2Protocol.{ Flags, FrameType }
 import pekko.http.impl.engine.http2.framing.FrameRenderer
 import pekko.http.scaladsl.model.{
   AttributeKeys,
@@ -49,7 +54,7 @@ trait H2RequestResponseBenchmark extends HPackEncodingSupport {
   private val requestBytes = ByteString("abcde")
   private def requestWithoutBody(streamId: Int): ByteString =
     FrameRenderer.render(HeadersFrame(streamId, endStream = true, endHeaders = true, headerBlock(streamId), None))
-  private def requestWithSingleFrameBody(streamId: Int): ByteString =
+  protected def requestWithSingleFrameBody(streamId: Int): ByteString =
     FrameRenderer.render(HeadersFrame(streamId, endStream = false, endHeaders = true, headerBlock(streamId), None)) ++
     FrameRenderer.render(DataFrame(streamId, endStream = true, requestBytes))
 
@@ -109,6 +114,21 @@ trait H2RequestResponseBenchmark extends HPackEncodingSupport {
           .addAttribute(AttributeKeys.trailer, Trailer(trailerHeader :: Nil))
     }
   }
+  /** Counts down `latch` for every frame that ends a stream and returns the bytes of the last, incomplete frame */
+  @tailrec
+  protected final def countEndStreamFrames(bytes: ByteString, latch: CountDownLatch): ByteString =
+    if (bytes.length < 9) bytes
+    else {
+      val payloadLength = ((bytes(0) & 0xFF) << 16) | ((bytes(1) & 0xFF) << 8) | (bytes(2) & 0xFF)
+      if (bytes.length < 9 + payloadLength) bytes
+      else {
+        val tpe = bytes(3)
+        if ((tpe == FrameType.DATA.id || tpe == FrameType.HEADERS.id) && (bytes(4) & Flags.END_STREAM.value) != 0)
+          latch.countDown()
+        countEndStreamFrames(bytes.drop(9 + payloadLength), latch)
+      }
+    }
+
   private def initRequestHeaderBlocks(): Unit = {
     firstRequestHeaderBlock = encodeRequestHeaders(request)
     subsequentRequestHeaderBlock = encodeRequestHeaders(request) // second invocation will lead to different result
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import java.util.concurrent.{ CountDownLatch, ExecutorService, Executors, TimeUnit }
+
+import scala.concurrent.{ Await, ExecutionContext, Future }
+import scala.concurrent.duration._
+
+import org.openjdk.jmh.annotations._
+
+import org.apache.pekko
+import pekko.NotUsed
+import pekko.actor.ActorSystem
+import pekko.http.CommonBenchmark
+import pekko.http.impl.engine.server.ServerTerminator
+import pekko.http.scaladsl.Http
+import pekko.http.scaladsl.model.{ HttpMethods, HttpRequest, HttpResponse }
+import pekko.http.scaladsl.settings.{ ClientConnectionSettings, ServerSettings }
+import pekko.stream.TLSProtocol.{ SslTlsInbound, SslTlsOutbound }
+import pekko.stream.scaladsl.{ BidiFlow, Flow, Keep, Sink, Source }
+import pekko.util.ByteString
+
+import com.typesafe.config.ConfigFactory
+
+/**
+ * A client sends a burst of requests over one connection to a server whose handler can only work on a few requests at
+ * a time, so that requests queue up in front of the handler. With adaptive concurrency the server lowers
+ * SETTINGS_MAX_CONCURRENT_STREAMS and the requests wait in the client instead. Does not include the network.
+ */
+class H2ServerOverloadBenchmark extends CommonBenchmark {
+  implicit var system: ActorSystem = null
+  var handlerPool: ExecutorService = null
+  var httpFlow: Flow[HttpRequest, HttpResponse, Any] = null
+
+  val numRequests = 200
+  val handlerThreads = 4
+  val handlerLatencyMillis = 1L
+
+  @Param(Array("off", "on"))
+  var adaptiveConcurrency: String = null
+
+  val request = HttpRequest(method = HttpMethods.GET, uri = "http://www.example.com/")
+  val response = HttpResponse()
+
+  @Benchmark
+  @OperationsPerInvocation(200) // should be same as numRequests
+  def benchOverloadedHandler(): Unit = {
+    implicit val ec: ExecutionContext = system.dispatcher
+
+    val latch = new CountDownLatch(numRequests)
+
+    val (in, done) =
+      Source.repeat(request).take(numRequests)
+        .concatMat(Source.maybe)(Keep.right)
+        .viaMat(httpFlow)(Keep.left)
+        .toMat(Sink.foreach(res => {
+          res.discardEntityBytes().future.onComplete(_ => latch.countDown())
+        }))(Keep.both)
+        .run()
+
+    require(latch.await(10, TimeUnit.SECONDS), "Not all responses were received in time")
+
+    in.success(None)
+    Await.result(done, 10.seconds)
+  }
+
+  @Setup
+  def setup(): Unit = {
+    val config =
+      ConfigFactory.parseString(
+        s"""
+           pekko.http.server.http2.max-concurrent-streams = $numRequests
+           pekko.http.server.http2.adaptive-concurrency.enabled = $adaptiveConcurrency
+         """)
+        .withFallback(ConfigFactory.load())
+    system = ActorSystem("PekkoHttpBenchmarkSystem", config)
+    handlerPool = Executors.newFixedThreadPool(handlerThreads)
+
+    val settings = implicitly[ServerSettings]
+    val log = system.log
+    implicit val ec: ExecutionContext = system.dispatcher
+    val http1 = Flow[SslTlsInbound].mapAsync(1)(_ => {
+      Future.failed[SslTlsOutbound](new IllegalStateException("Failed h2 detection"))
+    }).mapMaterializedValue(_ =>
+      new ServerTerminator {
+        override def terminate(deadline: FiniteDuration)(implicit ex: ExecutionContext): Future[Http.HttpTerminated] =
+          ???
+      })
+    val handlerContext = ExecutionContext.fromExecutorService(handlerPool)
+    val http2 =
+      Http2Blueprint.handleWithStreamIdHeader(numRequests)(_ =>
+        Future {
+          Thread.sleep(handlerLatencyMillis)
+          response
+        }(handlerContext))(system.dispatcher)
+        .joinMat(Http2Blueprint.serverStackTls(settings, log, NoOpTelemetry, Http().dateHeaderRendering))(Keep.right)
+    val server: Flow[ByteString, ByteString, Any] = Http2.priorKnowledge(http1, http2)
+    val client: BidiFlow[HttpRequest, ByteString, ByteString, HttpResponse, NotUsed] =
+      Http2Blueprint.clientStack(ClientConnectionSettings(system), log, NoOpTelemetry)
+    httpFlow = client.join(server)
+  }
+
+  @TearDown
+  def tearDown(): Unit = {
+    handlerPool.shutdown()
+    system.terminate()
+  }
+}
@@ -14,6 +14,7 @@
 package org.apache.pekko.http.impl.engine.http2
 
 import java.util.concurrent.{ CountDownLatch, TimeUnit }
+import java.util.concurrent.atomic.AtomicInteger
 
 import scala.concurrent.{ Await, ExecutionContext, Future }
 import scala.concurrent.duration._
@@ -23,34 +24,71 @@ import org.openjdk.jmh.annotations._
 import org.apache.pekko
 import pekko.actor.ActorSystem
 import pekko.http.CommonBenchmark
+import pekko.http.impl.engine.http2.FrameEvent.{ Setting, SettingsFrame, WindowUpdateFrame }
+import pekko.http.impl.engine.http2.Http2Protocol.SettingIdentifier
+import pekko.http.impl.engine.http2.framing.FrameRenderer
 import pekko.http.impl.engine.server.ServerTerminator
 import pekko.http.scaladsl.Http
-import pekko.http.scaladsl.settings.ServerSettings
+import pekko.http.scaladsl.model.{ ContentTypes, HttpEntity, HttpRequest, HttpResponse }
+import pekko.http.scaladsl.settings.{ Http2ServerSettings, ServerSettings }
 import pekko.stream.TLSProtocol.{ SslTlsInbound, SslTlsOutbound }
 import pekko.stream.scaladsl.{ Flow, Keep, Sink, Source }
 import pekko.util.ByteString
 
 class H2ServerProcessingBenchmark extends CommonBenchmark with H2RequestResponseBenchmark {
 
+  @Param(Array("round-robin", "deficit-round-robin"))
+  var streamPrioritizer: String = null
+
   var httpFlow: Flow[ByteString, ByteString, Any] = null
+  var mixedHttpFlow: Flow[ByteString, ByteString, Any] = null
+  var strictEntityFlow: Flow[ByteString, ByteString, Any] = null
+  var streamedEntityFlow: Flow[ByteString, ByteString, Any] = null
   implicit var system: ActorSystem = null
 
   val packedResponse = ByteString(1, 5, 0, 0) // a HEADERS frame with end_stream == true
 
   val numRequests = 10000
 
+  val numMixedRequests = 1000
+  // every `largeResponseInterval`th response of the mixed scenario has a large entity
+  val largeResponseInterval = 10
+  val largeResponseSize = 128 * 1024
+
+  // SETTINGS and WINDOW_UPDATE frames that open the flow-control windows wide enough for the large responses
+  val openWindows =
+    FrameRenderer.render(
+      SettingsFrame(Setting(SettingIdentifier.SETTINGS_INITIAL_WINDOW_SIZE, Http2Protocol.MaxWindowSize) :: Nil)) ++
+    FrameRenderer.render(WindowUpdateFrame(0, Http2Protocol.MaxWindowSize - Http2Protocol.InitialWindowSize))
+
+  @Benchmark
+  @OperationsPerInvocation(10000) // should be same as numRequest
+  def benchRequestProcessing(): Unit = runRequests(httpFlow, requestDataCreator)
+
+  /**
+   * Requests with a body in a single DATA frame that are dispatched with a strict entity, the handler collects the
+   * entity. Run with `-prof gc` and compare `gc.alloc.rate.norm`, the bytes allocated per request, to
+   * `benchStreamedRequestEntities`.
+   */
+  @Benchmark
+  @OperationsPerInvocation(10000) // should be same as numRequest
+  def benchStrictRequestEntities(): Unit = runRequests(strictEntityFlow, requestWithSingleFrameBody)
+
+  /** Like `benchStrictRequestEntities` but the requests are dispatched with a streamed entity */
   @Benchmark
   @OperationsPerInvocation(10000) // should be same as numRequest
-  def benchRequestProcessing(): Unit = {
+  def benchStreamedRequestEntities(): Unit = runRequests(streamedEntityFlow, requestWithSingleFrameBody)
+
+  private def runRequests(flow: Flow[ByteString, ByteString, Any], requestData: Int => ByteString): Unit = {
     val latch = new CountDownLatch(numRequests)
 
     val requests =
-      Source(Http2Protocol.ClientConnectionPreface +: Range(0, numRequests).map(i => requestDataCreator(1 + 2 * i)))
+      Source(Http2Protocol.ClientConnectionPreface +: Range(0, numRequests).map(i => requestData(1 + 2 * i)))
         .concatMat(Source.maybe)(Keep.right)
 
     val (in, done) =
       requests
-        .viaMat(httpFlow)(Keep.left)
+        .viaMat(flow)(Keep.left)
         .toMat(Sink.foreach(res => {
           // Skip headers/settings frames etc
           if (res.containsSlice(HPackSpecExamples.C61FirstResponseWithHuffman)
@@ -66,14 +104,62 @@ class H2ServerProcessingBenchmark extends CommonBenchmark with H2RequestResponse
     Await.result(done, 10.seconds)
   }
 
+  /**
+   * Many concurrent streams where most responses are small but some are large, so that the small responses have to
+   * share the connection with the large ones.
+   */
+  @Benchmark
+  @OperationsPerInvocation(1000) // should be same as numMixedRequests
+  def benchMixedSizeResponses(): Unit = {
+    val latch = new CountDownLatch(numMixedRequests)
+
+    val requests =
+      Source(Http2Protocol.ClientConnectionPreface +: openWindows +:
+        Range(0, numMixedRequests).map(i => requestDataCreator(1 + 2 * i)))
+        .concatMat(Source.maybe)(Keep.right)
+
+    val (in, done) =
+      requests
+        .viaMat(mixedHttpFlow)(Keep.left)
+        .toMat(Sink.fold(ByteString.empty)((incomplete, bytes) => countEndStreamFrames(incomplete ++ bytes, latch)))(
+          Keep.both)
+        .run()
+
+    require(latch.await(10, TimeUnit.SECONDS), "Not all responses were received in time")
+
+    in.success(None)
+    Await.result(done, 10.seconds)
+  }
+
   @Setup
   def setup(): Unit = {
     initRequestResponse()
 
     system = ActorSystem("PekkoHttpBenchmarkSystem", config)
-    val settings = implicitly[ServerSettings]
+    implicit val ec: ExecutionContext = system.dispatcher
+    httpFlow = serverFlow(req => req.discardEntityBytes().future.map(_ => response))
+
+    val largeResponse =
+      response.withEntity(HttpEntity(ContentTypes.`application/octet-stream`,
+        ByteString(new Array[Byte](largeResponseSize))))
+    val responseCount = new AtomicInteger
+    mixedHttpFlow = serverFlow { req =>
+      req.discardEntityBytes().future.map { _ =>
+        if (responseCount.incrementAndGet() % largeResponseInterval == 0) largeResponse else response
+      }
+    }
+
+    val collectEntity: HttpRequest => Future[HttpResponse] = req => req.entity.toStrict(1.second).map(_ => response)
+    strictEntityFlow = serverFlow(collectEntity, _.withMinCollectStrictEntitySize(1))
+    streamedEntityFlow = serverFlow(collectEntity, _.withMinCollectStrictEntitySize(0))
+  }
+
+  private def serverFlow(handler: HttpRequest => Future[HttpResponse],
+      http2Settings: Http2ServerSettings => Http2ServerSettings = identity): Flow[ByteString, ByteString, Any] = {
+    val settings =
+      implicitly[ServerSettings].mapHttp2Settings(s => http2Settings(s.withStreamPrioritizer(streamPrioritizer)))
     val log = system.log
-    implicit val ec = system.dispatcher
+    implicit val ec: ExecutionContext = system.dispatcher
     val http1 = Flow[SslTlsInbound].mapAsync(1)(_ => {
       Future.failed[SslTlsOutbound](new IllegalStateException("Failed h2 detection"))
     }).mapMaterializedValue(_ =>
@@ -82,11 +168,9 @@ class H2ServerProcessingBenchmark extends CommonBenchmark with H2RequestResponse
           ???
       })
     val http2 =
-      Http2Blueprint.handleWithStreamIdHeader(1)(req => {
-        req.discardEntityBytes().future.map(_ => response)
-      })(system.dispatcher)
+      Http2Blueprint.handleWithStreamIdHeader(1)(handler)(system.dispatcher)
         .joinMat(Http2Blueprint.serverStackTls(settings, log, NoOpTelemetry, Http().dateHeaderRendering))(Keep.right)
-    httpFlow = Http2.priorKnowledge(http1, http2)
+    Http2.priorKnowledge(http1, http2)
   }
 
   @TearDown
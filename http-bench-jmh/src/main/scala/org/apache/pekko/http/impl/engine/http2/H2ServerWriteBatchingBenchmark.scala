@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import java.util.concurrent.{ CountDownLatch, ExecutorService, Executors, TimeUnit }
+
+import scala.concurrent.{ Await, ExecutionContext, Future }
+import scala.concurrent.duration._
+
+import org.openjdk.jmh.annotations._
+
+import org.apache.pekko
+import pekko.actor.ActorSystem
+import pekko.http.CommonBenchmark
+import pekko.http.impl.engine.server.ServerTerminator
+import pekko.http.scaladsl.Http
+import pekko.http.scaladsl.settings.ServerSettings
+import pekko.stream.TLSProtocol.{ SslTlsInbound, SslTlsOutbound }
+import pekko.stream.scaladsl.{ Flow, Keep, Sink, Source }
+import pekko.util.ByteString
+
+/**
+ * Many small requests on one connection. Reports the number of writes to the network per request as the
+ * `writesPerRequest` counter, to compare `frame-write-batch-size = 0` with batched writes.
+ *
+ * The network is simulated by a writer that accepts one write at a time and completes it on another thread, like the
+ * TCP stage, which waits for the acknowledgement of each write before it takes the next one.
+ */
+class H2ServerWriteBatchingBenchmark extends CommonBenchmark with H2RequestResponseBenchmark {
+  @Param(Array("0", "65536"))
+  var frameWriteBatchSize: String = null
+
+  implicit var system: ActorSystem = null
+  var writer: ExecutorService = null
+  var httpFlow: Flow[ByteString, ByteString, Any] = null
+
+  val numRequests = 1000
+
+  @Benchmark
+  @OperationsPerInvocation(1000) // should be same as numRequests
+  def benchSmallRequests(counters: WriteCounters): Unit = {
+    val writeContext = ExecutionContext.fromExecutorService(writer)
+    val latch = new CountDownLatch(numRequests)
+    var writes = 0
+
+    val requests =
+      Source(Http2Protocol.ClientConnectionPreface +: Range(0, numRequests).map(i => requestDataCreator(1 + 2 * i)))
+        .concatMat(Source.maybe)(Keep.right)
+
+    val (in, done) =
+      requests
+        .viaMat(httpFlow)(Keep.left)
+        .mapAsync(1)(bytes => Future(bytes)(writeContext))
+        .toMat(Sink.fold(ByteString.empty) { (incomplete, bytes) =>
+          writes += 1
+          countEndStreamFrames(incomplete ++ bytes, latch)
+        })(Keep.both)
+        .run()
+
+    require(latch.await(10, TimeUnit.SECONDS), "Not all responses were received in time")
+    counters.writes += writes
+    counters.requests += numRequests
+
+    in.success(None)
+    Await.result(done, 10.seconds)
+  }
+
+  @Setup
+  def setup(): Unit = {
+    initRequestResponse()
+
+    system = ActorSystem("PekkoHttpBenchmarkSystem", config)
+    writer = Executors.newSingleThreadExecutor()
+
+    val settings =
+      implicitly[ServerSettings].mapHttp2Settings(_.withFrameWriteBatchSize(frameWriteBatchSize.toInt))
+    val log = system.log
+    implicit val ec: ExecutionContext = system.dispatcher
+    val http1 = Flow[SslTlsInbound].mapAsync(1)(_ => {
+      Future.failed[SslTlsOutbound](new IllegalStateException("Failed h2 detection"))
+    }).mapMaterializedValue(_ =>
+      new ServerTerminator {
+        override def terminate(deadline: FiniteDuration)(implicit ex: ExecutionContext): Future[Http.HttpTerminated] =
+          ???
+      })
+    val http2 =
+      Http2Blueprint.handleWithStreamIdHeader(1)(req => req.discardEntityBytes().future.map(_ => response))(
+        system.dispatcher)
+        .joinMat(Http2Blueprint.serverStackTls(settings, log, NoOpTelemetry, Http().dateHeaderRendering))(Keep.right)
+    httpFlow = Http2.priorKnowledge(http1, http2)
+  }
+
+  @TearDown
+  def tearDown(): Unit = {
+    writer.shutdown()
+    system.terminate()
+  }
+}
+
+/** The writes and requests of an iteration of [[H2ServerWriteBatchingBenchmark]] */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+class WriteCounters {
+  var writes: Long = 0
+  var requests: Long = 0
+
+  @Setup(Level.Iteration)
+  def reset(): Unit = {
+    writes = 0
+    requests = 0
+  }
+
+  def writesPerRequest: Double = if (requests == 0) 0.0 else writes.toDouble / requests
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2.hpack
+
+import java.io.ByteArrayOutputStream
+
+import org.openjdk.jmh.annotations.{ Benchmark, Param, Setup }
+
+import org.apache.pekko
+import pekko.http.CommonBenchmark
+import pekko.http.impl.engine.http2.Http2Protocol
+import pekko.http.shaded.com.twitter.hpack.{ Decoder, Encoder, HeaderListener }
+import pekko.util.ByteString
+
+/**
+ * Compares the native HPACK codec with the Twitter HPACK codec it replaced, which is kept in the http2 test sources.
+ *
+ * `decodeLiteralHeaderBlock` decodes a header block of literals with a fresh decoder, `encodeWithFreshTable` encodes
+ * the same fields with a fresh encoder and `encodeIndexedFields` encodes them again with an encoder that has them in
+ * its dynamic table already.
+ */
+class HPackBenchmark extends CommonBenchmark {
+  @Param(Array("native", "twitter"))
+  var codec: String = _
+
+  val fields: Seq[(String, String)] = Seq(
+    ":status" -> "200",
+    "content-type" -> "application/grpc",
+    "date" -> "Sat, 17 Oct 2026 12:00:00 GMT",
+    "server" -> "pekko-http/2.0.0",
+    "cache-control" -> "private, max-age=0, no-cache",
+    "grpc-accept-encoding" -> "identity,deflate,gzip",
+    "x-request-id" -> "7f9c2ba4-e88f-4b8a-9e4c-5d2a1b3c4d5e",
+    "set-cookie" -> "session=af03e1b2c4d5; Path=/; HttpOnly; Secure")
+
+  var headerBlock: ByteString = _
+  var indexedEncode: () => ByteString = _
+
+  @Setup
+  def setup(): Unit = {
+    headerBlock = if (codec == "native") encodeNative(new HPackEncoder(0)) else encodeTwitter(new Encoder(0))
+
+    indexedEncode =
+      if (codec == "native") {
+        val encoder = new HPackEncoder(Http2Protocol.InitialMaxHeaderTableSize)
+        encodeNative(encoder)
+        () => encodeNative(encoder)
+      } else {
+        val encoder = new Encoder(Http2Protocol.InitialMaxHeaderTableSize)
+        encodeTwitter(encoder)
+        () => encodeTwitter(encoder)
+      }
+  }
+
+  @Benchmark
+  def decodeLiteralHeaderBlock(): Int =
+    if (codec == "native") {
+      var count = 0
+      new HPackDecoder(Http2Protocol.InitialMaxHeaderTableSize).decode(headerBlock,
+        new HPackDecoder.HeaderHandler {
+          def onHeader(name: String, value: String, parsed: AnyRef): AnyRef = {
+            count += 1
+            value
+          }
+        })
+      count
+    } else {
+      var count = 0
+      val decoder = new Decoder(Http2Protocol.InitialMaxHeaderListSize, Http2Protocol.InitialMaxHeaderTableSize)
+      decoder.decode(headerBlock.iterator.asInputStream,
+        new HeaderListener {
+          def addHeader(name: String, value: String, parsed: AnyRef, sensitive: Boolean): AnyRef = {
+            count += 1
+            value
+          }
+        })
+      decoder.endHeaderBlock()
+      count
+    }
+
+  @Benchmark
+  def encodeWithFreshTable(): ByteString =
+    if (codec == "native") encodeNative(new HPackEncoder(Http2Protocol.InitialMaxHeaderTableSize))
+    else encodeTwitter(new Encoder(Http2Protocol.InitialMaxHeaderTableSize))
+
+  @Benchmark
+  def encodeIndexedFields(): ByteString = indexedEncode()
+
+  private def encodeNative(encoder: HPackEncoder): ByteString = {
+    fields.foreach { case (name, value) => encoder.encodeHeader(name, value) }
+    encoder.encodedHeaderBlock()
+  }
+
+  private def encodeTwitter(encoder: Encoder): ByteString = {
+    val out = new ByteArrayOutputStream()
+    fields.foreach { case (name, value) => encoder.encodeHeader(out, name, value, false) }
+    ByteString.fromArrayUnsafe(out.toByteArray)
+  }
+}
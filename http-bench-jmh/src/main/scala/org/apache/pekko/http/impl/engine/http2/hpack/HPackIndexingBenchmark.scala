@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2.hpack
+
+import java.util.UUID
+
+import scala.util.Random
+
+import org.openjdk.jmh.annotations._
+
+import org.apache.pekko
+import pekko.http.CommonBenchmark
+import pekko.http.impl.engine.http2.Http2Protocol
+
+/**
+ * Encodes the response header blocks of a connection with each indexing strategy. The blocks look like gRPC responses
+ * with a unique request id and trace id each. Reports blocks per second and, as the `encodedBytes` counter, the bytes
+ * the blocks were encoded to.
+ */
+class HPackIndexingBenchmark extends CommonBenchmark {
+  import HPackIndexingBenchmark._
+
+  @Param(Array("always", "never", "adaptive"))
+  var indexingStrategy: String = _
+
+  var headerBlocks: Array[Array[(String, String)]] = _
+
+  @Setup
+  def setup(): Unit = {
+    val random = new Random(42)
+    def randomId(): String = new UUID(random.nextLong(), random.nextLong()).toString
+    headerBlocks = Array.fill(HeaderBlocks)(Array(
+      ":status" -> "200",
+      "content-type" -> "application/grpc",
+      "server" -> "pekko-http/2.0.0",
+      "grpc-accept-encoding" -> "identity,deflate,gzip",
+      "x-request-id" -> randomId(),
+      "x-trace-id" -> randomId()))
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(10000) // should be same as HeaderBlocks
+  def encodeHeaderBlocks(counters: EncodedBytesCounters): Unit = {
+    val strategy = indexingStrategy match {
+      case "always" => HPackIndexingStrategy.Always
+      case "never"  => HPackIndexingStrategy.Never
+      case _        => HPackIndexingStrategy.adaptive()
+    }
+    val encoder = new HPackEncoder(Http2Protocol.InitialMaxHeaderTableSize, strategy)
+    var bytes = 0L
+    var i = 0
+    while (i < headerBlocks.length) {
+      headerBlocks(i).foreach { case (name, value) => encoder.encodeHeader(name, value) }
+      bytes += encoder.encodedHeaderBlock().length
+      i += 1
+    }
+    counters.encodedBytes = bytes
+  }
+}
+
+object HPackIndexingBenchmark {
+  val HeaderBlocks = 10000
+}
+
+/** The bytes the header blocks of an invocation of [[HPackIndexingBenchmark]] were encoded to */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+class EncodedBytesCounters {
+  var encodedBytes: Long = 0
+}
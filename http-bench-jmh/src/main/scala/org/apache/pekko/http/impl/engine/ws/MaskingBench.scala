@@ -13,16 +13,23 @@
 
 package org.apache.pekko.http.impl.engine.ws
 
-import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.{ Benchmark, Param, Setup }
 
 import org.apache.pekko
 import pekko.http.CommonBenchmark
 import pekko.util.ByteString
 
 class MaskingBench extends CommonBenchmark {
-  val data = ByteString(new Array[Byte](10000))
+  @Param(Array("16", "125", "1024", "16384", "1048576"))
+  var size: String = _
+
+  var data: ByteString = _
   val mask = 0xFEDCBA09
 
+  @Setup
+  def setup(): Unit =
+    data = ByteString(new Array[Byte](size.toInt))
+
   @Benchmark
   def benchRequestProcessing(): (ByteString, Int) =
     FrameEventParser.mask(data, mask)
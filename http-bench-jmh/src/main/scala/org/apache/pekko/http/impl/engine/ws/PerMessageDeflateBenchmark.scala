@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.ws
+
+import org.openjdk.jmh.annotations._
+
+import org.apache.pekko
+import pekko.http.CommonBenchmark
+import pekko.http.impl.engine.http2.NoOpTelemetry
+import pekko.http.impl.settings.WebSocketCompressionSettingsImpl
+import pekko.stream.Attributes
+import pekko.util.ByteString
+
+/**
+ * Compresses one message for each of many connections, with and without context takeover. Reports messages per second
+ * and, as the `nativeMemoryPerConnection` counter, the estimated zlib memory per connection.
+ */
+class PerMessageDeflateBenchmark extends CommonBenchmark {
+  import PerMessageDeflateBenchmark._
+
+  @Param(Array("false", "true"))
+  var noContextTakeover: String = null
+
+  var deflaters: Array[PerMessageDeflate.DeflaterFlow] = null
+
+  val message: FrameEvent =
+    FrameEvent.fullFrame(Protocol.Opcode.Text, None,
+      ByteString("""{"id":12345,"type":"update","values":[1,2,3,4,5,6,7,8,9,10]}""" * 16), fin = true)
+
+  @Benchmark
+  @OperationsPerInvocation(1000) // should be same as Connections
+  def benchCompressMessages(counters: MemoryCounters): Unit = {
+    var i = 0
+    while (i < deflaters.length) {
+      deflaters(i)(message)
+      i += 1
+    }
+    counters.nativeMemory = PerMessageDeflate.estimatedNativeMemory
+  }
+
+  @Setup
+  def setup(): Unit = {
+    val settings = WebSocketCompressionSettingsImpl.Disabled.copy(enabled = true, poolSize = 64)
+    val noContext = noContextTakeover.toBoolean
+    deflaters = Array.fill(Connections)(
+      new PerMessageDeflate.DeflaterFlow(
+        noContext,
+        settings,
+        PerMessageDeflate.compressionFactory(noContext, settings),
+        _ => true,
+        rsv1IndicatesCompression = false))
+    deflaters.foreach(_.open(NoOpTelemetry, Attributes.none))
+  }
+
+  @TearDown
+  def tearDown(): Unit =
+    deflaters.foreach(_.close())
+}
+
+object PerMessageDeflateBenchmark {
+  val Connections = 1000
+}
+
+/** The estimated zlib memory at the end of an iteration of [[PerMessageDeflateBenchmark]] */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+class MemoryCounters {
+  var nativeMemory: Long = 0
+
+  def nativeMemoryPerConnection: Long = nativeMemory / PerMessageDeflateBenchmark.Connections
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.ws
+
+import scala.concurrent.Await
+import scala.concurrent.duration._
+
+import org.openjdk.jmh.annotations._
+
+import org.apache.pekko
+import pekko.NotUsed
+import pekko.actor.ActorSystem
+import pekko.http.CommonBenchmark
+import pekko.stream.scaladsl.{ Sink, Source }
+import pekko.util.ByteString
+
+/**
+ * Decodes single frame text messages of about chat size (50 and 500 bytes) and of a large size, either ASCII only or with
+ * a non-ASCII character every 16 characters. `decode` measures the UTF-8 decoder alone, `receiveMessages` the frame
+ * handling and message collection that turns frames into user-level messages.
+ */
+class TextMessageDecodingBenchmark extends CommonBenchmark {
+  import TextMessageDecodingBenchmark._
+
+  @Param(Array("50", "500", "65536"))
+  var size: String = _
+
+  @Param(Array("ascii", "mixed"))
+  var content: String = _
+
+  implicit var system: ActorSystem = _
+  var data: ByteString = _
+  var frames: Source[FrameEventOrError, NotUsed] = _
+
+  @Setup
+  def setup(): Unit = {
+    system = ActorSystem("text-message-decoding-benchmark")
+    val chars =
+      Iterator.from(0).map(i => if (content == "mixed" && i % 16 == 15) '\u00e4' else ('a' + i % 26).toChar)
+    data = ByteString(chars.take(size.toInt).mkString, "UTF-8")
+    val frame = FrameEvent.fullFrame(Protocol.Opcode.Text, None, data, fin = true)
+    frames = Source(Vector.fill(MessagesPerInvocation)(frame))
+  }
+
+  @TearDown
+  def tearDown(): Unit =
+    Await.result(system.terminate(), 5.seconds)
+
+  @Benchmark
+  def decode(): String =
+    Utf8Decoder.decode(data).get
+
+  @Benchmark
+  @OperationsPerInvocation(1000) // should be same as MessagesPerInvocation
+  def receiveMessages(): Unit =
+    Await.result(
+      frames
+        .via(FrameHandler.create(server = false))
+        .collect { case part: FrameHandler.MessagePart => part }
+        .via(WebSocket.prepareMessages)
+        .runWith(Sink.ignore),
+      5.seconds)
+}
+
+object TextMessageDecodingBenchmark {
+  val MessagesPerInvocation = 1000
+}
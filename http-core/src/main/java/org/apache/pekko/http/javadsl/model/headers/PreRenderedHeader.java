@@ -0,0 +1,31 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.javadsl.model.headers;
+
+import org.apache.pekko.annotation.ApiMayChange;
+import org.apache.pekko.annotation.DoNotInherit;
+import org.apache.pekko.http.javadsl.model.HttpHeader;
+
+/**
+ * Wraps a header that is attached unchanged to many messages so that it is rendered only once,
+ * when the wrapper is created, rather than once per message. Only wrap headers whose instances are
+ * reused.
+ */
+@ApiMayChange
+@DoNotInherit
+public abstract class PreRenderedHeader extends org.apache.pekko.http.scaladsl.model.HttpHeader {
+  /** Returns the wrapped header. */
+  public abstract HttpHeader getHeader();
+
+  public static PreRenderedHeader create(HttpHeader header) {
+    return org.apache.pekko.http.scaladsl.model.headers.PreRenderedHeader.apply(
+        (org.apache.pekko.http.scaladsl.model.HttpHeader) header);
+  }
+}
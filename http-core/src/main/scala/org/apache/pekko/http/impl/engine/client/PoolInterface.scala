@@ -14,15 +14,17 @@
 package org.apache.pekko.http.impl.engine.client
 
 import org.apache.pekko
-import pekko.Done
+import pekko.{ Done, NotUsed }
 import pekko.actor._
 import pekko.annotation.InternalStableApi
 import pekko.event.{ LogSource, Logging, LoggingAdapter }
 import pekko.http.impl.engine.client.PoolFlow._
 import pekko.http.impl.engine.client.pool.NewHostConnectionPool
+import pekko.http.impl.engine.http2.Http2
+import pekko.http.impl.engine.http2.client.Http2HostPool
 import pekko.http.impl.util._
 import pekko.http.scaladsl.model._
-import pekko.http.scaladsl.Http
+import pekko.http.scaladsl.{ Http, HttpsConnectionContext }
 import pekko.macros.LogHelper
 import pekko.stream.Attributes
 import pekko.stream.FlowShape
@@ -51,6 +53,14 @@ private[http] trait PoolInterface {
    * If the queue in front of the pool is full, the promise will be failed with a BufferOverflowException.
    */
   def request(request: HttpRequest, responsePromise: Promise[HttpResponse]): Unit
+
+  /**
+   * Establish the configured `warm-up-connections` and complete the future when they are ready to serve requests.
+   */
+  def warmUp(): Future[Done]
+
+  /** The TLS handshakes of the connections of this pool */
+  def tlsSessionStats: TlsSessionStats
   def shutdown()(implicit ec: ExecutionContext): Future[PoolInterface.ShutdownReason]
   def whenShutdown: Future[PoolInterface.ShutdownReason]
 }
@@ -72,19 +82,50 @@ private[http] object PoolInterface {
 
     log.debug("Creating pool.")
 
+    val tlsSessionStats = new TlsSessionStats
     val connectionFlow =
       Http().outgoingConnectionUsingContext(host, port, connectionContext, settings.connectionSettings, setup.log)
+        .addAttributes(Attributes(TlsSessionTracking.Stats(tlsSessionStats)))
 
-    val poolFlow = NewHostConnectionPool(connectionFlow, settings, log).named("PoolFlow")
+    val warmUp = new PoolWarmUp
+    val poolFlow =
+      if (settings.useHttp2) http2PoolFlow(poolId, log, warmUp, tlsSessionStats)
+      else NewHostConnectionPool(connectionFlow, settings, log, warmUp).named("PoolFlow")
 
-    Flow.fromGraph(new PoolInterfaceStage(poolId, master, settings.maxOpenRequests, log))
+    Flow.fromGraph(new PoolInterfaceStage(poolId, master, settings.maxOpenRequests, warmUp, tlsSessionStats, log))
       .join(poolFlow)
       .run()
   }
 
+  private final case class Http2RequestContext(ctx: RequestContext) extends RequestResponseAssociation
+  private val Http2RequestContextKey = AttributeKey[Http2RequestContext]("PoolInterface.requestContext")
+
+  /** Multiplexes the requests of the pool over HTTP/2 connections, see `host-connection-pool.use-http2` */
+  private def http2PoolFlow(poolId: PoolId, log: LoggingAdapter, warmUp: PoolWarmUp, tlsSessionStats: TlsSessionStats)(
+      implicit system: ActorSystem): Flow[RequestContext, ResponseContext, NotUsed] = {
+    import poolId.hcps._
+    import setup.{ connectionContext, settings }
+    val connectionFlow = connectionContext match {
+      case https: HttpsConnectionContext =>
+        Http2().outgoingConnection(host, port, https, settings.connectionSettings, setup.log)
+      case _ =>
+        Http2().outgoingConnectionPriorKnowledge(host, port, settings.connectionSettings, setup.log)
+    }
+    val trackedConnectionFlow = connectionFlow.addAttributes(Attributes(TlsSessionTracking.Stats(tlsSessionStats)))
+    Flow[RequestContext]
+      .map(ctx => ctx.request.addAttribute(Http2RequestContextKey, Http2RequestContext(ctx)))
+      .via(Http2HostPool(trackedConnectionFlow, settings, log, warmUp))
+      .map { response =>
+        val ctx = response.attribute(Http2RequestContextKey).get.ctx
+        ResponseContext(ctx, Success(response.removeAttribute(Http2RequestContextKey)))
+      }
+      .named("Http2PoolFlow")
+  }
+
   private val IdleTimeout = "idle-timeout"
 
-  class PoolInterfaceStage(poolId: PoolId, master: PoolMaster, bufferSize: Int, log: LoggingAdapter)
+  class PoolInterfaceStage(poolId: PoolId, master: PoolMaster, bufferSize: Int,
+      warmUp: PoolWarmUp, tlsSessionStats: TlsSessionStats, log: LoggingAdapter)
       extends GraphStageWithMaterializedValue[FlowShape[ResponseContext, RequestContext], PoolInterface] {
     private val requestOut = Outlet[RequestContext]("PoolInterface.requestOut")
     private val responseIn = Inlet[ResponseContext]("PoolInterface.responseIn")
@@ -95,7 +136,7 @@ private[http] object PoolInterface {
     override def createLogicAndMaterializedValue(
         inheritedAttributes: Attributes, _materializer: Materializer): (GraphStageLogic, PoolInterface) = {
       import _materializer.executionContext
-      val logic = new Logic(poolId, shape, master, requestOut, responseIn, bufferSize, log)
+      val logic = new Logic(poolId, shape, master, requestOut, responseIn, bufferSize, warmUp, tlsSessionStats, log)
       (logic, logic)
     }
   }
@@ -103,7 +144,8 @@ private[http] object PoolInterface {
   @InternalStableApi // name `Logic` and annotated methods
   private class Logic(poolId: PoolId, shape: FlowShape[ResponseContext, RequestContext], master: PoolMaster,
       requestOut: Outlet[RequestContext], responseIn: Inlet[ResponseContext], bufferSize: Int,
-      val log: LoggingAdapter)(implicit executionContext: ExecutionContext) extends TimerGraphStageLogic(shape)
+      poolWarmUp: PoolWarmUp, val tlsSessionStats: TlsSessionStats, val log: LoggingAdapter)(
+      implicit executionContext: ExecutionContext) extends TimerGraphStageLogic(shape)
       with PoolInterface with InHandler with OutHandler with LogHelper {
     private val PoolOverflowException = new BufferOverflowException( // stack trace cannot be prevented here because `BufferOverflowException` is final
       s"Exceeded configured max-open-requests value of [${poolId.hcps.setup.settings.maxOpenRequests}]. This means that the request queue of this pool (${poolId.hcps}) " +
@@ -171,9 +213,16 @@ private[http] object PoolInterface {
         val hostHeader = headers.Host(hcps.host, Uri.normalizePort(hcps.port, scheme))
         val effectiveRequest =
           onDispatch(
-            request
-              .withUri(request.uri.toHttpRequestTargetOriginForm)
-              .withDefaultHeaders(hostHeader))
+            if (hcps.setup.settings.useHttp2)
+              // HTTP/2 requests carry the target host in the `:authority` pseudo-header rendered from the uri
+              request.withUri(
+                request.uri.toHttpRequestTargetOriginForm
+                  .withScheme(scheme)
+                  .withAuthority(hcps.host, Uri.normalizePort(hcps.port, scheme)))
+            else
+              request
+                .withUri(request.uri.toHttpRequestTargetOriginForm)
+                .withDefaultHeaders(hostHeader))
         val retries = if (request.method.isIdempotent) hcps.setup.settings.maxRetries else 0
         remainingRequested += 1
         resetIdleTimer()
@@ -219,7 +268,12 @@ private[http] object PoolInterface {
       !shuttingDown && remainingRequested == 0 && idleTimeout.isFinite && hcps.setup.settings.minConnections == 0
 
     override def onUpstreamFailure(ex: Throwable): Unit = shutdownPromise.tryFailure(ex)
-    override def postStop(): Unit = shutdownPromise.tryFailure(new IllegalStateException("Pool shutdown unexpectedly"))
+    override def postStop(): Unit = {
+      if (hcps.setup.connectionContext.isSecure)
+        debug(s"Pool stopped after ${tlsSessionStats.resumedHandshakes} resumed and " +
+          s"${tlsSessionStats.fullHandshakes} full TLS handshakes")
+      shutdownPromise.tryFailure(new IllegalStateException("Pool shutdown unexpectedly"))
+    }
 
     // PoolInterface implementations
     override def request(request: HttpRequest, responsePromise: Promise[HttpResponse]): Unit =
@@ -228,6 +282,14 @@ private[http] object PoolInterface {
           "Request was sent to pool which was already closed, retrying through the master to create new pool instance")
         responsePromise.completeWith(master.dispatchRequest(poolId, request)(materializer))
       }
+    override def warmUp(): Future[Done] = {
+      val settings = hcps.setup.settings
+      val connections =
+        math.min(if (settings.warmUpConnections > 0) settings.warmUpConnections else settings.minConnections,
+          settings.maxConnections)
+      debug(s"Warming up $connections connections")
+      poolWarmUp(connections, firstConnectionAlone = hcps.setup.connectionContext.isSecure)
+    }
     override def shutdown()(implicit ec: ExecutionContext): Future[ShutdownReason] = {
       shutdownCallback.invoke(())
       whenShutdown
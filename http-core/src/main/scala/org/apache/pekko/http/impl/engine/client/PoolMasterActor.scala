@@ -65,6 +65,18 @@ private[http] class PoolMaster(val ref: ActorRef) {
    */
   def startPool(poolId: PoolId)(implicit fm: Materializer): Unit = ref ! StartPool(poolId, fm)
 
+  /**
+   * Start the corresponding pool if it is not running and establish its `warm-up-connections`. If it is being
+   * shutdown, it will be restarted and warmed up as soon as the shutdown operation is complete.
+   *
+   * @return a Future completed when the connections have been established
+   */
+  def warmUp(poolId: PoolId)(implicit fm: Materializer): Future[Done] = {
+    val warmedUpPromise = Promise[Done]()
+    ref ! WarmUpPool(poolId, warmedUpPromise, fm)
+    warmedUpPromise.future
+  }
+
   /**
    * Shutdown the corresponding pool and signal its termination. If the pool is not running or is
    * being shutting down, this does nothing.
@@ -179,6 +191,17 @@ private[http] final class PoolMasterActor extends Actor with ActorLogging {
           startPoolInterface(poolId)(materializer).request(request, responsePromise)
       }
 
+    // Establish connections of a pool ahead of requests. If needed, the pool will be started or restarted.
+    case s @ WarmUpPool(poolId, warmedUpPromise, materializer) =>
+      statusById.get(poolId) match {
+        case Some(PoolInterfaceRunning(pool)) =>
+          warmedUpPromise.completeWith(pool.warmUp())
+        case Some(PoolInterfaceShuttingDown(shutdownCompletedPromise)) =>
+          shutdownCompletedPromise.future.onComplete(_ => self ! s)(context.dispatcher)
+        case None =>
+          warmedUpPromise.completeWith(startPoolInterface(poolId)(materializer).warmUp())
+      }
+
     // Shutdown a pool and signal its termination.
     case Shutdown(poolId, shutdownCompletedPromise) =>
       statusById.get(poolId) match {
@@ -255,6 +278,8 @@ private[http] object PoolMasterActor {
   final case class SendRequest(poolId: PoolId, request: HttpRequest, responsePromise: Promise[HttpResponse],
       materializer: Materializer)
       extends NoSerializationVerificationNeeded
+  final case class WarmUpPool(poolId: PoolId, warmedUpPromise: Promise[Done], materializer: Materializer)
+      extends NoSerializationVerificationNeeded
   final case class Shutdown(poolId: PoolId, shutdownCompletedPromise: Promise[Done])
       extends NoSerializationVerificationNeeded with DeadLetterSuppression
   final case class ShutdownAll(shutdownCompletedPromise: Promise[Done]) extends NoSerializationVerificationNeeded
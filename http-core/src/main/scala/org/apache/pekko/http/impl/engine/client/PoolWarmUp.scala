@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.client
+
+import scala.concurrent.{ ExecutionContext, Future, Promise }
+
+import org.apache.pekko
+import pekko.Done
+import pekko.annotation.InternalApi
+import pekko.stream.stage.AsyncCallback
+
+/**
+ * INTERNAL API
+ *
+ * Establishes connections of a running pool ahead of the first requests, see `Http().warmUpHostConnectionPool`.
+ * Bound to the pool stage when the pool is materialized.
+ */
+@InternalApi
+private[http] final class PoolWarmUp {
+  @volatile private var callback: AsyncCallback[(Int, Boolean, Promise[Done])] = _
+
+  private[http] def bind(callback: AsyncCallback[(Int, Boolean, Promise[Done])]): Unit = this.callback = callback
+
+  /**
+   * Opens connections until `connections` of them are established and completes when all of them are ready.
+   *
+   * @param firstConnectionAlone establish the first connection before opening the others, so that they can resume
+   *                             its TLS session
+   */
+  def apply(connections: Int, firstConnectionAlone: Boolean): Future[Done] =
+    if (callback eq null) Future.failed(new IllegalStateException("Pool has not been started"))
+    else {
+      val done = Promise[Done]()
+      callback.invokeWithFeedback((connections, firstConnectionAlone, done))
+        .flatMap(_ => done.future)(ExecutionContext.parasitic)
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.client
+
+import java.util.concurrent.atomic.LongAdder
+
+import javax.net.ssl.SSLSession
+
+import org.apache.pekko
+import pekko.NotUsed
+import pekko.annotation.InternalApi
+import pekko.http.impl.engine.http2.{ Http2, NoOpTelemetry, TelemetrySpi }
+import pekko.stream.{ Attributes, FlowShape, Inlet, Outlet }
+import pekko.stream.TLSProtocol.{ SessionBytes, SslTlsInbound, SslTlsOutbound }
+import pekko.stream.scaladsl.{ BidiFlow, Flow }
+import pekko.stream.stage.{ GraphStage, GraphStageLogic, InHandler, OutHandler }
+
+/**
+ * INTERNAL API
+ *
+ * Counts how many of the TLS handshakes of outgoing connections resumed a session from the session cache of the
+ * `SSLContext` instead of doing a full handshake. Thread-safe, the connections of a pool report concurrently. Logged
+ * when the pool stops, the telemetry gets every handshake as it happens.
+ */
+@InternalApi
+private[http] final class TlsSessionStats {
+  private val full = new LongAdder
+  private val resumed = new LongAdder
+
+  def fullHandshakes: Long = full.sum()
+  def resumedHandshakes: Long = resumed.sum()
+
+  /** The share of handshakes that resumed a session, 0 if there were none yet */
+  def resumptionRate: Double = {
+    val r = resumedHandshakes
+    val total = r + fullHandshakes
+    if (total == 0) 0.0 else r.toDouble / total
+  }
+
+  def record(wasResumed: Boolean): Unit =
+    if (wasResumed) resumed.increment() else full.increment()
+
+  override def toString: String = s"TlsSessionStats(full = $fullHandshakes, resumed = $resumedHandshakes)"
+}
+
+/**
+ * INTERNAL API
+ *
+ * Reports the TLS handshakes of outgoing connections to the telemetry and to the [[TlsSessionStats]] given in the
+ * [[TlsSessionTracking.Stats]] attribute of the connection flow, e.g. the one of the pool the connection belongs to.
+ */
+@InternalApi
+private[http] object TlsSessionTracking {
+  final case class Stats(stats: TlsSessionStats) extends Attributes.Attribute
+
+  /** Bound to a session on its first handshake */
+  private val SeenMarker = "org.apache.pekko.http.TlsSessionTracking.seen"
+
+  /** To be put on top of the client-side TLS stage of a connection to the given peer */
+  def bidi(host: String, port: Int): BidiFlow[SslTlsOutbound, SslTlsOutbound, SslTlsInbound, SslTlsInbound, NotUsed] =
+    BidiFlow.fromFlows(Flow[SslTlsOutbound], Flow.fromGraph(new TrackingStage(host, port)))
+
+  /**
+   * Whether the handshake that established `session` resumed it. Resuming hands the engine the session object from the
+   * session cache of the `SSLContext`, so a session that already carries the marker bound on its first handshake was
+   * resumed, no matter which connection or pool did that first handshake.
+   */
+  def wasResumed(session: SSLSession): Boolean =
+    if (session.getValue(SeenMarker) ne null) true
+    else {
+      session.putValue(SeenMarker, java.lang.Boolean.TRUE)
+      false
+    }
+
+  /** Inspects the session of the first inbound data, which arrives once the handshake completed */
+  private final class TrackingStage(host: String, port: Int)
+      extends GraphStage[FlowShape[SslTlsInbound, SslTlsInbound]] {
+    val in = Inlet[SslTlsInbound]("TlsSessionTracking.in")
+    val out = Outlet[SslTlsInbound]("TlsSessionTracking.out")
+    override val shape = FlowShape(in, out)
+
+    override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
+      new GraphStageLogic(shape) with InHandler with OutHandler {
+        private val stats: TlsSessionStats = inheritedAttributes.get[Stats].map(_.stats).orNull
+        private var telemetry: TelemetrySpi = NoOpTelemetry
+        private var tracking = true
+
+        override def preStart(): Unit = telemetry = Http2(materializer.system).telemetry
+
+        override def onPush(): Unit = {
+          val element = grab(in)
+          if (tracking) element match {
+            case SessionBytes(session, _) =>
+              val resumed = wasResumed(session)
+              if (stats ne null) stats.record(resumed)
+              telemetry.clientTlsHandshake(inheritedAttributes, host, port, resumed)
+              tracking = false
+            case _ =>
+          }
+          push(out, element)
+        }
+
+        override def onPull(): Unit = pull(in)
+
+        setHandlers(in, out, this)
+      }
+  }
+}
@@ -15,24 +15,28 @@ package org.apache.pekko.http.impl.engine.client.pool
 
 import java.time.Instant
 import java.util
+import java.util.concurrent.ThreadLocalRandom
 
 import org.apache.pekko
-import pekko.NotUsed
+import pekko.{ Done, NotUsed }
 import pekko.actor.Cancellable
 import pekko.annotation.InternalApi
 import pekko.event.LoggingAdapter
 import pekko.http.impl.engine.client.PoolFlow.{ RequestContext, ResponseContext }
+import pekko.http.impl.engine.client.PoolWarmUp
 import pekko.http.impl.engine.client.pool.SlotState._
 import pekko.http.impl.util.{ RichHttpRequest, StageLoggingWithOverride, StreamUtils }
 import pekko.http.scaladsl.Http
 import pekko.http.scaladsl.model.{ headers, HttpEntity, HttpRequest, HttpResponse }
 import pekko.http.scaladsl.settings.ConnectionPoolSettings
+import pekko.http.scaladsl.settings.ConnectionPoolSettings.SlotSelection
 import pekko.util.OptionVal
 import pekko.stream._
 import pekko.stream.scaladsl.{ Flow, Keep, Sink, Source }
 import pekko.stream.stage.{ GraphStage, GraphStageLogic, InHandler, OutHandler }
 
-import scala.concurrent.{ ExecutionContext, Future }
+import scala.annotation.tailrec
+import scala.concurrent.{ ExecutionContext, Future, Promise }
 import scala.concurrent.duration._
 import scala.jdk.CollectionConverters._
 import scala.util.control.{ NoStackTrace, NonFatal }
@@ -59,12 +63,13 @@ import scala.util.{ Failure, Random, Success, Try }
 private[client] object NewHostConnectionPool {
   def apply(
       connectionFlow: Flow[HttpRequest, HttpResponse, Future[Http.OutgoingConnection]],
-      settings: ConnectionPoolSettings, log: LoggingAdapter): Flow[RequestContext, ResponseContext, NotUsed] =
-    Flow.fromGraph(new HostConnectionPoolStage(connectionFlow, settings, log))
+      settings: ConnectionPoolSettings, log: LoggingAdapter,
+      warmUp: PoolWarmUp = new PoolWarmUp): Flow[RequestContext, ResponseContext, NotUsed] =
+    Flow.fromGraph(new HostConnectionPoolStage(connectionFlow, settings, log, warmUp))
 
   private final class HostConnectionPoolStage(
       connectionFlow: Flow[HttpRequest, HttpResponse, Future[Http.OutgoingConnection]],
-      _settings: ConnectionPoolSettings, _log: LoggingAdapter)
+      _settings: ConnectionPoolSettings, _log: LoggingAdapter, warmUp: PoolWarmUp)
       extends GraphStage[FlowShape[RequestContext, ResponseContext]] {
     val requestsIn = Inlet[RequestContext]("HostConnectionPoolStage.requestsIn")
     val responsesOut = Outlet[ResponseContext]("HostConnectionPoolStage.responsesOut")
@@ -88,12 +93,24 @@ private[client] object NewHostConnectionPool {
         // more deterministic: Done like that, the lower-numbered slots will be preferred over higher-numbered ones which will make it more likely
         // that higher-numbered slots will idle out if they are not used, so that the dynamic pool size will adapt itself automatically.
         // The downside is that there's less distribution over different slots/connections when the pool is not fully saturated.
+        // That ordering is what `slot-selection = first-idle` uses, the other strategies pick among the idle slots by latency.
         val idleSlots: util.TreeSet[Slot] = {
           val res = new util.TreeSet[Slot]((o1: Slot, o2: Slot) => java.lang.Integer.compare(o1.slotId, o2.slotId))
           res.addAll(slots.asJava)
           res
         } // fast set to track idle slots
         val retryBuffer: util.Deque[RequestContext] = new util.ArrayDeque[RequestContext]
+        val slotSelection: SlotSelection = _settings.slotSelection
+
+        // warm-ups waiting for their number of established connections
+        private var pendingWarmUps: List[(Int, Promise[Done])] = Nil
+        // connections to open once the first connection of a warm-up has been established
+        private var deferredWarmUpConnections = 0
+        // connection attempts that failed in a row while warm-ups were pending
+        private var failedWarmUpAttempts = 0
+        warmUp.bind(getAsyncCallback[(Int, Boolean, Promise[Done])] {
+          case (connections, firstConnectionAlone, done) => startWarmUp(connections, firstConnectionAlone, done)
+        })
         var _connectionEmbargo: FiniteDuration = Duration.Zero
         def baseEmbargo: FiniteDuration = _settings.baseConnectionBackoff
         def maxBaseEmbargo: FiniteDuration = _settings.maxConnectionBackoff / 2 // because we'll add a random component of the same size to the base
@@ -142,15 +159,114 @@ private[client] object NewHostConnectionPool {
             push(responsesOut, ResponseContext(req, result))
 
         def dispatchRequest(req: RequestContext): Unit = {
-          val slot = idleSlots.first()
+          val slot = selectIdleSlot()
           idleSlots.remove(slot)
 
           slot.debug(s"Dispatching request [${req.request.debugString}]")
           slot.onNewRequest(req)
         }
 
+        def selectIdleSlot(): Slot = slotSelection match {
+          case SlotSelection.FirstIdle => idleSlots.first()
+          case SlotSelection.PowerOfTwoChoices =>
+            val first = randomIdleSlot()
+            val second = randomIdleSlot()
+            if (latencyCost(second) < latencyCost(first)) second else first
+          case SlotSelection.EwmaLatency =>
+            val it = idleSlots.iterator()
+            var best = it.next()
+            while (it.hasNext) {
+              val slot = it.next()
+              if (latencyCost(slot) < latencyCost(best)) best = slot
+            }
+            best
+        }
+
+        // an unconnected slot would have to open a connection first, so connected slots are preferred
+        private def latencyCost(slot: Slot): Double =
+          if (slot.isConnected) slot.stats.latencyEwmaNanos else Double.MaxValue
+
+        /**
+         * Probes a few random slots for an idle one and falls back to the lowest-numbered idle slot if the pool is
+         * so busy that none was found.
+         */
+        private def randomIdleSlot(): Slot = {
+          val random = ThreadLocalRandom.current()
+          @tailrec def probe(remaining: Int): Slot =
+            if (remaining == 0) idleSlots.first()
+            else {
+              val slot = slots(random.nextInt(slots.size))
+              if (idleSlots.contains(slot)) slot else probe(remaining - 1)
+            }
+          probe(4)
+        }
+
         def numConnectedSlots: Int = slots.count(_.isConnected)
 
+        def startWarmUp(connections: Int, firstConnectionAlone: Boolean, done: Promise[Done]): Unit = {
+          val target = math.min(connections, slots.size)
+          if (numEstablishedConnections >= target) done.trySuccess(Done)
+          else {
+            pendingWarmUps ::= target -> done
+            if (firstConnectionAlone && numEstablishedConnections == 0) {
+              deferredWarmUpConnections = math.max(deferredWarmUpConnections, target)
+              preconnectSlots(1)
+            } else preconnectSlots(target)
+          }
+        }
+
+        private def numEstablishedConnections: Int = slots.count(_.isConnectionEstablished)
+
+        /** Opens connections on idle unconnected slots until `connections` slots are connected or connecting */
+        private def preconnectSlots(connections: Int): Unit = {
+          var connected = numConnectedSlots
+          val it = slots.iterator
+          while (connected < connections && it.hasNext) {
+            val slot = it.next()
+            if (slot.canPreconnect) {
+              slot.debug("Preconnecting for warm-up")
+              slot.preconnect()
+              connected += 1
+            }
+          }
+        }
+
+        private def onWarmUpConnectionEstablished(): Unit =
+          if (pendingWarmUps.nonEmpty) {
+            if (deferredWarmUpConnections > 0) {
+              preconnectSlots(deferredWarmUpConnections)
+              deferredWarmUpConnections = 0
+            }
+            failedWarmUpAttempts = 0
+            val established = numEstablishedConnections
+            val (completed, waiting) = pendingWarmUps.partition(_._1 <= established)
+            completed.foreach(_._2.trySuccess(Done))
+            pendingWarmUps = waiting
+          }
+
+        /**
+         * The slot of a failed attempt opens a new connection once the connection embargo is over, like for requests.
+         * The pool gives up and fails the warm-ups only when more than `max-retries` attempts in a row failed.
+         */
+        private def onWarmUpConnectionAttemptFailed(cause: Throwable): Unit =
+          if (pendingWarmUps.nonEmpty) {
+            failedWarmUpAttempts += 1
+            if (failedWarmUpAttempts > _settings.maxRetries) failWarmUps(cause)
+          }
+
+        /** The number of connections to keep open or connecting for the pending warm-ups */
+        def warmUpConnectionsWanted: Int =
+          if (pendingWarmUps.isEmpty) 0
+          else if (deferredWarmUpConnections > 0) 1
+          else pendingWarmUps.iterator.map(_._1).max
+
+        private def failWarmUps(cause: Throwable): Unit = {
+          pendingWarmUps.foreach(_._2.tryFailure(cause))
+          pendingWarmUps = Nil
+          deferredWarmUpConnections = 0
+          failedWarmUpAttempts = 0
+        }
+
         def onConnectionAttemptFailed(atPreviousEmbargoLevel: FiniteDuration): Unit = {
           val oldValue = _connectionEmbargo
           _connectionEmbargo match {
@@ -223,8 +339,13 @@ private[client] object NewHostConnectionPool {
           private var isEnqueuedForResponseDispatch: Boolean = false
 
           private var connection: SlotConnection = null
+          val stats = new SlotStats
           def isIdle: Boolean = state.isIdle
           def isConnected: Boolean = state.isConnected
+          def isConnectionEstablished: Boolean =
+            (connection ne null) && connection.connectionEstablished && !connection.isClosed
+          def canPreconnect: Boolean = state.isInstanceOf[UnconnectedState]
+          def preconnect(): Unit = updateState(Event.onPreConnect)
           def shutdown(): Unit = {
             // if the connection is idle, we just complete it regularly, otherwise, we forcibly tear it down
             // with an error (which will be logged in OutgoingConnectionBlueprint, see `mapError` there).
@@ -250,16 +371,20 @@ private[client] object NewHostConnectionPool {
           def onNewConnectionEmbargo(embargo: FiniteDuration): Unit =
             updateState(Event.onNewConnectionEmbargo, embargo)
 
-          def onNewRequest(req: RequestContext): Unit =
+          def onNewRequest(req: RequestContext): Unit = {
+            if (slotSelection != SlotSelection.FirstIdle) stats.onRequestDispatched(System.nanoTime())
             updateState(Event.onNewRequest, req)
+          }
 
           def onRequestEntityCompleted(): Unit =
             updateState(Event.onRequestEntityCompleted)
           def onRequestEntityFailed(cause: Throwable): Unit =
             updateState(Event.onRequestEntityFailed, cause)
 
-          def onResponseReceived(response: HttpResponse): Unit =
+          def onResponseReceived(response: HttpResponse): Unit = {
+            if (slotSelection != SlotSelection.FirstIdle) stats.onResponseReceived(System.nanoTime())
             updateState(Event.onResponseReceived, response)
+          }
 
           def onResponseDispatchable(): Unit = {
             isEnqueuedForResponseDispatch = false
@@ -350,6 +475,9 @@ private[client] object NewHostConnectionPool {
                       numConnectedSlots < settings.minConnections =>
                     debug(s"Preconnecting because number of connected slots fell down to $numConnectedSlots")
                     OptionVal.Some(Event.onPreConnect)
+                  case s if !s.isConnected && s.isIdle && numConnectedSlots < warmUpConnectionsWanted =>
+                    debug("Preconnecting to continue the warm-up")
+                    OptionVal.Some(Event.onPreConnect)
                   case _ => OptionVal.None
                 }
 
@@ -410,6 +538,7 @@ private[client] object NewHostConnectionPool {
               throw new IllegalStateException("Cannot open connection when slot still has an open connection")
 
             connection = logic.openConnection(this)
+            stats.onNewConnection()
             if (settings.maxConnectionLifetime.isFinite) {
               disconnectAt =
                 Instant.now().toEpochMilli + settings.maxConnectionLifetime.toMillis + keepAliveDurationFuzziness()
@@ -603,11 +732,13 @@ private[client] object NewHostConnectionPool {
                 slot.debug("Connection attempt succeeded")
                 onConnectionAttemptSucceeded()
                 sl.onConnectionAttemptSucceeded(outgoingConnection)
+                onWarmUpConnectionEstablished()
               }
             case Failure(cause) =>
               slotCon.withSlot { sl =>
                 slot.debug(s"Connection attempt failed with ${cause.getMessage}")
                 onConnectionAttemptFailed(currentEmbargoLevel)
+                onWarmUpConnectionAttemptFailed(cause)
                 sl.onConnectionAttemptFailed(cause)
               }
           })(ExecutionContext.parasitic)
@@ -628,6 +759,7 @@ private[client] object NewHostConnectionPool {
           super.onDownstreamFinish(cause)
         }
         override def postStop(): Unit = {
+          failWarmUps(new IllegalStateException("Pool was shut down before the warm-up completed"))
           slots.foreach(_.shutdown())
           log.debug("Pool stopped")
         }
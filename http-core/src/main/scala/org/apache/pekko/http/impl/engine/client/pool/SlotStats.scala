@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.client.pool
+
+import org.apache.pekko.annotation.InternalApi
+
+/**
+ * Internal API
+ *
+ * Per-slot statistics the slot selection strategies are based on. Only accessed from within the pool stage.
+ */
+@InternalApi
+private[pool] final class SlotStats {
+  private var requestStartNanos: Long = 0L
+  private var _latencyEwmaNanos: Double = 0.0
+  private var _samples: Long = 0L
+
+  /**
+   * The moving average of the response latency of the current connection in nanoseconds, 0 if no response has been
+   * received yet, so that fresh connections are tried optimistically.
+   */
+  def latencyEwmaNanos: Double = _latencyEwmaNanos
+  def samples: Long = _samples
+
+  def onRequestDispatched(nowNanos: Long): Unit = requestStartNanos = nowNanos
+
+  def onResponseReceived(nowNanos: Long): Unit = {
+    val latency = (nowNanos - requestStartNanos).toDouble
+    _latencyEwmaNanos =
+      if (_samples == 0) latency
+      else _latencyEwmaNanos + SlotStats.EwmaAlpha * (latency - _latencyEwmaNanos)
+    _samples += 1
+  }
+
+  /** A new connection may end up on a different backend, so its latency is not known yet */
+  def onNewConnection(): Unit = {
+    _latencyEwmaNanos = 0.0
+    _samples = 0L
+  }
+}
+
+/** Internal API */
+@InternalApi
+private[pool] object SlotStats {
+
+  /** Weight of the latest sample in the latency average */
+  final val EwmaAlpha = 0.3
+}
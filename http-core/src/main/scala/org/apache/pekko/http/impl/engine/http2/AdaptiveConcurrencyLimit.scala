@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import scala.collection.mutable
+
+import org.apache.pekko
+import pekko.annotation.InternalApi
+import pekko.http.scaladsl.settings.Http2ServerSettings
+import pekko.stream.Attributes
+
+/**
+ * INTERNAL API
+ *
+ * Adapts the SETTINGS_MAX_CONCURRENT_STREAMS a server connection advertises to the latency of the request handler,
+ * similar to the gradient limit of Netflix' concurrency-limits library.
+ *
+ * The time from dispatching a request to the handler until its response arrives is compared to a long-term baseline of
+ * that latency. While it stays within `latencyTolerance` times the baseline the limit grows by the square root of the
+ * limit, when it exceeds it the limit shrinks proportionally. Changes are smoothed over several requests and the limit
+ * stays between `minLimit` and `maxLimit`.
+ *
+ * A lowered limit is only enforced once the peer acknowledged the SETTINGS frame that announced it, so that streams the
+ * peer opened before it knew about the new limit are not refused.
+ *
+ * Not thread-safe, there is one instance per connection.
+ */
+@InternalApi
+private[http2] final class AdaptiveConcurrencyLimit(minLimit: Int, maxLimit: Int, latencyTolerance: Double) {
+  import AdaptiveConcurrencyLimit._
+  require(minLimit > 0 && minLimit <= maxLimit, "minLimit must be > 0 and <= maxLimit")
+
+  private var estimatedLimit = maxLimit.toDouble
+  private var baselineNanos = 0.0
+  private val dispatchedNanos = new mutable.LongMap[Long]
+
+  private var advertised = maxLimit
+  // the limits of the sent SETTINGS frames that were not acknowledged yet, including the initial SETTINGS frame
+  private val unacknowledged = mutable.Queue(maxLimit)
+
+  /** The limit that was last advertised to the peer */
+  def limit: Int = advertised
+
+  /** The limit up to which streams opened by the peer are accepted */
+  def enforcedLimit: Int = if (unacknowledged.isEmpty) advertised else math.max(advertised, unacknowledged.max)
+
+  /** The number of requests that were dispatched to the handler and wait for their response */
+  def pendingRequests: Int = dispatchedNanos.size
+
+  def onRequestDispatched(streamId: Int, nowNanos: Long): Unit = dispatchedNanos.put(streamId, nowNanos)
+
+  /**
+   * Called when the handler produced the response for a stream. Returns the new limit if it changed enough to be
+   * advertised to the peer, otherwise -1.
+   */
+  def onResponse(streamId: Int, nowNanos: Long): Int =
+    dispatchedNanos.remove(streamId) match {
+      case Some(dispatched) =>
+        update(math.max(nowNanos - dispatched, 1L).toDouble)
+        val newLimit = estimatedLimit.toInt
+        if (newLimit != advertised &&
+          (math.abs(newLimit - advertised) * 10 >= advertised || newLimit == minLimit || newLimit == maxLimit)) {
+          advertised = newLimit
+          unacknowledged.enqueue(newLimit)
+          newLimit
+        } else -1
+      case None => -1
+    }
+
+  /** Called when the peer acknowledged a SETTINGS frame */
+  def onSettingsAcknowledged(): Unit =
+    if (unacknowledged.nonEmpty) unacknowledged.dequeue()
+
+  private def update(latencyNanos: Double): Unit = {
+    baselineNanos =
+      if (baselineNanos == 0.0) latencyNanos
+      else baselineNanos * (1 - BaselineSmoothing) + latencyNanos * BaselineSmoothing
+    // after an overload the baseline may have drifted up, let it come down quickly once the latency recovered
+    if (baselineNanos > latencyNanos * 2) baselineNanos *= 0.95
+
+    val gradient = math.max(0.5, math.min(1.0, latencyTolerance * baselineNanos / latencyNanos))
+    val newLimit = estimatedLimit * gradient + math.sqrt(estimatedLimit)
+    estimatedLimit = math.max(minLimit.toDouble,
+      math.min(maxLimit.toDouble, estimatedLimit * (1 - LimitSmoothing) + newLimit * LimitSmoothing))
+  }
+}
+
+/** INTERNAL API */
+@InternalApi
+private[http2] object AdaptiveConcurrencyLimit {
+  private final val BaselineSmoothing = 1.0 / 500
+  private final val LimitSmoothing = 0.2
+
+  /** The clock the handler latency is measured with. An attribute of the server stack, so that tests can replace it. */
+  final case class Clock(nanoTime: () => Long) extends Attributes.Attribute
+  val SystemClock: Clock = Clock(() => System.nanoTime())
+
+  def apply(settings: Http2ServerSettings): Option[AdaptiveConcurrencyLimit] =
+    if (settings.adaptiveConcurrencyEnabled)
+      Some(new AdaptiveConcurrencyLimit(settings.adaptiveConcurrencyMinConcurrentStreams,
+        settings.maxConcurrentStreams, settings.adaptiveConcurrencyLatencyTolerance))
+    else None
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import scala.collection.immutable
+import scala.collection.mutable
+
+import org.apache.pekko.annotation.InternalApi
+
+import FrameEvent.PriorityFrame
+
+/**
+ * INTERNAL API
+ *
+ * Shares the connection between the substreams by bytes instead of by frames, using deficit round-robin: whenever it
+ * is the turn of a substream, it gets `quantum` bytes of credit and keeps sending frames until the credit is used up or
+ * it runs out of data. A frame may overdraw the credit, the debt is paid back in the following turns. Substreams that
+ * send small frames therefore get more turns than substreams that send full frames, and no substream can send more than
+ * `quantum` bytes plus one frame in a turn.
+ *
+ * Credit that is left when a substream runs out of data is dropped, so that an intermittent substream cannot save up
+ * credit for a burst later.
+ */
+@InternalApi
+private[http2] final class DeficitRoundRobinPrioritizer(quantum: Int)
+    extends StreamPrioritizer with StreamPrioritizer.SendQueue {
+  require(quantum > 0, "quantum must be > 0")
+
+  private val queue = new mutable.ArrayDeque[Int]
+  private val deficits = new mutable.LongMap[Int]
+  // the substream whose turn it is, it already got its quantum for this turn
+  private var turn = -1
+  // the substream returned by the last `dequeue`, until it is enqueued again or the next `dequeue`
+  private var lastServed = -1
+
+  def updatePriority(priorityFrame: PriorityFrame): Unit = ()
+  def chooseSubstream(streams: immutable.Set[Int]): Int = streams.head
+
+  override def removeStream(streamId: Int): Unit = remove(streamId)
+  override def newSendQueue(): StreamPrioritizer.SendQueue = this
+
+  def enqueue(streamId: Int): Unit = {
+    if (streamId == lastServed) {
+      lastServed = -1
+      // continue the turn while there is credit left
+      if (deficit(streamId) > 0) queue.prepend(streamId)
+      else {
+        if (turn == streamId) turn = -1
+        queue.append(streamId)
+      }
+    } else queue.append(streamId)
+  }
+
+  def dequeue(): Int = {
+    if (lastServed != -1) {
+      // the last served substream ran out of data
+      if (deficit(lastServed) > 0) deficits.remove(lastServed)
+      if (turn == lastServed) turn = -1
+      lastServed = -1
+    }
+
+    var streamId = queue.removeHead()
+    if (streamId != turn) startTurn(streamId)
+    while (deficit(streamId) <= 0) {
+      // still paying back the debt of earlier turns
+      queue.append(streamId)
+      streamId = queue.removeHead()
+      startTurn(streamId)
+    }
+    lastServed = streamId
+    streamId
+  }
+
+  override def onDataSent(streamId: Int, bytes: Int): Unit =
+    deficits.update(streamId, deficit(streamId) - bytes)
+
+  def remove(streamId: Int): Unit = {
+    queue -= streamId
+    deficits.remove(streamId)
+    if (turn == streamId) turn = -1
+    if (lastServed == streamId) lastServed = -1
+  }
+
+  def contains(streamId: Int): Boolean = queue.contains(streamId)
+  def isEmpty: Boolean = queue.isEmpty
+
+  private def deficit(streamId: Int): Int = deficits.getOrElse(streamId, 0)
+  private def startTurn(streamId: Int): Unit = {
+    turn = streamId
+    deficits.update(streamId, deficit(streamId) + quantum)
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import scala.collection.immutable
+import scala.collection.mutable
+
+import org.apache.pekko.annotation.InternalApi
+
+import FrameEvent.PriorityFrame
+
+/**
+ * INTERNAL API
+ *
+ * Schedules the substreams according to RFC 9218 Extensible Priorities, see
+ * https://www.rfc-editor.org/rfc/rfc9218.html.
+ *
+ * Every priority is a combination of an urgency from 0 (most urgent) to 7 and an incremental flag. Substreams with
+ * data available are kept in one bucket per priority and the multiplexer always serves the most urgent non-empty
+ * bucket. Within an urgency, non-incremental substreams go before incremental ones. Non-incremental substreams are
+ * served one after the other in the order of their stream ids, incremental substreams are served round-robin.
+ *
+ * Enqueuing and dequeuing usually takes constant time, only removing a cancelled substream or changing the priority
+ * of a substream while it has data available scans its bucket.
+ *
+ * RFC 7540 priority information from PRIORITY frames is ignored, as RFC 9113 deprecated it.
+ */
+@InternalApi
+private[http2] final class ExtensiblePrioritizer extends StreamPrioritizer with StreamPrioritizer.SendQueue {
+  import ExtensiblePrioritizer._
+
+  // the priority of every substream that doesn't have the default priority
+  private val priorities = new mutable.LongMap[Int]
+  private val buckets = Array.fill(NumBuckets)(new mutable.ArrayDeque[Int])
+  // bit `i` is set if `buckets(i)` is non-empty
+  private var nonEmptyBuckets = 0
+  // the bucket of every substream with data available
+  private val enqueuedIn = new mutable.LongMap[Int]
+
+  def updatePriority(priorityFrame: PriorityFrame): Unit = ()
+  def chooseSubstream(streams: immutable.Set[Int]): Int = streams.head
+
+  override def usesExtensiblePriorities: Boolean = true
+
+  override def updateExtensiblePriority(streamId: Int, priorityFieldValue: String, fromHeader: Boolean): Unit = {
+    val oldPriority = priorities.getOrElse(streamId, DefaultPriority)
+    if (!fromHeader || (oldPriority & SetByFrame) == 0) {
+      val priority = parsePriority(priorityFieldValue) | (if (fromHeader) 0 else SetByFrame)
+      priorities.update(streamId, priority)
+
+      val bucket = enqueuedIn.getOrElse(streamId, -1)
+      if (bucket != -1 && bucket != (priority & BucketMask)) {
+        removeFromBucket(streamId, bucket)
+        enqueue(streamId)
+      }
+    }
+  }
+
+  override def removeStream(streamId: Int): Unit = {
+    remove(streamId)
+    priorities.remove(streamId)
+  }
+
+  override def newSendQueue(): StreamPrioritizer.SendQueue = this
+
+  def enqueue(streamId: Int): Unit = {
+    val bucket = priorities.getOrElse(streamId, DefaultPriority) & BucketMask
+    val queue = buckets(bucket)
+    if (isIncremental(bucket) || queue.isEmpty || streamId > queue.last) queue.append(streamId)
+    // a non-incremental substream that still has data after it was served goes back to the front
+    else if (streamId < queue.head) queue.prepend(streamId)
+    else queue.insert(queue.indexWhere(_ > streamId), streamId)
+
+    enqueuedIn.update(streamId, bucket)
+    nonEmptyBuckets |= 1 << bucket
+  }
+
+  def dequeue(): Int = {
+    val bucket = Integer.numberOfTrailingZeros(nonEmptyBuckets)
+    val queue = buckets(bucket)
+    val streamId = queue.removeHead()
+    if (queue.isEmpty) nonEmptyBuckets &= ~(1 << bucket)
+    enqueuedIn.remove(streamId)
+    streamId
+  }
+
+  def remove(streamId: Int): Unit = {
+    val bucket = enqueuedIn.getOrElse(streamId, -1)
+    if (bucket != -1) removeFromBucket(streamId, bucket)
+  }
+
+  def contains(streamId: Int): Boolean = enqueuedIn.contains(streamId)
+  def isEmpty: Boolean = nonEmptyBuckets == 0
+
+  private def removeFromBucket(streamId: Int, bucket: Int): Unit = {
+    val queue = buckets(bucket)
+    queue -= streamId
+    if (queue.isEmpty) nonEmptyBuckets &= ~(1 << bucket)
+    enqueuedIn.remove(streamId)
+  }
+}
+
+/** INTERNAL API */
+@InternalApi
+private[http2] object ExtensiblePrioritizer {
+  final val DefaultUrgency = 3
+  final val MaxUrgency = 7
+
+  // A priority is encoded as `urgency * 2 + incremental`, which is also the index of its bucket, so that the lowest
+  // non-empty bucket is the one to serve next. The `SetByFrame` bit records that it came from a PRIORITY_UPDATE frame.
+  private final val NumBuckets = (MaxUrgency + 1) * 2
+  private final val BucketMask = 0xF
+  private final val SetByFrame = 0x10
+  private final val DefaultPriority = DefaultUrgency * 2
+
+  private def isIncremental(bucket: Int): Boolean = (bucket & 1) == 1
+
+  /**
+   * Parses a priority field value like `u=1, i`, which is a structured field dictionary as defined by RFC 8941.
+   * Unknown or invalid members are ignored and missing parameters take their default values.
+   *
+   * @return the encoded priority
+   */
+  def parsePriority(fieldValue: String): Int = {
+    var urgency = DefaultUrgency
+    var incremental = false
+    fieldValue.split(',').foreach { member =>
+      // parameters of a member are not used by any of the known keys
+      val keyAndValue = member.takeWhile(_ != ';').trim
+      val equals = keyAndValue.indexOf('=')
+      val key = if (equals == -1) keyAndValue else keyAndValue.substring(0, equals)
+      val value = if (equals == -1) "" else keyAndValue.substring(equals + 1)
+      key match {
+        case "u" =>
+          value.toIntOption match {
+            case Some(u) if u >= 0 && u <= MaxUrgency => urgency = u
+            case _                                    =>
+          }
+        case "i" =>
+          value match {
+            case "" | "?1" => incremental = true
+            case "?0"      => incremental = false
+            case _         =>
+          }
+        case _ =>
+      }
+    }
+    urgency * 2 + (if (incremental) 1 else 0)
+  }
+
+  def urgency(priority: Int): Int = (priority & BucketMask) >> 1
+  def incremental(priority: Int): Boolean = isIncremental(priority & BucketMask)
+}
@@ -94,6 +94,14 @@ private[http] object FrameEvent {
       streamDependency: Int,
       weight: Int) extends StreamFrameEvent
 
+  /**
+   * The PRIORITY_UPDATE frame of RFC 9218, which a client sends on the connection to change the priority of
+   * `prioritizedStreamId`. The priority field value has the same format as the `priority` request header.
+   */
+  final case class PriorityUpdateFrame(
+      prioritizedStreamId: Int,
+      priorityFieldValue: String) extends FrameEvent
+
   final case class Setting(
       identifier: SettingIdentifier,
       value: Int)
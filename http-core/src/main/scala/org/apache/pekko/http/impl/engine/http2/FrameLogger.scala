@@ -89,6 +89,9 @@ private[http2] object FrameLogger {
         case PriorityFrame(streamId, exclusive, streamDependency, weight) =>
           LogEntry(streamId, "PRIO", s"streamDependency = $streamDependency, weight: $weight", flag(exclusive, "EX"))
 
+        case PriorityUpdateFrame(prioritizedStreamId, priorityFieldValue) =>
+          LogEntry(0, "PRIU", s"prioritizedStreamId = $prioritizedStreamId, priority: $priorityFieldValue")
+
         case RstStreamFrame(streamId, errorCode) =>
           LogEntry(streamId, "RSET", errorCode.toString)
 
@@ -25,9 +25,11 @@ import pekko.actor.{
 import pekko.annotation.InternalApi
 import pekko.event.LoggingAdapter
 import pekko.http.impl.engine.HttpConnectionIdleTimeoutBidi
+import pekko.http.impl.engine.client.TlsSessionTracking
 import pekko.http.impl.engine.server.{
   GracefulTerminatorStage,
   MasterServerTerminator,
+  ServerListeners,
   ServerTerminator,
   UpgradeToOtherProtocolResponseHeader
 }
@@ -103,43 +105,42 @@ private[http] final class Http2Ext(implicit val system: ActorSystem)
 
     val masterTerminator = new MasterServerTerminator(log)
 
-    Tcp(system).bind(interface, effectivePort, settings.backlog, settings.socketOptions, halfClose = false,
-      Duration.Inf) // we knowingly disable idle-timeout on TCP level, as we handle it explicitly in Pekko HTTP itself
-      .via(if (telemetry == NoOpTelemetry) Flow[Tcp.IncomingConnection] else telemetry.serverBinding)
-      .mapAsyncUnordered(settings.maxConnections) {
-        (incoming: Tcp.IncomingConnection) =>
-          try {
-            httpPlusSwitching(http1, http2).addAttributes(prepareServerAttributes(settings, incoming))
-              .watchTermination {
-                case (connectionTerminatorF, future) =>
-                  connectionTerminatorF.foreach { connectionTerminator =>
-                    masterTerminator.registerConnection(connectionTerminator)(fm.executionContext)
-                    future.onComplete(_ => masterTerminator.removeConnection(connectionTerminator))(fm.executionContext)
-                  }(fm.executionContext)
-                  future // drop the terminator matValue, we already registered is which is all we need to do here
-              }
-              .join(HttpConnectionIdleTimeoutBidi(settings.idleTimeout, Some(incoming.remoteAddress)).join(
-                incoming.flow))
-              .addAttributes(Http.cancellationStrategyAttributeForDelay(settings.streamCancellationDelay))
-              .run().recover {
-                // Ignore incoming errors from the connection as they will cancel the binding.
-                // As far as it is known currently, these errors can only happen if a TCP error bubbles up
-                // from the TCP layer through the HTTP layer to the Http.IncomingConnection.flow.
-                // See https://github.com/akka/akka/issues/17992
-                case NonFatal(ex) =>
-                  Done
-              }(ExecutionContext.parasitic)
-          } catch {
-            case NonFatal(e) =>
-              log.error(e, "Could not materialize handling flow for {}", incoming)
-              throw e
-          }
-      }.mapMaterializedValue {
-        _.map(tcpBinding =>
-          ServerBinding(tcpBinding.localAddress)(
-            () => tcpBinding.unbind(),
-            timeout => masterTerminator.terminate(timeout)(fm.executionContext)))(fm.executionContext)
-      }.to(Sink.ignore).run()
+    ServerListeners.bind(effectivePort, settings, masterTerminator) { (listenerPort, listenerSettings) =>
+      Tcp(system).bind(interface, listenerPort, listenerSettings.backlog, listenerSettings.socketOptions,
+        halfClose = false,
+        Duration.Inf) // we knowingly disable idle-timeout on TCP level, as we handle it explicitly in Pekko HTTP itself
+        .via(if (telemetry == NoOpTelemetry) Flow[Tcp.IncomingConnection] else telemetry.serverBinding)
+        .mapAsyncUnordered(listenerSettings.maxConnections) {
+          (incoming: Tcp.IncomingConnection) =>
+            try {
+              httpPlusSwitching(http1, http2).addAttributes(prepareServerAttributes(settings, incoming))
+                .watchTermination {
+                  case (connectionTerminatorF, future) =>
+                    connectionTerminatorF.foreach { connectionTerminator =>
+                      masterTerminator.registerConnection(connectionTerminator)(fm.executionContext)
+                      future.onComplete(_ => masterTerminator.removeConnection(connectionTerminator))(
+                        fm.executionContext)
+                    }(fm.executionContext)
+                    future // drop the terminator matValue, we already registered is which is all we need to do here
+                }
+                .join(HttpConnectionIdleTimeoutBidi(settings.idleTimeout, Some(incoming.remoteAddress)).join(
+                  incoming.flow))
+                .addAttributes(Http.cancellationStrategyAttributeForDelay(settings.streamCancellationDelay))
+                .run().recover {
+                  // Ignore incoming errors from the connection as they will cancel the binding.
+                  // As far as it is known currently, these errors can only happen if a TCP error bubbles up
+                  // from the TCP layer through the HTTP layer to the Http.IncomingConnection.flow.
+                  // See https://github.com/akka/akka/issues/17992
+                  case NonFatal(ex) =>
+                    Done
+                }(ExecutionContext.parasitic)
+            } catch {
+              case NonFatal(e) =>
+                log.error(e, "Could not materialize handling flow for {}", incoming)
+                throw e
+            }
+        }.to(Sink.ignore).run()
+    }(fm.executionContext)
   }
 
   private def withErrorHandling(
@@ -267,6 +268,7 @@ private[http] final class Http2Ext(implicit val system: ActorSystem)
       Http2Blueprint.unwrapTls).atop(
       LogByteStringTools.logTLSBidiBySetting("client-plain-text",
         clientConnectionSettings.logUnencryptedNetworkBytes)).atop(
+      TlsSessionTracking.bidi(host, port)).atop(
       TLS(createEngine _, closing = TLSClosing.eagerClose))
 
     stack.joinMat(clientConnectionSettings.transport.connectTo(host, port, clientConnectionSettings)(
@@ -31,6 +31,7 @@ import pekko.http.scaladsl.model._
 import pekko.http.scaladsl.settings.{
   ClientConnectionSettings,
   Http2ClientSettings,
+  Http2CommonSettings,
   Http2ServerSettings,
   ParserSettings,
   ServerSettings
@@ -55,6 +56,7 @@ private[http2] case class Http2SubStream(
     // outgoing response trailing headers can either be passed in eagerly via an attribute
     // or streaming as the LastChunk of a chunked data stream
     trailingHeaders: OptionVal[ParsedHeadersFrame],
+    // incoming data sources only emit HttpEntity.ChunkStreamParts
     data: Either[ByteString, Source[Any /* ByteString | HttpEntity.ChunkStreamPart */, Any]],
     correlationAttributes: Map[AttributeKey[?], ?]) {
   def streamId: Int = initialHeaders.streamId
@@ -75,12 +77,8 @@ private[http2] case class Http2SubStream(
           if (contentTypeOption.isEmpty) HttpEntity.Empty
           else HttpEntity.Strict(contentType, ByteString.empty)
         } else {
-          val chunkSource: Source[HttpEntity.ChunkStreamPart, Any] = data.map {
-            case b: ByteString                 => HttpEntity.Chunk(b)
-            case p: HttpEntity.ChunkStreamPart => p
-            case x                             => throw new IllegalStateException(s"Only ByteString or ChunkStreamPart expected but got $x")
-          }
-          HttpEntity.Chunked(contentType, chunkSource)
+          // the incoming stream buffer emits only ChunkStreamParts, so the source can be used without another stage
+          HttpEntity.Chunked(contentType, data.asInstanceOf[Source[HttpEntity.ChunkStreamPart, Any]])
         }
       case Left(dataBytes) =>
         if (dataBytes.isEmpty && contentTypeOption.isEmpty) HttpEntity.Empty
@@ -125,15 +123,17 @@ private[http] object Http2Blueprint {
     
     val initialFlow = telemetry.serverConnection atop
       httpLayer(settings, log, dateHeaderRendering) atopKeepRight
-      serverDemux(settings.http2Settings, initialDemuxerSettings, upgraded) atop
+      serverDemux(settings.http2Settings, initialDemuxerSettings, upgraded, telemetry) atop
       FrameLogger.logFramesIfEnabled(settings.http2Settings.logFrames) atop // enable for debugging
-      hpackCoding(masterHttpHeaderParser, settings.parserSettings)
+      hpackCoding(masterHttpHeaderParser, settings.parserSettings, settings.http2Settings, telemetry)
 
     val frameTypesForThrottle = getFrameTypesForThrottle(settings.http2Settings)
     
+    val framingLayer = framing(log, settings.http2Settings.frameWriteBatchSize)
+
     val flowWithPossibleThrottle = if (frameTypesForThrottle.nonEmpty) {
-      initialFlow atop rapidResetMitigation(settings.http2Settings, frameTypesForThrottle) atopKeepLeft framing(log)
-    } else initialFlow atop framing(log)
+      initialFlow atop rapidResetMitigation(settings.http2Settings, frameTypesForThrottle) atopKeepLeft framingLayer
+    } else initialFlow atop framingLayer
 
     flowWithPossibleThrottle atop
       errorHandling(log) atop
@@ -153,8 +153,8 @@ private[http] object Http2Blueprint {
       httpLayerClient(masterHttpHeaderParser, settings, log)).atop(
       clientDemux(settings.http2Settings, masterHttpHeaderParser)).atop(
       FrameLogger.logFramesIfEnabled(settings.http2Settings.logFrames)).atop( // enable for debugging
-      hpackCoding(masterHttpHeaderParser, settings.parserSettings)).atop(
-      framingClient(log)).atop(
+      hpackCoding(masterHttpHeaderParser, settings.parserSettings, settings.http2Settings, telemetry)).atop(
+      framingClient(log, settings.http2Settings.frameWriteBatchSize)).atop(
       errorHandling(log)).atop(
       idleTimeoutIfConfigured(settings.idleTimeout))
   }
@@ -194,16 +194,28 @@ private[http] object Http2Blueprint {
       },
       Flow[ByteString])
 
-  def framing(log: LoggingAdapter): BidiFlow[FrameEvent, ByteString, ByteString, FrameEvent, NotUsed] =
+  def framing(log: LoggingAdapter, frameWriteBatchSize: Int)
+      : BidiFlow[FrameEvent, ByteString, ByteString, FrameEvent, NotUsed] =
     BidiFlow.fromFlows(
-      Flow[FrameEvent].map(FrameRenderer.render),
+      Flow[FrameEvent].map(FrameRenderer.render).via(batchWrites(frameWriteBatchSize)),
       Flow[ByteString].via(new Http2FrameParsing(shouldReadPreface = true, log)))
 
-  def framingClient(log: LoggingAdapter): BidiFlow[FrameEvent, ByteString, ByteString, FrameEvent, NotUsed] =
+  def framingClient(log: LoggingAdapter, frameWriteBatchSize: Int)
+      : BidiFlow[FrameEvent, ByteString, ByteString, FrameEvent, NotUsed] =
     BidiFlow.fromFlows(
-      Flow[FrameEvent].map(FrameRenderer.render).prepend(Source.single(Http2Protocol.ClientConnectionPreface)),
+      Flow[FrameEvent].map(FrameRenderer.render).prepend(Source.single(Http2Protocol.ClientConnectionPreface))
+        .via(batchWrites(frameWriteBatchSize)),
       Flow[ByteString].via(new Http2FrameParsing(shouldReadPreface = false, log)))
 
+  /**
+   * Combines rendered frames of up to `maxBytes` into a single ByteString while the network side is still busy with
+   * the previous write, so that a burst of small frames is written at once. Frames are never held back when the network
+   * side is ready for them.
+   */
+  private def batchWrites(maxBytes: Int): Flow[ByteString, ByteString, NotUsed] =
+    if (maxBytes > 0) Flow[ByteString].batchWeighted(maxBytes.toLong, _.length.toLong, identity)(_ ++ _)
+    else Flow[ByteString]
+
   private def rapidResetMitigation(settings: Http2ServerSettings,
       frameTypesForThrottle: Set[String]): BidiFlow[FrameEvent, FrameEvent, FrameEvent, FrameEvent, NotUsed] = {
     def frameCost(event: FrameEvent): Int = {
@@ -227,15 +239,16 @@ private[http] object Http2Blueprint {
 
   private[http2] def frameTypeAliasToFrameTypeName(frameType: String): Option[String] = {
     toRootLowerCase(frameType) match {
-      case "reset"         => Some("RstStreamFrame")
-      case "headers"       => Some("HeadersFrame")
-      case "continuation"  => Some("ContinuationFrame")
-      case "go-away"       => Some("GoAwayFrame")
-      case "priority"      => Some("PriorityFrame")
-      case "ping"          => Some("PingFrame")
-      case "push-promise"  => Some("PushPromiseFrame")
-      case "window-update" => Some("WindowUpdateFrame")
-      case _               => None
+      case "reset"           => Some("RstStreamFrame")
+      case "headers"         => Some("HeadersFrame")
+      case "continuation"    => Some("ContinuationFrame")
+      case "go-away"         => Some("GoAwayFrame")
+      case "priority"        => Some("PriorityFrame")
+      case "priority-update" => Some("PriorityUpdateFrame")
+      case "ping"            => Some("PingFrame")
+      case "push-promise"    => Some("PushPromiseFrame")
+      case "window-update"   => Some("WindowUpdateFrame")
+      case _                 => None
     }
   }
 
@@ -247,19 +260,20 @@ private[http] object Http2Blueprint {
    * TODO: introduce another FrameEvent type that exclude HeadersFrame and ContinuationFrame from
    * reaching the higher-level.
    */
-  def hpackCoding(masterHttpHeaderParser: HttpHeaderParser, parserSettings: ParserSettings)
+  def hpackCoding(masterHttpHeaderParser: HttpHeaderParser, parserSettings: ParserSettings,
+      http2Settings: Http2CommonSettings, telemetry: TelemetrySpi)
       : BidiFlow[FrameEvent, FrameEvent, FrameEvent, FrameEvent, NotUsed] =
     BidiFlow.fromFlows(
-      Flow[FrameEvent].via(HeaderCompression),
+      Flow[FrameEvent].via(new HeaderCompression(http2Settings, telemetry)),
       Flow[FrameEvent].via(new HeaderDecompression(masterHttpHeaderParser, parserSettings)))
 
   /**
    * Creates substreams for every stream and manages stream state machines
    * and handles priorization (TODO: later)
    */
-  def serverDemux(settings: Http2ServerSettings, initialDemuxerSettings: immutable.Seq[Setting], upgraded: Boolean)
-      : BidiFlow[Http2SubStream, FrameEvent, FrameEvent, Http2SubStream, ServerTerminator] =
-    BidiFlow.fromGraph(new Http2ServerDemux(settings, initialDemuxerSettings, upgraded))
+  def serverDemux(settings: Http2ServerSettings, initialDemuxerSettings: immutable.Seq[Setting], upgraded: Boolean,
+      telemetry: TelemetrySpi): BidiFlow[Http2SubStream, FrameEvent, FrameEvent, Http2SubStream, ServerTerminator] =
+    BidiFlow.fromGraph(new Http2ServerDemux(settings, initialDemuxerSettings, upgraded, telemetry))
 
   /**
    * Creates substreams for every stream and manages stream state machines
@@ -20,6 +20,7 @@ import pekko.http.impl.engine.http2.Http2Protocol.ErrorCode
 import pekko.http.impl.engine.http2.Http2Protocol.ErrorCode.FLOW_CONTROL_ERROR
 import pekko.http.impl.engine.http2.Http2Protocol.SettingIdentifier
 import pekko.http.impl.engine.http2.RequestParsing.parseHeaderPair
+import pekko.http.impl.engine.http2.client.PeerLimits
 import pekko.http.impl.engine.parsing.HttpHeaderParser
 import pekko.http.impl.engine.server.ServerTerminator
 import pekko.http.scaladsl.Http
@@ -75,13 +76,26 @@ private[http2] class Http2ClientDemux(http2Settings: Http2ClientSettings, master
  */
 @InternalApi
 private[http2] class Http2ServerDemux(http2Settings: Http2ServerSettings, initialRemoteSettings: immutable.Seq[Setting],
-    upgraded: Boolean)
+    upgraded: Boolean, override val telemetry: TelemetrySpi = NoOpTelemetry)
     extends Http2Demux(http2Settings, initialRemoteSettings, upgraded, isServer = true) {
   // We don't provide access to incoming trailing request headers on the server side
   def wrapTrailingHeaders(headers: ParsedHeadersFrame): Option[ChunkStreamPart] = None
 
   def completionTimeout: FiniteDuration =
     throw new IllegalArgumentException("Completion timeout not supported for servers")
+
+  override def createPrioritizer(): StreamPrioritizer = http2Settings.streamPrioritizer match {
+    case "extensible-priorities" => StreamPrioritizer.extensiblePriorities()
+    case "deficit-round-robin"   => StreamPrioritizer.deficitRoundRobin(http2Settings.deficitRoundRobinQuantum)
+    case _                       => StreamPrioritizer.First
+  }
+
+  override def streamSendRateLimit: Int = http2Settings.streamSendRateLimit
+
+  override def createConcurrencyLimit(): Option[AdaptiveConcurrencyLimit] = AdaptiveConcurrencyLimit(http2Settings)
+
+  override def createStrictEntityCollectionPolicy(): StrictEntityCollectionPolicy =
+    StrictEntityCollectionPolicy(http2Settings)
 }
 
 /**
@@ -231,6 +245,12 @@ private[http2] abstract class Http2Demux(http2Settings: Http2CommonSettings,
 
   def wrapTrailingHeaders(headers: ParsedHeadersFrame): Option[HttpEntity.ChunkStreamPart]
   def completionTimeout: FiniteDuration
+  def createPrioritizer(): StreamPrioritizer = StreamPrioritizer.First
+  def streamSendRateLimit: Int = 0
+  def telemetry: TelemetrySpi = NoOpTelemetry
+  def createConcurrencyLimit(): Option[AdaptiveConcurrencyLimit] = None
+  def createStrictEntityCollectionPolicy(): StrictEntityCollectionPolicy =
+    new StrictEntityCollectionPolicy(http2Settings.minCollectStrictEntitySize, Nil)
 
   override def createLogicAndMaterializedValue(inheritedAttributes: Attributes): (GraphStageLogic, ServerTerminator) = {
     object Logic extends TimerGraphStageLogic(shape) with Http2MultiplexerSupport with Http2StreamHandling
@@ -286,7 +306,47 @@ private[http2] abstract class Http2Demux(http2Settings: Http2CommonSettings,
         push(frameOut, event)
       }
 
-      val multiplexer: Http2Multiplexer with OutHandler = createMultiplexer(StreamPrioritizer.First)
+      override def streamSendRateLimit: Int = stage.streamSendRateLimit
+
+      override val reportsQueueingDelay: Boolean = stage.telemetry ne NoOpTelemetry
+      override def reportQueueingDelay(streamId: Int, queueingDelayNanos: Long): Unit =
+        stage.telemetry.serverStreamQueueingDelay(inheritedAttributes, streamId, queueingDelayNanos)
+
+      // only set on the connections of an Http2HostPool
+      private val peerLimits: PeerLimits = inheritedAttributes.get[PeerLimits].orNull
+
+      override def onConnectionWindowChanged(windowLeft: Int): Unit =
+        if (peerLimits ne null) peerLimits.connectionWindowChanged(windowLeft)
+
+      private val concurrencyLimit = createConcurrencyLimit()
+      private val clock = inheritedAttributes.get[AdaptiveConcurrencyLimit.Clock](AdaptiveConcurrencyLimit.SystemClock)
+
+      override def maxIncomingConcurrentStreams: Int = concurrencyLimit match {
+        case Some(limit) => limit.enforcedLimit
+        case None        => http2Settings.maxConcurrentStreams
+      }
+
+      override def onStreamRefused(streamId: Int): Unit =
+        stage.telemetry.serverStreamRefused(inheritedAttributes, streamId)
+
+      private val strictEntityCollectionPolicy = createStrictEntityCollectionPolicy()
+
+      override def minCollectStrictEntitySize(headers: ParsedHeadersFrame): Int =
+        strictEntityCollectionPolicy.minCollectStrictEntitySize(headers)
+
+      private def onResponseCreated(streamId: Int): Unit =
+        concurrencyLimit.foreach { limit =>
+          val newLimit = limit.onResponse(streamId, clock.nanoTime())
+          if (newLimit != -1) {
+            debug(s"Advertising SETTINGS_MAX_CONCURRENT_STREAMS of $newLimit with ${limit.pendingRequests} " +
+              "requests waiting for the handler")
+            multiplexer.pushControlFrame(
+              SettingsFrame(Setting(SettingIdentifier.SETTINGS_MAX_CONCURRENT_STREAMS, newLimit) :: Nil))
+            stage.telemetry.serverMaxConcurrentStreamsChanged(inheritedAttributes, newLimit)
+          }
+        }
+
+      val multiplexer: Http2Multiplexer with OutHandler = createMultiplexer(createPrioritizer())
       setHandler(frameOut, multiplexer)
 
       val pingState = ConfigurablePing.PingState(http2Settings)
@@ -299,6 +359,7 @@ private[http2] abstract class Http2Demux(http2Settings: Http2CommonSettings,
         immutable.Seq(Setting(SettingIdentifier.SETTINGS_ENABLE_PUSH, 0)).filter(_ => !isServer) // only on client
 
       override def preStart(): Unit = {
+        if (peerLimits ne null) peerLimits.connectionStarted()
         if (initialRemoteSettings.nonEmpty) {
           debug(s"Applying ${initialRemoteSettings.length} initial settings!")
           applyRemoteSettings(initialRemoteSettings)
@@ -358,7 +419,15 @@ private[http2] abstract class Http2Demux(http2Settings: Http2CommonSettings,
                 if (!multiplexer.updateConnectionLevelWindow(increment))
                   pushGOAWAY(ErrorCode.FLOW_CONTROL_ERROR,
                     "WINDOW_UPDATE would exceed maximum connection-level flow-control window size")
-              case p: PriorityFrame    => multiplexer.updatePriority(p)
+              case p: PriorityFrame       => multiplexer.updatePriority(p)
+              case p: PriorityUpdateFrame =>
+                // see RFC 9218, 7.1
+                if (!isServer)
+                  pushGOAWAY(ErrorCode.PROTOCOL_ERROR, "Clients must not receive PRIORITY_UPDATE frames")
+                else if (p.prioritizedStreamId == 0 || p.prioritizedStreamId % 2 == 0)
+                  pushGOAWAY(ErrorCode.PROTOCOL_ERROR,
+                    s"PRIORITY_UPDATE frame for invalid stream [${p.prioritizedStreamId}]")
+                else handlePriorityUpdate(p)
               case s: StreamFrameEvent =>
                 if (!terminating)
                   handleStreamEvent(s)
@@ -374,15 +443,17 @@ private[http2] abstract class Http2Demux(http2Settings: Http2CommonSettings,
                 val settingsAppliedOk = applyRemoteSettings(settings)
                 if (settingsAppliedOk) {
                   multiplexer.pushControlFrame(SettingsAckFrame(settings))
+                  if (peerLimits ne null) peerLimits.settingsReceived()
                 }
 
               case SettingsAckFrame(_) =>
-              // Currently, we only expect an ack for the initial settings frame, sent
-              // above in preStart. Since only some settings are supported, and those
-              // settings are non-modifiable and known at construction time, these settings
-              // are enforced from the start of the connection so there's no need to invoke
-              // `enforceSettings(initialLocalSettings)`
+                // The initial settings frame sent above in preStart is enforced from the start of the connection, so
+                // there's no need to invoke `enforceSettings(initialLocalSettings)`. Only a lowered
+                // SETTINGS_MAX_CONCURRENT_STREAMS of the adaptive concurrency limit waits for the acknowledgement.
+                concurrencyLimit.foreach(_.onSettingsAcknowledged())
 
+              case PingFrame(true, data) if data == IncomingFlowController.BdpPing.data =>
+                onBdpPingAck()
               case PingFrame(true, data) =>
                 if (data != ConfigurablePing.Ping.data) {
                   // We only ever push static data, responding with anything else is wrong
@@ -424,8 +495,10 @@ private[http2] abstract class Http2Demux(http2Settings: Http2CommonSettings,
       //        after a while or buffer only a limited amount?
       val bufferedSubStreamOutput = new BufferedOutlet[Http2SubStream](fromOutlet(substreamOut))
       override def dispatchSubstream(initialHeaders: ParsedHeadersFrame, data: Either[ByteString, Source[Any, Any]],
-          correlationAttributes: Map[AttributeKey[?], ?]): Unit =
+          correlationAttributes: Map[AttributeKey[?], ?]): Unit = {
+        concurrencyLimit.foreach(_.onRequestDispatched(initialHeaders.streamId, clock.nanoTime()))
         bufferedSubStreamOutput.push(Http2SubStream(initialHeaders, OptionVal.None, data, correlationAttributes))
+      }
 
       // -----------------------------------------------------------------
       override def onAllStreamsClosed(): Unit = completeIfDone()
@@ -460,6 +533,7 @@ private[http2] abstract class Http2Demux(http2Settings: Http2CommonSettings,
         new InHandler {
           def onPush(): Unit = {
             val sub = grab(substreamIn)
+            onResponseCreated(sub.streamId)
             handleOutgoingCreated(sub)
             // Once the incoming stream is handled, we decide if we need to pull more.
             tryPullSubStreams()
@@ -499,6 +573,7 @@ private[http2] abstract class Http2Demux(http2Settings: Http2CommonSettings,
             multiplexer.updateMaxFrameSize(value)
           case Setting(Http2Protocol.SettingIdentifier.SETTINGS_MAX_CONCURRENT_STREAMS, value) =>
             setMaxConcurrentStreams(value)
+            if (peerLimits ne null) peerLimits.maxConcurrentStreamsChanged(value)
             // once maxConcurrentStreams is updated, see if we can pull again
             tryPullSubStreams()
           case Setting(id, value) =>
@@ -530,6 +605,7 @@ private[http2] abstract class Http2Demux(http2Settings: Http2CommonSettings,
       }
 
       override def postStop(): Unit = {
+        if (peerLimits ne null) peerLimits.connectionStopped()
         shutdownStreamHandling()
         terminationPromise.success(Http.HttpConnectionTerminated)
       }
@@ -38,6 +38,11 @@ private[http2] trait Http2Multiplexer {
   def updateDefaultWindow(newDefaultWindow: Int): Unit
   def updatePriority(priorityFrame: PriorityFrame): Unit
 
+  /** Whether RFC 9218 priority signals are used, see [[StreamPrioritizer.updateExtensiblePriority]] */
+  def usesExtensiblePriorities: Boolean
+  def updateExtensiblePriority(streamId: Int, priorityFieldValue: String, fromHeader: Boolean): Unit
+  def removePriority(streamId: Int): Unit
+
   def enqueueOutStream(streamId: Int): Unit
   def closeStream(streamId: Int): Unit
 
@@ -96,6 +101,15 @@ private[http2] trait Http2MultiplexerSupport { logic: GraphStageLogic with Stage
 
   def onAllDataFlushed(): Unit
 
+  /** Whether `reportQueueingDelay` should be called, measuring the delay isn't free */
+  def reportsQueueingDelay: Boolean
+
+  /** Called for every DATA frame with the time the data of the stream waited in the send queue */
+  def reportQueueingDelay(streamId: Int, queueingDelayNanos: Long): Unit
+
+  /** Called whenever the connection-level window for sending data changed */
+  def onConnectionWindowChanged(windowLeft: Int): Unit = ()
+
   def createMultiplexer(prioritizer: StreamPrioritizer): Http2Multiplexer with OutHandler =
     new Http2Multiplexer with OutHandler with StateTimingSupport with LogHelper { self =>
       def log: LoggingAdapter = logic.log
@@ -117,6 +131,7 @@ private[http2] trait Http2MultiplexerSupport { logic: GraphStageLogic with Stage
         } else {
           connectionWindowLeft = newWindow.toInt
           debug(s"Updating outgoing connection window by $increment to $connectionWindowLeft")
+          onConnectionWindowChanged(connectionWindowLeft)
           updateState(_.connectionWindowAvailable())
           true
         }
@@ -129,6 +144,10 @@ private[http2] trait Http2MultiplexerSupport { logic: GraphStageLogic with Stage
         distributeWindowDeltaToAllStreams(delta)
       }
       override def updatePriority(info: PriorityFrame): Unit = prioritizer.updatePriority(info)
+      override val usesExtensiblePriorities: Boolean = prioritizer.usesExtensiblePriorities
+      override def updateExtensiblePriority(streamId: Int, priorityFieldValue: String, fromHeader: Boolean): Unit =
+        prioritizer.updateExtensiblePriority(streamId, priorityFieldValue, fromHeader)
+      override def removePriority(streamId: Int): Unit = prioritizer.removeStream(streamId)
 
       def enqueueOutStream(streamId: Int): Unit = updateState(_.enqueueOutStream(streamId))
       def closeStream(streamId: Int): Unit = updateState(_.closeStream(streamId))
@@ -147,14 +166,28 @@ private[http2] trait Http2MultiplexerSupport { logic: GraphStageLogic with Stage
       private def allDataFlushed(state: MultiplexerState): Boolean = (state eq WaitingForData) || (state eq Idle)
 
       private val controlFrameBuffer: mutable.Queue[FrameEvent] = new mutable.Queue[FrameEvent]
-      private val sendableOutstreams: mutable.Queue[Int] = new mutable.Queue[Int]
+      private val sendableOutstreams: StreamPrioritizer.SendQueue = prioritizer.newSendQueue()
       private def enqueueStream(streamId: Int): Unit = {
         if (isDebugEnabled)
           require(!sendableOutstreams.contains(streamId), s"Stream [$streamId] was enqueued multiple times.") // requires expensive scanning -> avoid in production
         sendableOutstreams.enqueue(streamId)
+        if (measureQueueingDelay) enqueuedAt.update(streamId, System.nanoTime())
       }
-      private def dequeueStream(streamId: Int): Unit =
-        sendableOutstreams -= streamId
+      private def dequeueStream(streamId: Int): Unit = {
+        sendableOutstreams.remove(streamId)
+        if (measureQueueingDelay) enqueuedAt.remove(streamId)
+      }
+
+      private val measureQueueingDelay = reportsQueueingDelay
+      // the time each enqueued stream was enqueued, only used if `measureQueueingDelay`
+      private val enqueuedAt = new mutable.LongMap[Long]
+      private def onDataFrameSent(streamId: Int): Unit =
+        if (measureQueueingDelay) {
+          val now = System.nanoTime()
+          // a stream that didn't have to wait wasn't enqueued
+          val since = enqueuedAt.remove(streamId).getOrElse(now)
+          reportQueueingDelay(streamId, now - since)
+        }
 
       private def updateState(transition: MultiplexerState => MultiplexerState): Unit = {
         val oldState = _state
@@ -181,6 +214,9 @@ private[http2] trait Http2MultiplexerSupport { logic: GraphStageLogic with Stage
           def send(frame: DataFrame): Unit = {
             pushFrameOut(frame)
             connectionWindowLeft -= frame.payload.length
+            onConnectionWindowChanged(connectionWindowLeft)
+            sendableOutstreams.onDataSent(streamId, frame.payload.length)
+            onDataFrameSent(streamId)
           }
 
           result match {
@@ -264,15 +300,7 @@ private[http2] trait Http2MultiplexerSupport { logic: GraphStageLogic with Stage
       }
 
       abstract class WithSendableOutStreams extends MultiplexerState {
-        protected def sendNext(): MultiplexerState =
-          if (prioritizer eq StreamPrioritizer.First)
-            sendDataFrame(sendableOutstreams.dequeue())
-          else {
-            val chosenId = prioritizer.chooseSubstream(sendableOutstreams.toSet)
-            // expensive operation, to be optimized when prioritizers can be configured
-            dequeueStream(chosenId)
-            sendDataFrame(chosenId)
-          }
+        protected def sendNext(): MultiplexerState = sendDataFrame(sendableOutstreams.dequeue())
 
         def closeStream(streamId: Int): MultiplexerState = {
           // expensive operation, but only called for cancelled streams
@@ -150,6 +150,9 @@ private[http] object Http2Protocol {
     case object WINDOW_UPDATE extends FrameType(0x8)
     case object CONTINUATION extends FrameType(0x9)
 
+    /** See https://www.rfc-editor.org/rfc/rfc9218.html#section-7.1 */
+    case object PRIORITY_UPDATE extends FrameType(0x10)
+
     val All =
       Array( // must start with id = 0 and don't have holes between ids
         DATA,
@@ -167,7 +170,9 @@ private[http] object Http2Protocol {
     All.foreach(f => require(OptionVal.Some(f) == byId(f.id), s"FrameType $f with id ${f.id} must be found"))
 
     def byId(id: Int): OptionVal[FrameType] =
-      if (id < All.size) OptionVal.Some(All(id)) else OptionVal.None
+      if (id < All.size) OptionVal.Some(All(id))
+      else if (id == PRIORITY_UPDATE.id) OptionVal.Some(PRIORITY_UPDATE)
+      else OptionVal.None
   }
 
   sealed abstract class SettingIdentifier(val id: Int) extends Product
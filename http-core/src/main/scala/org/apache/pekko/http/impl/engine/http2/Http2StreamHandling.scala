@@ -18,16 +18,19 @@ import pekko.annotation.InternalApi
 import pekko.http.impl.engine.http2.FrameEvent._
 import pekko.http.impl.engine.http2.Http2Protocol.ErrorCode
 import pekko.http.impl.engine.rendering.DateHeaderRendering
-import pekko.http.scaladsl.model.{ AttributeKey, HttpEntity }
+import pekko.http.scaladsl.model.{ AttributeKey, HttpEntity, HttpHeader }
 import pekko.http.scaladsl.model.http2.PeerClosedStreamException
 import pekko.http.scaladsl.settings.Http2CommonSettings
 import pekko.macros.LogHelper
+import pekko.stream.ThrottleMode
+import pekko.stream.impl.TraversalBuilder
 import pekko.stream.scaladsl.{ Sink, Source }
 import pekko.stream.stage.{ GraphStageLogic, InHandler, OutHandler }
 import pekko.util.ByteString
 import pekko.util.OptionVal
 
-import scala.collection.mutable
+import scala.collection.{ immutable, mutable }
+import scala.concurrent.duration._
 import scala.util.control.NoStackTrace
 
 /**
@@ -52,7 +55,19 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
 
   def wrapTrailingHeaders(headers: ParsedHeadersFrame): Option[HttpEntity.ChunkStreamPart]
 
-  def flowController: IncomingFlowController = IncomingFlowController.default(settings)
+  /** The maximum number of bytes per second to send for each outgoing stream, 0 if unlimited */
+  def streamSendRateLimit: Int
+
+  /** The maximum number of concurrent streams the peer may open before new streams are refused */
+  def maxIncomingConcurrentStreams: Int = settings.maxConcurrentStreams
+
+  /** Called when a stream opened by the peer was refused because of `maxIncomingConcurrentStreams` */
+  def onStreamRefused(streamId: Int): Unit = ()
+
+  /** The number of entity bytes to collect before dispatching the request with the given headers, 0 to stream it */
+  def minCollectStrictEntitySize(headers: ParsedHeadersFrame): Int = settings.minCollectStrictEntitySize
+
+  val flowController: IncomingFlowController = IncomingFlowController(settings)
 
   /**
    * Tries to generate demand of SubStreams on the inlet from the user handler. The
@@ -66,6 +81,8 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
 
   private val streamStates = new mutable.LongMap[StreamState](settings.maxConcurrentStreams)
   private var largestIncomingStreamId = 0
+  // streams that are not open yet but got a PRIORITY_UPDATE, bounded as RFC 9218, section 7.1 asks
+  private val pendingPriorityUpdates = new mutable.HashSet[Int]
   private var outstandingConnectionLevelWindow = Http2Protocol.InitialWindowSize
   private var totalBufferedData = 0
 
@@ -89,6 +106,19 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
     activeStreamCount() < maxConcurrentStreams
   }
 
+  /** Called when the peer acknowledged the [[IncomingFlowController.BdpPing]] */
+  def onBdpPingAck(): Unit =
+    if (flowController.onBdpPingAck()) updateConnectionLevelWindow()
+
+  private def updateConnectionLevelWindow(): Unit = {
+    val windowSizeIncrement =
+      flowController.onConnectionDataReceived(outstandingConnectionLevelWindow, totalBufferedData)
+    if (windowSizeIncrement > 0) {
+      multiplexer.pushControlFrame(WindowUpdateFrame(Http2Protocol.NoStreamId, windowSizeIncrement))
+      outstandingConnectionLevelWindow += windowSizeIncrement
+    }
+  }
+
   /** Called when all streams in StreamHandling buffers are closed and the stage is completing. */
   def onAllStreamsClosed(): Unit
 
@@ -105,6 +135,7 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
           HalfClosedRemoteWaitingForOutgoingStream(0)
         } else {
           largestIncomingStreamId = streamId
+          if (pendingPriorityUpdates.nonEmpty) forgetPendingPriorityUpdates(streamId)
           streamStates.put(streamId, Idle)
           Idle
         }
@@ -117,6 +148,31 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
   def handleStreamEvent(e: StreamFrameEvent): Unit =
     updateState(e.streamId, _.handle(e), "handleStreamEvent", e.frameTypeName)
 
+  /**
+   * Called by Http2ServerDemux when a PRIORITY_UPDATE frame was received. Updates for closed streams are ignored,
+   * updates for streams that are not open yet take precedence over their `priority` header. Updates are kept for at
+   * most `max-concurrent-streams` streams that are not open yet, further ones are ignored.
+   */
+  def handlePriorityUpdate(frame: PriorityUpdateFrame): Unit = {
+    val streamId = frame.prioritizedStreamId
+    if (streamStates.contains(streamId))
+      multiplexer.updateExtensiblePriority(streamId, frame.priorityFieldValue, fromHeader = false)
+    else if (streamId > largestIncomingStreamId) {
+      if (pendingPriorityUpdates.contains(streamId) || pendingPriorityUpdates.size < settings.maxConcurrentStreams) {
+        pendingPriorityUpdates += streamId
+        multiplexer.updateExtensiblePriority(streamId, frame.priorityFieldValue, fromHeader = false)
+      } else
+        debug(s"Ignoring PRIORITY_UPDATE for stream $streamId, too many streams that are not open yet have one")
+    }
+  }
+
+  /** Streams up to the one opened now are no longer pending, the ones skipped by the client will never be opened */
+  private def forgetPendingPriorityUpdates(openedStreamId: Int): Unit =
+    pendingPriorityUpdates.filterInPlace { streamId =>
+      if (streamId < openedStreamId) multiplexer.removePriority(streamId)
+      streamId > openedStreamId
+    }
+
   /** Called by Http2ServerDemux when a stream comes in from the user-handler */
   def handleOutgoingCreated(stream: Http2SubStream): Unit = {
     stream.initialHeaders.priorityInfo.foreach(multiplexer.updatePriority)
@@ -188,6 +244,7 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
     newState match {
       case Closed =>
         streamStates.remove(streamId)
+        multiplexer.removePriority(streamId)
         if (streamStates.isEmpty) onAllStreamsClosed()
         tryPullSubStreams()
       case newState => streamStates.put(streamId, newState)
@@ -299,14 +356,21 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
         nextStateStream: IncomingStreamBuffer => StreamState,
         correlationAttributes: Map[AttributeKey[?], ?] = Map.empty): StreamState =
       event match {
-        case frame @ ParsedHeadersFrame(streamId, endStream, _, _, _) =>
+        case frame @ ParsedHeadersFrame(streamId, endStream, keyValuePairs, _, _) =>
+          if (multiplexer.usesExtensiblePriorities)
+            keyValuePairs.collectFirst { case ("priority", header: HttpHeader) => header.value }
+              .foreach(multiplexer.updateExtensiblePriority(streamId, _, fromHeader = true))
+
           if (endStream) {
             dispatchSubstream(frame, Left(ByteString.empty), correlationAttributes)
             nextStateEmpty
-          } else if (settings.minCollectStrictEntitySize > 0)
-            CollectingIncomingData(frame, correlationAttributes, ByteString.empty, extraInitialWindow = 0)
-          else
-            dispatchStream(streamId, frame, ByteString.empty, correlationAttributes, nextStateStream)
+          } else {
+            val collectSize = minCollectStrictEntitySize(frame)
+            if (collectSize > 0)
+              CollectingIncomingData(frame, correlationAttributes, ByteString.empty, collectSize, extraInitialWindow = 0)
+            else
+              dispatchStream(streamId, frame, ByteString.empty, correlationAttributes, nextStateStream)
+          }
 
         case x => receivedUnexpectedFrame(x)
       }
@@ -335,10 +399,11 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
 
   case object Idle extends StreamState {
     def handle(event: StreamFrameEvent): StreamState =
-      if (event.isInstanceOf[ParsedHeadersFrame] && activeStreamCount() > settings.maxConcurrentStreams) {
+      if (event.isInstanceOf[ParsedHeadersFrame] && activeStreamCount() > maxIncomingConcurrentStreams) {
         // When trying to open a new Stream, if that op would exceed the maxConcurrentStreams, then refuse the op
         debug("Peer trying to open stream that would exceed `maxConcurrentStreams`, refusing stream")
         multiplexer.pushControlFrame(RstStreamFrame(event.streamId, ErrorCode.REFUSED_STREAM))
+        onStreamRefused(event.streamId)
         Closed
       } else
         expectIncomingStream(event, HalfClosedRemoteWaitingForOutgoingStream(0), OpenReceivingDataFirst(_, 0))
@@ -355,6 +420,7 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
       headers: ParsedHeadersFrame,
       correlationAttributes: Map[AttributeKey[?], ?],
       collectedData: ByteString,
+      minCollectSize: Int,
       extraInitialWindow: Int) extends ReceivingData {
 
     override protected def onDataFrame(dataFrame: DataFrame): StreamState = {
@@ -364,7 +430,7 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
         totalBufferedData -= newData.length
         dispatchSubstream(headers, Left(newData), correlationAttributes)
         HalfClosedRemoteWaitingForOutgoingStream(extraInitialWindow)
-      } else if (newData.length >= settings.minCollectStrictEntitySize)
+      } else if (newData.length >= minCollectSize)
         dispatchStream(dataFrame.streamId, headers, newData, correlationAttributes,
           OpenReceivingDataFirst(_, extraInitialWindow))
       else
@@ -472,12 +538,9 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
         } else {
           val nextState = onDataFrame(d)
 
-          val windowSizeIncrement =
-            flowController.onConnectionDataReceived(outstandingConnectionLevelWindow, totalBufferedData)
-          if (windowSizeIncrement > 0) {
-            multiplexer.pushControlFrame(WindowUpdateFrame(Http2Protocol.NoStreamId, windowSizeIncrement))
-            outstandingConnectionLevelWindow += windowSizeIncrement
-          }
+          if (flowController.onDataFrameReceived(d.sizeInWindow))
+            multiplexer.pushControlFrame(IncomingFlowController.BdpPing)
+          updateConnectionLevelWindow()
           nextState
         }
       case r: RstStreamFrame =>
@@ -666,7 +729,8 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
     def dispatchNextChunk(): Unit = {
       if (buffer.nonEmpty && outlet.isAvailable) {
         val dataSize = buffer.length min settings.requestEntityChunkSize
-        outlet.push(buffer.take(dataSize))
+        // pushed as chunks, so that the entity doesn't need another stage to wrap them, see Http2SubStream.createEntity
+        outlet.push(HttpEntity.Chunk(buffer.take(dataSize)))
         buffer = buffer.drop(dataSize)
 
         totalBufferedData -= dataSize
@@ -728,14 +792,61 @@ private[http2] trait Http2StreamHandling extends GraphStageLogic with LogHelper
       val info = new OutStreamImpl(sub.streamId, OptionVal.None, multiplexer.currentInitialWindow, sub.trailingHeaders)
       sub.data match {
         case Right(data) =>
-          val subIn = new SubSinkInlet[Any](s"substream-in-${sub.streamId}")
-          info.registerIncomingData(subIn)
-          data.runWith(subIn.sink)(subFusingMaterializer)
-        case Left(data) =>
-          info.addAllData(data)
+          singleElementData(data) match {
+            case OptionVal.Some(bytes) => addStrictData(info, bytes)
+            case _                     => runData(info, rateLimited(data))
+          }
+        case Left(data) => addStrictData(info, data)
       }
       info
     }
+
+    private def addStrictData(info: OutStreamImpl, data: ByteString): Unit =
+      if (streamSendRateLimit > 0 && data.nonEmpty) runData(info, rateLimited(Source.single(data)))
+      else info.addAllData(data)
+
+    private def runData(info: OutStreamImpl, data: Source[Any, Any]): Unit = {
+      val subIn = new SubSinkInlet[Any](s"substream-in-${info.streamId}")
+      info.registerIncomingData(subIn)
+      data.runWith(subIn.sink)(subFusingMaterializer)
+    }
+
+    /**
+     * The data of a `Source.single` of a ByteString or data chunk, e.g. of a `HttpEntity.Default`, which can be sent
+     * like a strict entity without materializing the source.
+     */
+    private def singleElementData(data: Source[Any, Any]): OptionVal[ByteString] =
+      TraversalBuilder.getSingleSource(data) match {
+        case OptionVal.Some(single) =>
+          single.elem match {
+            case bytes: ByteString          => OptionVal.Some(bytes)
+            case HttpEntity.Chunk(bytes, _) => OptionVal.Some(bytes)
+            case _                          => OptionVal.None
+          }
+        case _ => OptionVal.None
+      }
+
+    private def rateLimited(data: Source[Any, Any]): Source[Any, Any] =
+      if (streamSendRateLimit > 0) {
+        // a large element would otherwise be sent as one burst after the throttle waited for all of its bytes
+        val pieceSize = Http2Protocol.InitialMaxFrameSize min streamSendRateLimit
+        data
+          .mapConcat(splitData(_, pieceSize))
+          .throttle(streamSendRateLimit, 1.second, streamSendRateLimit, dataSize _, ThrottleMode.Shaping)
+      } else data
+
+    private def splitData(element: Any, pieceSize: Int): immutable.Iterable[Any] = element match {
+      case bytes: ByteString if bytes.size > pieceSize => bytes.grouped(pieceSize).toVector
+      case HttpEntity.Chunk(bytes, _) if bytes.size > pieceSize =>
+        bytes.grouped(pieceSize).map(HttpEntity.Chunk(_)).toVector
+      case other => other :: Nil
+    }
+
+    private def dataSize(element: Any): Int = element match {
+      case bytes: ByteString          => bytes.size
+      case HttpEntity.Chunk(bytes, _) => bytes.size
+      case _                          => 0
+    }
   }
   final class OutStreamImpl(
       val streamId: Int,
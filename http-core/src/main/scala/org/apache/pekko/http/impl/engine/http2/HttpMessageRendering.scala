@@ -149,27 +149,36 @@ private[http2] object HttpMessageRendering {
 
     val it = headersSeq.iterator
     var peerIdSeen, dateSeen = false
-    def addHeader(h: HttpHeader): Unit = headerPairs += h.lowercaseName -> h.value
+    def addHeader(h: HttpHeader): Unit = h match {
+      // reuse the cached pair, so that the HPACK encoder sees the same string instances (with cached hash codes)
+      case x: headers.PreRenderedHeader => headerPairs += x.headerPair
+      case x                            => headerPairs += x.lowercaseName -> x.value
+    }
 
     while (it.hasNext) {
       import pekko.http.scaladsl.model.headers._
-      val header = it.next()
+      val next = it.next()
+      // pre-rendered headers get the special treatment of the header they wrap but are added from `next`
+      val header = next match {
+        case x: PreRenderedHeader => x.header
+        case x                    => x
+      }
       if ((header.renderInResponses && isServer) || (header.renderInRequests && !isServer)) {
         header match {
-          case x: Server if isServer =>
-            addHeader(x)
+          case _: Server if isServer =>
+            addHeader(next)
             peerIdSeen = true
 
-          case x: `User-Agent` if !isServer =>
-            addHeader(x)
+          case _: `User-Agent` if !isServer =>
+            addHeader(next)
             peerIdSeen = true
 
-          case x: Date if isServer =>
-            addHeader(x)
+          case _: Date if isServer =>
+            addHeader(next)
             dateSeen = true
 
-          case x: CustomHeader =>
-            addHeader(x)
+          case _: CustomHeader =>
+            addHeader(next)
 
           case x: RawHeader
               if (x.is("content-type")) || (x.is("content-length")) || (x.is("transfer-encoding")) ||
@@ -190,8 +199,8 @@ private[http2] object HttpMessageRendering {
           case x: Connection =>
             suppressionWarning(x, "`Connection` header is not allowed for HTTP/2")
 
-          case x =>
-            addHeader(x)
+          case _ =>
+            addHeader(next)
         }
       }
     }
@@ -15,7 +15,9 @@ package org.apache.pekko.http.impl.engine.http2
 
 import org.apache.pekko
 import pekko.annotation.InternalApi
+import pekko.http.impl.engine.http2.FrameEvent.PingFrame
 import pekko.http.scaladsl.settings.Http2CommonSettings
+import pekko.util.ByteString
 
 /** INTERNAL API */
 @InternalApi
@@ -24,6 +26,12 @@ private[http2] trait IncomingFlowController {
 
   def onStreamDataDispatched(outstandingConnectionLevelWindow: Int, totalBufferedData: Int,
       outstandingStreamLevelWindow: Int, streamBufferedData: Int): IncomingFlowController.WindowIncrements
+
+  /** Called for each DATA frame received, returns true if a [[IncomingFlowController.BdpPing]] should be sent */
+  def onDataFrameReceived(sizeInWindow: Int): Boolean = false
+
+  /** Called when the [[IncomingFlowController.BdpPing]] was acknowledged, returns true if the windows were grown */
+  def onBdpPingAck(): Boolean = false
 }
 
 /** INTERNAL API */
@@ -37,9 +45,20 @@ private[http2] object IncomingFlowController {
     val NoIncrements = WindowIncrements(0, 0)
   }
 
+  /** The PING frame used to measure the round-trip time for the bandwidth-delay product estimation */
+  val BdpPing = PingFrame(false, ByteString("bdp-ping"))
+
+  def apply(settings: Http2CommonSettings): IncomingFlowController =
+    if (settings.adaptiveFlowControl) adaptive(settings) else default(settings)
+
   def default(settings: Http2CommonSettings): IncomingFlowController =
     default(settings.incomingConnectionLevelBufferSize, settings.incomingStreamLevelBufferSize)
 
+  def adaptive(settings: Http2CommonSettings): IncomingFlowController =
+    new AdaptiveFlowController(
+      settings.incomingConnectionLevelBufferSize, settings.incomingStreamLevelBufferSize,
+      settings.maxIncomingConnectionLevelBufferSize, settings.maxIncomingStreamLevelBufferSize)
+
   /** The default scheme sends out WINDOW_UPDATE frames when buffered + outstanding data falls below half of the maximum configured size */
   def default(maximumConnectionLevelWindow: Int, maximumStreamLevelWindow: Int): IncomingFlowController =
     new IncomingFlowController {
@@ -52,10 +71,78 @@ private[http2] object IncomingFlowController {
           onConnectionDataReceived(outstandingConnectionLevelWindow, totalBufferedData),
           ifMoreThanHalfUsed(maximumStreamLevelWindow, outstandingStreamLevelWindow, streamBufferedData))
 
-      private def ifMoreThanHalfUsed(max: Int, outstanding: Int, buffered: Int): Int = {
-        val totalReservedSpace = outstanding + buffered
-        if (totalReservedSpace < max / 2) max - totalReservedSpace
-        else 0
-      }
+      private def ifMoreThanHalfUsed(max: Int, outstanding: Int, buffered: Int): Int =
+        IncomingFlowController.ifMoreThanHalfUsed(max, outstanding, buffered)
     }
+
+  private def ifMoreThanHalfUsed(max: Int, outstanding: Int, buffered: Int): Int = {
+    val totalReservedSpace = outstanding + buffered
+    if (totalReservedSpace < max / 2) max - totalReservedSpace
+    else 0
+  }
+
+  /** A data sample must fill this share of a window to let it grow */
+  private final val GrowthThreshold = 2.0 / 3.0
+
+  /**
+   * Sends WINDOW_UPDATE frames like the default scheme, but grows the windows from their initial to their maximum
+   * sizes with the bandwidth-delay product (BDP) of the connection, similar to the BDP estimation of gRPC.
+   *
+   * When a DATA frame arrives while no BDP ping is in flight, a PING is sent and the data received until it is
+   * acknowledged is counted as a sample of the BDP. If a sample fills most of a window and the bandwidth (sample per
+   * round-trip time) increased, the window is grown to twice the sample. Once both windows reached their maximum no
+   * more pings are sent.
+   */
+  private final class AdaptiveFlowController(
+      initialConnectionLevelWindow: Int, initialStreamLevelWindow: Int,
+      maximumConnectionLevelWindow: Int, maximumStreamLevelWindow: Int) extends IncomingFlowController {
+    private var connectionLevelWindow = initialConnectionLevelWindow
+    private var streamLevelWindow = initialStreamLevelWindow
+
+    private var pingInFlight = false
+    private var pingSentNanos = 0L
+    private var sample = 0L
+    private var maxBandwidth = 0.0
+
+    def onConnectionDataReceived(outstandingConnectionLevelWindow: Int, totalBufferedData: Int): Int =
+      ifMoreThanHalfUsed(connectionLevelWindow, outstandingConnectionLevelWindow, totalBufferedData)
+
+    def onStreamDataDispatched(outstandingConnectionLevelWindow: Int, totalBufferedData: Int,
+        outstandingStreamLevelWindow: Int, streamBufferedData: Int): WindowIncrements =
+      WindowIncrements(
+        onConnectionDataReceived(outstandingConnectionLevelWindow, totalBufferedData),
+        ifMoreThanHalfUsed(streamLevelWindow, outstandingStreamLevelWindow, streamBufferedData))
+
+    override def onDataFrameReceived(sizeInWindow: Int): Boolean =
+      if (pingInFlight) {
+        sample += sizeInWindow
+        false
+      } else if (connectionLevelWindow >= maximumConnectionLevelWindow && streamLevelWindow >= maximumStreamLevelWindow)
+        false
+      else {
+        pingInFlight = true
+        pingSentNanos = System.nanoTime()
+        sample = sizeInWindow
+        true
+      }
+
+    override def onBdpPingAck(): Boolean =
+      if (!pingInFlight) false
+      else {
+        pingInFlight = false
+        val rttNanos = math.max(System.nanoTime() - pingSentNanos, 1L)
+        val bandwidth = sample.toDouble / rttNanos
+        if (bandwidth <= maxBandwidth) false
+        else {
+          maxBandwidth = bandwidth
+          val target = math.min(sample * 2, Int.MaxValue.toLong).toInt
+          val oldConnectionLevelWindow = connectionLevelWindow
+          if (sample >= connectionLevelWindow * GrowthThreshold)
+            connectionLevelWindow = math.max(connectionLevelWindow, math.min(target, maximumConnectionLevelWindow))
+          if (sample >= streamLevelWindow * GrowthThreshold)
+            streamLevelWindow = math.max(streamLevelWindow, math.min(target, maximumStreamLevelWindow))
+          connectionLevelWindow != oldConnectionLevelWindow
+        }
+      }
+  }
 }
@@ -16,6 +16,7 @@ package org.apache.pekko.http.impl.engine.http2
 import org.apache.pekko.annotation.InternalApi
 
 import scala.collection.immutable
+import scala.collection.mutable
 
 import FrameEvent.PriorityFrame
 
@@ -32,18 +33,73 @@ private[http2] trait StreamPrioritizer {
 
   /** Choose a substream from a set of substream ids that have data available */
   def chooseSubstream(streams: immutable.Set[Int]): Int
+
+  /** Whether this prioritizer uses RFC 9218 priority signals, i.e. `priority` headers and PRIORITY_UPDATE frames */
+  def usesExtensiblePriorities: Boolean = false
+
+  /**
+   * Update the RFC 9218 priority of a substream. A priority from the `priority` request header doesn't override one
+   * that was already set by a PRIORITY_UPDATE frame.
+   */
+  def updateExtensiblePriority(streamId: Int, priorityFieldValue: String, fromHeader: Boolean): Unit = ()
+
+  /** Forget all priority information about a closed substream */
+  def removeStream(streamId: Int): Unit = ()
+
+  /** Create the queue of substreams with data available that the multiplexer takes the next substream from */
+  def newSendQueue(): StreamPrioritizer.SendQueue = new StreamPrioritizer.ChoosingSendQueue(this)
 }
 
 /** INTERNAL API */
 @InternalApi
 private[http2] object StreamPrioritizer {
 
+  /** The substreams that have data available, in the order they should get to send it */
+  trait SendQueue {
+    def enqueue(streamId: Int): Unit
+    def dequeue(): Int
+    def remove(streamId: Int): Unit
+    def contains(streamId: Int): Boolean
+    def isEmpty: Boolean
+    final def nonEmpty: Boolean = !isEmpty
+
+    /** Called after a DATA frame of `bytes` was sent for a substream */
+    def onDataSent(streamId: Int, bytes: Int): Unit = ()
+  }
+
+  /** Round-robin over all substreams with data available */
+  private class FifoSendQueue extends SendQueue {
+    protected val queue = new mutable.Queue[Int]
+    def enqueue(streamId: Int): Unit = queue.enqueue(streamId)
+    def dequeue(): Int = queue.dequeue()
+    // expensive operation, but only called for cancelled streams
+    def remove(streamId: Int): Unit = queue -= streamId
+    def contains(streamId: Int): Boolean = queue.contains(streamId)
+    def isEmpty: Boolean = queue.isEmpty
+  }
+
+  /** Asks the prioritizer to choose from all substreams with data available */
+  private class ChoosingSendQueue(prioritizer: StreamPrioritizer) extends FifoSendQueue {
+    override def dequeue(): Int = {
+      val chosenId = prioritizer.chooseSubstream(queue.toSet)
+      queue -= chosenId
+      chosenId
+    }
+  }
+
   /** A prioritizer that ignores priority information and just sends to the first stream */
   object First extends StreamPrioritizer {
     def updatePriority(priorityFrame: PriorityFrame): Unit = ()
     def chooseSubstream(streams: Set[Int]): Int = streams.head
+    override def newSendQueue(): SendQueue = new FifoSendQueue
   }
 
+  /** A prioritizer following the RFC 9218 Extensible Priorities of the `priority` header and PRIORITY_UPDATE frames */
+  def extensiblePriorities(): StreamPrioritizer = new ExtensiblePrioritizer
+
+  /** A prioritizer that gives every stream a fair share of the sent bytes, see [[DeficitRoundRobinPrioritizer]] */
+  def deficitRoundRobin(quantum: Int): StreamPrioritizer = new DeficitRoundRobinPrioritizer(quantum)
+
   def usingPriorityTree(): StreamPrioritizer =
     new StreamPrioritizer {
       private var priorityTree = PriorityTree()
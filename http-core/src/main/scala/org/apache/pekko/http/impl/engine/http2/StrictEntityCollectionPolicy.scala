@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import org.apache.pekko
+import pekko.annotation.InternalApi
+import pekko.http.impl.engine.http2.FrameEvent.ParsedHeadersFrame
+import pekko.http.impl.util._
+import pekko.http.scaladsl.model.{ ContentType, Uri }
+import pekko.http.scaladsl.settings.Http2ServerSettings
+import pekko.http.scaladsl.settings.Http2ServerSettings.StrictEntityCollectionRule
+
+/**
+ * INTERNAL API
+ *
+ * Decides per request how many bytes of the request entity to collect before dispatching the request, so that small
+ * requests are dispatched with a strict entity while large ones are streamed.
+ *
+ * The first of the `strict-entity-collection-rules` that matches the path, content type and content length of a request
+ * decides, otherwise `min-collect-strict-entity-size` applies. A request that declares a `content-length` larger than
+ * what would be collected is dispatched with a streamed entity right away, collecting would only delay it.
+ */
+@InternalApi
+private[http2] final class StrictEntityCollectionPolicy(defaultSize: Int, rules: Seq[StrictEntityCollectionRule]) {
+  import StrictEntityCollectionPolicy._
+
+  private val matchers = rules.map(new RuleMatcher(_)).toArray
+
+  /** The number of entity bytes to collect before dispatching the request, 0 to dispatch it right away */
+  def minCollectStrictEntitySize(headers: ParsedHeadersFrame): Int =
+    if (matchers.isEmpty && defaultSize == 0) 0
+    else {
+      var path: Uri.Path = null
+      var mediaType: String = null
+      var contentLength = -1L
+      headers.keyValuePairs.foreach {
+        case (":path", (p: Uri.Path, _))                => path = p
+        case ("content-type", contentType: ContentType) => mediaType = contentType.mediaType.value
+        case ("content-length", value: String)          => contentLength = parseContentLength(value)
+        case _                                          =>
+      }
+
+      var size = defaultSize
+      var i = 0
+      while (i < matchers.length) {
+        if (matchers(i).matches(path, mediaType, contentLength)) {
+          size = matchers(i).size
+          i = matchers.length
+        } else i += 1
+      }
+
+      if (contentLength > size) 0 else size
+    }
+}
+
+/** INTERNAL API */
+@InternalApi
+private[http2] object StrictEntityCollectionPolicy {
+  def apply(settings: Http2ServerSettings): StrictEntityCollectionPolicy =
+    new StrictEntityCollectionPolicy(settings.minCollectStrictEntitySize, settings.strictEntityCollectionRules)
+
+  private final class RuleMatcher(rule: StrictEntityCollectionRule) {
+    private val pathPrefix: Uri.Path = rule.pathPrefix.map(Uri.Path(_)).orNull
+    private val mediaTypePrefix: String = rule.contentType.map(_.toRootLowerCase).orNull
+
+    def size: Int = rule.minCollectStrictEntitySize
+
+    def matches(path: Uri.Path, mediaType: String, contentLength: Long): Boolean =
+      (pathPrefix == null || (path != null && path.startsWith(pathPrefix))) &&
+      (mediaTypePrefix == null || (mediaType != null && mediaType.startsWith(mediaTypePrefix))) &&
+      rule.maxContentLength.forall(max => contentLength >= 0 && contentLength <= max)
+  }
+
+  // RequestParsing reports invalid values later on, until then the content length is treated as unknown
+  private def parseContentLength(value: String): Long =
+    try value.toLong
+    catch { case _: NumberFormatException => -1L }
+}
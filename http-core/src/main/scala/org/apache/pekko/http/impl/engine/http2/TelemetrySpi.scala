@@ -66,6 +66,9 @@ object TelemetryAttributes {
 
 /**
  * INTERNAL API
+ *
+ * The callbacks with a `connectionAttributes` parameter do nothing by default. They are called from within the stream
+ * of the connection they report on, so implementations must not block.
  */
 @InternalStableApi
 trait TelemetrySpi {
@@ -84,6 +87,83 @@ trait TelemetrySpi {
    * Flow to intercept server connections.
    */
   def serverConnection: BidiFlow[HttpResponse, HttpResponse, HttpRequest, HttpRequest, NotUsed]
+
+  /**
+   * Called on HTTP/2 server connections for every DATA frame sent, with the time in nanoseconds that the data of the
+   * stream waited for its turn to be sent, i.e. how long the stream was queued behind other streams of the connection or
+   * was waiting for connection-level flow-control window. `connectionAttributes` are the attributes of the connection,
+   * which include the ones added to the connection flow in `serverBinding`.
+   */
+  def serverStreamQueueingDelay(connectionAttributes: Attributes, streamId: Int, queueingDelayNanos: Long): Unit = ()
+
+  /**
+   * Called on HTTP/2 server and client connections for every header block sent. `uncompressedBytes` are the bytes of
+   * the names and values of the `fields`, `encodedBytes` the size of the HPACK encoded block, and
+   * `dynamicTableHits` the number of fields that were sent as a reference to the dynamic table. Together they give the
+   * compression ratio and dynamic table hit rate of the connection. `connectionAttributes` are the attributes of the
+   * connection.
+   */
+  def headerBlockEncoded(connectionAttributes: Attributes, fields: Int, dynamicTableHits: Int, uncompressedBytes: Int,
+      encodedBytes: Int): Unit = ()
+
+  /**
+   * Called on HTTP/2 server connections with `adaptive-concurrency` enabled whenever a new
+   * SETTINGS_MAX_CONCURRENT_STREAMS is advertised to the client. `connectionAttributes` are the attributes of the
+   * connection.
+   */
+  def serverMaxConcurrentStreamsChanged(connectionAttributes: Attributes, maxConcurrentStreams: Int): Unit = ()
+
+  /**
+   * Called on HTTP/2 server connections when a stream opened by the client is refused with REFUSED_STREAM because it
+   * exceeds the concurrent streams limit. `connectionAttributes` are the attributes of the connection.
+   */
+  def serverStreamRefused(connectionAttributes: Attributes, streamId: Int): Unit = ()
+
+  /**
+   * Called when a WebSocket connection that negotiated permessage-deflate opens (`opened = true`) and when it closes.
+   * `connectionAttributes` are the attributes of the connection.
+   */
+  def webSocketCompressionConnection(connectionAttributes: Attributes, opened: Boolean): Unit = ()
+
+  /**
+   * Called on WebSocket connections with permessage-deflate after the connection took a zlib inflater or deflater or
+   * gave one back. The zlib instances are pooled across connections, so `inflaters` and `deflaters` are the numbers of
+   * instances alive in the whole process, in use or idle in a pool, and `estimatedNativeMemory` their native memory
+   * in bytes, estimated from the zlib parameters the JDK uses.
+   */
+  def webSocketZlibInstances(connectionAttributes: Attributes, inflaters: Long, deflaters: Long,
+      estimatedNativeMemory: Long): Unit = ()
+
+  /**
+   * Called on WebSocket connections for every outgoing frame compressed with permessage-deflate, with the payload size
+   * before and after compression and the time spent in the deflater in nanoseconds. `connectionAttributes` are the
+   * attributes of the connection.
+   */
+  def webSocketFrameCompressed(connectionAttributes: Attributes, uncompressedBytes: Int, compressedBytes: Int,
+      compressionNanos: Long): Unit = ()
+
+  /**
+   * Called on WebSocket connections for every outgoing message that could have been compressed but was sent
+   * uncompressed by the compression policy, because it was smaller than `min-message-size` or compression was backing
+   * off. `connectionAttributes` are the attributes of the connection.
+   */
+  def webSocketMessageSentUncompressed(connectionAttributes: Attributes): Unit = ()
+
+  /**
+   * Called once per outgoing HTTPS connection when its TLS handshake completed, `resumed` tells whether the handshake
+   * resumed a session from the session cache of the `SSLContext` instead of doing a full handshake.
+   * `connectionAttributes` are the attributes of the connection.
+   */
+  def clientTlsHandshake(connectionAttributes: Attributes, host: String, port: Int, resumed: Boolean): Unit = ()
+
+  /**
+   * Called when an HTTP/1 server connection closes if `pekko.http.server.parsing.shared-header-cache-size` is enabled,
+   * with the statistics of the header value cache shared by all connections of the server binding: lookups that hit and
+   * missed, evictions, and the number of entries in use out of `capacity`. The counters are totals since the binding
+   * was created. `connectionAttributes` are the attributes of the connection.
+   */
+  def serverSharedHeaderCacheStats(connectionAttributes: Attributes, hits: Long, misses: Long, evictions: Long,
+      size: Int, capacity: Int): Unit = ()
 }
 
 /**
@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2.client
+
+import java.util
+
+import scala.concurrent.{ Future, Promise }
+
+import org.apache.pekko
+import pekko.{ Done, NotUsed }
+import pekko.annotation.InternalApi
+import pekko.event.LoggingAdapter
+import pekko.http.impl.engine.client.PoolWarmUp
+import pekko.http.impl.util.StageLoggingWithOverride
+import pekko.http.scaladsl.Http.OutgoingConnection
+import pekko.http.scaladsl.model.{ AttributeKey, HttpRequest, HttpResponse, RequestResponseAssociation, StatusCodes }
+import pekko.http.scaladsl.settings.ConnectionPoolSettings
+import pekko.stream.{ Attributes, FlowShape, Inlet, Outlet }
+import pekko.stream.scaladsl.{ Flow, Source }
+import pekko.stream.stage.{ GraphStage, GraphStageLogic, InHandler, OutHandler }
+
+/**
+ * INTERNAL API
+ *
+ * A pool of HTTP/2 connections to a single host. Each connection is a [[PersistentConnection]] that carries up to
+ * `http2-streams-per-connection` concurrent requests, or fewer if the server's SETTINGS_MAX_CONCURRENT_STREAMS is
+ * lower. A connection is full when it carries that many requests or when its connection-level window for sending data
+ * is used up. New requests go to the connection with the lowest share of its streams in use, preferring the one with
+ * the larger window. When all connections are full, another one is opened, up to `max-connections`. When the load
+ * drops to half of what the pool could carry with one connection fewer, the most recently opened connection is
+ * drained: it doesn't get new requests anymore and is closed once its last response arrived. The pool doesn't drain
+ * connections below `min-connections`.
+ *
+ * When a connection gives up after `max-persistent-attempts`, it is closed and its requests get a 502 response, the
+ * pool keeps going with the other connections.
+ *
+ * Responses are emitted in the order they arrive, use a [[pekko.http.scaladsl.model.RequestResponseAssociation]] to
+ * match them to their requests.
+ */
+@InternalApi
+private[http] object Http2HostPool {
+  def apply(connectionFlow: Flow[HttpRequest, HttpResponse, Future[OutgoingConnection]],
+      settings: ConnectionPoolSettings, log: LoggingAdapter,
+      warmUp: PoolWarmUp = new PoolWarmUp): Flow[HttpRequest, HttpResponse, NotUsed] =
+    Flow.fromGraph(new Stage(connectionFlow, settings, log, warmUp))
+
+  // slot states
+  private final val Closed = 0
+  private final val Active = 1
+  private final val Draining = 2
+  private final val Closing = 3
+
+  /** Tracks a request on the connection it was sent to, carried over to the response like other associations */
+  private final class InFlightRequest(val request: HttpRequest) extends RequestResponseAssociation
+  private val InFlightRequestKey = AttributeKey[InFlightRequest]("Http2HostPool.inFlightRequest")
+
+  private val errorResponse =
+    HttpResponse(
+      StatusCodes.BadGateway,
+      entity = "The connection to the server failed before delivering a response.")
+
+  private final class Stage(connectionFlow: Flow[HttpRequest, HttpResponse, Future[OutgoingConnection]],
+      settings: ConnectionPoolSettings, _log: LoggingAdapter, warmUp: PoolWarmUp)
+      extends GraphStage[FlowShape[HttpRequest, HttpResponse]] {
+    val requestIn = Inlet[HttpRequest]("Http2HostPool.requestIn")
+    val responseOut = Outlet[HttpResponse]("Http2HostPool.responseOut")
+    override val shape = FlowShape(requestIn, responseOut)
+
+    override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
+      new GraphStageLogic(shape) with StageLoggingWithOverride with InHandler with OutHandler { logic =>
+        override def logOverride: LoggingAdapter = _log
+
+        private val streamsPerConnection = settings.http2StreamsPerConnection
+        private val maxInFlight = settings.maxConnections * streamsPerConnection
+        private val minActiveSlots = math.max(1, math.min(settings.minConnections, settings.maxConnections))
+        private val slots = Array.tabulate(settings.maxConnections)(new Slot(_))
+        // responses that arrived while `responseOut` wasn't pulled, at most one per request in flight
+        private val responses = new util.ArrayDeque[HttpResponse]
+        // a request that was pulled but couldn't be dispatched yet
+        private var pending: HttpRequest = null
+        private var inFlight = 0
+        private var activeSlots = 0
+
+        // warm-ups waiting for the given number of connections to be ready
+        private var pendingWarmUps: List[(Int, Promise[Done])] = Nil
+        // connections to open once the first one is ready, so that they can resume its TLS session
+        private var deferredWarmUpConnections = 0
+        warmUp.bind(getAsyncCallback[(Int, Boolean, Promise[Done])] {
+          case (connections, firstConnectionAlone, done) => startWarmUp(connections, firstConnectionAlone, done)
+        })
+
+        // a connection got ready or closed or has window to send data again
+        private val peerLimitsChanged = getAsyncCallback[Unit] { _ =>
+          onWarmUpProgress()
+          dispatch()
+        }
+
+        setHandlers(requestIn, responseOut, this)
+
+        override def preStart(): Unit = pull(requestIn)
+
+        override def onPush(): Unit = {
+          pending = grab(requestIn)
+          dispatch()
+        }
+        override def onUpstreamFinish(): Unit =
+          if (pending eq null) completeSlots()
+
+        override def onPull(): Unit =
+          if (!responses.isEmpty) {
+            push(responseOut, responses.removeFirst())
+            if (isClosed(requestIn)) completeIfDone()
+            else pullIfPossible()
+          }
+
+        override def postStop(): Unit =
+          failWarmUps(new IllegalStateException("Pool was shut down before the warm-up completed"))
+
+        def dispatch(): Unit = {
+          if (pending ne null) {
+            val slot = leastLoadedSlot()
+            if (slot ne null) {
+              slot.send(pending)
+              pending = null
+            } else if (allActiveSlotsFull) openSlot(connectEagerly = false)
+          }
+          if (pending eq null) {
+            if (isClosed(requestIn)) completeSlots()
+            else pullIfPossible()
+          }
+        }
+
+        def pullIfPossible(): Unit =
+          if ((pending eq null) && !hasBeenPulled(requestIn) && inFlight + responses.size < maxInFlight)
+            pull(requestIn)
+
+        def leastLoadedSlot(): Slot = {
+          var best: Slot = null
+          var i = 0
+          while (i < slots.length) {
+            val slot = slots(i)
+            if (slot.canDispatch && ((best eq null) || slot.isLessLoadedThan(best))) best = slot
+            i += 1
+          }
+          best
+        }
+
+        def allActiveSlotsFull: Boolean = !slots.exists(s => s.state == Active && !s.isFull)
+
+        /**
+         * Reactivates a draining connection if there is one, so that it doesn't have to be reestablished.
+         *
+         * @return whether a connection could be opened
+         */
+        def openSlot(connectEagerly: Boolean): Boolean =
+          slots.find(_.state == Draining).orElse(slots.find(_.state == Closed)) match {
+            case Some(slot) =>
+              if (slot.state == Draining) slot.state = Active
+              else slot.open(connectEagerly)
+              activeSlots += 1
+              log.debug("Using {} connections for {} requests in flight", activeSlots, inFlight)
+              true
+            case None => false // wait for a response or for a closing connection to be gone
+          }
+
+        def onResponse(slot: Slot, response: HttpResponse): Unit = {
+          inFlight -= 1
+          emitResponse(response)
+
+          if (slot.state == Draining && slot.inFlight == 0) slot.close()
+          else scaleDown()
+          dispatch()
+        }
+
+        def emitResponse(response: HttpResponse): Unit =
+          if (isAvailable(responseOut)) push(responseOut, response)
+          else responses.addLast(response)
+
+        def scaleDown(): Unit =
+          if (activeSlots > minActiveSlots) {
+            val slot = slots.findLast(_.state == Active).get
+            val remainingCapacity = slots.iterator.filter(s => s.state == Active && (s ne slot)).map(_.capacity).sum
+            if (2 * inFlight < remainingCapacity) {
+              slot.state = Draining
+              activeSlots -= 1
+              log.debug("Draining a connection, using {} connections for {} requests in flight", activeSlots, inFlight)
+              if (slot.inFlight == 0) slot.close()
+            }
+          }
+
+        def completeSlots(): Unit = {
+          slots.foreach { slot =>
+            if (slot.state == Active || slot.state == Draining) {
+              if (slot.state == Active) activeSlots -= 1
+              slot.close()
+            }
+          }
+          completeIfDone()
+        }
+
+        def completeIfDone(): Unit =
+          if ((pending eq null) && responses.isEmpty && slots.forall(_.state == Closed)) completeStage()
+
+        def startWarmUp(connections: Int, firstConnectionAlone: Boolean, done: Promise[Done]): Unit = {
+          val target = math.min(connections, slots.length)
+          val ready = numReadySlots
+          if (ready >= target) done.trySuccess(Done)
+          else {
+            pendingWarmUps ::= target -> done
+            if (firstConnectionAlone && ready == 0) {
+              deferredWarmUpConnections = math.max(deferredWarmUpConnections, target)
+              openSlots(1)
+            } else openSlots(target)
+          }
+        }
+
+        private def numReadySlots: Int = slots.count(_.isReady)
+
+        /** Opens connections until `connections` of them are active */
+        private def openSlots(connections: Int): Unit =
+          while (activeSlots < connections && openSlot(connectEagerly = true)) ()
+
+        private def onWarmUpProgress(): Unit =
+          if (pendingWarmUps.nonEmpty) {
+            val ready = numReadySlots
+            if (deferredWarmUpConnections > 0 && ready > 0) {
+              openSlots(deferredWarmUpConnections)
+              deferredWarmUpConnections = 0
+            }
+            val (completed, waiting) = pendingWarmUps.partition(_._1 <= ready)
+            completed.foreach(_._2.trySuccess(Done))
+            pendingWarmUps = waiting
+          }
+
+        private def failWarmUps(cause: Throwable): Unit = {
+          pendingWarmUps.foreach(_._2.tryFailure(cause))
+          pendingWarmUps = Nil
+          deferredWarmUpConnections = 0
+        }
+
+        final class Slot(index: Int) {
+          var state = Closed
+          private val requests = new util.HashSet[InFlightRequest]
+          private var peerLimits: PeerLimits = _
+          private var requestOut: SubSourceOutlet[HttpRequest] = _
+          private var responseIn: SubSinkInlet[HttpResponse] = _
+
+          def inFlight: Int = requests.size
+
+          /** The number of concurrent requests this connection can carry */
+          def capacity: Int = math.min(streamsPerConnection, peerLimits.maxConcurrentStreams)
+          def isFull: Boolean = inFlight >= capacity || peerLimits.connectionWindow <= 0
+          def isReady: Boolean = (state == Active || state == Draining) && peerLimits.isConnected
+          def canDispatch: Boolean = state == Active && !isFull && requestOut.isAvailable
+
+          def isLessLoadedThan(other: Slot): Boolean = {
+            val load = inFlight.toLong * other.capacity
+            val otherLoad = other.inFlight.toLong * capacity
+            load < otherLoad || (load == otherLoad && peerLimits.connectionWindow > other.peerLimits.connectionWindow)
+          }
+
+          def open(connectEagerly: Boolean): Unit = {
+            peerLimits = new PeerLimits(() => peerLimitsChanged.invoke(()))
+            requestOut = new SubSourceOutlet[HttpRequest](s"Http2HostPool.slot$index.requestOut")
+            responseIn = new SubSinkInlet[HttpResponse](s"Http2HostPool.slot$index.responseIn")
+            requestOut.setHandler(new OutHandler {
+              override def onPull(): Unit = dispatch()
+              // the connection only cancels when it gives up, which is reported through `responseIn`
+              override def onDownstreamFinish(cause: Throwable): Unit = ()
+            })
+            responseIn.setHandler(new InHandler {
+              override def onPush(): Unit = {
+                val response = responseIn.grab()
+                responseIn.pull()
+                requests.remove(response.attribute(InFlightRequestKey).get)
+                onResponse(Slot.this, response.removeAttribute(InFlightRequestKey))
+              }
+              override def onUpstreamFinish(): Unit = onClosed()
+              override def onUpstreamFailure(ex: Throwable): Unit = {
+                log.warning("Connection {} of the pool failed and is closed: {}", index, ex.getMessage)
+                if (!requestOut.isClosed) requestOut.fail(ex)
+                failWarmUps(ex)
+                onClosed()
+              }
+            })
+            state = Active
+            val connection =
+              PersistentConnection.managedConnection(connectionFlow.addAttributes(Attributes(peerLimits)),
+                settings.connectionSettings.http2Settings, connectEagerly)
+            Source.fromGraph(requestOut.source).via(connection).to(responseIn.sink).run()(subFusingMaterializer)
+            responseIn.pull()
+          }
+
+          def send(request: HttpRequest): Unit = {
+            val inFlightRequest = new InFlightRequest(request)
+            requests.add(inFlightRequest)
+            logic.inFlight += 1
+            requestOut.push(request.addAttribute(InFlightRequestKey, inFlightRequest))
+          }
+
+          def close(): Unit = {
+            state = Closing
+            requestOut.complete()
+          }
+
+          private def onClosed(): Unit = {
+            if (state == Active) activeSlots -= 1
+            state = Closed
+            // the connection answers every request it got unless it failed
+            requests.forEach { inFlightRequest =>
+              logic.inFlight -= 1
+              emitResponse(errorResponse.withAttributes(inFlightRequest.request.attributes.filter {
+                case (_, value) => value.isInstanceOf[RequestResponseAssociation]
+              }))
+            }
+            requests.clear()
+            if (isClosed(requestIn)) completeIfDone()
+            else dispatch()
+          }
+        }
+      }
+  }
+}
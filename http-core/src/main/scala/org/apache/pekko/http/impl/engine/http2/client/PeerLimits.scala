@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2.client
+
+import org.apache.pekko
+import pekko.annotation.InternalApi
+import pekko.http.impl.engine.http2.Http2Protocol
+import pekko.stream.Attributes
+
+/**
+ * INTERNAL API
+ *
+ * What a client connection knows about the limits of the server: its SETTINGS_MAX_CONCURRENT_STREAMS and the
+ * connection-level window left for sending data. Added as an attribute to the connection flows of an
+ * [[Http2HostPool]], updated by the connection and read by the pool, which may run in another actor.
+ *
+ * @param onChange called when the connection got ready or closed and when the connection-level window becomes
+ *                 available again after it was used up
+ */
+@InternalApi
+private[http2] final class PeerLimits(onChange: () => Unit) extends Attributes.Attribute {
+  @volatile private var _settingsReceived = false
+  @volatile private var _maxConcurrentStreams = Http2Protocol.InitialMaxConcurrentStreams
+  @volatile private var _connectionWindow = Http2Protocol.InitialWindowSize
+
+  /** Whether the connection is established and the server sent its SETTINGS */
+  def isConnected: Boolean = _settingsReceived
+  def maxConcurrentStreams: Int = _maxConcurrentStreams
+  def connectionWindow: Int = _connectionWindow
+
+  def connectionStarted(): Unit = {
+    _settingsReceived = false
+    _maxConcurrentStreams = Http2Protocol.InitialMaxConcurrentStreams
+    _connectionWindow = Http2Protocol.InitialWindowSize
+  }
+
+  def maxConcurrentStreamsChanged(value: Int): Unit = _maxConcurrentStreams = value
+
+  def settingsReceived(): Unit = {
+    _settingsReceived = true
+    onChange()
+  }
+
+  def connectionWindowChanged(windowLeft: Int): Unit = {
+    val wasUsedUp = _connectionWindow <= 0
+    _connectionWindow = windowLeft
+    if (wasUsedUp && windowLeft > 0) onChange()
+  }
+
+  def connectionStopped(): Unit = {
+    _settingsReceived = false
+    onChange()
+  }
+}
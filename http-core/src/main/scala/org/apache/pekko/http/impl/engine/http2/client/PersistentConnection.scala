@@ -52,14 +52,16 @@ private[http2] object PersistentConnection {
    * Error reporting logic when connection breaks while requests are running:
    *  * generate error responses with 502 status code
    *  * custom attribute contains internal error information
+   *
+   * @param connectEagerly connect when materialized instead of when the first request comes in
    */
   def managedConnection(connectionFlow: Flow[HttpRequest, HttpResponse, Future[OutgoingConnection]],
-      settings: Http2ClientSettings): Flow[HttpRequest, HttpResponse, NotUsed] =
+      settings: Http2ClientSettings, connectEagerly: Boolean = false): Flow[HttpRequest, HttpResponse, NotUsed] =
     Flow.fromGraph(new Stage(connectionFlow,
       settings.maxPersistentAttempts match {
         case 0 => None
         case n => Some(n)
-      }, settings.baseConnectionBackoff, settings.maxConnectionBackoff))
+      }, settings.baseConnectionBackoff, settings.maxConnectionBackoff, connectEagerly))
 
   private class AssociationTag extends RequestResponseAssociation
   private val associationTagKey = AttributeKey[AssociationTag]("PersistentConnection.associationTagKey")
@@ -69,7 +71,7 @@ private[http2] object PersistentConnection {
       entity = "The server closed the connection before delivering a response.")
 
   private class Stage(connectionFlow: Flow[HttpRequest, HttpResponse, Future[OutgoingConnection]],
-      maxAttempts: Option[Int], baseEmbargo: FiniteDuration, _maxBackoff: FiniteDuration)
+      maxAttempts: Option[Int], baseEmbargo: FiniteDuration, _maxBackoff: FiniteDuration, connectEagerly: Boolean)
       extends GraphStage[FlowShape[HttpRequest, HttpResponse]] {
     val requestIn = Inlet[HttpRequest]("PersistentConnection.requestIn")
     val responseOut = Outlet[HttpResponse]("PersistentConnection.responseOut")
@@ -80,6 +82,9 @@ private[http2] object PersistentConnection {
       new TimerGraphStageLogic(shape) with StageLogging {
         become(Unconnected)
 
+        override def preStart(): Unit =
+          if (connectEagerly) connect(maxAttempts, Duration.Zero)
+
         def become(state: State): Unit = setHandlers(requestIn, responseOut, state)
 
         trait State extends InHandler with OutHandler
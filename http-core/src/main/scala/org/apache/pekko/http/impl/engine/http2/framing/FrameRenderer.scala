@@ -21,6 +21,7 @@ import pekko.http.impl.engine.http2.Http2Protocol.FrameType
 import pekko.util.ByteString
 
 import java.nio.ByteOrder
+import java.nio.charset.StandardCharsets
 import scala.annotation.tailrec
 
 /** INTERNAL API */
@@ -44,13 +45,11 @@ private[http2] object FrameRenderer {
 
       case DataFrame(streamId, endStream, payload) =>
         // TODO: should padding be emitted? In which cases?
-        Frame(
-          payload.length,
+        renderFrame(
           Http2Protocol.FrameType.DATA,
           Http2Protocol.Flags.END_STREAM.ifSet(endStream),
-          streamId)
-          .put(payload)
-          .build()
+          streamId,
+          payload)
       case HeadersFrame(streamId, endStream, endHeaders, headerBlockFragment, prioInfo) =>
         Frame(
           (if (prioInfo.isDefined) 5 else 0) + headerBlockFragment.length,
@@ -145,20 +144,38 @@ private[http2] object FrameRenderer {
           streamId)
           .putPriorityInfo(frame)
           .build()
+
+      case PriorityUpdateFrame(prioritizedStreamId, priorityFieldValue) =>
+        val fieldValue = ByteString(priorityFieldValue, StandardCharsets.US_ASCII)
+        Frame(
+          4 + fieldValue.length,
+          Http2Protocol.FrameType.PRIORITY_UPDATE,
+          Http2Protocol.Flags.NO_FLAGS,
+          Http2Protocol.NoStreamId)
+          .putInt32(prioritizedStreamId)
+          .put(fieldValue)
+          .build()
       case _ => throw new IllegalStateException(s"Unexpected frame type ${frame.frameTypeName}.")
     }
 
+  /**
+   * Renders a frame by prefixing the payload with the frame header. The payload is not copied, so that rendering
+   * large DATA frames doesn't allocate and copy a buffer for the whole frame.
+   */
   def renderFrame(tpe: FrameType, flags: ByteFlag, streamId: Int, payload: ByteString): ByteString =
-    Frame(payload.length, tpe, flags, streamId)
-      .put(payload)
-      .build()
+    if (payload.isEmpty) Frame(0, tpe, flags, streamId).build()
+    else Frame.header(payload.length, tpe, flags, streamId) ++ payload
 
   private object Frame {
     def apply(payloadSize: Int, tpe: FrameType, flags: ByteFlag, streamId: Int): Frame =
-      new Frame(payloadSize, tpe, flags, streamId)
+      new Frame(payloadSize, tpe, flags, streamId, withPayload = true)
+
+    /** Renders only the 9 bytes of the frame header, the payload is to be appended by the caller */
+    def header(payloadSize: Int, tpe: FrameType, flags: ByteFlag, streamId: Int): ByteString =
+      new Frame(payloadSize, tpe, flags, streamId, withPayload = false).build()
   }
-  private class Frame(payloadSize: Int, tpe: FrameType, flags: ByteFlag, streamId: Int) {
-    private val targetSize = 9 + payloadSize
+  private class Frame(payloadSize: Int, tpe: FrameType, flags: ByteFlag, streamId: Int, withPayload: Boolean) {
+    private val targetSize = if (withPayload) 9 + payloadSize else 9
     private val buffer = new Array[Byte](targetSize)
     private var pos = 0
 
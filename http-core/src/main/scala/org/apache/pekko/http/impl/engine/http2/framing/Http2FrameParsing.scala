@@ -14,6 +14,8 @@
 package org.apache.pekko.http.impl.engine.http2
 package framing
 
+import java.nio.charset.StandardCharsets
+
 import scala.collection.immutable
 import org.apache.pekko
 import pekko.event.LoggingAdapter
@@ -145,6 +147,15 @@ private[http] object Http2FrameParsing {
         Http2Compliance.requireNoSelfDependency(streamId, dependencyId)
         PriorityFrame(streamId, exclusiveFlag, dependencyId, priority)
 
+      case FrameType.PRIORITY_UPDATE =>
+        // see RFC 9218, 7.1
+        Http2Compliance.requireZeroStreamId(streamId)
+        if (payload.remainingSize < 4)
+          throw new Http2ProtocolException(ErrorCode.FRAME_SIZE_ERROR,
+            s"PRIORITY_UPDATE frame payload must be at least 4 bytes but was ${payload.remainingSize}")
+        val prioritizedStreamId = payload.readIntBE() & 0x7FFFFFFF // ignore the reserved bit
+        PriorityUpdateFrame(prioritizedStreamId, payload.remainingData.decodeString(StandardCharsets.US_ASCII))
+
       case FrameType.PUSH_PROMISE =>
         val pad = Flags.PADDED.isSet(flags)
         val endHeaders = Flags.END_HEADERS.isSet(flags)
@@ -197,6 +208,9 @@ private[http2] class Http2FrameParsing(
           // TODO: assert that reserved bit is 0 by checking if streamId > 0
           val payload = reader.take(length)
           val maybeframe = FrameType.byId(tpe) match {
+            case OptionVal.Some(FrameType.DATA) if !Flags.PADDED.isSet(flags) =>
+              // fast path for the most common frame, the payload is passed on as a slice of the input
+              Some(DataFrame(streamId, Flags.END_STREAM.isSet(flags), payload))
             case OptionVal.Some(ft) =>
               Some(parseFrame(ft, flags, streamId, new ByteReader(payload), log))
             case OptionVal.None =>
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2.hpack
+
+import java.io.IOException
+import java.nio.charset.StandardCharsets
+
+import scala.util.control.NoStackTrace
+
+import org.apache.pekko
+import pekko.annotation.InternalApi
+import pekko.util.ByteString
+
+/**
+ * INTERNAL API
+ *
+ * Decodes HPACK header blocks, see https://www.rfc-editor.org/rfc/rfc7541.
+ *
+ * A header block is decoded in one go directly from the `ByteString` it was received in. The value the header handler
+ * parsed a field into is cached with the table entry of the field, so that a field that is sent again by index is not
+ * parsed again.
+ *
+ * Not thread-safe, there is one decoder per connection.
+ */
+@InternalApi
+private[http2] final class HPackDecoder(maxHeaderTableSize: Int) {
+  import HPackDecoder._
+
+  private val dynamicTable = new HPackDynamicTable(maxHeaderTableSize)
+  private val staticParsed = new Array[AnyRef](HPackStaticTable.Length + 1)
+  private var scratch = new Array[Byte](64)
+
+  private var block: ByteString = ByteString.empty
+  private var pos = 0
+
+  /**
+   * Decodes a complete header block and passes its fields to `handler` in order.
+   *
+   * @throws HPackDecoder.DecompressionException if the block is malformed, after which the decoder state is undefined
+   */
+  def decode(headerBlock: ByteString, handler: HeaderHandler): Unit = {
+    block = headerBlock.compact
+    pos = 0
+    try {
+      var fieldsSeen = false
+      while (pos < block.length) {
+        val b = block(pos) & 0xFF
+        if ((b & 0x80) != 0) {
+          // 6.1 Indexed Header Field
+          indexed(readInt(7), handler)
+          fieldsSeen = true
+        } else if ((b & 0x40) != 0) {
+          // 6.2.1 Literal Header Field with Incremental Indexing
+          literal(6, indexing = true, handler)
+          fieldsSeen = true
+        } else if ((b & 0x20) != 0) {
+          // 6.3 Dynamic Table Size Update, only allowed at the beginning of a header block (4.2)
+          if (fieldsSeen) throw new DecompressionException("Dynamic table size update after a header field")
+          val size = readInt(5)
+          if (size > maxHeaderTableSize)
+            throw new DecompressionException(
+              s"Dynamic table size update to $size exceeds the maximum of $maxHeaderTableSize")
+          dynamicTable.setCapacity(size)
+        } else {
+          // 6.2.2 Literal Header Field without Indexing and 6.2.3 Literal Header Field Never Indexed
+          literal(4, indexing = false, handler)
+          fieldsSeen = true
+        }
+      }
+    } finally block = ByteString.empty
+  }
+
+  /** The number of fields in the dynamic table, for testing */
+  def dynamicTableLength: Int = dynamicTable.length
+
+  private def indexed(index: Int, handler: HeaderHandler): Unit =
+    if (index == 0) throw new DecompressionException("Illegal index 0")
+    else if (index <= HPackStaticTable.Length) {
+      val field = HPackStaticTable(index)
+      staticParsed(index) = handler.onHeader(field.name, field.value, staticParsed(index))
+    } else {
+      val field = dynamicField(index)
+      field.parsed = handler.onHeader(field.name, field.value, field.parsed)
+    }
+
+  private def literal(prefixBits: Int, indexing: Boolean, handler: HeaderHandler): Unit = {
+    val nameIndex = readInt(prefixBits)
+    val name =
+      if (nameIndex == 0) readString()
+      else if (nameIndex <= HPackStaticTable.Length) HPackStaticTable(nameIndex).name
+      else dynamicField(nameIndex).name
+    // empty names cannot be represented in HTTP/1.x
+    if (name.isEmpty) throw new DecompressionException("Empty header name")
+    val value = readString()
+
+    val parsed = handler.onHeader(name, value, null)
+    if (indexing) {
+      val field = new HPackHeaderField(name, value)
+      field.parsed = parsed
+      dynamicTable.add(field)
+    }
+  }
+
+  private def dynamicField(index: Int): HPackHeaderField = {
+    val dynamicIndex = index - HPackStaticTable.Length
+    if (dynamicIndex > dynamicTable.length) throw new DecompressionException(s"Illegal index $index")
+    dynamicTable(dynamicIndex)
+  }
+
+  /** Reads an integer with a prefix of `prefixBits`, see 5.1 */
+  private def readInt(prefixBits: Int): Int = {
+    val maxPrefix = (1 << prefixBits) - 1
+    val prefix = nextByte() & maxPrefix
+    if (prefix < maxPrefix) prefix
+    else {
+      var result = prefix.toLong
+      var shift = 0
+      var b = 0x80
+      while ((b & 0x80) != 0) {
+        if (shift > 28) throw new DecompressionException("Integer overflow")
+        b = nextByte()
+        result += (b & 0x7F).toLong << shift
+        shift += 7
+      }
+      if (result > Int.MaxValue) throw new DecompressionException("Integer overflow")
+      result.toInt
+    }
+  }
+
+  /** Reads a string literal, see 5.2 */
+  private def readString(): String = {
+    if (pos >= block.length) throw new DecompressionException("Header block ends in the middle of a field")
+    val huffmanCoded = (block(pos) & 0x80) != 0
+    val length = readInt(7)
+    if (length > block.length - pos) throw new DecompressionException("Header block ends in the middle of a field")
+
+    val string =
+      if (huffmanCoded) {
+        val maxLength = HPackHuffman.maxDecodedLength(length)
+        if (scratch.length < maxLength) scratch = new Array[Byte](math.max(maxLength, scratch.length * 2))
+        val decodedLength = HPackHuffman.decode(block, pos, length, scratch)
+        new String(scratch, 0, decodedLength, StandardCharsets.ISO_8859_1)
+      } else block.slice(pos, pos + length).decodeString(StandardCharsets.ISO_8859_1)
+    pos += length
+    string
+  }
+
+  private def nextByte(): Int =
+    if (pos >= block.length) throw new DecompressionException("Header block ends in the middle of a field")
+    else {
+      val b = block(pos) & 0xFF
+      pos += 1
+      b
+    }
+}
+
+/** INTERNAL API */
+@InternalApi
+private[http2] object HPackDecoder {
+
+  /** Receives the fields of a header block */
+  trait HeaderHandler {
+
+    /**
+     * Called for every field of a header block.
+     *
+     * @param parsed the value returned for an earlier occurrence of the same indexed field, or null
+     * @return a parsed representation of the field that is cached if the field is indexed
+     */
+    def onHeader(name: String, value: String, parsed: AnyRef): AnyRef
+  }
+
+  final class DecompressionException(message: String) extends IOException(message) with NoStackTrace
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2.hpack
+
+import org.apache.pekko
+import pekko.annotation.InternalApi
+import pekko.util.ByteString
+
+/**
+ * INTERNAL API
+ *
+ * Encodes HPACK header blocks, see https://www.rfc-editor.org/rfc/rfc7541.
+ *
+ * Fields are written into a buffer that is reused for all header blocks of a connection. A field is sent by index if
+ * it is in one of the tables, otherwise it is sent as a literal that is added to the dynamic table if `indexingStrategy`
+ * says so. String literals are Huffman coded if that makes them shorter.
+ *
+ * Not thread-safe, there is one encoder per connection.
+ */
+@InternalApi
+private[http2] final class HPackEncoder(
+    private var capacity: Int, indexingStrategy: HPackIndexingStrategy = HPackIndexingStrategy.Always) {
+  import HPackEncoder._
+  require(capacity >= 0, "capacity must be >= 0")
+
+  private var buffer = new Array[Byte](256)
+  private var pos = 0
+
+  // The dynamic table as a list from the newest to the oldest entry, with every entry also chained into the bucket of
+  // its name. An entry's index is derived from its insertion number.
+  private val buckets = new Array[Entry](NumBuckets)
+  private var newest: Entry = null
+  private var oldest: Entry = null
+  private var inserted = 0L
+  private var size = 0
+
+  private var hits = 0L
+
+  /** Appends a header field to the current header block */
+  def encodeHeader(name: String, value: String): Unit =
+    if (capacity == 0) {
+      // the peer only uses the static table
+      val staticIndex = HPackStaticTable.indexOf(name, value)
+      if (staticIndex != -1) writeInt(0x80, 7, staticIndex)
+      else writeLiteral(0x00, 4, name, value, HPackStaticTable.indexOf(name))
+    } else {
+      val entry = findEntry(name, value)
+      if (entry ne null) {
+        hits += 1
+        indexingStrategy.onDynamicTableHit(name, value)
+        writeInt(0x80, 7, HPackStaticTable.Length + dynamicIndex(entry))
+      } else {
+        val staticIndex = HPackStaticTable.indexOf(name, value)
+        if (staticIndex != -1) writeInt(0x80, 7, staticIndex)
+        else if (!indexingStrategy.shouldIndex(name, value) || HPackHeaderField.sizeOf(name, value) > capacity)
+          writeLiteral(0x00, 4, name, value, nameIndex(name))
+        else {
+          writeLiteral(0x40, 6, name, value, nameIndex(name))
+          add(name, value)
+        }
+      }
+    }
+
+  /**
+   * Changes the size of the dynamic table to the size the peer allows with SETTINGS_HEADER_TABLE_SIZE. The change is
+   * signalled at the beginning of the next header block.
+   */
+  def setMaxHeaderTableSize(maxHeaderTableSize: Int): Unit = {
+    require(maxHeaderTableSize >= 0, "maxHeaderTableSize must be >= 0")
+    if (maxHeaderTableSize != capacity) {
+      capacity = maxHeaderTableSize
+      evictUntil(capacity)
+      writeInt(0x20, 5, capacity)
+    }
+  }
+
+  /** Returns the header block encoded so far and starts a new one */
+  def encodedHeaderBlock(): ByteString = {
+    val result = ByteString.fromArray(buffer, 0, pos)
+    pos = 0
+    result
+  }
+
+  /** The number of fields sent by their index in the dynamic table so far */
+  def dynamicTableHits: Long = hits
+
+  /** The number of fields in the dynamic table, for testing */
+  def dynamicTableLength: Int = if (newest eq null) 0 else (newest.insertion - oldest.insertion + 1).toInt
+
+  private def dynamicIndex(entry: Entry): Int = (inserted - entry.insertion + 1).toInt
+
+  private def nameIndex(name: String): Int = {
+    val staticIndex = HPackStaticTable.indexOf(name)
+    if (staticIndex != -1) staticIndex
+    else {
+      val entry = findEntry(name, null)
+      if (entry ne null) HPackStaticTable.Length + dynamicIndex(entry) else -1
+    }
+  }
+
+  /** Returns the newest entry with the given name and value, or with the given name if `value` is null */
+  private def findEntry(name: String, value: String): Entry = {
+    val hash = name.hashCode
+    var entry = buckets(hash & (NumBuckets - 1))
+    while ((entry ne null) &&
+      !(entry.hash == hash && entry.name == name && ((value eq null) || entry.value == value)))
+      entry = entry.nextInBucket
+    entry
+  }
+
+  private def add(name: String, value: String): Unit = {
+    val entrySize = HPackHeaderField.sizeOf(name, value)
+    evictUntil(capacity - entrySize)
+
+    inserted += 1
+    val hash = name.hashCode
+    val bucket = hash & (NumBuckets - 1)
+    val entry = new Entry(name, value, hash, inserted, buckets(bucket))
+    buckets(bucket) = entry
+    if (newest ne null) newest.newer = entry
+    newest = entry
+    if (oldest eq null) oldest = entry
+    size += entrySize
+  }
+
+  private def evictUntil(maxSize: Int): Unit =
+    while ((oldest ne null) && size > maxSize) {
+      val evicted = oldest
+      // the oldest entry is the last one in its bucket
+      val bucket = evicted.hash & (NumBuckets - 1)
+      if (buckets(bucket) eq evicted) buckets(bucket) = null
+      else {
+        var entry = buckets(bucket)
+        while (entry.nextInBucket ne evicted) entry = entry.nextInBucket
+        entry.nextInBucket = null
+      }
+
+      oldest = evicted.newer
+      if (oldest eq null) newest = null
+      size -= HPackHeaderField.sizeOf(evicted.name, evicted.value)
+    }
+
+  private def writeLiteral(mask: Int, prefixBits: Int, name: String, value: String, nameIndex: Int): Unit =
+    if (nameIndex == -1) {
+      writeInt(mask, prefixBits, 0)
+      writeString(name)
+      writeString(value)
+    } else {
+      writeInt(mask, prefixBits, nameIndex)
+      writeString(value)
+    }
+
+  /** Writes an integer with a prefix of `prefixBits`, see 5.1 */
+  private def writeInt(mask: Int, prefixBits: Int, i: Int): Unit = {
+    ensureCapacity(6)
+    val maxPrefix = (1 << prefixBits) - 1
+    if (i < maxPrefix) writeByte(mask | i)
+    else {
+      writeByte(mask | maxPrefix)
+      var remaining = i - maxPrefix
+      while (remaining >= 0x80) {
+        writeByte((remaining & 0x7F) | 0x80)
+        remaining >>>= 7
+      }
+      writeByte(remaining)
+    }
+  }
+
+  /** Writes a string literal, see 5.2 */
+  private def writeString(string: String): Unit = {
+    val huffmanLength = HPackHuffman.encodedLength(string)
+    if (huffmanLength < string.length) {
+      writeInt(0x80, 7, huffmanLength)
+      ensureCapacity(huffmanLength)
+      pos = HPackHuffman.encode(string, buffer, pos)
+    } else {
+      writeInt(0x00, 7, string.length)
+      ensureCapacity(string.length)
+      var i = 0
+      while (i < string.length) {
+        buffer(pos + i) = string.charAt(i).toByte
+        i += 1
+      }
+      pos += string.length
+    }
+  }
+
+  private def writeByte(b: Int): Unit = {
+    buffer(pos) = b.toByte
+    pos += 1
+  }
+
+  private def ensureCapacity(bytes: Int): Unit =
+    if (pos + bytes > buffer.length)
+      buffer = java.util.Arrays.copyOf(buffer, math.max(pos + bytes, buffer.length * 2))
+}
+
+/** INTERNAL API */
+@InternalApi
+private[hpack] object HPackEncoder {
+  private final val NumBuckets = 64
+
+  private final class Entry(
+      val name: String, val value: String, val hash: Int, val insertion: Long, var nextInBucket: Entry) {
+    var newer: Entry = null
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2.hpack
+
+import org.apache.pekko
+import pekko.annotation.InternalApi
+import pekko.http.scaladsl.settings.Http2CommonSettings
+
+/**
+ * INTERNAL API
+ *
+ * Decides which header fields the [[HPackEncoder]] adds to the dynamic table. A field that is added costs nothing extra
+ * on the wire, but it may evict fields from the table that would have been sent again, so fields whose values rarely
+ * repeat are better sent without indexing.
+ *
+ * Not thread-safe, there is one strategy instance per connection.
+ */
+@InternalApi
+private[http2] trait HPackIndexingStrategy {
+
+  /** Whether a field that is neither in the static nor in the dynamic table should be added to the dynamic table */
+  def shouldIndex(name: String, value: String): Boolean
+
+  /** Called when a field was sent by its index in the dynamic table */
+  def onDynamicTableHit(name: String, value: String): Unit = ()
+}
+
+/** INTERNAL API */
+@InternalApi
+private[http2] object HPackIndexingStrategy {
+
+  /** Creates the strategy for a new connection */
+  def apply(settings: Http2CommonSettings): HPackIndexingStrategy = {
+    val strategy = settings.hpackIndexingStrategy match {
+      case "always" => Always
+      case "never"  => Never
+      case _        => adaptive()
+    }
+    if (settings.hpackAlwaysIndexHeaders.isEmpty && settings.hpackNeverIndexHeaders.isEmpty) strategy
+    else new WithOverrides(settings.hpackAlwaysIndexHeaders, settings.hpackNeverIndexHeaders, strategy)
+  }
+
+  /** Adds every field to the dynamic table */
+  object Always extends HPackIndexingStrategy {
+    def shouldIndex(name: String, value: String): Boolean = true
+  }
+
+  /** Only uses the static table */
+  object Never extends HPackIndexingStrategy {
+    def shouldIndex(name: String, value: String): Boolean = false
+  }
+
+  /**
+   * Learns per header name how often its values repeat on the connection and stops adding fields of names whose values
+   * don't repeat, like a `:path` with ids or a `date`.
+   */
+  def adaptive(): HPackIndexingStrategy = new AdaptiveIndexing
+
+  /** Literals of the first fields of a name are always indexed, until there is enough data about the name */
+  private final val Warmup = 8
+
+  /** The repetition rate, in 1/256, below which fields are not indexed any more */
+  private final val MinRepetitionRate = 32
+  private final val RecentValues = 8
+
+  /** Fields of names beyond this number are indexed without keeping statistics */
+  private final val MaxTrackedNames = 128
+
+  private final class AdaptiveIndexing extends HPackIndexingStrategy {
+    private val names = new java.util.HashMap[String, NameStatistics]
+
+    def shouldIndex(name: String, value: String): Boolean = {
+      var statistics = names.get(name)
+      if ((statistics eq null) && names.size < MaxTrackedNames) {
+        statistics = new NameStatistics
+        names.put(name, statistics)
+      }
+      (statistics eq null) || statistics.onLiteral(value.hashCode)
+    }
+
+    override def onDynamicTableHit(name: String, value: String): Unit = {
+      val statistics = names.get(name)
+      if (statistics ne null) statistics.update(repeated = true)
+    }
+  }
+
+  /**
+   * The repetition rate of the values of a header name as an exponentially weighted moving average. Values of literals
+   * are compared to the hashes of the last few values, so that repetition is also noticed for fields that are not
+   * indexed or were evicted from the dynamic table.
+   */
+  private final class NameStatistics {
+    private val recentHashes = new Array[Int](RecentValues)
+    private var recentCount = 0
+    private var next = 0
+    private var seen = 0
+    private var repetitionRate = 0
+
+    def onLiteral(valueHash: Int): Boolean = {
+      var repeated = false
+      var i = 0
+      while (!repeated && i < recentCount) {
+        repeated = recentHashes(i) == valueHash
+        i += 1
+      }
+      recentHashes(next) = valueHash
+      next = (next + 1) % RecentValues
+      if (recentCount < RecentValues) recentCount += 1
+
+      update(repeated)
+      seen <= Warmup || repetitionRate >= MinRepetitionRate
+    }
+
+    def update(repeated: Boolean): Unit = {
+      if (seen <= Warmup) seen += 1
+      repetitionRate += ((if (repeated) 256 else 0) - repetitionRate) >> 3
+    }
+  }
+
+  private final class WithOverrides(alwaysIndex: Set[String], neverIndex: Set[String],
+      underlying: HPackIndexingStrategy) extends HPackIndexingStrategy {
+    def shouldIndex(name: String, value: String): Boolean =
+      if (alwaysIndex(name)) true
+      else if (neverIndex(name)) false
+      else underlying.shouldIndex(name, value)
+
+    override def onDynamicTableHit(name: String, value: String): Unit = underlying.onDynamicTableHit(name, value)
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2.hpack
+
+import org.apache.pekko.annotation.InternalApi
+
+/** INTERNAL API */
+@InternalApi
+private[hpack] final class HPackHeaderField(val name: String, val value: String) {
+
+  /** The value the decoder's header handler parsed this field into, cached for the next time the field is indexed */
+  var parsed: AnyRef = null
+
+  def size: Int = HPackHeaderField.sizeOf(name, value)
+}
+
+/** INTERNAL API */
+@InternalApi
+private[hpack] object HPackHeaderField {
+  // see https://www.rfc-editor.org/rfc/rfc7541#section-4.1
+  final val EntryOverhead = 32
+
+  def sizeOf(name: String, value: String): Int = name.length + value.length + EntryOverhead
+}
+
+/**
+ * INTERNAL API
+ *
+ * The static table, see https://www.rfc-editor.org/rfc/rfc7541#appendix-A. Its fields are shared between all
+ * connections, so their cached `parsed` values are not used.
+ */
+@InternalApi
+private[hpack] object HPackStaticTable {
+  private val fields = Array(
+    new HPackHeaderField(":authority", ""),
+    new HPackHeaderField(":method", "GET"),
+    new HPackHeaderField(":method", "POST"),
+    new HPackHeaderField(":path", "/"),
+    new HPackHeaderField(":path", "/index.html"),
+    new HPackHeaderField(":scheme", "http"),
+    new HPackHeaderField(":scheme", "https"),
+    new HPackHeaderField(":status", "200"),
+    new HPackHeaderField(":status", "204"),
+    new HPackHeaderField(":status", "206"),
+    new HPackHeaderField(":status", "304"),
+    new HPackHeaderField(":status", "400"),
+    new HPackHeaderField(":status", "404"),
+    new HPackHeaderField(":status", "500"),
+    new HPackHeaderField("accept-charset", ""),
+    new HPackHeaderField("accept-encoding", "gzip, deflate"),
+    new HPackHeaderField("accept-language", ""),
+    new HPackHeaderField("accept-ranges", ""),
+    new HPackHeaderField("accept", ""),
+    new HPackHeaderField("access-control-allow-origin", ""),
+    new HPackHeaderField("age", ""),
+    new HPackHeaderField("allow", ""),
+    new HPackHeaderField("authorization", ""),
+    new HPackHeaderField("cache-control", ""),
+    new HPackHeaderField("content-disposition", ""),
+    new HPackHeaderField("content-encoding", ""),
+    new HPackHeaderField("content-language", ""),
+    new HPackHeaderField("content-length", ""),
+    new HPackHeaderField("content-location", ""),
+    new HPackHeaderField("content-range", ""),
+    new HPackHeaderField("content-type", ""),
+    new HPackHeaderField("cookie", ""),
+    new HPackHeaderField("date", ""),
+    new HPackHeaderField("etag", ""),
+    new HPackHeaderField("expect", ""),
+    new HPackHeaderField("expires", ""),
+    new HPackHeaderField("from", ""),
+    new HPackHeaderField("host", ""),
+    new HPackHeaderField("if-match", ""),
+    new HPackHeaderField("if-modified-since", ""),
+    new HPackHeaderField("if-none-match", ""),
+    new HPackHeaderField("if-range", ""),
+    new HPackHeaderField("if-unmodified-since", ""),
+    new HPackHeaderField("last-modified", ""),
+    new HPackHeaderField("link", ""),
+    new HPackHeaderField("location", ""),
+    new HPackHeaderField("max-forwards", ""),
+    new HPackHeaderField("proxy-authenticate", ""),
+    new HPackHeaderField("proxy-authorization", ""),
+    new HPackHeaderField("range", ""),
+    new HPackHeaderField("referer", ""),
+    new HPackHeaderField("refresh", ""),
+    new HPackHeaderField("retry-after", ""),
+    new HPackHeaderField("server", ""),
+    new HPackHeaderField("set-cookie", ""),
+    new HPackHeaderField("strict-transport-security", ""),
+    new HPackHeaderField("transfer-encoding", ""),
+    new HPackHeaderField("user-agent", ""),
+    new HPackHeaderField("vary", ""),
+    new HPackHeaderField("via", ""),
+    new HPackHeaderField("www-authenticate", ""))
+
+  final val Length = 61
+
+  // the lowest index of every name
+  private val nameIndex: Map[String, Int] =
+    fields.indices.reverse.map(i => fields(i).name -> (i + 1)).toMap
+
+  /** Returns the field at the 1-based `index` */
+  def apply(index: Int): HPackHeaderField = fields(index - 1)
+
+  /** Returns the lowest index of a field with the given name or -1 */
+  def indexOf(name: String): Int = nameIndex.getOrElse(name, -1)
+
+  /** Returns the index of the given field or -1 */
+  def indexOf(name: String, value: String): Int = {
+    var index = indexOf(name)
+    // the fields with the same name are adjacent
+    while (index != -1 && index <= Length && fields(index - 1).name == name) {
+      if (fields(index - 1).value == value) return index
+      index += 1
+    }
+    -1
+  }
+}
+
+/**
+ * INTERNAL API
+ *
+ * The dynamic table of the decoder, a ring buffer of fields where index 1 is the newest field, see
+ * https://www.rfc-editor.org/rfc/rfc7541#section-2.3.2.
+ */
+@InternalApi
+private[hpack] final class HPackDynamicTable(private var _capacity: Int) {
+  private var fields = new Array[HPackHeaderField](16)
+  // the position after the newest field
+  private var end = 0
+  private var _length = 0
+  private var _size = 0
+
+  def capacity: Int = _capacity
+  def length: Int = _length
+  def size: Int = _size
+
+  /** Returns the field at the 1-based `index`, which must be between 1 and `length` */
+  def apply(index: Int): HPackHeaderField = fields(Math.floorMod(end - index, fields.length))
+
+  /** Adds a field, evicting the oldest fields as needed. A field larger than the capacity empties the table. */
+  def add(field: HPackHeaderField): Unit = {
+    evictUntil(_capacity - field.size)
+    if (field.size <= _capacity) {
+      if (_length == fields.length) grow()
+      fields(end) = field
+      end = (end + 1) % fields.length
+      _length += 1
+      _size += field.size
+    }
+  }
+
+  def setCapacity(capacity: Int): Unit = {
+    _capacity = capacity
+    evictUntil(capacity)
+  }
+
+  private def evictUntil(maxSize: Int): Unit =
+    while (_length > 0 && _size > maxSize) {
+      val oldest = Math.floorMod(end - _length, fields.length)
+      _size -= fields(oldest).size
+      fields(oldest) = null
+      _length -= 1
+    }
+
+  private def grow(): Unit = {
+    val grown = new Array[HPackHeaderField](fields.length * 2)
+    var i = _length
+    while (i > 0) {
+      grown(_length - i) = apply(i)
+      i -= 1
+    }
+    fields = grown
+    end = _length
+  }
+}
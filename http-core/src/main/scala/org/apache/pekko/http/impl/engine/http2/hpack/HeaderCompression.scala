@@ -13,11 +13,11 @@
 
 package org.apache.pekko.http.impl.engine.http2.hpack
 
-import java.io.ByteArrayOutputStream
 import org.apache.pekko
 import pekko.annotation.InternalApi
 import pekko.http.impl.engine.http2.Http2Protocol.SettingIdentifier
 import pekko.http.impl.engine.http2._
+import pekko.http.scaladsl.settings.Http2CommonSettings
 import pekko.stream.{ Attributes, FlowShape, Inlet, Outlet }
 import pekko.stream.stage.{ GraphStage, GraphStageLogic, InHandler, OutHandler, StageLogging }
 import pekko.util.ByteString
@@ -27,9 +27,14 @@ import FrameEvent._
 
 /**
  * INTERNAL API
+ *
+ * Encodes the headers of outgoing ParsedHeadersFrames with HPACK. The dynamic table uses up to
+ * `hpackMaxEncoderTableSize` of the SETTINGS_HEADER_TABLE_SIZE the peer allows, the fields added to it are chosen by
+ * the configured [[HPackIndexingStrategy]].
  */
 @InternalApi
-private[http2] object HeaderCompression extends GraphStage[FlowShape[FrameEvent, FrameEvent]] {
+private[http2] final class HeaderCompression(settings: Http2CommonSettings, telemetry: TelemetrySpi)
+    extends GraphStage[FlowShape[FrameEvent, FrameEvent]] {
   val eventsIn = Inlet[FrameEvent]("HeaderCompression.eventsIn")
   val eventsOut = Outlet[FrameEvent]("HeaderCompression.eventsOut")
 
@@ -40,8 +45,13 @@ private[http2] object HeaderCompression extends GraphStage[FlowShape[FrameEvent,
       setHandlers(eventsIn, eventsOut, this)
       private val currentMaxFrameSize = Http2Protocol.InitialMaxFrameSize
 
-      val encoder = new pekko.http.shaded.com.twitter.hpack.Encoder(Http2Protocol.InitialMaxHeaderTableSize)
-      val os = new ByteArrayOutputStream(128)
+      val encoder = new HPackEncoder(Http2Protocol.InitialMaxHeaderTableSize, HPackIndexingStrategy(settings))
+      private val reportsCompression = telemetry ne NoOpTelemetry
+      private var lastDynamicTableHits = 0L
+
+      override def preStart(): Unit =
+        if (settings.hpackMaxEncoderTableSize < Http2Protocol.InitialMaxHeaderTableSize)
+          encoder.setMaxHeaderTableSize(settings.hpackMaxEncoderTableSize)
 
       def onPull(): Unit = pull(eventsIn)
       def onPush(): Unit = grab(eventsIn) match {
@@ -53,15 +63,17 @@ private[http2] object HeaderCompression extends GraphStage[FlowShape[FrameEvent,
           // a HEADERS frame to work around https://github.com/golang/go/issues/47851.
           if (endStream && kvs.isEmpty) push(eventsOut, DataFrame(streamId, endStream, ByteString.empty))
           else {
+            var uncompressedBytes = 0
             kvs.foreach {
               case (key, value: String) =>
-                encoder.encodeHeader(os, key, value, false)
+                encoder.encodeHeader(key, value)
+                uncompressedBytes += key.length + value.length
               case (key, value) =>
                 throw new IllegalStateException(
                   s"Didn't expect key-value-pair [$key] -> [$value](${value.getClass}) here.")
             }
-            val result = ByteString.fromArrayUnsafe(os.toByteArray) // BAOS.toByteArray always creates a copy
-            os.reset()
+            val result = encoder.encodedHeaderBlock()
+            if (reportsCompression) reportCompression(kvs.size, uncompressedBytes, result.size)
             if (result.size <= currentMaxFrameSize)
               push(eventsOut, HeadersFrame(streamId, endStream, endHeaders = true, result, prioInfo))
             else {
@@ -88,14 +100,21 @@ private[http2] object HeaderCompression extends GraphStage[FlowShape[FrameEvent,
         case x => push(eventsOut, x)
       }
 
+      def reportCompression(fields: Int, uncompressedBytes: Int, encodedBytes: Int): Unit = {
+        val hits = encoder.dynamicTableHits
+        telemetry.headerBlockEncoded(inheritedAttributes, fields, (hits - lastDynamicTableHits).toInt,
+          uncompressedBytes, encodedBytes)
+        lastDynamicTableHits = hits
+      }
+
       def applySettings(s: immutable.Seq[Setting]): Unit =
         s.foreach {
           case Setting(SettingIdentifier.SETTINGS_HEADER_TABLE_SIZE, size) =>
             log.debug("Applied SETTINGS_HEADER_TABLE_SIZE({}) in header compression", size)
             // 'size' is strictly spoken unsigned, but the encoder is allowed to
             // pick any size equal to or less than this value (6.5.2)
-            if (size >= 0) encoder.setMaxHeaderTableSize(os, size)
-            else encoder.setMaxHeaderTableSize(os, Int.MaxValue)
+            if (size >= 0) encoder.setMaxHeaderTableSize(math.min(size, settings.hpackMaxEncoderTableSize))
+            else encoder.setMaxHeaderTableSize(settings.hpackMaxEncoderTableSize)
           case _ => // ignore, not applicable to this stage
         }
     }
@@ -23,12 +23,10 @@ import pekko.http.impl.engine.http2._
 import pekko.http.impl.engine.parsing.HttpHeaderParser
 import pekko.http.scaladsl.model.ParsingException
 import pekko.http.scaladsl.settings.ParserSettings
-import pekko.http.shaded.com.twitter.hpack.HeaderListener
 import pekko.stream._
 import pekko.stream.stage.{ GraphStage, GraphStageLogic }
 import pekko.util.ByteString
 
-import java.io.IOException
 import java.nio.charset.StandardCharsets
 import scala.collection.immutable.VectorBuilder
 
@@ -51,8 +49,7 @@ private[http2] final class HeaderDecompression(masterHeaderParser: HttpHeaderPar
   def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
     new HandleOrPassOnStage[FrameEvent, FrameEvent](shape) {
       val httpHeaderParser = masterHeaderParser.createShallowCopy()
-      val decoder = new pekko.http.shaded.com.twitter.hpack.Decoder(Http2Protocol.InitialMaxHeaderListSize,
-        Http2Protocol.InitialMaxHeaderTableSize)
+      val decoder = new HPackDecoder(Http2Protocol.InitialMaxHeaderTableSize)
 
       become(Idle)
 
@@ -63,8 +60,8 @@ private[http2] final class HeaderDecompression(masterHeaderParser: HttpHeaderPar
       def parseAndEmit(
           streamId: Int, endStream: Boolean, payload: ByteString, prioInfo: Option[PriorityFrame]): Unit = {
         val headers = new VectorBuilder[(String, AnyRef)]
-        object Receiver extends HeaderListener {
-          def addHeader(name: String, value: String, parsed: AnyRef, sensitive: Boolean): AnyRef = {
+        object Receiver extends HPackDecoder.HeaderHandler {
+          def onHeader(name: String, value: String, parsed: AnyRef): AnyRef = {
             if (parsed ne null) {
               headers += name -> parsed
               parsed
@@ -96,22 +93,18 @@ private[http2] final class HeaderDecompression(masterHeaderParser: HttpHeaderPar
             }
           }
         }
-        val stream = payload.compact.asInputStream
         try {
-          decoder.decode(stream, Receiver) // only compact ByteString supports InputStream with mark/reset
-          decoder.endHeaderBlock() // TODO: do we have to check the result here?
+          decoder.decode(payload, Receiver)
 
           push(eventsOut, ParsedHeadersFrame(streamId, endStream, headers.result(), prioInfo, None))
         } catch {
           case ex: ParsingException =>
             // push details further and let RequestErrorFlow handle responding with bad request
             push(eventsOut, ParsedHeadersFrame(streamId, endStream, Seq.empty, prioInfo, Some(ex.info)))
-          case _: IOException =>
+          case _: HPackDecoder.DecompressionException =>
             // this is signalled by the decoder when it failed, we want to react to this by rendering a GOAWAY frame
             fail(eventsOut,
               new Http2Compliance.Http2ProtocolException(ErrorCode.COMPRESSION_ERROR, "Decompression failed."))
-        } finally {
-          stream.close()
         }
       }
 
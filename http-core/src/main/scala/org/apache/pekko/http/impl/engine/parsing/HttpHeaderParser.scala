@@ -89,7 +89,8 @@ private[engine] final class HttpHeaderParser private (
     private var branchDataCount: Int = 0,
     private var values: Array[AnyRef] = new Array(255), // fixed size of 255
     private var valueCount: Int = 0,
-    private var trieIsPrivate: Boolean = false) { // signals the trie data can be mutated w/o having to copy first
+    private var trieIsPrivate: Boolean = false, // signals the trie data can be mutated w/o having to copy first
+    val sharedCache: Option[SharedHeaderValueCache] = None) {
 
   // TODO: evaluate whether switching to a value-class-based approach allows us to improve code readability without sacrificing performance
 
@@ -108,7 +109,15 @@ private[engine] final class HttpHeaderParser private (
    */
   def createShallowCopy(): HttpHeaderParser =
     new HttpHeaderParser(settings, log, onIllegalHeader, nodes, nodeCount, branchData, branchDataCount, values,
-      valueCount)
+      valueCount, sharedCache = sharedCache)
+
+  /**
+   * Returns a copy of this parser that shares the trie data with this instance and consults and fills the given
+   * cache for header values that are not yet contained in its own trie.
+   */
+  def withSharedCache(cache: SharedHeaderValueCache): HttpHeaderParser =
+    new HttpHeaderParser(settings, log, onIllegalHeader, nodes, nodeCount, branchData, branchDataCount, values,
+      valueCount, sharedCache = Some(cache))
 
   /**
    * Parses a header line and returns the line start index of the subsequent line.
@@ -122,7 +131,7 @@ private[engine] final class HttpHeaderParser private (
   @tailrec
   def parseHeaderLine(input: ByteString, lineStart: Int = 0)(cursor: Int = lineStart, nodeIx: Int = 0): Int = {
     def startValueBranch(rootValueIx: Int, valueParser: HeaderValueParser) = {
-      val (header, endIx) = valueParser(this, input, cursor, onIllegalHeader)
+      val (header, endIx) = parseValue(input, cursor, valueParser)
       if (valueParser.cachingEnabled)
         try {
           val valueIx = newValueIndex // compute early in order to trigger OutOfTrieSpaceExceptions before any change
@@ -164,6 +173,28 @@ private[engine] final class HttpHeaderParser private (
     }
   }
 
+  /**
+   * Parses the header value starting at `valueStart` with the given parser. If a shared cache is configured it is
+   * consulted first and the parsed header is promoted into it.
+   */
+  private def parseValue(input: ByteString, valueStart: Int, valueParser: HeaderValueParser): (HttpHeader, Int) =
+    sharedCache match {
+      case Some(cache) if valueParser.cachingEnabled =>
+        val lineEnd = SharedHeaderValueCache.lineEnd(input, valueStart, cache.maxValueLength)
+        if (lineEnd > 0) {
+          val headerName = valueParser.headerName
+          val hash = SharedHeaderValueCache.hash(headerName, input, valueStart, lineEnd)
+          val cached = cache.lookup(headerName, input, valueStart, lineEnd, hash)
+          if (cached ne null) cached -> lineEnd
+          else {
+            val result = valueParser(this, input, valueStart, onIllegalHeader)
+            if (result._2 == lineEnd) cache.insert(headerName, input, valueStart, lineEnd, hash, result._1)
+            result
+          }
+        } else valueParser(this, input, valueStart, onIllegalHeader)
+      case _ => valueParser(this, input, valueStart, onIllegalHeader)
+    }
+
   private def parseRawHeader(input: ByteString, lineStart: Int, cursor: Int, nodeIx: Int): Int = {
     val colonIx = scanHeaderNameAndReturnIndexOfColon(input, lineStart, lineStart + 1 + maxHeaderNameLength)(cursor)
     val headerName = asciiString(input, lineStart, colonIx)
@@ -201,7 +232,7 @@ private[engine] final class HttpHeaderParser private (
   private def parseHeaderValue(input: ByteString, valueStart: Int, branch: ValueBranch)(cursor: Int = valueStart,
       nodeIx: Int = branch.branchRootNodeIx): Int = {
     def parseAndInsertHeader() = {
-      val (header, endIx) = branch.parser(this, input, valueStart, onIllegalHeader)
+      val (header, endIx) = parseValue(input, valueStart, branch.parser)
       if (branch.spaceLeft)
         try {
           insert(input, header)(cursor, endIx, nodeIx, colonIx = 0)
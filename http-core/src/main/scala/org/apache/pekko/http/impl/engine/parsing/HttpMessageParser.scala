@@ -56,6 +56,10 @@ private[http] trait HttpMessageParser[Output >: MessageOutput <: ParserOutput] {
   private var lastSession: SSLSession = null // used to prevent having to recreate header on each message
   private var tlsSessionInfoHeader: `Tls-Session-Info` = null
 
+  // reusable state for `parseHeaderLinesFastPath`, created lazily on first use
+  private var headerScratch: Array[HttpHeader] = null
+  private val startNewMessageAtZero: ByteString => StateResult = startNewMessage(_, 0)
+
   protected def settings: ParserSettings
   protected def headerParser: HttpHeaderParser
   protected def isResponseParser: Boolean
@@ -223,6 +227,105 @@ private[http] trait HttpMessageParser[Output >: MessageOutput <: ParserOutput] {
     } else
       failMessageStart(s"HTTP message contains more than the configured limit of ${settings.maxHeaderCount} headers")
 
+  /**
+   * Fast path for [[parseHeaderLines]] covering the common case of a message whose header section is completely
+   * contained in `input` and which does not carry any of the headers that need special treatment
+   * (`Transfer-Encoding`, `Expect` or repeated `Content-Length`, `Content-Type`, `Connection` or `Host` headers).
+   *
+   * Instead of threading the header state through `Option`s and a `ListBuffer` the headers are collected into an
+   * array that is reused across messages and the resulting header list is built in a single pass.
+   * If any of the preconditions isn't met parsing continues with [[parseHeaderLines]] at the line where the fast path
+   * stopped, handing over the headers collected so far. [[parseHeaderLines]] then takes care of suspending the parser
+   * or reporting errors in exactly the same way as without this fast path.
+   *
+   * The line before `lineStart` (i.e. the request line) must be terminated with an LF.
+   */
+  protected final def parseHeaderLinesFastPath(input: ByteString, lineStart: Int): StateResult =
+    if (containsHeaderSectionEnd(input, lineStart - 1)) {
+      if (headerScratch eq null) headerScratch = new Array[HttpHeader](math.min(settings.maxHeaderCount, 64))
+      val headers = headerScratch
+      var count = 0
+      var headerCount = 0
+      var cursor = lineStart // the start of the line to parse next, i.e. where to continue on fallback
+      var ch: Connection = null
+      var clh: `Content-Length` = null
+      var cth: `Content-Type` = null
+      var hh = false
+      var complete = false
+      var fallback = false
+
+      try {
+        while (!complete && !fallback) {
+          // a full array falls back before the line is parsed, so that no header state is updated for it
+          if (headerCount < settings.maxHeaderCount && count < headers.length) {
+            val lineEnd = headerParser.parseHeaderLine(input, cursor)()
+            val header = headerParser.resultHeader
+            var keep = false
+            header match {
+              case EmptyHeader                        => complete = true
+              case h: `Content-Length`                =>
+                if (clh eq null) { clh = h; headerCount += 1 }
+                else fallback = true
+              case h: `Content-Type` =>
+                if (cth eq null) { cth = h; headerCount += 1 }
+                else fallback = true
+              case _: `Transfer-Encoding` | _: Expect => fallback = true
+              case h: Connection                      =>
+                if (ch eq null) { ch = h; keep = true }
+                else fallback = true
+              case _: Host =>
+                if (!hh || isResponseParser) { hh = true; keep = true }
+                else fallback = true
+              case _ => keep = true
+            }
+            if (keep) {
+              headers(count) = header
+              count += 1
+              headerCount += 1
+            }
+            if (!fallback) cursor = lineEnd
+          } else fallback = true
+        }
+      } catch {
+        case NotEnoughDataException => fallback = true
+      }
+
+      if (fallback) {
+        val headerBuffer = initialHeaderBuffer
+        var i = 0
+        while (i < count) {
+          headerBuffer += headers(i)
+          headers(i) = null
+          i += 1
+        }
+        parseHeaderLines(input, cursor, headerBuffer, headerCount, Option(ch), Option(clh), Option(cth), hh = hh)
+      } else {
+        var headerList: List[HttpHeader] = Nil
+        while (count > 0) {
+          count -= 1
+          headerList = headers(count) :: headerList
+          headers(count) = null
+        }
+        if (settings.includeTlsSessionInfoHeader && tlsSessionInfoHeader != null)
+          headerList = tlsSessionInfoHeader :: headerList
+        val close = HttpMessage.connectionCloseExpected(protocol, Option(ch))
+        setCompletionHandling(CompletionIsEntityStreamError)
+        parseEntity(headerList, protocol, input, cursor, Option(clh), Option(cth), isChunked = false,
+          expect100continue = false, hh, close, lastSession)
+      }
+    } else parseHeaderLines(input, lineStart)
+
+  // checks whether an empty line (LF LF or LF CR LF) follows the given index
+  @tailrec private def containsHeaderSectionEnd(input: ByteString, ix: Int): Boolean =
+    if (ix + 1 < input.length) {
+      if (input(ix) == LF_BYTE) {
+        val next = input(ix + 1)
+        if (next == LF_BYTE) true
+        else if (next == CR_BYTE && ix + 2 < input.length && input(ix + 2) == LF_BYTE) true
+        else containsHeaderSectionEnd(input, ix + 1)
+      } else containsHeaderSectionEnd(input, ix + 1)
+    } else false
+
   // work-around for compiler complaining about non-tail-recursion if we inline this method
   private def parseHeaderLinesAux(headers: ListBuffer[HttpHeader], headerCount: Int, ch: Option[Connection],
       clh: Option[`Content-Length`], cth: Option[`Content-Type`], isChunked: Boolean,
@@ -355,6 +458,15 @@ private[http] trait HttpMessageParser[Output >: MessageOutput <: ParserOutput] {
     done()
   }
 
+  /**
+   * Suspends parsing until the next input arrives, which is then parsed as the start of a new message.
+   * Equivalent to `continue(startNewMessage)` but doesn't allocate a new state function.
+   */
+  protected final def continueWithNewMessage(): StateResult = {
+    state = startNewMessageAtZero
+    done()
+  }
+
   protected final def failMessageStart(summary: String): StateResult = failMessageStart(summary, "")
   protected final def failMessageStart(summary: String, detail: String): StateResult =
     failMessageStart(StatusCodes.BadRequest, summary, detail)
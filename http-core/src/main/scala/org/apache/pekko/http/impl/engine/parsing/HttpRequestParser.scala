@@ -20,6 +20,7 @@ import scala.annotation.{ switch, tailrec }
 
 import org.apache.pekko
 import pekko.annotation.InternalApi
+import pekko.http.impl.engine.http2.Http2
 import pekko.http.impl.engine.server.HttpAttributes
 import pekko.http.impl.util.ByteStringParserInput
 import pekko.http.impl.util.HttpConstants._
@@ -79,6 +80,10 @@ private[http] final class HttpRequestParser(
 
       setHandlers(in, out, this)
 
+      override def postStop(): Unit =
+        headerParser.sharedCache.foreach(
+          _.report(headerParser.log, Http2(materializer.system).telemetry, inheritedAttributes))
+
       private def handleParserOutput(output: RequestOutput): Unit = {
         output match {
           case StreamEnd    => completeStage()
@@ -93,15 +98,15 @@ private[http] final class HttpRequestParser(
           cursor = parseRequestTarget(input, cursor)
           cursor = parseProtocol(input, cursor)
           if (byteAt(input, cursor) == CR_BYTE && byteAt(input, cursor + 1) == LF_BYTE)
-            parseHeaderLines(input, cursor + 2)
+            parseHeaderLinesFastPath(input, cursor + 2)
           else if (byteAt(input, cursor) == LF_BYTE)
-            parseHeaderLines(input, cursor + 1)
+            parseHeaderLinesFastPath(input, cursor + 1)
           else onBadProtocol(input.drop(cursor))
         } else
           // Without HTTP pipelining it's likely that buffer is exhausted after reading one message,
           // so we check above explicitly if we are done and stop work here without running into NotEnoughDataException
           // when continuing to parse.
-          continue(startNewMessage)
+          continueWithNewMessage()
 
       def parseMethod(input: ByteString, cursor: Int): Int = {
         @tailrec def parseCustomMethod(ix: Int = 0, sb: JStringBuilder = new JStringBuilder(16)): Int =
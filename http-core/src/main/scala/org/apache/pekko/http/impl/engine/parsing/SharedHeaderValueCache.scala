@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.parsing
+
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.concurrent.atomic.LongAdder
+
+import org.apache.pekko
+import pekko.annotation.InternalApi
+import pekko.event.LoggingAdapter
+import pekko.http.impl.engine.http2.{ NoOpTelemetry, TelemetrySpi }
+import pekko.http.scaladsl.model.HttpHeader
+import pekko.stream.Attributes
+import pekko.util.ByteString
+
+import scala.annotation.tailrec
+
+/**
+ * INTERNAL API
+ *
+ * A bounded cache of parsed header values that is shared by all connections of a server binding.
+ * The [[HttpHeaderParser]] of every connection consults it before parsing a header value it has not seen itself yet
+ * and promotes freshly parsed values into it, so that new connections don't have to re-parse the `User-Agent`,
+ * `Accept` or `Authorization` headers that other connections have already seen.
+ *
+ * Entries are keyed by header name and the raw bytes of the header value (up to and including the terminating line
+ * break) and hold the immutable header model instance. The table is a power-of-two sized `AtomicReferenceArray`
+ * organized as 2-way set-associative buckets. Reads never block or lock; writes are single volatile stores that may
+ * race with other writes, in which case one of the concurrently parsed values is simply not cached.
+ *
+ * Eviction follows the CLOCK (second chance) scheme within a bucket: a hit marks an entry as referenced, an insertion
+ * into a full bucket replaces an unreferenced entry and clears the reference marks of the bucket. New entries start
+ * unreferenced, so a stream of one-off values cannot push out values that are actually shared between connections.
+ *
+ * @param maxEntries the maximum number of entries, rounded up to the next power of two
+ * @param maxValueLength the maximum length of a header value (including the line break) that is cached
+ */
+@InternalApi
+private[http] final class SharedHeaderValueCache(maxEntries: Int, val maxValueLength: Int) {
+  import SharedHeaderValueCache._
+
+  require(maxEntries > 0, "maxEntries must be > 0")
+  require(maxValueLength > 0, "maxValueLength must be > 0")
+
+  val capacity: Int = if (maxEntries <= 2) 2 else Integer.highestOneBit(maxEntries - 1) << 1
+
+  private[this] val slots = new AtomicReferenceArray[Entry](capacity)
+  private[this] val bucketMask = (capacity >> 1) - 1
+  private[this] val hitCount = new LongAdder
+  private[this] val missCount = new LongAdder
+  private[this] val evictionCount = new LongAdder
+
+  /**
+   * Returns the cached header for the value in `input` between `valueStart` and `lineEnd` or `null` if there is none.
+   */
+  def lookup(headerName: String, input: ByteString, valueStart: Int, lineEnd: Int, hash: Int): HttpHeader = {
+    val slotIx = (hash & bucketMask) << 1
+    val first = slots.get(slotIx)
+    val entry =
+      if (matches(first, headerName, input, valueStart, lineEnd, hash)) first
+      else {
+        val second = slots.get(slotIx + 1)
+        if (matches(second, headerName, input, valueStart, lineEnd, hash)) second else null
+      }
+    if (entry ne null) {
+      if (!entry.referenced) entry.referenced = true
+      hitCount.increment()
+      entry.header
+    } else {
+      missCount.increment()
+      null
+    }
+  }
+
+  /**
+   * Adds the given header for the value in `input` between `valueStart` and `lineEnd`, evicting an older entry
+   * of the same bucket if required.
+   */
+  def insert(headerName: String, input: ByteString, valueStart: Int, lineEnd: Int, hash: Int,
+      header: HttpHeader): Unit = {
+    val slotIx = (hash & bucketMask) << 1
+    val first = slots.get(slotIx)
+    val second = slots.get(slotIx + 1)
+    if (!matches(first, headerName, input, valueStart, lineEnd, hash) &&
+      !matches(second, headerName, input, valueStart, lineEnd, hash)) {
+      val entry = new Entry(headerName, input.slice(valueStart, lineEnd).toArray, hash, header)
+      val targetIx =
+        if (first eq null) slotIx
+        else if (second eq null) slotIx + 1
+        else {
+          evictionCount.increment()
+          if (!first.referenced) slotIx
+          else if (!second.referenced) slotIx + 1
+          else {
+            // both entries got a second chance, take them away and evict based on the hash of the new entry
+            first.referenced = false
+            second.referenced = false
+            slotIx + ((hash >>> 31) & 1)
+          }
+        }
+      slots.set(targetIx, entry)
+    }
+  }
+
+  /**
+   * Returns a snapshot of the usage statistics of this cache.
+   */
+  def stats: Stats = {
+    @tailrec def countEntries(ix: Int, count: Int): Int =
+      if (ix < capacity) countEntries(ix + 1, if (slots.get(ix) ne null) count + 1 else count)
+      else count
+    Stats(hitCount.sum(), missCount.sum(), evictionCount.sum(), countEntries(0, 0), capacity)
+  }
+
+  /**
+   * Logs the current statistics at DEBUG level and reports them to the telemetry, called when a connection closes.
+   */
+  def report(log: LoggingAdapter, telemetry: TelemetrySpi, connectionAttributes: Attributes): Unit =
+    if (log.isDebugEnabled || (telemetry ne NoOpTelemetry)) {
+      val s = stats
+      log.debug("Shared header cache: {}", s)
+      telemetry.serverSharedHeaderCacheStats(connectionAttributes, s.hits, s.misses, s.evictions, s.size, s.capacity)
+    }
+
+  override def toString: String = s"SharedHeaderValueCache($stats)"
+}
+
+/**
+ * INTERNAL API
+ */
+@InternalApi
+private[http] object SharedHeaderValueCache {
+  private final class Entry(val headerName: String, val bytes: Array[Byte], val hash: Int, val header: HttpHeader) {
+    // only a hint for the eviction policy, so updates don't need to be visible to other threads right away
+    var referenced: Boolean = false
+  }
+
+  final case class Stats(hits: Long, misses: Long, evictions: Long, size: Int, capacity: Int) {
+    def lookups: Long = hits + misses
+    def hitRate: Double = if (lookups > 0) hits.toDouble / lookups else 0.0
+    override def toString: String =
+      f"$hits hits, $misses misses (hit rate ${hitRate * 100}%.1f%%), $evictions evictions, $size/$capacity entries"
+  }
+
+  /**
+   * Determines the end of a single-line header value that starts at `valueStart`, i.e. the index after the
+   * terminating LF. Returns -1 if the value is longer than `maxValueLength`, if the line end is not yet contained in
+   * `input` or if the value continues on a folded line. Such values are not cached.
+   */
+  def lineEnd(input: ByteString, valueStart: Int, maxValueLength: Int): Int = {
+    val limit = math.min(input.length - 1, valueStart + maxValueLength)
+    @tailrec def rec(ix: Int): Int =
+      if (ix >= limit) -1
+      else if (input(ix) == '\n') {
+        val next = input(ix + 1)
+        if (next == ' ' || next == '\t') -1 else ix + 1
+      } else rec(ix + 1)
+    rec(valueStart)
+  }
+
+  /**
+   * Hashes the header name together with the raw value bytes between `valueStart` and `lineEnd`.
+   */
+  def hash(headerName: String, input: ByteString, valueStart: Int, lineEnd: Int): Int = {
+    @tailrec def rec(ix: Int, h: Int): Int =
+      if (ix < lineEnd) rec(ix + 1, 31 * h + input(ix)) else h
+    val h = rec(valueStart, headerName.hashCode)
+    h ^ (h >>> 16)
+  }
+
+  private def matches(entry: Entry, headerName: String, input: ByteString, valueStart: Int, lineEnd: Int,
+      hash: Int): Boolean = {
+    @tailrec def sameBytes(bytes: Array[Byte], ix: Int): Boolean =
+      ix == bytes.length || (bytes(ix) == input(valueStart + ix) && sameBytes(bytes, ix + 1))
+    (entry ne null) && entry.hash == hash && entry.bytes.length == lineEnd - valueStart &&
+    ((entry.headerName eq headerName) || entry.headerName == headerName) && sameBytes(entry.bytes, 0)
+  }
+}
@@ -57,12 +57,21 @@ private[http] class HttpRequestRendererFactory(
       r ~~ ' ' ~~ protocol ~~ CrLf
     }
 
-    def render(h: HttpHeader) = r ~~ h
+    def render(h: HttpHeader) = h match {
+      case x: PreRenderedHeader => r ~~ x.renderedLine // already checked for CR and LF when it was created
+      case x                    => r ~~ x
+    }
 
     @tailrec def renderHeaders(remaining: List[HttpHeader], hostHeaderSeen: Boolean = false,
         userAgentSeen: Boolean = false, transferEncodingSeen: Boolean = false): Unit =
       remaining match {
-        case head :: tail => head match {
+        case head :: tail =>
+          // pre-rendered headers get the special treatment of the header they wrap but are rendered from `head`
+          val header = head match {
+            case x: PreRenderedHeader => x.header
+            case x                    => x
+          }
+          header match {
             case x: `Content-Length` =>
               suppressionWarning(log, x,
                 "explicit `Content-Length` header is not allowed. Use the appropriate HttpEntity subtype.")
@@ -76,7 +85,7 @@ private[http] class HttpRequestRendererFactory(
             case x: `Transfer-Encoding` =>
               x.withChunkedPeeled match {
                 case None =>
-                  suppressionWarning(log, head)
+                  suppressionWarning(log, x)
                   renderHeaders(tail, hostHeaderSeen, userAgentSeen, transferEncodingSeen)
                 case Some(te) =>
                   // if the user applied some custom transfer-encoding we need to keep the header
@@ -84,19 +93,19 @@ private[http] class HttpRequestRendererFactory(
                   renderHeaders(tail, hostHeaderSeen, userAgentSeen, transferEncodingSeen = true)
               }
 
-            case x: `Host` =>
-              render(x)
+            case _: `Host` =>
+              render(head)
               renderHeaders(tail, hostHeaderSeen = true, userAgentSeen, transferEncodingSeen)
 
-            case x: `User-Agent` =>
-              render(x)
+            case _: `User-Agent` =>
+              render(head)
               renderHeaders(tail, hostHeaderSeen, userAgentSeen = true, transferEncodingSeen)
 
-            case x: `Raw-Request-URI` => // we never render this header
+            case _: `Raw-Request-URI` => // we never render this header
               renderHeaders(tail, hostHeaderSeen, userAgentSeen, transferEncodingSeen)
 
             case x: CustomHeader =>
-              if (x.renderInRequests) render(x)
+              if (x.renderInRequests) render(head)
               renderHeaders(tail, hostHeaderSeen, userAgentSeen, transferEncodingSeen)
 
             case x: RawHeader
@@ -106,15 +115,15 @@ private[http] class HttpRequestRendererFactory(
               renderHeaders(tail, hostHeaderSeen, userAgentSeen, transferEncodingSeen)
 
             case x: RawHeader if x.is("user-agent") =>
-              render(x)
+              render(head)
               renderHeaders(tail, hostHeaderSeen, userAgentSeen = true, transferEncodingSeen)
 
             case x: RawHeader if x.is("host") =>
-              render(x)
+              render(head)
               renderHeaders(tail, hostHeaderSeen = true, userAgentSeen, transferEncodingSeen)
 
             case x =>
-              if (x.renderInRequests) render(x)
+              if (x.renderInRequests) render(head)
               else log.warning("HTTP header '{}' is not allowed in requests", x)
               renderHeaders(tail, hostHeaderSeen, userAgentSeen, transferEncodingSeen)
           }
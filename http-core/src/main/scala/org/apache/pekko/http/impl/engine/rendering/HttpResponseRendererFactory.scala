@@ -41,7 +41,8 @@ private[http] class HttpResponseRendererFactory(
     serverHeader: Option[headers.Server],
     responseHeaderSizeHint: Int,
     log: LoggingAdapter,
-    dateHeaderRendering: DateHeaderRendering) {
+    dateHeaderRendering: DateHeaderRendering,
+    renderingBufferSize: Int = 0) {
 
   private val renderDefaultServerHeader: Rendering => Unit =
     serverHeader match {
@@ -65,6 +66,8 @@ private[http] class HttpResponseRendererFactory(
         def closeIf(cond: Boolean): Unit = if (cond) closeMode = CloseConnection
         var transferSink: Option[SubSinkInlet[ByteString]] = None
         def transferring: Boolean = transferSink.isDefined
+        // only used with a `response-rendering-buffer-size`, allocated when the first response is rendered
+        private var renderingBuffer: ByteArrayRendering = null
 
         override def onPush(): Unit =
           render(grab(in)) match {
@@ -143,7 +146,13 @@ private[http] class HttpResponseRendererFactory(
         }
 
         def render(ctx: ResponseRenderingContext): StrictOrStreamed = {
-          val r = new ByteArrayRendering(responseHeaderSizeHint, log.warning)
+          val buffered = renderingBufferSize > 0
+          val r =
+            if (buffered) {
+              if (renderingBuffer eq null) renderingBuffer = new ByteArrayRendering(renderingBufferSize, log.warning)
+              else renderingBuffer.startNext(responseHeaderSizeHint)
+              renderingBuffer
+            } else new ByteArrayRendering(responseHeaderSizeHint, log.warning)
 
           import ctx.response._
           val noEntity = entity.isKnownEmpty || ctx.requestMethod == HttpMethods.HEAD
@@ -156,7 +165,10 @@ private[http] class HttpResponseRendererFactory(
               case other      => throw new IllegalStateException(s"Unexpected protocol '$other'")
             }
 
-          def render(h: HttpHeader) = r ~~ h
+          def render(h: HttpHeader) = h match {
+            case x: PreRenderedHeader => r ~~ x.renderedLine // already checked for CR and LF when it was created
+            case x                    => r ~~ x
+          }
 
           def mustRenderTransferEncodingChunkedHeader =
             entity.isChunked && (!entity.isKnownEmpty || ctx.requestMethod == HttpMethods.HEAD) &&
@@ -169,14 +181,20 @@ private[http] class HttpResponseRendererFactory(
             var dateSeen: Boolean = false
 
             val it = headers.iterator
-            while (it.hasNext)
-              it.next() match {
-                case x: Server =>
-                  render(x)
+            while (it.hasNext) {
+              val next = it.next()
+              // pre-rendered headers get the special treatment of the header they wrap but are rendered from `next`
+              val header = next match {
+                case x: PreRenderedHeader => x.header
+                case x                    => x
+              }
+              header match {
+                case _: Server =>
+                  render(next)
                   serverSeen = true
 
-                case x: Date =>
-                  render(x)
+                case _: Date =>
+                  render(next)
                   dateSeen = true
 
                 case x: `Content-Length` =>
@@ -201,7 +219,7 @@ private[http] class HttpResponseRendererFactory(
                   connHeader = if (connHeader eq null) x else Connection(x.tokens ++ connHeader.tokens)
 
                 case x: CustomHeader =>
-                  if (x.renderInResponses) render(x)
+                  if (x.renderInResponses) render(next)
 
                 case x: RawHeader
                     if (x.is("content-type")) || (x.is("content-length")) || (x.is("transfer-encoding")) ||
@@ -209,9 +227,10 @@ private[http] class HttpResponseRendererFactory(
                   suppressionWarning(log, x, "illegal RawHeader")
 
                 case x =>
-                  if (x.renderInResponses) render(x)
+                  if (x.renderInResponses) render(next)
                   else log.warning("HTTP header '{}' is not allowed in responses", x)
               }
+            }
 
             if (!serverSeen) renderDefaultServerHeader(r)
             if (!dateSeen) r ~~ dateHeaderRendering.renderHeaderBytes()
@@ -274,7 +293,7 @@ private[http] class HttpResponseRendererFactory(
 
                 val finalBytes = {
                   if (!noEntity)
-                    if (data.size < r.remainingCapacity) (r ~~ data).asByteString
+                    if (!buffered && data.size < r.remainingCapacity) (r ~~ data).asByteString
                     else r.asByteString ++ data
                   else
                     r.asByteString
@@ -251,8 +251,12 @@ private[http] object HttpServerBluePrint {
 
     // the initial header parser we initially use for every connection,
     // will not be mutated, all "shared copy" parsers copy on first-write into the header cache
-    val rootParser = new HttpRequestParser(parserSettings, websocketSettings, rawRequestUriHeader,
-      HttpHeaderParser(parserSettings, log))
+    val headerParser =
+      if (parserSettings.sharedHeaderCacheSize > 0)
+        HttpHeaderParser(parserSettings, log).withSharedCache(
+          new SharedHeaderValueCache(parserSettings.sharedHeaderCacheSize, parserSettings.maxHeaderValueLength))
+      else HttpHeaderParser(parserSettings, log)
+    val rootParser = new HttpRequestParser(parserSettings, websocketSettings, rawRequestUriHeader, headerParser)
 
     def establishAbsoluteUri(requestOutput: RequestOutput): RequestOutput = requestOutput match {
       case connect: RequestStart if connect.method == HttpMethods.CONNECT =>
@@ -277,7 +281,8 @@ private[http] object HttpServerBluePrint {
     import settings._
 
     val responseRendererFactory =
-      new HttpResponseRendererFactory(serverHeader, responseHeaderSizeHint, log, dateHeaderRendering)
+      new HttpResponseRendererFactory(serverHeader, responseHeaderSizeHint, log, dateHeaderRendering,
+        responseRenderingBufferSize)
 
     Flow[ResponseRenderingContext]
       .via(responseRendererFactory.renderer.named("renderer"))
@@ -300,10 +305,14 @@ private[http] object HttpServerBluePrint {
       // or current head (same reason) is not for response the timeout has been scheduled for
       val callback: AsyncCallback[(TimeoutAccess, HttpResponse)] = getAsyncCallback {
         case (timeout, response) =>
-          if (openTimeouts.headOption.exists(_ eq timeout)) {
-            emit(responseOut, response, () => completeStage())
-          }
+          if (openTimeouts.headOption.exists(_ eq timeout)) emitTimeoutResponse(response)
+          else
+            // a pipelined request timed out while still waiting for the responses to the requests before it,
+            // its timeout response is sent once it is its turn
+            openTimeouts.find(_ eq timeout).foreach(_.timeoutResponse = response)
       }
+      def emitTimeoutResponse(response: HttpResponse): Unit =
+        emit(responseOut, response, () => completeStage())
       setHandler(requestIn,
         new InHandler {
           def onPush(): Unit = {
@@ -329,6 +338,8 @@ private[http] object HttpServerBluePrint {
             openTimeouts.head.clear()
             openTimeouts = openTimeouts.tail
             push(responseOut, grab(responseIn))
+            if (openTimeouts.nonEmpty && (openTimeouts.head.timeoutResponse ne null))
+              emitTimeoutResponse(openTimeouts.head.timeoutResponse)
           }
           override def onUpstreamFinish(): Unit = complete(responseOut)
           override def onUpstreamFailure(ex: Throwable): Unit = fail(responseOut, ex)
@@ -360,6 +371,9 @@ private[http] object HttpServerBluePrint {
 
     private var currentTimeout = initialTimeout
 
+    /** The timeout response of a pipelined request that timed out before it was its turn, only accessed by the stage */
+    var timeoutResponse: HttpResponse = _
+
     initialTimeout match {
       case timeout: FiniteDuration => set {
           requestEnd.fast.map(_ => new TimeoutSetup(Deadline.now, schedule(timeout, this), timeout, this))
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.server
+
+import java.net.ServerSocket
+import java.net.StandardSocketOptions
+
+import scala.concurrent.ExecutionContext
+import scala.concurrent.Future
+import scala.util.Failure
+import scala.util.Success
+
+import org.apache.pekko
+import pekko.annotation.InternalApi
+import pekko.http.scaladsl.Http.ServerBinding
+import pekko.http.scaladsl.settings.ServerSettings
+import pekko.io.Inet
+import pekko.stream.scaladsl.Tcp
+
+/**
+ * INTERNAL API
+ *
+ * Binds the accept streams of a server binding. With `accept-listeners` > 1 the port is bound once per listener with
+ * SO_REUSEPORT so that the operating system spreads incoming connections across the listeners, each of which
+ * materializes the connections it accepts in its own stream.
+ */
+@InternalApi
+private[http] object ServerListeners {
+
+  /** Allows several listeners to be bound to the same port, see `SO_REUSEPORT` */
+  case object ReusePort extends Inet.SocketOption {
+    override def beforeServerSocketBind(ss: ServerSocket): Unit =
+      ss.setOption(StandardSocketOptions.SO_REUSEPORT, java.lang.Boolean.TRUE)
+  }
+
+  /**
+   * Runs `bindListener` for each of the `settings.acceptListeners` listeners and aggregates the resulting TCP
+   * bindings into a single [[ServerBinding]] that unbinds all listeners and terminates the connections of all of
+   * them through the given `masterTerminator`.
+   *
+   * @param bindListener binds a listener to the given port and runs its accept stream with the given settings,
+   *                     which limit `maxConnections` to the share of the listener
+   */
+  def bind(port: Int, settings: ServerSettings, masterTerminator: MasterServerTerminator)(
+      bindListener: (Int, ServerSettings) => Future[Tcp.ServerBinding])(
+      implicit ec: ExecutionContext): Future[ServerBinding] = {
+    val listeners = settings.acceptListeners
+    if (listeners == 1) bindListener(port, settings).map(binding => serverBinding(binding :: Nil, masterTerminator))
+    else {
+      val listenerSettings =
+        settings
+          .withSocketOptions(settings.socketOptions :+ ReusePort)
+          .withMaxConnections((settings.maxConnections + listeners - 1) / listeners)
+
+      // the first listener determines the actual port if an ephemeral port (0) was requested
+      bindListener(port, listenerSettings).flatMap { first =>
+        val port = first.localAddress.getPort
+        val others = List.fill(listeners - 1)(bindListener(port, listenerSettings).transform(Success(_)))
+        Future.sequence(others).flatMap { results =>
+          val bindings = first :: results.collect { case Success(binding) => binding }
+          results.collectFirst { case Failure(cause) => cause } match {
+            case None        => Future.successful(serverBinding(bindings, masterTerminator))
+            case Some(cause) =>
+              // don't leave the listeners behind that could be bound
+              Future.sequence(bindings.map(_.unbind())).transform(_ => Failure(cause))
+          }
+        }
+      }
+    }
+  }
+
+  private def serverBinding(bindings: List[Tcp.ServerBinding], masterTerminator: MasterServerTerminator)(
+      implicit ec: ExecutionContext): ServerBinding =
+    ServerBinding(bindings.head.localAddress)(
+      () => Future.sequence(bindings.map(_.unbind())).map(_ => ()),
+      timeout => masterTerminator.terminate(timeout))
+}
@@ -52,7 +52,12 @@ private[http] final case class FrameData(data: ByteString, lastPart: Boolean) ex
   def withData(data: ByteString): FrameData = copy(data = data)
 }
 
-/** Model of the frame header */
+/**
+ * Model of the frame header
+ *
+ * @param preCompressed only for outgoing frames: the data was already compressed for permessage-deflate without
+ *                      context takeover (`rsv1` is set), so the compression layer must pass the frame on as is
+ */
 private[http] final case class FrameHeader(
     opcode: Protocol.Opcode,
     mask: Option[Int],
@@ -60,7 +65,8 @@ private[http] final case class FrameHeader(
     fin: Boolean,
     rsv1: Boolean = false,
     rsv2: Boolean = false,
-    rsv3: Boolean = false)
+    rsv3: Boolean = false,
+    preCompressed: Boolean = false)
 
 private[http] object FrameEvent {
   def empty(
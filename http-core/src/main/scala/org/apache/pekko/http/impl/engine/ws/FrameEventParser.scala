@@ -13,12 +13,12 @@
 
 package org.apache.pekko.http.impl.engine.ws
 
+import java.nio.ByteBuffer
+
 import org.apache.pekko
 import pekko.annotation.InternalApi
 import pekko.stream.impl.io.ByteStringParser
 import pekko.util.ByteString
-
-import scala.annotation.tailrec
 import pekko.stream.Attributes
 
 /**
@@ -126,43 +126,43 @@ private[http] object FrameEventParser extends ByteStringParser[FrameEvent] {
       case None    => bytes
     }
 
+  /**
+   * Masks (or unmasks) the given bytes with the given mask and returns the result together with the mask to use for the
+   * bytes that follow in the same frame.
+   *
+   * The bytes are copied into a single new array once and then XOR-ed in place, eight bytes at a time with the mask
+   * repeated to a long, and byte by byte only for the remaining tail.
+   */
   def mask(bytes: ByteString, mask: Int): (ByteString, Int) = {
-    val m0 = ((mask >> 24) & 0xFF).toByte
-    val m1 = ((mask >> 16) & 0xFF).toByte
-    val m2 = ((mask >> 8) & 0xFF).toByte
-    val m3 = ((mask >> 0) & 0xFF).toByte
-
-    @tailrec def rec(bytes: Array[Byte], offset: Int, last: Int): Unit =
-      if (offset < last) {
-        // process four bytes each turn
-        bytes(offset + 0) = (bytes(offset + 0) ^ m0).toByte
-        bytes(offset + 1) = (bytes(offset + 1) ^ m1).toByte
-        bytes(offset + 2) = (bytes(offset + 2) ^ m2).toByte
-        bytes(offset + 3) = (bytes(offset + 3) ^ m3).toByte
-
-        rec(bytes, offset + 4, last)
-      } else {
-        val len = bytes.length
-
-        if (last < len) {
-          bytes(last) = (bytes(last) ^ m0).toByte
-
-          if (last + 1 < len) {
-            bytes(last + 1) = (bytes(last + 1) ^ m1).toByte
-
-            if (last + 2 < len)
-              bytes(last + 2) = (bytes(last + 2) ^ m2).toByte
-          }
-        }
-      }
-
     val buffer = bytes.toArray[Byte]
-    rec(buffer, 0, (bytes.length / 4) * 4)
+    maskInPlace(buffer, mask)
 
-    val newMask = Integer.rotateLeft(mask, (bytes.length % 4) * 8)
+    val newMask = Integer.rotateLeft(mask, (buffer.length % 4) * 8)
     (ByteString.fromArrayUnsafe(buffer), newMask)
   }
 
+  private def maskInPlace(bytes: Array[Byte], mask: Int): Unit = {
+    val length = bytes.length
+    val longs = length & ~7
+    if (longs > 0) {
+      // big endian so that the first byte of each long is XOR-ed with the first byte of the mask
+      val view = ByteBuffer.wrap(bytes)
+      val longMask = (mask.toLong << 32) | (mask & 0xFFFFFFFFL)
+      var offset = 0
+      while (offset < longs) {
+        view.putLong(offset, view.getLong(offset) ^ longMask)
+        offset += 8
+      }
+    }
+
+    // the long loop ends at a multiple of 4 so the tail starts with the first byte of the mask again
+    var offset = longs
+    while (offset < length) {
+      bytes(offset) = (bytes(offset) ^ (mask >>> (24 - (offset & 3) * 8))).toByte
+      offset += 1
+    }
+  }
+
   def parseCloseCode(data: ByteString): Option[(Int, String)] = {
     def invalid(reason: String) = Some((Protocol.CloseCodes.ProtocolError, s"Peer sent illegal close frame ($reason)."))
 
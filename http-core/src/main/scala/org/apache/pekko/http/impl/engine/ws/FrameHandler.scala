@@ -23,6 +23,7 @@ import pekko.event.Logging
 import pekko.stream.stage._
 import pekko.stream.{ Attributes, FlowShape, Inlet, Outlet }
 
+import scala.util.{ Failure, Success }
 import scala.util.control.NonFatal
 
 /**
@@ -62,7 +63,13 @@ private[http] object FrameHandler {
             (start.header.opcode, start.isFullMessage) match {
               case (Opcode.Binary, true)  => publishMessagePart(BinaryMessagePart(start.data, last = true))
               case (Opcode.Binary, false) => setAndHandleFrameStartWith(new BinaryMessageHandler, start)
-              case (Opcode.Text, _)       => setAndHandleFrameStartWith(new TextMessageHandler, start)
+              case (Opcode.Text, true)    =>
+                // a complete message needs no streaming decoder
+                Utf8Decoder.decode(start.data) match {
+                  case Success(text) => publishMessagePart(TextMessagePart(text, last = true))
+                  case Failure(_)    => closeWithCode(Protocol.CloseCodes.InconsistentData)
+                }
+              case (Opcode.Text, false)   => setAndHandleFrameStartWith(new TextMessageHandler, start)
               case x                      => pushProtocolError()
             }
           }
@@ -109,9 +116,9 @@ private[http] object FrameHandler {
           def handleRegularFrameStart(start: FrameStart): Unit
 
           override def handleFrameStart(start: FrameStart): Unit = start.header match {
-            case h: FrameHeader if h.mask.isDefined && !server                                      => pushProtocolError()
-            case h: FrameHeader if h.rsv1 || h.rsv2 || h.rsv3                                       => pushProtocolError()
-            case FrameHeader(op, _, length, fin, _, _, _) if op.isControl && (length > 125 || !fin) =>
+            case h: FrameHeader if h.mask.isDefined && !server                                         => pushProtocolError()
+            case h: FrameHeader if h.rsv1 || h.rsv2 || h.rsv3                                          => pushProtocolError()
+            case FrameHeader(op, _, length, fin, _, _, _, _) if op.isControl && (length > 125 || !fin) =>
               pushProtocolError()
             case h: FrameHeader if h.opcode.isControl =>
               if (start.isFullMessage) handleControlFrame(h.opcode, start.data, this)
@@ -186,7 +193,7 @@ private[http] object FrameHandler {
 
         private object CloseAfterPeerClosed extends InHandler {
           override def onPush(): Unit = grab(in) match {
-            case FrameStart(FrameHeader(Opcode.Close, _, length, _, _, _, _), data) =>
+            case FrameStart(FrameHeader(Opcode.Close, _, length, _, _, _, _, _), data) =>
               setHandler(in, WaitForPeerTcpClose)
               push(out, PeerClosed.parse(data))
             case _ => pull(in) // ignore all other data
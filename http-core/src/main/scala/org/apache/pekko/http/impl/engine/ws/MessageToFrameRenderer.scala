@@ -31,14 +31,22 @@ import pekko.http.scaladsl.model.ws._
 @InternalApi
 private[http] object MessageToFrameRenderer {
   def create(serverSide: Boolean): Flow[Message, FrameStart, NotUsed] =
-    create(serverSide, None)
+    create(serverSide, None, sendPreCompressed = false, minMessageSize = 0)
 
   def create(serverSide: Boolean, shouldCompress: Message => Boolean): Flow[Message, FrameStart, NotUsed] =
-    create(serverSide, Some(shouldCompress))
+    create(serverSide, Some(shouldCompress), sendPreCompressed = false, minMessageSize = 0)
 
-  private def create(
+  /**
+   * @param sendPreCompressed whether the connection negotiated no context takeover for the messages it sends, so that
+   *                          the compressed frames of [[PreEncodedMessage]]s can be sent as they are
+   * @param minMessageSize smaller [[PreEncodedMessage]]s are not sent pre-compressed but left to the compression
+   *                       policy of the connection
+   */
+  def create(
       serverSide: Boolean,
-      shouldCompress: Option[Message => Boolean]): Flow[Message, FrameStart, NotUsed] = {
+      shouldCompress: Option[Message => Boolean],
+      sendPreCompressed: Boolean,
+      minMessageSize: Long): Flow[Message, FrameStart, NotUsed] = {
     def strictFrames(opcode: Opcode, data: ByteString, compress: Boolean): Source[FrameStart, ?] =
       // FIXME: fragment?
       Source.single(FrameEvent.fullFrame(opcode, None, data, fin = true, rsv1 = compress))
@@ -52,12 +60,21 @@ private[http] object MessageToFrameRenderer {
     Flow[Message]
       .flatMapConcat { message =>
         val compress = shouldCompress.exists(_(message))
-        message match {
-          case BinaryMessage.Strict(data) => strictFrames(Opcode.Binary, data, compress)
-          case bm: BinaryMessage          => streamedFrames(Opcode.Binary, bm.dataStream, compress)
-          case TextMessage.Strict(text)   => strictFrames(Opcode.Text, ByteString(text, StandardCharsets.UTF_8), compress)
-          case tm: TextMessage            => streamedFrames(Opcode.Text, tm.textStream.via(Utf8Encoder), compress)
-        }
+        val encoded = PreEncodedMessage.of(message)
+        if (encoded ne null) {
+          val preCompressed = encoded.preCompressedFrame
+          Source.single(
+            if (compress && sendPreCompressed && (preCompressed ne null) && encoded.payloadLength >= minMessageSize)
+              preCompressed
+            else encoded.frame(compress))
+        } else
+          message match {
+            case BinaryMessage.Strict(data) => strictFrames(Opcode.Binary, data, compress)
+            case bm: BinaryMessage          => streamedFrames(Opcode.Binary, bm.dataStream, compress)
+            case TextMessage.Strict(text)   =>
+              strictFrames(Opcode.Text, ByteString(text, StandardCharsets.UTF_8), compress)
+            case tm: TextMessage => streamedFrames(Opcode.Text, tm.textStream.via(Utf8Encoder), compress)
+          }
       }
   }
 }
@@ -19,6 +19,8 @@ package org.apache.pekko.http.impl.engine.ws
 
 import java.io.ByteArrayOutputStream
 import java.util.Random
+import java.util.concurrent.{ ConcurrentHashMap, ConcurrentLinkedQueue }
+import java.util.concurrent.atomic.{ AtomicInteger, AtomicLong }
 import java.util.zip.Deflater
 import java.util.zip.Inflater
 import java.util.zip.DataFormatException
@@ -26,6 +28,7 @@ import java.util.zip.DataFormatException
 import org.apache.pekko
 import pekko.NotUsed
 import pekko.annotation.InternalApi
+import pekko.http.impl.engine.http2.{ Http2, NoOpTelemetry, TelemetrySpi }
 import pekko.http.impl.settings.WebSocketCompressionSettingsImpl
 import pekko.http.scaladsl.model.headers.WebSocketExtension
 import pekko.stream.scaladsl.BidiFlow
@@ -52,16 +55,116 @@ private[http] object PerMessageDeflate {
   private val ServerNoContextTakeover = "server_no_context_takeover"
   private val EmptyStoredBlock = ByteString(0x00, 0x00, 0xFF.toByte, 0xFF.toByte)
 
+  /**
+   * Estimated native memory of a zlib deflater with the windowBits 15 and memLevel 8 the JDK always uses:
+   * `(1 << (windowBits + 2)) + (1 << (memLevel + 9))` plus the deflate state.
+   */
+  private[http] val DeflaterNativeMemory: Long = (1 << 17) + (1 << 17) + 6 * 1024
+
+  /** Estimated native memory of a zlib inflater: the 32 KiB window plus the inflate state. */
+  private[http] val InflaterNativeMemory: Long = (1 << 15) + 7 * 1024
+
   private[ws] trait CompressionFactory {
     def newInflater(): Inflater
     def newDeflater(compressionLevel: Int): Deflater
+    def releaseInflater(inflater: Inflater): Unit = inflater.end()
+    def releaseDeflater(deflater: Deflater): Unit = deflater.end()
   }
 
   private object DefaultCompressionFactory extends CompressionFactory {
-    override def newInflater(): Inflater = new Inflater(true)
-    override def newDeflater(compressionLevel: Int): Deflater = new Deflater(compressionLevel, true)
+    override def newInflater(): Inflater = {
+      Gauges.liveInflaters.incrementAndGet()
+      new Inflater(true)
+    }
+    override def newDeflater(compressionLevel: Int): Deflater = {
+      Gauges.liveDeflaters.incrementAndGet()
+      new LeveledDeflater(compressionLevel)
+    }
+    override def releaseInflater(inflater: Inflater): Unit = {
+      Gauges.liveInflaters.decrementAndGet()
+      inflater.end()
+    }
+    override def releaseDeflater(deflater: Deflater): Unit = {
+      Gauges.liveDeflaters.decrementAndGet()
+      deflater.end()
+    }
+  }
+
+  /**
+   * Reuses inflaters and deflaters across connections. Used for directions without context takeover, where the flows
+   * only hold an instance while a message is inflated or deflated, so that the number of zlib instances follows the
+   * number of messages in flight instead of the number of connections. At most `maxIdle` instances of each kind are
+   * kept for reuse, the others are ended when released.
+   */
+  private[ws] final class PooledCompressionFactory(maxIdle: Int) extends CompressionFactory {
+    private val idleInflaters = new ConcurrentLinkedQueue[Inflater]
+    private val idleDeflaters = Array.fill(10)(new ConcurrentLinkedQueue[Deflater])
+    private val idleInflaterCount = new AtomicInteger
+    private val idleDeflaterCount = new AtomicInteger
+
+    override def newInflater(): Inflater = idleInflaters.poll() match {
+      case null =>
+        DefaultCompressionFactory.newInflater()
+      case inflater =>
+        idleInflaterCount.decrementAndGet()
+        inflater
+    }
+
+    override def newDeflater(compressionLevel: Int): Deflater = idleDeflaters(compressionLevel).poll() match {
+      case null =>
+        DefaultCompressionFactory.newDeflater(compressionLevel)
+      case deflater =>
+        idleDeflaterCount.decrementAndGet()
+        deflater
+    }
+
+    override def releaseInflater(inflater: Inflater): Unit =
+      if (idleInflaterCount.incrementAndGet() <= maxIdle) {
+        inflater.reset()
+        idleInflaters.offer(inflater)
+      } else {
+        idleInflaterCount.decrementAndGet()
+        DefaultCompressionFactory.releaseInflater(inflater)
+      }
+
+    override def releaseDeflater(deflater: Deflater): Unit = deflater match {
+      case leveled: LeveledDeflater if idleDeflaterCount.incrementAndGet() <= maxIdle =>
+        // a reset deflater keeps its compression level, so it goes back to the queue of that level
+        leveled.reset()
+        idleDeflaters(leveled.level).offer(leveled)
+      case leveled: LeveledDeflater =>
+        idleDeflaterCount.decrementAndGet()
+        DefaultCompressionFactory.releaseDeflater(leveled)
+      case other =>
+        other.end()
+    }
   }
 
+  private[ws] object PooledCompressionFactory {
+    private val shared = new ConcurrentHashMap[Int, PooledCompressionFactory]
+
+    /** The pool shared by all connections with the same pool size */
+    def apply(maxIdle: Int): PooledCompressionFactory =
+      shared.computeIfAbsent(maxIdle, _ => new PooledCompressionFactory(maxIdle))
+  }
+
+  private final class LeveledDeflater(val level: Int) extends Deflater(level, true)
+
+  /** Process-wide counts of the zlib instances, which are shared by the connections through the pools */
+  private object Gauges {
+    val liveInflaters = new AtomicLong
+    val liveDeflaters = new AtomicLong
+  }
+
+  /** Estimated native memory of all alive zlib inflaters and deflaters in bytes */
+  private[http] def estimatedNativeMemory: Long =
+    Gauges.liveInflaters.get() * InflaterNativeMemory + Gauges.liveDeflaters.get() * DeflaterNativeMemory
+
+  private def reportZlibInstances(telemetry: TelemetrySpi, connectionAttributes: Attributes): Unit =
+    if (telemetry ne NoOpTelemetry)
+      telemetry.webSocketZlibInstances(connectionAttributes, Gauges.liveInflaters.get(), Gauges.liveDeflaters.get(),
+        estimatedNativeMemory)
+
   final case class Negotiated(
       responseExtension: WebSocketExtension,
       serverNoContextTakeover: Boolean,
@@ -71,7 +174,9 @@ private[http] object PerMessageDeflate {
       BidiFlow.fromFlows(inflaterFlow, deflaterFlow)
 
     def messageBidiFlow: BidiFlow[FrameEventOrError, FrameEventOrError, FrameEvent, FrameEvent, NotUsed] =
-      BidiFlow.fromFlows(inflaterFlow, selectiveDeflaterFlow(_.header.rsv1, rsv1IndicatesCompression = true))
+      BidiFlow.fromFlows(
+        inflaterFlow,
+        selectiveDeflaterFlow(start => start.header.rsv1 && !start.header.preCompressed, rsv1IndicatesCompression = true))
 
     def frameEventBidiFlow(
         maskRandom: () => Random): BidiFlow[FrameEvent, FrameEvent, FrameEvent, FrameEvent, NotUsed] =
@@ -92,10 +197,10 @@ private[http] object PerMessageDeflate {
         selectiveDeflaterFlow(shouldCompress, rsv1IndicatesCompression = false))
 
     private def inflaterFlow: Flow[FrameEventOrError, FrameEventOrError, NotUsed] =
-      createInflaterFlow(clientNoContextTakeover, settings, DefaultCompressionFactory)
+      createInflaterFlow(clientNoContextTakeover, settings, compressionFactory(clientNoContextTakeover))
 
     private def deflaterFlow: Flow[FrameEvent, FrameEvent, NotUsed] =
-      createDeflaterFlow(serverNoContextTakeover, settings, DefaultCompressionFactory)
+      createDeflaterFlow(serverNoContextTakeover, settings, compressionFactory(serverNoContextTakeover))
 
     private def selectiveDeflaterFlow(
         shouldCompress: FrameStart => Boolean,
@@ -106,11 +211,20 @@ private[http] object PerMessageDeflate {
           new DeflaterFlow(
             serverNoContextTakeover,
             settings,
-            DefaultCompressionFactory,
+            compressionFactory(serverNoContextTakeover),
             shouldCompress,
             rsv1IndicatesCompression)))
+
+    private def compressionFactory(noContextTakeover: Boolean): CompressionFactory =
+      PerMessageDeflate.compressionFactory(noContextTakeover, settings)
   }
 
+  /** Pooled instances for directions without context takeover, one instance per connection otherwise */
+  private[ws] def compressionFactory(
+      noContextTakeover: Boolean,
+      settings: WebSocketCompressionSettingsImpl): CompressionFactory =
+    if (noContextTakeover) PooledCompressionFactory(settings.poolSize) else DefaultCompressionFactory
+
   private[ws] def createInflaterFlow(
       noContextTakeover: Boolean,
       settings: WebSocketCompressionSettingsImpl,
@@ -161,10 +275,10 @@ private[http] object PerMessageDeflate {
         if (value == "15") responseParams += ServerMaxWindowBits -> value
         else accepted = false
       case (ClientNoContextTakeover, "") =>
-        clientNoContext = settings.preferredClientNoContext
+        clientNoContext = settings.preferredClientNoContext || settings.noContextTakeover
         if (clientNoContext) responseParams += ClientNoContextTakeover -> ""
       case (ServerNoContextTakeover, "") =>
-        if (settings.allowServerNoContext) {
+        if (settings.allowServerNoContext || settings.noContextTakeover) {
           serverNoContext = true
           responseParams += ServerNoContextTakeover -> ""
         } else accepted = false
@@ -172,11 +286,49 @@ private[http] object PerMessageDeflate {
         accepted = false
     }
 
+    // RFC 7692 allows the server to declare both parameters even if the client did not offer them
+    if (accepted && settings.noContextTakeover) {
+      if (!clientNoContext) {
+        clientNoContext = true
+        responseParams += ClientNoContextTakeover -> ""
+      }
+      if (!serverNoContext) {
+        serverNoContext = true
+        responseParams += ServerNoContextTakeover -> ""
+      }
+    }
+
     if (accepted) {
       Some(Negotiated(WebSocketExtension(ExtensionName, responseParams), serverNoContext, clientNoContext, settings))
     } else None
   }
 
+  private val SharedCompressorPoolSize = Runtime.getRuntime.availableProcessors()
+
+  /**
+   * Compresses a complete message independently of any other message, as it would be compressed on a connection
+   * without context takeover, so that the result can be sent on any connection that negotiated
+   * server_no_context_takeover.
+   */
+  private[http] def compressMessage(data: ByteString, compressionLevel: Int): ByteString = {
+    val factory = PooledCompressionFactory(SharedCompressorPoolSize)
+    val deflater = factory.newDeflater(compressionLevel)
+    try deflate(deflater, new Array[Byte](8192), data, removeTail = true)
+    finally factory.releaseDeflater(deflater)
+  }
+
+  private def deflate(deflater: Deflater, buffer: Array[Byte], data: ByteString, removeTail: Boolean): ByteString = {
+    deflater.setInput(data.toArrayUnsafe())
+    val output = new ByteArrayOutputStream(1024)
+    var count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)
+    while (count > 0) {
+      output.write(buffer, 0, count)
+      count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)
+    }
+    val bytes = ByteString.fromArrayUnsafe(output.toByteArray)
+    if (removeTail && bytes.endsWith(EmptyStoredBlock)) bytes.dropRight(EmptyStoredBlock.length) else bytes
+  }
+
   private def validWindowBits(value: String): Boolean =
     value.nonEmpty && value.length <= 2 && value.forall(_.isDigit) && {
       val parsed = value.toInt
@@ -188,7 +340,10 @@ private[http] object PerMessageDeflate {
       settings: WebSocketCompressionSettingsImpl,
       compressionFactory: CompressionFactory)
       extends LifecycleMapConcat[FrameEventOrError, FrameEventOrError] {
-    private var inflater = compressionFactory.newInflater()
+    // without context takeover an inflater is only held while a message is inflated
+    private var inflater: Inflater = null
+    private var telemetry: TelemetrySpi = NoOpTelemetry
+    private var connectionAttributes = Attributes.none
     private var compressedFrame: Option[CompressedFrame] = None
     private var compressedMessageInProgress = false
     private var decompressedMessageBytes = 0L
@@ -236,8 +391,9 @@ private[http] object PerMessageDeflate {
       val inflated = inflate(frame.data, frame.appendTail)
       if (frame.appendTail) decompressedMessageBytes = 0L
       if (frame.appendTail && noContextTakeover) {
-        inflater.end()
-        inflater = compressionFactory.newInflater()
+        compressionFactory.releaseInflater(inflater)
+        inflater = null
+        reportZlibInstances(telemetry, connectionAttributes)
       }
       FrameStart(frame.header.copy(length = inflated.length), inflated) :: Nil
     }
@@ -245,6 +401,10 @@ private[http] object PerMessageDeflate {
     private def inflate(data: ByteString, appendTail: Boolean): ByteString = {
       try {
         val input = if (appendTail) data ++ EmptyStoredBlock else data
+        if (inflater eq null) {
+          inflater = compressionFactory.newInflater()
+          reportZlibInstances(telemetry, connectionAttributes)
+        }
         inflater.setInput(input.toArrayUnsafe())
         val output = new ByteArrayOutputStream(1024)
         var count = inflater.inflate(buffer)
@@ -262,24 +422,50 @@ private[http] object PerMessageDeflate {
       }
     }
 
-    override def close(): Unit =
-      inflater.end()
+    override def open(telemetry: TelemetrySpi, connectionAttributes: Attributes): Unit = {
+      this.telemetry = telemetry
+      this.connectionAttributes = connectionAttributes
+      telemetry.webSocketCompressionConnection(connectionAttributes, opened = true)
+      if (!noContextTakeover) {
+        inflater = compressionFactory.newInflater()
+        reportZlibInstances(telemetry, connectionAttributes)
+      }
+    }
+
+    override def close(): Unit = {
+      telemetry.webSocketCompressionConnection(connectionAttributes, opened = false)
+      if (inflater ne null) {
+        compressionFactory.releaseInflater(inflater)
+        reportZlibInstances(telemetry, connectionAttributes)
+      }
+    }
   }
 
-  private final class DeflaterFlow(
+  private[ws] final class DeflaterFlow(
       noContextTakeover: Boolean,
       settings: WebSocketCompressionSettingsImpl,
       compressionFactory: CompressionFactory,
       shouldCompress: FrameStart => Boolean,
       rsv1IndicatesCompression: Boolean)
       extends LifecycleMapConcat[FrameEvent, FrameEvent] {
-    private var deflater = compressionFactory.newDeflater(settings.compressionLevel)
+    // without context takeover a deflater is only held while a message is deflated
+    private var deflater: Deflater = null
+    private var telemetry: TelemetrySpi = NoOpTelemetry
+    private var connectionAttributes = Attributes.none
     private var frame: Option[UncompressedFrame] = None
     private var messageInProgress = false
     private var compressFragmentedMessage = false
     private var bypassFrameInProgress = false
     private val buffer = new Array[Byte](8192)
 
+    // the adaptive back-off samples the compression ratio of the compressed messages
+    private var messageUncompressedBytes = 0L
+    private var messageCompressedBytes = 0L
+    private var sampledMessages = 0
+    private var sampledUncompressedBytes = 0L
+    private var sampledCompressedBytes = 0L
+    private var messagesToSendUncompressed = 0
+
     override def apply(event: FrameEvent): immutable.Iterable[FrameEvent] = event match {
       case FrameStart(header, _)
           if (header.opcode == Protocol.Opcode.Text ||
@@ -295,7 +481,7 @@ private[http] object PerMessageDeflate {
           header.opcode == Protocol.Opcode.Binary =>
         if (messageInProgress || frame.isDefined)
           throw new ProtocolException("Unexpected data frame while fragmented message is open")
-        val compress = if (rsv1IndicatesCompression) header.rsv1 else shouldCompress(start)
+        val compress = shouldCompress(start) && compressionPolicyAllows(header)
         messageInProgress = !header.fin
         compressFragmentedMessage = compress && messageInProgress
         if (compress) {
@@ -303,7 +489,9 @@ private[http] object PerMessageDeflate {
           if (start.lastPart) finishFrame() else Nil
         } else {
           bypassFrameInProgress = !start.lastPart
-          start :: Nil
+          // rsv1 is kept only for frames that are compressed already
+          if (header.rsv1 && !header.preCompressed) start.copy(header = header.copy(rsv1 = false)) :: Nil
+          else start :: Nil
         }
       case start @ FrameStart(header, _) if bypassFrameInProgress =>
         throw new ProtocolException(s"Unexpected frame ${header.opcode} while frame data is open")
@@ -336,30 +524,83 @@ private[http] object PerMessageDeflate {
       val current = frame.get
       frame = None
       val compressed = deflate(current.data, current.removeTail)
-      if (current.removeTail && noContextTakeover) {
-        deflater.end()
-        deflater = compressionFactory.newDeflater(settings.compressionLevel)
+      messageUncompressedBytes += current.data.length
+      messageCompressedBytes += compressed.length
+      if (current.removeTail) {
+        sampleCompressedMessage()
+        if (noContextTakeover) {
+          compressionFactory.releaseDeflater(deflater)
+          deflater = null
+          reportZlibInstances(telemetry, connectionAttributes)
+        }
       }
       FrameStart(current.header.copy(length = compressed.length), compressed) :: Nil
     }
 
+    /** Whether a message that should be compressed is not too small and compression is not backing off */
+    private def compressionPolicyAllows(header: FrameHeader): Boolean = {
+      val allowed =
+        if (header.fin && header.length < settings.minMessageSize) false
+        else if (messagesToSendUncompressed > 0) {
+          messagesToSendUncompressed -= 1
+          false
+        } else true
+      if (!allowed) telemetry.webSocketMessageSentUncompressed(connectionAttributes)
+      allowed
+    }
+
+    private def sampleCompressedMessage(): Unit = {
+      if (settings.maxCompressionRatio > 0) {
+        sampledMessages += 1
+        sampledUncompressedBytes += messageUncompressedBytes
+        sampledCompressedBytes += messageCompressedBytes
+        if (sampledMessages == settings.ratioSampleSize) {
+          if (sampledCompressedBytes > sampledUncompressedBytes * settings.maxCompressionRatio)
+            messagesToSendUncompressed = settings.backOffMessages
+          sampledMessages = 0
+          sampledUncompressedBytes = 0L
+          sampledCompressedBytes = 0L
+        }
+      }
+      messageUncompressedBytes = 0L
+      messageCompressedBytes = 0L
+    }
+
     private def deflate(data: ByteString, removeTail: Boolean): ByteString = {
-      deflater.setInput(data.toArrayUnsafe())
-      val output = new ByteArrayOutputStream(1024)
-      var count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)
-      while (count > 0) {
-        output.write(buffer, 0, count)
-        count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)
+      if (deflater eq null) {
+        deflater = compressionFactory.newDeflater(settings.compressionLevel)
+        reportZlibInstances(telemetry, connectionAttributes)
+      }
+      if (telemetry eq NoOpTelemetry) PerMessageDeflate.deflate(deflater, buffer, data, removeTail)
+      else {
+        val startNanos = System.nanoTime()
+        val compressed = PerMessageDeflate.deflate(deflater, buffer, data, removeTail)
+        telemetry.webSocketFrameCompressed(connectionAttributes, data.length, compressed.length,
+          System.nanoTime() - startNanos)
+        compressed
+      }
+    }
+
+    override def open(telemetry: TelemetrySpi, connectionAttributes: Attributes): Unit = {
+      this.telemetry = telemetry
+      this.connectionAttributes = connectionAttributes
+      if (!noContextTakeover) {
+        deflater = compressionFactory.newDeflater(settings.compressionLevel)
+        reportZlibInstances(telemetry, connectionAttributes)
       }
-      val bytes = ByteString.fromArrayUnsafe(output.toByteArray)
-      if (removeTail && bytes.endsWith(EmptyStoredBlock)) bytes.dropRight(EmptyStoredBlock.length) else bytes
     }
 
     override def close(): Unit =
-      deflater.end()
+      if (deflater ne null) {
+        compressionFactory.releaseDeflater(deflater)
+        reportZlibInstances(telemetry, connectionAttributes)
+      }
   }
 
-  private trait LifecycleMapConcat[-In, +Out] extends (In => immutable.Iterable[Out]) {
+  private[ws] trait LifecycleMapConcat[-In, +Out] extends (In => immutable.Iterable[Out]) {
+
+    /** Called when the stage starts, before the first element, to take the resources that `close` releases */
+    def open(telemetry: TelemetrySpi, connectionAttributes: Attributes): Unit
     def close(): Unit
   }
 
@@ -373,7 +614,7 @@ private[http] object PerMessageDeflate {
 
     override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
       new GraphStageLogic(shape) with InHandler with OutHandler {
-        private val handler = create()
+        private var handler: LifecycleMapConcat[In, Out] = _
         private var pending = Iterator.empty[Out]
         private var upstreamFinished = false
 
@@ -390,8 +631,14 @@ private[http] object PerMessageDeflate {
           if (!pending.hasNext) completeStage()
         }
 
+        // created here and not in the constructor of the logic, which might never reach postStop
+        override def preStart(): Unit = {
+          handler = create()
+          handler.open(Http2(materializer.system).telemetry, inheritedAttributes)
+        }
+
         override def postStop(): Unit =
-          handler.close()
+          if (handler ne null) handler.close()
 
         private def pushOrPull(): Unit =
           if (pending.hasNext) push(out, pending.next())
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.ws
+
+import java.nio.charset.StandardCharsets
+
+import org.apache.pekko
+import pekko.annotation.InternalApi
+import pekko.http.impl.engine.ws.Protocol.Opcode
+import pekko.http.scaladsl.model.ws.{ BinaryMessage, Message, TextMessage }
+import pekko.util.ByteString
+
+/**
+ * INTERNAL API
+ *
+ * The frames a strict message is rendered to, so that a message sent to many connections is encoded (and compressed)
+ * only once and all connections send the same `ByteString`. It is attached to the `TextMessage.Strict` or
+ * `BinaryMessage.Strict` that carries it, see [[PreEncodedMessage.apply]].
+ */
+@InternalApi
+private[http] final class PreEncodedMessage private (opcode: Opcode, payload: ByteString, compressionLevel: Int) {
+  private val uncompressed: FrameStart = FrameEvent.fullFrame(opcode, None, payload, fin = true)
+  private val toCompress: FrameStart = FrameEvent.fullFrame(opcode, None, payload, fin = true, rsv1 = true)
+
+  /**
+   * The frame compressed without context takeover, `null` if the message was not compressed up front.
+   * Only a connection that negotiated server_no_context_takeover may send it.
+   */
+  val preCompressedFrame: FrameStart =
+    if (compressionLevel < 0) null
+    else {
+      val compressed = PerMessageDeflate.compressMessage(payload, compressionLevel)
+      FrameStart(FrameHeader(opcode, None, compressed.length, fin = true, rsv1 = true, preCompressed = true), compressed)
+    }
+
+  def payloadLength: Int = payload.length
+
+  /** The uncompressed frame, with `rsv1` set if the connection should compress it */
+  def frame(compress: Boolean): FrameStart = if (compress) toCompress else uncompressed
+}
+
+/** INTERNAL API */
+@InternalApi
+private[http] object PreEncodedMessage {
+
+  /**
+   * Encodes a strict message once, and compresses it too with a `compressionLevel` >= 0. The encoding is attached to
+   * a new message equal to the given one, so messages owned by user code are never changed.
+   * Streamed messages cannot be shared between connections and are rejected.
+   */
+  def apply(message: Message, compressionLevel: Int): Message = message match {
+    case _ if of(message) ne null   => message
+    case TextMessage.Strict(text)   =>
+      val encoded = TextMessage.Strict(text)
+      encoded.preEncoded = new PreEncodedMessage(Opcode.Text, ByteString(text, StandardCharsets.UTF_8), compressionLevel)
+      encoded
+    case BinaryMessage.Strict(data) =>
+      val encoded = BinaryMessage.Strict(data)
+      encoded.preEncoded = new PreEncodedMessage(Opcode.Binary, data, compressionLevel)
+      encoded
+    case other                      =>
+      throw new IllegalArgumentException(s"Only strict messages can be encoded for many connections but got $other")
+  }
+
+  /** The encoding attached to a message by [[apply]], `null` for any other message */
+  def of(message: Message): PreEncodedMessage = message match {
+    case strict: TextMessage.Strict   => strict.preEncoded
+    case strict: BinaryMessage.Strict => strict.preEncoded
+    case _                            => null
+  }
+}
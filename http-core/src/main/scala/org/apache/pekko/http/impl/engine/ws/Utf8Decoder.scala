@@ -34,6 +34,9 @@
 
 package org.apache.pekko.http.impl.engine.ws
 
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
 import org.apache.pekko
 import pekko.annotation.InternalApi
 import pekko.util.ByteString
@@ -46,6 +49,9 @@ import scala.util.Try
  * This decoder is based on the one of Bjoern Hoehrmann from
  * https://bjoern.hoehrmann.de/utf-8/decoder/dfa/ (MIT License).
  *
+ * Runs of ASCII characters, which need no decoding, are found eight bytes at a time and bypass the state machine,
+ * input that is ASCII only is turned into a `String` without an intermediate builder.
+ *
  * INTERNAL API
  */
 @InternalApi
@@ -78,46 +84,79 @@ private[http] object Utf8Decoder extends StreamingCharsetDecoder {
       var currentState = Utf8Accept
 
       def decode(bytes: ByteString, endOfInput: Boolean): Try[String] = Try {
-        val result = new StringBuilder(bytes.size)
-        val length = bytes.size
-
-        def step(byte: Int): Unit = {
-          val chClass = characterClasses(byte)
-          currentCodePoint =
-            if (currentState == Utf8Accept) // first byte
-              (0xFF >> chClass) & byte // take as much bits as the characterClass says
-            else // continuation byte
-              (0x3F & byte) | (currentCodePoint << 6) // take 6 bits
-          currentState = states(currentState + chClass)
-
-          currentState match {
-            case Utf8Accept =>
-              if (currentCodePoint <= 0xFFFF)
-                // fits in single UTF-16 char
-                result.append(currentCodePoint.toChar)
-              else {
-                // create surrogate pair
-                result.append((0xD7C0 + (currentCodePoint >> 10)).toChar)
-                result.append((0xDC00 + (currentCodePoint & 0x3FF)).toChar)
-              }
-            case Utf8Reject => fail("Invalid UTF-8 input")
-            case _          => // valid intermediate state, need more input
+        val input = bytes.toArrayUnsafe()
+        val length = input.length
+        // in the middle of a sequence even empty input must go through the state checks below
+        val asciiEnd = if (currentState == Utf8Accept) asciiRunEnd(input, 0) else -1
+
+        if (asciiEnd == length)
+          // ASCII is a subset of ISO-8859-1, which the JDK copies into a compact string directly
+          new String(input, 0, length, StandardCharsets.ISO_8859_1)
+        else {
+          val result = new java.lang.StringBuilder(length)
+
+          def step(byte: Int): Unit = {
+            val chClass = characterClasses(byte)
+            currentCodePoint =
+              if (currentState == Utf8Accept) // first byte
+                (0xFF >> chClass) & byte // take as much bits as the characterClass says
+              else // continuation byte
+                (0x3F & byte) | (currentCodePoint << 6) // take 6 bits
+            currentState = states(currentState + chClass)
+
+            currentState match {
+              case Utf8Accept =>
+                if (currentCodePoint <= 0xFFFF)
+                  // fits in single UTF-16 char
+                  result.append(currentCodePoint.toChar)
+                else {
+                  // create surrogate pair
+                  result.append((0xD7C0 + (currentCodePoint >> 10)).toChar)
+                  result.append((0xDC00 + (currentCodePoint & 0x3FF)).toChar)
+                }
+              case Utf8Reject => fail("Invalid UTF-8 input")
+              case _          => // valid intermediate state, need more input
+            }
           }
-        }
 
-        var offset = 0
-        while (offset < length) {
-          step(bytes(offset) & 0xFF)
-          offset += 1
-        }
+          appendAscii(result, input, 0, asciiEnd)
+          var offset = math.max(asciiEnd, 0)
+          while (offset < length) {
+            if (currentState == Utf8Accept && input(offset) >= 0) {
+              val end = asciiRunEnd(input, offset)
+              appendAscii(result, input, offset, end)
+              offset = end
+            } else {
+              step(input(offset) & 0xFF)
+              offset += 1
+            }
+          }
 
-        if (endOfInput && currentState != Utf8Accept) fail("Truncated UTF-8 input")
-        else
-          result.toString()
+          if (endOfInput && currentState != Utf8Accept) fail("Truncated UTF-8 input")
+          else
+            result.toString()
+        }
       }
 
       def fail(msg: String): Nothing = throw new IllegalArgumentException(msg)
     }
+
+  /** Returns the index of the first byte from `from` on that is not ASCII, checking eight bytes at a time. */
+  private def asciiRunEnd(input: Array[Byte], from: Int): Int = {
+    val words = ByteBuffer.wrap(input)
+    var offset = from
+    while (offset + 8 <= input.length && (words.getLong(offset) & 0x8080808080808080L) == 0) offset += 8
+    while (offset < input.length && input(offset) >= 0) offset += 1
+    offset
+  }
+
+  private def appendAscii(result: java.lang.StringBuilder, input: Array[Byte], from: Int, until: Int): Unit = {
+    var offset = from
+    while (offset < until) {
+      result.append(input(offset).toChar)
+      offset += 1
+    }
+  }
 }
 
 private[http] trait StreamingCharsetDecoder {
@@ -22,7 +22,6 @@ import pekko.event.LoggingAdapter
 import pekko.http.impl.engine.ws.FrameOutHandler.Input
 import pekko.http.impl.engine.ws.Protocol.Opcode
 import pekko.http.impl.settings.WebSocketSettingsImpl
-import pekko.http.impl.util.StreamUtils
 import pekko.util.ByteString
 
 import scala.concurrent.duration._
@@ -72,7 +71,13 @@ private[http] object WebSocket {
       perMessageDeflate.map(_.messageBidiFlow).getOrElse(BidiFlow.identity)).atop(
       frameHandling(serverSide, closeTimeout, log)).atop(
       periodicKeepAlive(websocketSettings)).atop(
-      messageAPI(serverSide, closeTimeout, perMessageDeflate.map(_ => shouldCompress)))
+      messageAPI(
+        serverSide,
+        closeTimeout,
+        perMessageDeflate.map(n => (message: Message) => shouldCompress(message) && n.settings.messageFilter(message)),
+        sendPreCompressed = perMessageDeflate.exists(n =>
+          if (serverSide) n.serverNoContextTakeover else n.clientNoContextTakeover),
+        minMessageSize = perMessageDeflate.fold(0L)(_.settings.minMessageSize)))
 
   /** The lowest layer that implements the binary protocol */
   def framing: BidiFlow[ByteString, FrameEvent, FrameEvent, ByteString, NotUsed] =
@@ -166,55 +171,134 @@ private[http] object WebSocket {
       }
   }
 
+  /** Turns the message parts from the frame handler into user-level API messages */
+  def prepareMessages: Flow[MessagePart, Message, NotUsed] =
+    Flow[MessagePart]
+      .via(PrepareForUserHandler)
+      .via(CollectMessages)
+      .named("ws-prepare-messages")
+
+  /**
+   * Collects user-level API messages from MessageParts. A message that arrives in a single part becomes a strict
+   * message right away, only a message split across several parts gets a substream that its parts are pushed into.
+   * Like with the request entities of the server, the next message is only pulled after the current streamed message
+   * is complete. If the user cancels a streamed message, or does not subscribe to it within the subscription timeout,
+   * the rest of the message is dropped.
+   */
+  private object CollectMessages extends GraphStage[FlowShape[MessagePart, Message]] {
+    val in = Inlet[MessagePart]("CollectMessages.in")
+    val out = Outlet[Message]("CollectMessages.out")
+    override val shape = FlowShape(in, out)
+    override def initialAttributes: Attributes = Attributes.name("CollectMessages")
+
+    override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
+      new TimerGraphStageLogic(shape) with InHandler with OutHandler {
+        val subscriptionTimeout =
+          inheritedAttributes.mandatoryAttribute[ActorAttributes.StreamSubscriptionTimeout].timeout
+
+        // the parts of the streamed message in progress, null between messages
+        var messageParts: SubSourceOutlet[MessageDataPart] = null
+        var firstPart: MessageDataPart = null
+        var dropRestOfMessage = false
+        var completionDeferred = false
+
+        override def onPush(): Unit = grab(in) match {
+          case part: MessageDataPart if messageParts ne null =>
+            if (dropRestOfMessage) pull(in)
+            else messageParts.push(part)
+          case TextMessagePart(text, true)   => push(out, TextMessage.Strict(text))
+          case BinaryMessagePart(data, true) => push(out, BinaryMessage.Strict(data))
+          case first: TextMessagePart        => push(out, TextMessage(streamMessage(first).collect(textData)))
+          case first: BinaryMessagePart      => push(out, BinaryMessage(streamMessage(first).collect(binaryData)))
+          case MessageEnd =>
+            if (messageParts ne null) {
+              if (!messageParts.isClosed) messageParts.complete()
+              messageParts = null
+              firstPart = null
+              dropRestOfMessage = false
+              cancelTimer(SubscriptionTimeout)
+            }
+            if (completionDeferred) completeStage()
+            else if (isAvailable(out)) pull(in)
+          case other => throw new IllegalStateException(s"unexpected element of type ${other.getClass}")
+        }
+
+        override def onPull(): Unit = if (messageParts eq null) pull(in)
+
+        override def onUpstreamFinish(): Unit = {
+          if ((messageParts ne null) && !messageParts.isClosed) messageParts.complete()
+          completeStage()
+        }
+
+        override def onUpstreamFailure(ex: Throwable): Unit = {
+          if ((messageParts ne null) && !messageParts.isClosed) messageParts.fail(ex)
+          failStage(ex)
+        }
+
+        override def onDownstreamFinish(cause: Throwable): Unit =
+          // finish the streamed message in progress first
+          if (messageParts eq null) super.onDownstreamFinish(cause)
+          else completionDeferred = true
+
+        override protected def onTimer(timerKey: Any): Unit =
+          if (firstPart ne null) {
+            // the user did not subscribe to the streamed message in time
+            messageParts.timeout(subscriptionTimeout)
+            // a no-op if it was materialized in the meantime
+            if (messageParts.isClosed) dropRest()
+          }
+
+        def streamMessage(first: MessageDataPart): Source[MessageDataPart, NotUsed] = {
+          messageParts = new SubSourceOutlet[MessageDataPart]("MessageParts")
+          firstPart = first
+          messageParts.setHandler(new OutHandler {
+            override def onPull(): Unit =
+              if (firstPart ne null) {
+                cancelTimer(SubscriptionTimeout)
+                messageParts.push(firstPart)
+                firstPart = null
+              } else pull(in)
+
+            override def onDownstreamFinish(cause: Throwable): Unit = dropRest()
+          })
+          scheduleOnce(SubscriptionTimeout, subscriptionTimeout)
+          Source.fromGraph(messageParts.source)
+        }
+
+        def dropRest(): Unit = {
+          firstPart = null
+          dropRestOfMessage = true
+          if (!hasBeenPulled(in) && !isClosed(in)) pull(in)
+        }
+
+        setHandlers(in, out, this)
+      }
+  }
+  private case object SubscriptionTimeout
+  private val textData: PartialFunction[MessageDataPart, String] = {
+    case TextMessagePart(text, _) if text.nonEmpty => text
+  }
+  private val binaryData: PartialFunction[MessageDataPart, ByteString] = {
+    case BinaryMessagePart(data, _) if data.nonEmpty => data
+  }
+
   /**
    * The layer that provides the high-level user facing API on top of frame handling.
    */
   def messageAPI(
       serverSide: Boolean,
       closeTimeout: FiniteDuration): BidiFlow[FrameHandler.Output, Message, Message, FrameOutHandler.Input, NotUsed] =
-    messageAPI(serverSide, closeTimeout, None)
+    messageAPI(serverSide, closeTimeout, None, sendPreCompressed = false, minMessageSize = 0)
 
   private def messageAPI(
       serverSide: Boolean,
       closeTimeout: FiniteDuration,
-      shouldCompress: Option[Message => Boolean])
+      shouldCompress: Option[Message => Boolean],
+      sendPreCompressed: Boolean,
+      minMessageSize: Long)
       : BidiFlow[FrameHandler.Output, Message, Message, FrameOutHandler.Input, NotUsed] = {
-    /* Collects user-level API messages from MessageDataParts */
-    val collectMessage: Flow[MessageDataPart, Message, NotUsed] =
-      Flow[MessageDataPart]
-        .prefixAndTail(1)
-        .map {
-          case (TextMessagePart(text, true) +: Nil, remaining) =>
-            StreamUtils.cancelSource(remaining)(StreamUtils.OnlyRunInGraphInterpreterContext)
-            TextMessage.Strict(text)
-          case ((first @ TextMessagePart(_, false)) +: Nil, remaining) =>
-            TextMessage(
-              (Source.single(first) ++ remaining)
-                .collect { case t: TextMessagePart if t.data.nonEmpty => t.data })
-          case (BinaryMessagePart(data, true) +: Nil, remaining) =>
-            StreamUtils.cancelSource(remaining)(StreamUtils.OnlyRunInGraphInterpreterContext)
-            BinaryMessage.Strict(data)
-          case ((first @ BinaryMessagePart(_, false)) +: Nil, remaining) =>
-            BinaryMessage(
-              (Source.single(first) ++ remaining)
-                .collect { case b: BinaryMessagePart if b.data.nonEmpty => b.data })
-        }
-
-    def prepareMessages: Flow[MessagePart, Message, NotUsed] =
-      Flow[MessagePart]
-        .via(PrepareForUserHandler)
-        .splitAfter(_.isMessageEnd)
-        .collect {
-          case m: MessageDataPart => m
-        }
-        .via(collectMessage)
-        .concatSubstreams
-        .named("ws-prepare-messages")
-
     def renderMessages: Flow[Message, FrameStart, NotUsed] =
-      shouldCompress
-        .map(MessageToFrameRenderer.create(serverSide, _))
-        .getOrElse(MessageToFrameRenderer.create(serverSide))
+      MessageToFrameRenderer.create(serverSide, shouldCompress, sendPreCompressed, minMessageSize)
         .named("ws-render-messages")
 
     BidiFlow.fromGraph(GraphDSL.create() { implicit b =>
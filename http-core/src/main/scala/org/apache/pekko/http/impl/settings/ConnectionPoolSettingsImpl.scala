@@ -40,6 +40,10 @@ private[pekko] final case class ConnectionPoolSettingsImpl(
     keepAliveTimeout: Duration,
     connectionSettings: ClientConnectionSettings,
     responseEntitySubscriptionTimeout: Duration,
+    slotSelection: ConnectionPoolSettings.SlotSelection,
+    warmUpConnections: Int,
+    useHttp2: Boolean,
+    http2StreamsPerConnection: Int,
     hostOverrides: immutable.Seq[(Regex, ConnectionPoolSettings)])
     extends ConnectionPoolSettings {
 
@@ -51,6 +55,8 @@ private[pekko] final case class ConnectionPoolSettingsImpl(
   require(pipeliningLimit > 0, "pipelining-limit must be > 0")
   require(maxConnectionLifetime > Duration.Zero, "max-connection-lifetime must be > 0")
   require(idleTimeout >= Duration.Zero, "idle-timeout must be >= 0")
+  require(warmUpConnections >= 0, "warm-up-connections must be >= 0")
+  require(http2StreamsPerConnection > 0, "http2-streams-per-connection must be > 0")
   require(
     minConnections == 0 || (baseConnectionBackoff.toMillis > 0 && maxConnectionBackoff.toMillis > 10),
     "If min-connections > 0, you need to set a base-connection-backoff must be > 0 and max-connection-backoff must be > 10 millis " +
@@ -97,7 +103,11 @@ private[pekko] final case class ConnectionPoolSettingsImpl(
       idleTimeout: Duration = idleTimeout,
       keepAliveTimeout: Duration = keepAliveTimeout,
       connectionSettings: ClientConnectionSettings = connectionSettings,
-      responseEntitySubscriptionTimeout: Duration = responseEntitySubscriptionTimeout): ConnectionPoolSettings =
+      responseEntitySubscriptionTimeout: Duration = responseEntitySubscriptionTimeout,
+      slotSelection: ConnectionPoolSettings.SlotSelection = slotSelection,
+      warmUpConnections: Int = warmUpConnections,
+      useHttp2: Boolean = useHttp2,
+      http2StreamsPerConnection: Int = http2StreamsPerConnection): ConnectionPoolSettings =
     copy(
       maxConnections,
       minConnections,
@@ -111,6 +121,10 @@ private[pekko] final case class ConnectionPoolSettingsImpl(
       keepAliveTimeout,
       connectionSettings,
       responseEntitySubscriptionTimeout,
+      slotSelection,
+      warmUpConnections,
+      useHttp2,
+      http2StreamsPerConnection,
       hostOverrides = hostOverrides.map { case (k, v) => k -> mapHostOverrides(v) })
 
 }
@@ -134,6 +148,10 @@ private[pekko] object ConnectionPoolSettingsImpl
       c.getPotentiallyInfiniteDuration("keep-alive-timeout"),
       ClientConnectionSettingsImpl.fromSubConfig(root, c.getConfig("client")),
       c.getPotentiallyInfiniteDuration("response-entity-subscription-timeout"),
+      ConnectionPoolSettings.SlotSelection(c.getString("slot-selection")),
+      c.getInt("warm-up-connections"),
+      c.getBoolean("use-http2"),
+      c.getInt("http2-streams-per-connection"),
       List.empty)
   }
 
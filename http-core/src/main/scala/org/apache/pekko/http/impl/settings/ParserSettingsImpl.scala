@@ -58,6 +58,7 @@ private[pekko] final case class ParserSettingsImpl(
     includeTlsSessionInfoHeader: Boolean,
     includeSslSessionAttribute: Boolean,
     modeledHeaderParsing: Boolean,
+    sharedHeaderCacheSize: Int,
     customMethods: String => Option[HttpMethod],
     customStatusCodes: Int => Option[StatusCode],
     customMediaTypes: MediaTypes.FindCustom)
@@ -74,6 +75,7 @@ private[pekko] final case class ParserSettingsImpl(
   require(maxChunkSize > 0, "max-chunk-size must be > 0")
   require(maxChunkCount > 0, "max-chunk-count must be > 0")
   require(maxCommentParsingDepth > 0, "max-comment-parsing-depth must be > 0")
+  require(sharedHeaderCacheSize >= 0, "shared-header-cache-size must be >= 0")
 
   override val defaultHeaderValueCacheLimit: Int = headerValueCacheLimits("default")
 
@@ -128,6 +130,7 @@ object ParserSettingsImpl extends SettingsCompanionImpl[ParserSettingsImpl]("pek
       c.getBoolean("tls-session-info-header"),
       c.getBoolean("ssl-session-attribute"),
       c.getBoolean("modeled-header-parsing"),
+      c.getInt("shared-header-cache-size"),
       noCustomMethods,
       noCustomStatusCodes,
       noCustomMediaTypes)
@@ -43,7 +43,9 @@ private[pekko] final case class ServerSettingsImpl(
     transparentHeadRequests: Boolean,
     verboseErrorMessages: Boolean,
     responseHeaderSizeHint: Int,
+    responseRenderingBufferSize: Int,
     backlog: Int,
+    acceptListeners: Int,
     logUnencryptedNetworkBytes: Option[Int],
     socketOptions: immutable.Seq[SocketOption],
     defaultHostHeader: Host,
@@ -60,7 +62,9 @@ private[pekko] final case class ServerSettingsImpl(
   require(0 < maxConnections, "max-connections must be > 0")
   require(0 < pipeliningLimit && pipeliningLimit <= 1024, "pipelining-limit must be > 0 and <= 1024")
   require(0 < responseHeaderSizeHint, "response-size-hint must be > 0")
+  require(0 <= responseRenderingBufferSize, "response-rendering-buffer-size must be >= 0")
   require(0 < backlog, "backlog must be > 0")
+  require(0 < acceptListeners, "accept-listeners must be > 0")
   require(
     Try { parserSettings.maxContentLength }.isSuccess,
     "The provided ParserSettings is a generic object that does not contain the server-specific settings.")
@@ -104,7 +108,9 @@ private[http] object ServerSettingsImpl extends SettingsCompanionImpl[ServerSett
       c.getBoolean("transparent-head-requests"),
       c.getBoolean("verbose-error-messages"),
       c.getIntBytes("response-header-size-hint"),
+      c.getIntBytes("response-rendering-buffer-size"),
       c.getInt("backlog"),
+      c.getInt("accept-listeners"),
       LogUnencryptedNetworkBytes(c.getString("log-unencrypted-network-bytes")),
       SocketOptionSettings.fromSubConfig(root, c.getConfig("socket-options")),
       defaultHostHeader =
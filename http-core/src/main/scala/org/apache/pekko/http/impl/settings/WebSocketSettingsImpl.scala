@@ -19,6 +19,7 @@ import org.apache.pekko
 import pekko.annotation.InternalApi
 import pekko.http.impl.engine.ws.Randoms
 import pekko.http.impl.util._
+import pekko.http.scaladsl.model.ws.Message
 import pekko.util.ByteString
 import com.typesafe.config.Config
 
@@ -87,17 +88,31 @@ private[pekko] final case class WebSocketCompressionSettingsImpl(
     compressionLevel: Int,
     preferredClientWindowSize: Int,
     allowServerNoContext: Boolean,
-    preferredClientNoContext: Boolean) {
+    preferredClientNoContext: Boolean,
+    noContextTakeover: Boolean,
+    poolSize: Int,
+    minMessageSize: Long,
+    maxCompressionRatio: Double,
+    ratioSampleSize: Int,
+    backOffMessages: Int,
+    messageFilter: Message => Boolean) {
   require(maxAllocation >= 0, "websocket compression max-allocation must be >= 0")
   require(compressionLevel >= 0 && compressionLevel <= 9, "websocket compression level must be between 0 and 9")
   require(
     preferredClientWindowSize >= 8 && preferredClientWindowSize <= 15,
     "websocket compression preferred-client-window-size must be between 8 and 15")
+  require(poolSize >= 0, "websocket compression pool-size must be >= 0")
+  require(minMessageSize >= 0, "websocket compression min-message-size must be >= 0")
+  require(maxCompressionRatio >= 0, "websocket compression adaptive.max-ratio must be >= 0")
+  require(ratioSampleSize > 0, "websocket compression adaptive.sample-size must be > 0")
+  require(backOffMessages >= 0, "websocket compression adaptive.back-off-messages must be >= 0")
 }
 
 /** INTERNAL API */
 @InternalApi
 private[pekko] object WebSocketCompressionSettingsImpl {
+  private val CompressAllMessages: Message => Boolean = _ => true
+
   val Disabled: WebSocketCompressionSettingsImpl =
     WebSocketCompressionSettingsImpl(
       enabled = false,
@@ -105,16 +120,31 @@ private[pekko] object WebSocketCompressionSettingsImpl {
       compressionLevel = 6,
       preferredClientWindowSize = 15,
       allowServerNoContext = false,
-      preferredClientNoContext = false)
+      preferredClientNoContext = false,
+      noContextTakeover = false,
+      poolSize = 0,
+      minMessageSize = 0,
+      maxCompressionRatio = 0,
+      ratioSampleSize = 16,
+      backOffMessages = 256,
+      messageFilter = CompressAllMessages)
 
   def fromConfig(c: Config): WebSocketCompressionSettingsImpl = {
     val perMessageDeflate = c.getConfig("permessage-deflate")
+    val adaptive = perMessageDeflate.getConfig("adaptive")
     WebSocketCompressionSettingsImpl(
       c.getBoolean("enabled"),
       c.getBytes("max-allocation"),
       perMessageDeflate.getInt("compression-level"),
       perMessageDeflate.getInt("preferred-client-window-size"),
       perMessageDeflate.getBoolean("allow-server-no-context"),
-      perMessageDeflate.getBoolean("preferred-client-no-context"))
+      perMessageDeflate.getBoolean("preferred-client-no-context"),
+      perMessageDeflate.getBoolean("no-context-takeover"),
+      perMessageDeflate.getInt("pool-size"),
+      perMessageDeflate.getBytes("min-message-size"),
+      adaptive.getDouble("max-ratio"),
+      adaptive.getInt("sample-size"),
+      adaptive.getInt("back-off-messages"),
+      CompressAllMessages)
   }
 }
@@ -225,6 +225,9 @@ private[http] object JavaMapping {
       extends Inherited[js.ClientConnectionSettings, pekko.http.scaladsl.settings.ClientConnectionSettings]
   implicit object ConnectionPoolSettings
       extends Inherited[js.ConnectionPoolSettings, pekko.http.scaladsl.settings.ConnectionPoolSettings]
+  implicit object SlotSelection
+      extends Inherited[js.ConnectionPoolSettings.SlotSelection,
+        pekko.http.scaladsl.settings.ConnectionPoolSettings.SlotSelection]
   implicit object ParserSettings extends Inherited[js.ParserSettings, pekko.http.scaladsl.settings.ParserSettings]
   implicit object CookieParsingMode
       extends Inherited[js.ParserSettings.CookieParsingMode,
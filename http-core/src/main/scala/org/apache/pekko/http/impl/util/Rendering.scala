@@ -311,6 +311,9 @@ private[http] class StringRendering extends Rendering {
 
 /**
  * INTERNAL API
+ *
+ * Can render several times into the same array, see `startNext`. The bytes of a finished rendering are never
+ * written again, so they can be handed out without copying.
  */
 @InternalApi
 private[http] class ByteArrayRendering(sizeHint: Int, logDiscardedHeader: String => Unit = _ => ()) extends Rendering {
@@ -318,11 +321,13 @@ private[http] class ByteArrayRendering(sizeHint: Int, logDiscardedHeader: String
 
   private var array = new Array[Byte](sizeHint)
 
+  // the current rendering is `array[start, size)`
+  private var start = 0
   private var size = 0
 
   def get: Array[Byte] =
-    if (size == array.length) array
-    else java.util.Arrays.copyOfRange(array, 0, size)
+    if (start == 0 && size == array.length) array
+    else java.util.Arrays.copyOfRange(array, start, size)
 
   def ~~(char: Char): this.type = {
     val oldSize = growBy(1)
@@ -350,22 +355,41 @@ private[http] class ByteArrayRendering(sizeHint: Int, logDiscardedHeader: String
     val oldSize = size
     val neededSize = oldSize.toLong + delta
     if (array.length < neededSize) {
-      require(neededSize < Int.MaxValue, "Cannot create byte array greater than 2GB in size")
-      val newLen = math.min(math.max(array.length.toLong << 1, neededSize), Int.MaxValue).toInt
+      // earlier renderings may have been handed out, so only the current one moves to the new array
+      val length = oldSize - start
+      val neededLength = length.toLong + delta
+      require(neededLength < Int.MaxValue, "Cannot create byte array greater than 2GB in size")
+      val newLen = math.min(math.max(array.length.toLong << 1, neededLength), Int.MaxValue).toInt
       val newArray = new Array[Byte](newLen)
-      System.arraycopy(array, 0, newArray, 0, array.length)
+      System.arraycopy(array, start, newArray, 0, length)
       array = newArray
+      start = 0
+      size = neededLength.toInt
+      length
+    } else {
+      size = neededSize.toInt
+      oldSize
     }
-    size = neededSize.toInt
-    oldSize
   }
 
   def remainingCapacity: Int = array.length - size
-  def asByteString: ByteString = ByteString.ByteString1(array, 0, size)
+  def asByteString: ByteString = ByteString.ByteString1(array, start, size - start)
 
-  override protected def mark: Int = size
+  /**
+   * Starts a new rendering behind the current one, whose bytes stay untouched. Continues in a new array of `sizeHint`
+   * bytes if less than `minCapacity` bytes are left.
+   */
+  def startNext(minCapacity: Int): Unit =
+    if (remainingCapacity < minCapacity) {
+      array = new Array[Byte](sizeHint)
+      start = 0
+      size = 0
+    } else start = size
+
+  // relative to `start`, which changes when the current rendering moves to a bigger array
+  override protected def mark: Int = size - start
   override protected def check(mark: Int): Boolean = {
-    val origMark = mark
+    val origMark = start + mark
 
     @tailrec def rec(mark: Int): Boolean =
       if (mark < size) {
@@ -377,7 +401,7 @@ private[http] class ByteArrayRendering(sizeHint: Int, logDiscardedHeader: String
         } else rec(mark + 1)
       } else true
 
-    rec(mark)
+    rec(origMark)
   }
 }
 
@@ -22,7 +22,7 @@ import scala.jdk.FutureConverters._
 import scala.util.Try
 
 import org.apache.pekko
-import pekko.{ stream, NotUsed }
+import pekko.{ stream, Done, NotUsed }
 import pekko.actor.{ ActorSystem, ClassicActorSystemProvider, ExtendedActorSystem, ExtensionId, ExtensionIdProvider }
 import pekko.event.LoggingAdapter
 import pekko.http._
@@ -327,6 +327,36 @@ class Http(system: ExtendedActorSystem) extends pekko.actor.Extension {
       to.effectiveHttpsConnectionContext(defaultClientHttpsContext).asScala)
       .mapMaterializedValue(_.toJava))
 
+  /**
+   * Starts the cached host connection pool for the given target host endpoint, i.e. the pool that
+   * `cachedHostConnectionPool` and `singleRequest` use, and establishes its connections ahead of the first
+   * requests, so that these don't have to wait for connection establishment.
+   *
+   * The number of connections is configured with `warm-up-connections` and defaults to `min-connections`.
+   * The returned stage is completed when the connections are established and failed when the pool gives up after
+   * more than `max-retries` failed connection attempts in a row.
+   *
+   * If the given [[ConnectHttp]] is HTTPS and defines an [[HttpsConnectionContext]] it will be used, otherwise the
+   * default client-side context will be used.
+   */
+  def warmUpHostConnectionPool(to: ConnectHttp): CompletionStage[Done] =
+    (if (to.isHttps)
+       delegate.warmUpHostConnectionPoolHttps(to.host, to.port,
+         to.effectiveHttpsConnectionContext(defaultClientHttpsContext).asScala)
+     else delegate.warmUpHostConnectionPool(to.host, to.port)).asJava
+
+  /**
+   * Same as `warmUpHostConnectionPool(ConnectHttp)` with explicit settings and log.
+   */
+  def warmUpHostConnectionPool(
+      to: ConnectHttp,
+      settings: ConnectionPoolSettings,
+      log: LoggingAdapter): CompletionStage[Done] =
+    (if (to.isHttps)
+       delegate.warmUpHostConnectionPoolHttps(to.host, to.port,
+         to.effectiveHttpsConnectionContext(defaultClientHttpsContext).asScala, settings.asScala, log)
+     else delegate.warmUpHostConnectionPool(to.host, to.port, settings.asScala, log)).asJava
+
   /**
    * Creates a new "super connection pool flow", which routes incoming requests to a (cached) host connection pool
    * depending on their respective effective URIs. Note that incoming requests must have either an absolute URI or
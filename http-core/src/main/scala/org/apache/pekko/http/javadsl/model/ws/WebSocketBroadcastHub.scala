@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.javadsl.model.ws
+
+import org.apache.pekko
+import pekko.NotUsed
+import pekko.annotation.ApiMayChange
+import pekko.http.scaladsl.model.ws.{ WebSocketBroadcastHub => SWebSocketBroadcastHub }
+import pekko.http.scaladsl.model.ws.WebSocketBroadcastHub.OverflowPolicy
+import pekko.stream.javadsl.{ Sink, Source }
+import pekko.stream.scaladsl
+
+/**
+ * A hub to send the same messages to many WebSocket connections, encoding (and optionally compressing) each message
+ * only once. See [[pekko.http.scaladsl.model.ws.WebSocketBroadcastHub]] for details.
+ */
+@ApiMayChange
+object WebSocketBroadcastHub {
+
+  /** Drop the oldest message buffered for a subscriber that cannot keep up */
+  def dropOldest: OverflowPolicy = OverflowPolicy.DropOldest
+
+  /** Fail the stream of a subscriber that cannot keep up, which closes its WebSocket connection */
+  def disconnect: OverflowPolicy = OverflowPolicy.Disconnect
+
+  /** Keep only the latest message for a subscriber that cannot keep up */
+  def conflate: OverflowPolicy = OverflowPolicy.Conflate
+
+  /**
+   * Creates a hub for messages that are not compressed up front, materializing to a `Source` that can be materialized
+   * once per WebSocket connection.
+   */
+  def create(subscriberBufferSize: Int, overflowPolicy: OverflowPolicy): Sink[Message, Source[Message, NotUsed]] =
+    create(subscriberBufferSize, overflowPolicy, -1)
+
+  /**
+   * Creates a hub that compresses each message once with the given DEFLATE compression level (-1 not to), materializing
+   * to a `Source` that can be materialized once per WebSocket connection.
+   */
+  def create(
+      subscriberBufferSize: Int,
+      overflowPolicy: OverflowPolicy,
+      compressionLevel: Int): Sink[Message, Source[Message, NotUsed]] =
+    scaladsl.Flow[Message]
+      .map(_.asScala)
+      .toMat(SWebSocketBroadcastHub(subscriberBufferSize, overflowPolicy, compressionLevel))(scaladsl.Keep.right)
+      .mapMaterializedValue(subscribe => (subscribe: scaladsl.Source[Message, NotUsed]).asJava)
+      .asJava
+}
@@ -27,6 +27,7 @@ import pekko.http.impl.settings.ConnectionPoolSettingsImpl
 import pekko.http.impl.util.JavaDurationConverter
 import pekko.http.impl.util.JavaMapping.Implicits._
 import pekko.http.javadsl.ClientTransport
+import pekko.http.scaladsl
 
 /**
  * Public API but not intended for subclassing
@@ -73,6 +74,18 @@ abstract class ConnectionPoolSettings private[pekko] () { self: ConnectionPoolSe
   def getResponseEntitySubscriptionTimeout: JDuration =
     JavaDurationConverter.toJava(responseEntitySubscriptionTimeout)
 
+  @ApiMayChange
+  def getSlotSelection: ConnectionPoolSettings.SlotSelection = slotSelection
+
+  @ApiMayChange
+  def getWarmUpConnections: Int = warmUpConnections
+
+  @ApiMayChange
+  def getUseHttp2: Boolean = useHttp2
+
+  @ApiMayChange
+  def getHttp2StreamsPerConnection: Int = http2StreamsPerConnection
+
   // ---
 
   @ApiMayChange
@@ -141,11 +154,43 @@ abstract class ConnectionPoolSettings private[pekko] () { self: ConnectionPoolSe
    */
   def withResponseEntitySubscriptionTimeout(newValue: java.time.Duration): ConnectionPoolSettings
 
+  @ApiMayChange
+  def withSlotSelection(newValue: ConnectionPoolSettings.SlotSelection): ConnectionPoolSettings
+
+  @ApiMayChange
+  def withWarmUpConnections(newValue: Int): ConnectionPoolSettings
+
+  @ApiMayChange
+  def withUseHttp2(newValue: Boolean): ConnectionPoolSettings
+
+  @ApiMayChange
+  def withHttp2StreamsPerConnection(newValue: Int): ConnectionPoolSettings
+
   def withTransport(newValue: ClientTransport): ConnectionPoolSettings =
     withUpdatedConnectionSettings(_.withTransport(newValue.asScala))
 }
 
 object ConnectionPoolSettings extends SettingsCompanion[ConnectionPoolSettings] {
+
+  /**
+   * How the pool chooses the idle connection for a new request, see `pekko.http.host-connection-pool.slot-selection`.
+   */
+  @ApiMayChange
+  trait SlotSelection
+
+  /** The idle slot with the lowest number, keeps the traffic on as few connections as possible */
+  @ApiMayChange
+  def firstIdleSlotSelection(): SlotSelection = scaladsl.settings.ConnectionPoolSettings.SlotSelection.FirstIdle
+
+  /** The connected slot with the lower average response latency of two randomly chosen idle slots */
+  @ApiMayChange
+  def powerOfTwoChoicesSlotSelection(): SlotSelection =
+    scaladsl.settings.ConnectionPoolSettings.SlotSelection.PowerOfTwoChoices
+
+  /** The connected idle slot with the lowest average response latency */
+  @ApiMayChange
+  def ewmaLatencySlotSelection(): SlotSelection = scaladsl.settings.ConnectionPoolSettings.SlotSelection.EwmaLatency
+
   override def create(config: Config): ConnectionPoolSettings = ConnectionPoolSettingsImpl(config)
   override def create(configOverrides: String): ConnectionPoolSettings = ConnectionPoolSettingsImpl(configOverrides)
   override def create(system: ActorSystem): ConnectionPoolSettings = create(system.settings.config)
@@ -18,6 +18,7 @@ import java.time.Duration
 import org.apache.pekko.http.scaladsl
 
 import scala.concurrent.duration.DurationLong
+import scala.jdk.CollectionConverters._
 
 trait Http2ClientSettings { self: scaladsl.settings.Http2ClientSettings.Http2ClientSettingsImpl =>
   def requestEntityChunkSize: Int
@@ -31,6 +32,17 @@ trait Http2ClientSettings { self: scaladsl.settings.Http2ClientSettings.Http2Cli
   def withIncomingStreamLevelBufferSize(newValue: Int): Http2ClientSettings =
     copy(incomingStreamLevelBufferSize = newValue)
 
+  def adaptiveFlowControl: Boolean
+  def withAdaptiveFlowControl(newValue: Boolean): Http2ClientSettings = copy(adaptiveFlowControl = newValue)
+
+  def maxIncomingConnectionLevelBufferSize: Int
+  def withMaxIncomingConnectionLevelBufferSize(newValue: Int): Http2ClientSettings =
+    copy(maxIncomingConnectionLevelBufferSize = newValue)
+
+  def maxIncomingStreamLevelBufferSize: Int
+  def withMaxIncomingStreamLevelBufferSize(newValue: Int): Http2ClientSettings =
+    copy(maxIncomingStreamLevelBufferSize = newValue)
+
   def maxConcurrentStreams: Int
   def withMaxConcurrentStreams(newValue: Int): Http2ClientSettings = copy(maxConcurrentStreams = newValue)
 
@@ -38,6 +50,9 @@ trait Http2ClientSettings { self: scaladsl.settings.Http2ClientSettings.Http2Cli
   def withOutgoingControlFrameBufferSize(newValue: Int): Http2ClientSettings =
     copy(outgoingControlFrameBufferSize = newValue)
 
+  def frameWriteBatchSize: Int
+  def withFrameWriteBatchSize(newValue: Int): Http2ClientSettings = copy(frameWriteBatchSize = newValue)
+
   def logFrames: Boolean
   def withLogFrames(shouldLog: Boolean): Http2ClientSettings = copy(logFrames = shouldLog)
 
@@ -61,4 +76,18 @@ trait Http2ClientSettings { self: scaladsl.settings.Http2ClientSettings.Http2Cli
   def withMaxConnectionBackoff(backoff: Duration): Http2ClientSettings =
     copy(maxConnectionBackoff = backoff.toMillis.millis)
 
+  def getHpackIndexingStrategy: String = hpackIndexingStrategy
+  def withHpackIndexingStrategy(newValue: String): Http2ClientSettings = copy(hpackIndexingStrategy = newValue)
+
+  def getHpackAlwaysIndexHeaders: java.util.Set[String] = hpackAlwaysIndexHeaders.asJava
+  def withHpackAlwaysIndexHeaders(headerNames: java.util.Set[String]): Http2ClientSettings =
+    self.withHpackAlwaysIndexHeaders(headerNames.asScala.toSet)
+
+  def getHpackNeverIndexHeaders: java.util.Set[String] = hpackNeverIndexHeaders.asJava
+  def withHpackNeverIndexHeaders(headerNames: java.util.Set[String]): Http2ClientSettings =
+    self.withHpackNeverIndexHeaders(headerNames.asScala.toSet)
+
+  def getHpackMaxEncoderTableSize: Int = hpackMaxEncoderTableSize
+  def withHpackMaxEncoderTableSize(newValue: Int): Http2ClientSettings = copy(hpackMaxEncoderTableSize = newValue)
+
 }
@@ -36,15 +36,45 @@ trait Http2ServerSettings {
   def getIncomingStreamLevelBufferSize: Int = incomingStreamLevelBufferSize
   def withIncomingStreamLevelBufferSize(newIncomingStreamLevelBufferSize: Int): Http2ServerSettings
 
+  def getAdaptiveFlowControl: Boolean = adaptiveFlowControl
+  def withAdaptiveFlowControl(newValue: Boolean): Http2ServerSettings
+
+  def getMaxIncomingConnectionLevelBufferSize: Int = maxIncomingConnectionLevelBufferSize
+  def withMaxIncomingConnectionLevelBufferSize(newValue: Int): Http2ServerSettings
+
+  def getMaxIncomingStreamLevelBufferSize: Int = maxIncomingStreamLevelBufferSize
+  def withMaxIncomingStreamLevelBufferSize(newValue: Int): Http2ServerSettings
+
   def minCollectStrictEntitySize: Int
   def withMinCollectStrictEntitySize(newValue: Int): Http2ServerSettings
 
+  def getStreamPrioritizer: String = streamPrioritizer
+  def withStreamPrioritizer(newValue: String): Http2ServerSettings
+
+  def getDeficitRoundRobinQuantum: Int = deficitRoundRobinQuantum
+  def withDeficitRoundRobinQuantum(newValue: Int): Http2ServerSettings
+
+  def getStreamSendRateLimit: Int = streamSendRateLimit
+  def withStreamSendRateLimit(newValue: Int): Http2ServerSettings
+
   def getMaxConcurrentStreams: Int = maxConcurrentStreams
   def withMaxConcurrentStreams(newValue: Int): Http2ServerSettings
 
+  def getAdaptiveConcurrencyEnabled: Boolean = adaptiveConcurrencyEnabled
+  def withAdaptiveConcurrencyEnabled(newValue: Boolean): Http2ServerSettings
+
+  def getAdaptiveConcurrencyMinConcurrentStreams: Int = adaptiveConcurrencyMinConcurrentStreams
+  def withAdaptiveConcurrencyMinConcurrentStreams(newValue: Int): Http2ServerSettings
+
+  def getAdaptiveConcurrencyLatencyTolerance: Double = adaptiveConcurrencyLatencyTolerance
+  def withAdaptiveConcurrencyLatencyTolerance(newValue: Double): Http2ServerSettings
+
   def getOutgoingControlFrameBufferSize: Int = outgoingControlFrameBufferSize
   def withOutgoingControlFrameBufferSize(newValue: Int): Http2ServerSettings
 
+  def getFrameWriteBatchSize: Int = frameWriteBatchSize
+  def withFrameWriteBatchSize(newValue: Int): Http2ServerSettings
+
   def logFrames: Boolean
   def withLogFrames(shouldLog: Boolean): Http2ServerSettings
 
@@ -61,6 +91,20 @@ trait Http2ServerSettings {
 
   def withFrameTypeThrottleInterval(interval: Duration): Http2ServerSettings =
     withFrameTypeThrottleInterval(interval.toMillis.millis)
+
+  def getHpackIndexingStrategy: String = hpackIndexingStrategy
+  def withHpackIndexingStrategy(newValue: String): Http2ServerSettings
+
+  def getHpackAlwaysIndexHeaders: java.util.Set[String] = hpackAlwaysIndexHeaders.asJava
+  def withHpackAlwaysIndexHeaders(headerNames: java.util.Set[String]): Http2ServerSettings =
+    withHpackAlwaysIndexHeaders(headerNames.asScala.toSet)
+
+  def getHpackNeverIndexHeaders: java.util.Set[String] = hpackNeverIndexHeaders.asJava
+  def withHpackNeverIndexHeaders(headerNames: java.util.Set[String]): Http2ServerSettings =
+    withHpackNeverIndexHeaders(headerNames.asScala.toSet)
+
+  def getHpackMaxEncoderTableSize: Int = hpackMaxEncoderTableSize
+  def withHpackMaxEncoderTableSize(newValue: Int): Http2ServerSettings
 }
 object Http2ServerSettings extends SettingsCompanion[Http2ServerSettings] {
   def create(config: Config): Http2ServerSettings = scaladsl.settings.Http2ServerSettings(config)
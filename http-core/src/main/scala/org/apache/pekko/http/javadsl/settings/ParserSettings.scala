@@ -62,6 +62,7 @@ abstract class ParserSettings private[pekko] () extends BodyPartParser.Settings
   def getCustomStatusCodes: java.util.function.Function[Int, Optional[StatusCode]]
   def getCustomMediaTypes: pekko.japi.function.Function2[String, String, Optional[MediaType]]
   def getModeledHeaderParsing: Boolean
+  def getSharedHeaderCacheSize: Int
 
   // ---
 
@@ -90,6 +91,7 @@ abstract class ParserSettings private[pekko] () extends BodyPartParser.Settings
   def withIncludeSslSessionAttribute(newValue: Boolean): ParserSettings =
     self.copy(includeSslSessionAttribute = newValue)
   def withModeledHeaderParsing(newValue: Boolean): ParserSettings = self.copy(modeledHeaderParsing = newValue)
+  def withSharedHeaderCacheSize(newValue: Int): ParserSettings = self.copy(sharedHeaderCacheSize = newValue)
   def withIgnoreIllegalHeaderFor(newValue: List[String]): ParserSettings =
     self.copy(ignoreIllegalHeaderFor = newValue.map(toRootLowerCase).toSet)
 
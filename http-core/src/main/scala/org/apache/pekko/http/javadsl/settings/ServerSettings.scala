@@ -42,7 +42,9 @@ import scala.concurrent.duration.{ Duration, FiniteDuration }
   def getTransparentHeadRequests: Boolean
   def getVerboseErrorMessages: Boolean
   def getResponseHeaderSizeHint: Int
+  def getResponseRenderingBufferSize: Int
   def getBacklog: Int
+  def getAcceptListeners: Int
   def getSocketOptions: java.lang.Iterable[SocketOption]
   def getDefaultHostHeader: Host
   def getWebsocketSettings: WebSocketSettings
@@ -75,7 +77,10 @@ import scala.concurrent.duration.{ Duration, FiniteDuration }
   def withTransparentHeadRequests(newValue: Boolean): ServerSettings = self.copy(transparentHeadRequests = newValue)
   def withVerboseErrorMessages(newValue: Boolean): ServerSettings = self.copy(verboseErrorMessages = newValue)
   def withResponseHeaderSizeHint(newValue: Int): ServerSettings = self.copy(responseHeaderSizeHint = newValue)
+  def withResponseRenderingBufferSize(newValue: Int): ServerSettings =
+    self.copy(responseRenderingBufferSize = newValue)
   def withBacklog(newValue: Int): ServerSettings = self.copy(backlog = newValue)
+  def withAcceptListeners(newValue: Int): ServerSettings = self.copy(acceptListeners = newValue)
   def withSocketOptions(newValue: java.lang.Iterable[SocketOption]): ServerSettings =
     self.copy(socketOptions = newValue.asScala.toList)
   def withDefaultHostHeader(newValue: Host): ServerSettings = self.copy(defaultHostHeader = newValue.asScala)
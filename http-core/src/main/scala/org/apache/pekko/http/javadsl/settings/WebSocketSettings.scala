@@ -15,12 +15,13 @@ package org.apache.pekko.http.javadsl.settings
 
 import java.time.{ Duration => JDuration }
 import java.util.Random
-import java.util.function.Supplier
+import java.util.function.{ Predicate, Supplier }
 
 import org.apache.pekko
 import pekko.actor.ActorSystem
-import pekko.annotation.DoNotInherit
+import pekko.annotation.{ ApiMayChange, DoNotInherit }
 import pekko.http.impl.settings.WebSocketSettingsImpl
+import pekko.http.javadsl.model.ws.Message
 import pekko.util.ByteString
 import com.typesafe.config.Config
 
@@ -66,6 +67,46 @@ trait WebSocketSettings { self: WebSocketSettingsImpl =>
 
   def logFrames: Boolean
   def withLogFrames(shouldLog: Boolean): WebSocketSettings
+
+  /**
+   * Outgoing messages with a payload smaller than this number of bytes are sent uncompressed if permessage-deflate
+   * was negotiated.
+   */
+  @ApiMayChange
+  def compressionMinMessageSize: Long = compression.minMessageSize
+  @ApiMayChange
+  def withCompressionMinMessageSize(newValue: Long): WebSocketSettings =
+    copy(compression = compression.copy(minMessageSize = newValue))
+
+  /**
+   * The compressed size relative to the uncompressed size of the sampled outgoing messages above which compression
+   * backs off, 0 if it never does.
+   */
+  @ApiMayChange
+  def compressionMaxRatio: Double = compression.maxCompressionRatio
+  @ApiMayChange
+  def compressionRatioSampleSize: Int = compression.ratioSampleSize
+  @ApiMayChange
+  def compressionBackOffMessages: Int = compression.backOffMessages
+
+  /**
+   * Samples the compression ratio of every `sampleSize` compressed outgoing messages. If they were compressed to
+   * more than `maxRatio` of their size, the next `backOffMessages` messages are sent uncompressed.
+   */
+  @ApiMayChange
+  def withCompressionBackOff(maxRatio: Double, sampleSize: Int, backOffMessages: Int): WebSocketSettings =
+    copy(compression = compression.copy(
+      maxCompressionRatio = maxRatio, ratioSampleSize = sampleSize, backOffMessages = backOffMessages))
+
+  /**
+   * Decides for each outgoing message whether it may be compressed, e.g. by its content, in addition to the
+   * `shouldCompress` predicate given when handling the WebSocket upgrade.
+   */
+  @ApiMayChange
+  def getCompressionPredicate: Predicate[Message]
+  @ApiMayChange
+  def withCompressionPredicate(newValue: Predicate[Message]): WebSocketSettings =
+    copy(compression = compression.copy(messageFilter = message => newValue.test(message)))
 }
 
 object WebSocketSettings {
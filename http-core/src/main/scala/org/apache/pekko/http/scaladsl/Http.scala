@@ -183,6 +183,9 @@ class HttpExt @InternalStableApi /* constructor signature is hardcoded in Teleme
     if (settings.enableHttp2)
       log.warning(
         s"Binding with a connection source not supported with HTTP/2. Falling back to HTTP/1.1 for port [$port]")
+    if (settings.acceptListeners > 1)
+      log.warning(
+        s"Binding with a connection source not supported with several accept listeners. Falling back to a single listener for port [$port]")
 
     val fullLayer: ServerLayerBidiFlow = fuseServerBidiFlow(settings, connectionContext, log)
 
@@ -230,48 +233,44 @@ class HttpExt @InternalStableApi /* constructor signature is hardcoded in Teleme
 
     val masterTerminator = new MasterServerTerminator(log)
 
-    tcpBind(interface, choosePort(port, connectionContext, settings), settings)
-      .mapAsyncUnordered(settings.maxConnections) { incoming =>
-        try {
-          fullLayer
-            .watchTermination {
-              case ((done, connectionTerminator), whenTerminates) =>
-                whenTerminates.onComplete { _ =>
-                  masterTerminator.removeConnection(connectionTerminator)
-                }(fm.executionContext)
-                (done, connectionTerminator)
-            }
-            .addAttributes(prepareAttributes(settings, incoming))
-            .join(incoming.flow)
-            .mapMaterializedValue {
-              case (future, connectionTerminator) =>
-                masterTerminator.registerConnection(connectionTerminator)(fm.executionContext)
-                future // drop the terminator matValue, we already registered is which is all we need to do here
+    ServerListeners.bind(choosePort(port, connectionContext, settings), settings, masterTerminator) {
+      (listenerPort, listenerSettings) =>
+        tcpBind(interface, listenerPort, listenerSettings)
+          .mapAsyncUnordered(listenerSettings.maxConnections) { incoming =>
+            try {
+              fullLayer
+                .watchTermination {
+                  case ((done, connectionTerminator), whenTerminates) =>
+                    whenTerminates.onComplete { _ =>
+                      masterTerminator.removeConnection(connectionTerminator)
+                    }(fm.executionContext)
+                    (done, connectionTerminator)
+                }
+                .addAttributes(prepareAttributes(settings, incoming))
+                .join(incoming.flow)
+                .mapMaterializedValue {
+                  case (future, connectionTerminator) =>
+                    masterTerminator.registerConnection(connectionTerminator)(fm.executionContext)
+                    future // drop the terminator matValue, we already registered is which is all we need to do here
+                }
+                .addAttributes(cancellationStrategyAttributeForDelay(settings.streamCancellationDelay))
+                .run()
+                .recover {
+                  // Ignore incoming errors from the connection as they will cancel the binding.
+                  // As far as it is known currently, these errors can only happen if a TCP error bubbles up
+                  // from the TCP layer through the HTTP layer to the Http.IncomingConnection.flow.
+                  // See https://github.com/akka/akka/issues/17992
+                  case NonFatal(ex) => Done
+                }(ExecutionContext.parasitic)
+            } catch {
+              case NonFatal(e) =>
+                log.error(e, "Could not materialize handling flow for {}", incoming)
+                throw e
             }
-            .addAttributes(cancellationStrategyAttributeForDelay(settings.streamCancellationDelay))
-            .run()
-            .recover {
-              // Ignore incoming errors from the connection as they will cancel the binding.
-              // As far as it is known currently, these errors can only happen if a TCP error bubbles up
-              // from the TCP layer through the HTTP layer to the Http.IncomingConnection.flow.
-              // See https://github.com/akka/akka/issues/17992
-              case NonFatal(ex) => Done
-            }(ExecutionContext.parasitic)
-        } catch {
-          case NonFatal(e) =>
-            log.error(e, "Could not materialize handling flow for {}", incoming)
-            throw e
-        }
-      }
-      .mapMaterializedValue { m =>
-        m.map(tcpBinding =>
-          ServerBinding(
-            tcpBinding.localAddress)(
-            () => tcpBinding.unbind(),
-            timeout => masterTerminator.terminate(timeout)(fm.executionContext)))(fm.executionContext)
-      }
-      .to(Sink.ignore)
-      .run()
+          }
+          .to(Sink.ignore)
+          .run()
+    }(fm.executionContext)
   }
 
   // forwarder to allow internal code to call deprecated method without warning
@@ -533,6 +532,41 @@ class HttpExt @InternalStableApi /* constructor signature is hardcoded in Teleme
     cachedHostConnectionPool(setup)
   }
 
+  /**
+   * Starts the cached host connection pool for the given target host endpoint, i.e. the pool that
+   * [[#cachedHostConnectionPool]] and [[#singleRequest]] use, and establishes its connections ahead of the first
+   * requests, so that these don't have to wait for connection establishment.
+   *
+   * The number of connections is configured with `warm-up-connections` and defaults to `min-connections`.
+   * The returned future is completed when the connections are established and failed when the pool gives up after
+   * more than `max-retries` failed connection attempts in a row.
+   *
+   * To configure additional settings for the pool (and requests made using it),
+   * use the `pekko.http.host-connection-pool` config section or pass in a `ConnectionPoolSettings` explicitly.
+   */
+  def warmUpHostConnectionPool(host: String, port: Int = 80,
+      settings: ConnectionPoolSettings = defaultConnectionPoolSettings,
+      log: LoggingAdapter = system.log): Future[Done] = {
+    val cps = ConnectionPoolSetup(settings.forHost(host), ConnectionContext.noEncryption(), log)
+    poolMaster.warmUp(sharedPoolId(HostConnectionPoolSetup(host, port, cps)))
+  }
+
+  /**
+   * Same as [[#warmUpHostConnectionPool]] but for encrypted (HTTPS) connections.
+   *
+   * The first connection is established before the others, so that they can resume its TLS session.
+   *
+   * If an explicit [[ConnectionContext]] is given then it rather than the configured default [[ConnectionContext]] will be used
+   * for encryption on the connections.
+   */
+  def warmUpHostConnectionPoolHttps(host: String, port: Int = 443,
+      connectionContext: HttpsConnectionContext = defaultClientHttpsContext,
+      settings: ConnectionPoolSettings = defaultConnectionPoolSettings,
+      log: LoggingAdapter = system.log): Future[Done] = {
+    val cps = ConnectionPoolSetup(settings.forHost(host), connectionContext, log)
+    poolMaster.warmUp(sharedPoolId(HostConnectionPoolSetup(host, port, cps)))
+  }
+
   /**
    * Returns a [[pekko.stream.scaladsl.Flow]] which dispatches incoming HTTP requests to the per-ActorSystem pool of outgoing
    * HTTP connections to the given target host endpoint. For every ActorSystem, target host and pool
@@ -721,16 +755,25 @@ class HttpExt @InternalStableApi /* constructor signature is hardcoded in Teleme
     // a connection pool can never have more than pipeliningLimit * maxConnections requests in flight at any point
     // FIXME: that statement is wrong since this method is used for the superPool as well which can comprise any number of target host pools.
     // The user should keep control over how much parallelism is required.
-    val parallelism = settings.pipeliningLimit * settings.maxConnections
+    val parallelism =
+      (if (settings.useHttp2) settings.http2StreamsPerConnection else settings.pipeliningLimit) * settings.maxConnections
     Flow[(HttpRequest, T)].mapAsyncUnordered(parallelism) {
       case (request, userContext) => poolInterface(request).transform(response => Success(response -> userContext))(
           ExecutionContext.parasitic)
     }
   }
 
-  /** Creates real or placebo SslTls stage based on if ConnectionContext is HTTPS or not. */
+  /**
+   * Creates real or placebo SslTls stage based on if ConnectionContext is HTTPS or not.
+   *
+   * The engine is created for the given host and port, which lets it resume a cached session with that peer.
+   */
   private[http] def sslTlsClientStage(connectionContext: ConnectionContext, host: String, port: Int) =
-    sslTlsStage(connectionContext, Client, Some((host, port)))
+    connectionContext match {
+      case _: HttpsConnectionContext =>
+        TlsSessionTracking.bidi(host, port).atop(sslTlsStage(connectionContext, Client, Some((host, port))))
+      case _ => sslTlsStage(connectionContext, Client, Some((host, port)))
+    }
 
   private[http] def sslTlsServerStage(connectionContext: ConnectionContext) =
     sslTlsStage(connectionContext, Server, None)
@@ -108,14 +108,15 @@ object HttpHeader {
       }
     } else ParsingResult.Error(ErrorInfo("Illegal HTTP header name", name))
 
-  /** INTERNAL API */
+  /** INTERNAL API: finds the first header of the given class, looking into [[PreRenderedHeader]]s */
   @InternalApi
   private[pekko] def fastFind[T >: Null <: jm.HttpHeader](
       clazz: Class[T], headers: immutable.Seq[HttpHeader]): OptionVal[T] = {
     val it = headers.iterator
     while (it.hasNext) it.next() match {
-      case h if clazz.isInstance(h) => return OptionVal.Some[T](h.asInstanceOf[T])
-      case _                        => // continue ...
+      case h if clazz.isInstance(h)                           => return OptionVal.Some[T](h.asInstanceOf[T])
+      case p: PreRenderedHeader if clazz.isInstance(p.header) => return OptionVal.Some[T](p.header.asInstanceOf[T])
+      case _                                                  => // continue ...
     }
     OptionVal.None
   }
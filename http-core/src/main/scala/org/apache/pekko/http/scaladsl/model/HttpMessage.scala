@@ -135,7 +135,7 @@ sealed trait HttpMessage extends jm.HttpMessage {
     case None    => HttpEncodings.identity
   }
 
-  /** Returns the first header of the given type if there is one */
+  /** Returns the first header of the given type if there is one, also looking into [[PreRenderedHeader]]s */
   def header[T >: Null <: jm.HttpHeader](implicit ct: ClassTag[T]): Option[T] = {
     val clazz = ct.runtimeClass.asInstanceOf[Class[T]]
     HttpHeader.fastFind[T](clazz, headers) match {
@@ -145,9 +145,10 @@ sealed trait HttpMessage extends jm.HttpMessage {
     }
   }
 
-  /** Returns all the headers of the given type * */
+  /** Returns all the headers of the given type, also looking into [[PreRenderedHeader]]s */
   def headers[T <: jm.HttpHeader](implicit ct: ClassTag[T]): immutable.Seq[T] = headers.collect {
-    case h: T => h
+    case h: T                    => h
+    case PreRenderedHeader(h: T) => h
   }
 
   def attribute[T](key: jm.AttributeKey[T])(implicit ev: JavaMapping[jm.AttributeKey[T], AttributeKey[T]]): Option[T] =
@@ -826,6 +826,72 @@ object RawHeader {
     Some(customHeader.name -> customHeader.value)
 }
 
+/**
+ * Wraps a header that is attached unchanged to many messages (e.g. a `Server`, `Cache-Control` or CORS header kept in
+ * a `val`) so that it is rendered only once, when the wrapper is created, rather than once per message.
+ *
+ * The HTTP/1.1 renderers copy the cached `name: value` bytes directly into the message, the HTTP/2 renderer hands
+ * the cached name/value strings to the HPACK encoder. Headers that influence the rendering itself (`Content-Length`,
+ * `Content-Type` and `Transfer-Encoding`, `Connection`, `Date` and `Server` in responses, `Host` and `User-Agent` in
+ * requests) keep their special treatment when wrapped.
+ *
+ * Lookups by type like `HttpMessage.header[T]`, `headers[T]` and the Java `getHeader(Class)` return the wrapped header,
+ * while matching on the header list itself (e.g. `headers.collectFirst { case h: ETag => h }`) sees the wrapper.
+ *
+ * Only wrap headers whose instances are reused, wrapping a header for a single message is more expensive than
+ * rendering it directly.
+ */
+@ApiMayChange
+final class PreRenderedHeader private (val header: HttpHeader) extends jm.headers.PreRenderedHeader {
+  val name: String = header.name
+  val lowercaseName: String = header.lowercaseName
+  val value: String = header.value
+  def renderInRequests: Boolean = header.renderInRequests
+  def renderInResponses: Boolean = header.renderInResponses
+
+  /** INTERNAL API: the header rendered as `name: value` including the terminating CRLF */
+  @InternalApi
+  private[http] val renderedLine: Array[Byte] = {
+    val r = new ByteArrayRendering(name.length + value.length + 4)
+    header.render(r)
+    val bytes = r.get
+    var ix = 0
+    while (ix < bytes.length) {
+      val c = bytes(ix)
+      if (c == '\r' || c == '\n')
+        throw new IllegalArgumentException(s"Header '$name' must not contain CR or LF characters")
+      ix += 1
+    }
+    (r ~~ Rendering.CrLf).get
+  }
+
+  /** INTERNAL API: the (lowercase name, value) pair for HTTP/2 header rendering */
+  @InternalApi
+  private[http] val headerPair: (String, String) = lowercaseName -> value
+
+  def render[R <: Rendering](r: R): r.type = header.render(r)
+
+  /** Java API */
+  def getHeader: jm.HttpHeader = header
+
+  override def equals(other: Any): Boolean = other match {
+    case p: PreRenderedHeader => header == p.header
+    case _                    => false
+  }
+  override def hashCode: Int = header.hashCode
+}
+
+@ApiMayChange
+object PreRenderedHeader {
+
+  /** Wraps the given header, headers that are already pre-rendered are returned as is. */
+  def apply(header: HttpHeader): PreRenderedHeader = header match {
+    case p: PreRenderedHeader => p
+    case h                    => new PreRenderedHeader(h)
+  }
+  def unapply(header: PreRenderedHeader): Some[HttpHeader] = Some(header.header)
+}
+
 object `Raw-Request-URI` extends ModeledCompanion[`Raw-Request-URI`]
 final case class `Raw-Request-URI`(uri: String) extends jm.headers.RawRequestURI with SyntheticHeader {
   def renderValue[R <: Rendering](r: R): r.type = r ~~ uri
@@ -16,6 +16,7 @@ package org.apache.pekko.http.scaladsl.model.ws
 import java.util.concurrent.CompletionStage
 
 import org.apache.pekko
+import pekko.http.impl.engine.ws.PreEncodedMessage
 import pekko.stream.{ javadsl, Materializer }
 import pekko.stream.scaladsl.Source
 import pekko.util.{ ByteString, ByteStringBuilder }
@@ -72,6 +73,9 @@ object TextMessage {
    * A strict [[TextMessage]] that contains the complete data as a `String`.
    */
   final case class Strict(text: String) extends TextMessage {
+    // the frames rendered once for all connections by a WebSocketBroadcastHub, set before the message is published
+    private[http] var preEncoded: PreEncodedMessage = null
+
     def textStream: Source[String, ?] = Source.single(text)
     override def toString: String = s"TextMessage.Strict($text)"
 
@@ -132,6 +136,9 @@ object BinaryMessage {
    * A strict [[BinaryMessage]] that contains the complete data as a [[pekko.util.ByteString]].
    */
   final case class Strict(data: ByteString) extends BinaryMessage {
+    // the frames rendered once for all connections by a WebSocketBroadcastHub, set before the message is published
+    private[http] var preEncoded: PreEncodedMessage = null
+
     def dataStream: Source[ByteString, ?] = Source.single(data)
     override def toString: String = s"BinaryMessage.Strict($data)"
 
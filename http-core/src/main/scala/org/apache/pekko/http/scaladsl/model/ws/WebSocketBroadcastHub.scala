@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.scaladsl.model.ws
+
+import org.apache.pekko
+import pekko.NotUsed
+import pekko.annotation.ApiMayChange
+import pekko.http.impl.engine.ws.PreEncodedMessage
+import pekko.stream.OverflowStrategy
+import pekko.stream.scaladsl.{ BroadcastHub, Flow, Keep, Sink, Source }
+
+/**
+ * A hub to send the same messages to many WebSocket connections.
+ *
+ * Each message is encoded into its WebSocket frame once when it enters the hub, and all connections send that same
+ * frame. With `compressionLevel` >= 0 the message is also compressed once. Connections that negotiated
+ * permessage-deflate with `server_no_context_takeover` (see the `no-context-takeover` setting) send the compressed
+ * frame as is, other connections compress the message themselves if their compression filter asks for it.
+ *
+ * Only strict messages can be sent through the hub, a streamed message fails the hub.
+ *
+ * {{{
+ * val subscribe: Source[Message, NotUsed] =
+ *   ticks.runWith(WebSocketBroadcastHub(256, WebSocketBroadcastHub.OverflowPolicy.DropOldest))
+ *
+ * upgrade.handleMessages(Flow.fromSinkAndSource(Sink.ignore, subscribe))
+ * }}}
+ */
+@ApiMayChange
+object WebSocketBroadcastHub {
+
+  /** What to do when a subscriber cannot keep up with the messages sent through the hub */
+  sealed abstract class OverflowPolicy
+  object OverflowPolicy {
+
+    /** Drop the oldest message buffered for the subscriber */
+    case object DropOldest extends OverflowPolicy
+
+    /** Fail the stream of the subscriber, which closes its WebSocket connection with an error */
+    case object Disconnect extends OverflowPolicy
+
+    /** Keep only the latest message for the subscriber, the buffer size is not used */
+    case object Conflate extends OverflowPolicy
+  }
+
+  /**
+   * Creates a hub for messages that are not compressed up front.
+   *
+   * @param subscriberBufferSize number of messages buffered for each subscriber before `overflowPolicy` applies
+   */
+  def apply(subscriberBufferSize: Int, overflowPolicy: OverflowPolicy): Sink[Message, Source[Message, NotUsed]] =
+    apply(subscriberBufferSize, overflowPolicy, compressionLevel = -1)
+
+  /**
+   * Materializes to a `Source` that can be materialized once per WebSocket connection to subscribe it to all messages
+   * sent to the hub from then on.
+   *
+   * The buffer of each subscriber keeps accepting messages according to its `overflowPolicy`, so a slow connection
+   * does not slow down the hub or the other subscribers. Like [[pekko.stream.scaladsl.BroadcastHub]] the hub
+   * backpressures while there are no subscribers at all.
+   *
+   * @param subscriberBufferSize number of messages buffered for each subscriber before `overflowPolicy` applies
+   * @param compressionLevel DEFLATE compression level 0-9 to compress each message with once, -1 not to
+   */
+  def apply(
+      subscriberBufferSize: Int,
+      overflowPolicy: OverflowPolicy,
+      compressionLevel: Int): Sink[Message, Source[Message, NotUsed]] = {
+    require(subscriberBufferSize > 0, "subscriberBufferSize must be > 0")
+    require(compressionLevel >= -1 && compressionLevel <= 9, "compressionLevel must be between -1 and 9")
+
+    val subscriberBuffer: Flow[Message, Message, NotUsed] = overflowPolicy match {
+      case OverflowPolicy.DropOldest => Flow[Message].buffer(subscriberBufferSize, OverflowStrategy.dropHead)
+      case OverflowPolicy.Disconnect => Flow[Message].buffer(subscriberBufferSize, OverflowStrategy.fail)
+      case OverflowPolicy.Conflate   => Flow[Message].conflate((_, latest) => latest)
+    }
+
+    Flow[Message]
+      .map(PreEncodedMessage(_, compressionLevel))
+      .toMat(BroadcastHub.sink[Message])(Keep.right)
+      .mapMaterializedValue(_.via(subscriberBuffer))
+  }
+}
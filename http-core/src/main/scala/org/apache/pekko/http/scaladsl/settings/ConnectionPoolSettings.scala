@@ -16,6 +16,8 @@ package org.apache.pekko.http.scaladsl.settings
 import org.apache.pekko
 import pekko.annotation.{ ApiMayChange, DoNotInherit }
 import pekko.http.impl.settings.ConnectionPoolSettingsImpl
+import pekko.http.impl.util._
+import pekko.http.impl.util.JavaMapping.Implicits._
 import pekko.http.javadsl.{ settings => js }
 import pekko.http.scaladsl.ClientTransport
 import com.typesafe.config.Config
@@ -56,6 +58,30 @@ abstract class ConnectionPoolSettings extends js.ConnectionPoolSettings { self:
   @ApiMayChange
   def responseEntitySubscriptionTimeout: Duration
 
+  /** How the pool chooses the idle connection for a new request */
+  @ApiMayChange
+  def slotSelection: ConnectionPoolSettings.SlotSelection
+
+  /**
+   * The number of connections `Http().warmUpHostConnectionPool` establishes, if 0 `minConnections` connections are
+   * established.
+   */
+  @ApiMayChange
+  def warmUpConnections: Int
+
+  /**
+   * If true, requests are sent over HTTP/2 connections, each of which carries up to `http2StreamsPerConnection`
+   * concurrent requests, instead of HTTP/1.1 connections.
+   */
+  @ApiMayChange
+  def useHttp2: Boolean
+
+  /**
+   * The number of concurrent requests an HTTP/2 connection of the pool carries before another connection is opened.
+   */
+  @ApiMayChange
+  def http2StreamsPerConnection: Int
+
   // ---
 
   @ApiMayChange
@@ -92,6 +118,26 @@ abstract class ConnectionPoolSettings extends js.ConnectionPoolSettings { self:
   override def withResponseEntitySubscriptionTimeout(newValue: Duration): ConnectionPoolSettings =
     self.copyDeep(_.withResponseEntitySubscriptionTimeout(newValue), responseEntitySubscriptionTimeout = newValue)
 
+  @ApiMayChange
+  def withSlotSelection(newValue: ConnectionPoolSettings.SlotSelection): ConnectionPoolSettings =
+    self.copyDeep(_.withSlotSelection(newValue), slotSelection = newValue)
+
+  @ApiMayChange
+  override def withSlotSelection(newValue: js.ConnectionPoolSettings.SlotSelection): ConnectionPoolSettings =
+    withSlotSelection(newValue.asScala)
+
+  @ApiMayChange
+  override def withWarmUpConnections(newValue: Int): ConnectionPoolSettings =
+    self.copyDeep(_.withWarmUpConnections(newValue), warmUpConnections = newValue)
+
+  @ApiMayChange
+  override def withUseHttp2(newValue: Boolean): ConnectionPoolSettings =
+    self.copyDeep(_.withUseHttp2(newValue), useHttp2 = newValue)
+
+  @ApiMayChange
+  override def withHttp2StreamsPerConnection(newValue: Int): ConnectionPoolSettings =
+    self.copyDeep(_.withHttp2StreamsPerConnection(newValue), http2StreamsPerConnection = newValue)
+
   /**
    * Since Akka HTTP 10.1.0, the transport is configured in `ClientConnectionSettings`. This method is a shortcut for
    * `withUpdatedConnectionSettings(_.withTransport(newTransport))`.
@@ -104,6 +150,32 @@ abstract class ConnectionPoolSettings extends js.ConnectionPoolSettings { self:
 
 object ConnectionPoolSettings extends SettingsCompanion[ConnectionPoolSettings] {
 
+  /**
+   * How the pool chooses the idle connection for a new request, see `pekko.http.host-connection-pool.slot-selection`.
+   */
+  @ApiMayChange
+  sealed trait SlotSelection extends js.ConnectionPoolSettings.SlotSelection
+  @ApiMayChange
+  object SlotSelection {
+
+    /** The idle slot with the lowest number, keeps the traffic on as few connections as possible */
+    case object FirstIdle extends SlotSelection
+
+    /** The connected slot with the lower average response latency of two randomly chosen idle slots */
+    case object PowerOfTwoChoices extends SlotSelection
+
+    /** The connected idle slot with the lowest average response latency */
+    case object EwmaLatency extends SlotSelection
+
+    def apply(string: String): SlotSelection =
+      string.toRootLowerCase match {
+        case "first-idle"           => FirstIdle
+        case "power-of-two-choices" => PowerOfTwoChoices
+        case "ewma-latency"         => EwmaLatency
+        case x                      => throw new IllegalArgumentException(s"[$x] is not a legal `slot-selection` setting")
+      }
+  }
+
   override def apply(config: Config): ConnectionPoolSettingsImpl = {
     import scala.jdk.CollectionConverters._
 
@@ -36,15 +36,24 @@ private[http] trait Http2CommonSettings {
   def requestEntityChunkSize: Int
   def incomingConnectionLevelBufferSize: Int
   def incomingStreamLevelBufferSize: Int
+  def adaptiveFlowControl: Boolean
+  def maxIncomingConnectionLevelBufferSize: Int
+  def maxIncomingStreamLevelBufferSize: Int
 
   def minCollectStrictEntitySize: Int
 
   def logFrames: Boolean
   def maxConcurrentStreams: Int
   def outgoingControlFrameBufferSize: Int
+  def frameWriteBatchSize: Int
 
   def pingInterval: FiniteDuration
   def pingTimeout: FiniteDuration
+
+  def hpackIndexingStrategy: String
+  def hpackAlwaysIndexHeaders: Set[String]
+  def hpackNeverIndexHeaders: Set[String]
+  def hpackMaxEncoderTableSize: Int
 }
 
 /**
@@ -52,6 +61,8 @@ private[http] trait Http2CommonSettings {
  */
 @InternalApi
 private[http] object Http2CommonSettings {
+  val HpackIndexingStrategies = Seq("adaptive", "always", "never")
+
   def validate(settings: Http2CommonSettings): Unit = {
     import settings._
     if (pingInterval > Duration.Zero && pingTimeout > Duration.Zero) {
@@ -59,7 +70,19 @@ private[http] object Http2CommonSettings {
         pingTimeout <= pingInterval && pingInterval.toMillis % pingTimeout.toMillis == 0,
         s"ping-timeout must be less than and evenly divisible by the ping-interval ($pingInterval)")
     }
+    require(HpackIndexingStrategies.contains(hpackIndexingStrategy),
+      s"hpack.indexing-strategy must be one of ${HpackIndexingStrategies.mkString(", ")}")
+    require(hpackMaxEncoderTableSize >= 0, "hpack.max-encoder-table-size must be >= 0")
+    if (adaptiveFlowControl) {
+      require(maxIncomingConnectionLevelBufferSize >= incomingConnectionLevelBufferSize,
+        "max-incoming-connection-level-buffer-size must be >= incoming-connection-level-buffer-size")
+      require(maxIncomingStreamLevelBufferSize >= incomingStreamLevelBufferSize,
+        "max-incoming-stream-level-buffer-size must be >= incoming-stream-level-buffer-size")
+    }
   }
+
+  private[settings] def headerNames(c: Config, path: String): Set[String] =
+    c.getStringList(path).asScala.iterator.map(_.toRootLowerCase).toSet
 }
 
 /**
@@ -84,16 +107,58 @@ trait Http2ServerSettings extends javadsl.settings.Http2ServerSettings with Http
   def withIncomingStreamLevelBufferSize(newValue: Int): Http2ServerSettings =
     copy(incomingStreamLevelBufferSize = newValue)
 
+  def adaptiveFlowControl: Boolean
+  def withAdaptiveFlowControl(newValue: Boolean): Http2ServerSettings = copy(adaptiveFlowControl = newValue)
+
+  def maxIncomingConnectionLevelBufferSize: Int
+  def withMaxIncomingConnectionLevelBufferSize(newValue: Int): Http2ServerSettings =
+    copy(maxIncomingConnectionLevelBufferSize = newValue)
+
+  def maxIncomingStreamLevelBufferSize: Int
+  def withMaxIncomingStreamLevelBufferSize(newValue: Int): Http2ServerSettings =
+    copy(maxIncomingStreamLevelBufferSize = newValue)
+
   def minCollectStrictEntitySize: Int
   def withMinCollectStrictEntitySize(newValue: Int): Http2ServerSettings = copy(minCollectStrictEntitySize = newValue)
 
+  @InternalApi
+  private[http] def strictEntityCollectionRules: Seq[Http2ServerSettings.StrictEntityCollectionRule]
+  @InternalApi
+  private[http] def withStrictEntityCollectionRules(
+      newValue: Seq[Http2ServerSettings.StrictEntityCollectionRule]): Http2ServerSettings =
+    copy(strictEntityCollectionRules = newValue)
+
+  def streamPrioritizer: String
+  def withStreamPrioritizer(newValue: String): Http2ServerSettings = copy(streamPrioritizer = newValue)
+
+  def deficitRoundRobinQuantum: Int
+  def withDeficitRoundRobinQuantum(newValue: Int): Http2ServerSettings = copy(deficitRoundRobinQuantum = newValue)
+
+  def streamSendRateLimit: Int
+  def withStreamSendRateLimit(newValue: Int): Http2ServerSettings = copy(streamSendRateLimit = newValue)
+
   def maxConcurrentStreams: Int
   override def withMaxConcurrentStreams(newValue: Int): Http2ServerSettings = copy(maxConcurrentStreams = newValue)
 
+  def adaptiveConcurrencyEnabled: Boolean
+  override def withAdaptiveConcurrencyEnabled(newValue: Boolean): Http2ServerSettings =
+    copy(adaptiveConcurrencyEnabled = newValue)
+
+  def adaptiveConcurrencyMinConcurrentStreams: Int
+  override def withAdaptiveConcurrencyMinConcurrentStreams(newValue: Int): Http2ServerSettings =
+    copy(adaptiveConcurrencyMinConcurrentStreams = newValue)
+
+  def adaptiveConcurrencyLatencyTolerance: Double
+  override def withAdaptiveConcurrencyLatencyTolerance(newValue: Double): Http2ServerSettings =
+    copy(adaptiveConcurrencyLatencyTolerance = newValue)
+
   def outgoingControlFrameBufferSize: Int
   override def withOutgoingControlFrameBufferSize(newValue: Int): Http2ServerSettings =
     copy(outgoingControlFrameBufferSize = newValue)
 
+  def frameWriteBatchSize: Int
+  override def withFrameWriteBatchSize(newValue: Int): Http2ServerSettings = copy(frameWriteBatchSize = newValue)
+
   def logFrames: Boolean
   override def withLogFrames(shouldLog: Boolean): Http2ServerSettings = copy(logFrames = shouldLog)
 
@@ -115,6 +180,22 @@ trait Http2ServerSettings extends javadsl.settings.Http2ServerSettings with Http
   def frameTypeThrottleInterval: FiniteDuration
   def withFrameTypeThrottleInterval(interval: FiniteDuration) = copy(frameTypeThrottleInterval = interval)
 
+  def hpackIndexingStrategy: String
+  override def withHpackIndexingStrategy(newValue: String): Http2ServerSettings =
+    copy(hpackIndexingStrategy = newValue)
+
+  def hpackAlwaysIndexHeaders: Set[String]
+  def withHpackAlwaysIndexHeaders(headerNames: Set[String]): Http2ServerSettings =
+    copy(hpackAlwaysIndexHeaders = headerNames.map(_.toRootLowerCase))
+
+  def hpackNeverIndexHeaders: Set[String]
+  def withHpackNeverIndexHeaders(headerNames: Set[String]): Http2ServerSettings =
+    copy(hpackNeverIndexHeaders = headerNames.map(_.toRootLowerCase))
+
+  def hpackMaxEncoderTableSize: Int
+  override def withHpackMaxEncoderTableSize(newValue: Int): Http2ServerSettings =
+    copy(hpackMaxEncoderTableSize = newValue)
+
   @InternalApi
   private[http] def internalSettings: Option[Http2InternalServerSettings]
   @InternalApi
@@ -129,11 +210,22 @@ object Http2ServerSettings extends SettingsCompanion[Http2ServerSettings] {
 
   private[http] case class Http2ServerSettingsImpl(
       maxConcurrentStreams: Int,
+      adaptiveConcurrencyEnabled: Boolean,
+      adaptiveConcurrencyMinConcurrentStreams: Int,
+      adaptiveConcurrencyLatencyTolerance: Double,
       requestEntityChunkSize: Int,
       incomingConnectionLevelBufferSize: Int,
       incomingStreamLevelBufferSize: Int,
+      adaptiveFlowControl: Boolean,
+      maxIncomingConnectionLevelBufferSize: Int,
+      maxIncomingStreamLevelBufferSize: Int,
       minCollectStrictEntitySize: Int,
+      strictEntityCollectionRules: Seq[StrictEntityCollectionRule],
+      streamPrioritizer: String,
+      deficitRoundRobinQuantum: Int,
+      streamSendRateLimit: Int,
       outgoingControlFrameBufferSize: Int,
+      frameWriteBatchSize: Int,
       logFrames: Boolean,
       pingInterval: FiniteDuration,
       pingTimeout: FiniteDuration,
@@ -141,31 +233,94 @@ object Http2ServerSettings extends SettingsCompanion[Http2ServerSettings] {
       frameTypeThrottleCost: Int,
       frameTypeThrottleBurst: Int,
       frameTypeThrottleInterval: FiniteDuration,
+      hpackIndexingStrategy: String,
+      hpackAlwaysIndexHeaders: Set[String],
+      hpackNeverIndexHeaders: Set[String],
+      hpackMaxEncoderTableSize: Int,
       internalSettings: Option[Http2InternalServerSettings])
       extends Http2ServerSettings {
     require(maxConcurrentStreams >= 0, "max-concurrent-streams must be >= 0")
+    require(adaptiveConcurrencyMinConcurrentStreams > 0, "adaptive-concurrency.min-concurrent-streams must be > 0")
+    require(!adaptiveConcurrencyEnabled || adaptiveConcurrencyMinConcurrentStreams <= maxConcurrentStreams,
+      "adaptive-concurrency.min-concurrent-streams must be <= max-concurrent-streams")
+    require(adaptiveConcurrencyLatencyTolerance >= 1.0, "adaptive-concurrency.latency-tolerance must be >= 1.0")
     require(requestEntityChunkSize > 0, "request-entity-chunk-size must be > 0")
     require(incomingConnectionLevelBufferSize > 0, "incoming-connection-level-buffer-size must be > 0")
     require(incomingStreamLevelBufferSize > 0, "incoming-stream-level-buffer-size must be > 0")
+    require(maxIncomingConnectionLevelBufferSize > 0, "max-incoming-connection-level-buffer-size must be > 0")
+    require(maxIncomingStreamLevelBufferSize > 0, "max-incoming-stream-level-buffer-size must be > 0")
     require(minCollectStrictEntitySize >= 0, "min-collect-strict-entity-size must be >= 0")
     require(minCollectStrictEntitySize <= incomingStreamLevelBufferSize,
       "min-collect-strict-entity-size <= incoming-stream-level-buffer-size")
     require(minCollectStrictEntitySize <= (incomingConnectionLevelBufferSize / maxConcurrentStreams),
       "min-collect-strict-entity-size <= incoming-connection-level-buffer-size / max-concurrent-streams")
+    strictEntityCollectionRules.foreach { rule =>
+      require(rule.minCollectStrictEntitySize >= 0,
+        "strict-entity-collection-rules.min-collect-strict-entity-size must be >= 0")
+      require(rule.minCollectStrictEntitySize <= incomingStreamLevelBufferSize,
+        "strict-entity-collection-rules.min-collect-strict-entity-size <= incoming-stream-level-buffer-size")
+      require(rule.minCollectStrictEntitySize <= (incomingConnectionLevelBufferSize / maxConcurrentStreams),
+        "strict-entity-collection-rules.min-collect-strict-entity-size <= " +
+        "incoming-connection-level-buffer-size / max-concurrent-streams")
+    }
+    require(Http2ServerSettingsImpl.StreamPrioritizers.contains(streamPrioritizer),
+      s"stream-prioritizer must be one of ${Http2ServerSettingsImpl.StreamPrioritizers.mkString(", ")}")
+    require(deficitRoundRobinQuantum > 0, "deficit-round-robin-quantum must be > 0")
+    require(streamSendRateLimit >= 0, "stream-send-rate-limit must be >= 0")
     require(outgoingControlFrameBufferSize > 0, "outgoing-control-frame-buffer-size must be > 0")
+    require(frameWriteBatchSize >= 0, "frame-write-batch-size must be >= 0")
     require(frameTypeThrottleInterval.toMillis > 0, "frame-type-throttle.interval must be a positive duration")
     Http2CommonSettings.validate(this)
   }
 
+  /**
+   * INTERNAL API
+   *
+   * Overrides `min-collect-strict-entity-size` for requests whose path starts with `pathPrefix`, whose media type
+   * starts with `contentType` and that declare a `content-length` of at most `maxContentLength`. Conditions that are
+   * not set match any request.
+   */
+  @InternalApi
+  private[http] final case class StrictEntityCollectionRule(
+      pathPrefix: Option[String],
+      contentType: Option[String],
+      maxContentLength: Option[Long],
+      minCollectStrictEntitySize: Int)
+
+  /** INTERNAL API */
+  @InternalApi
+  private[http] object StrictEntityCollectionRule {
+    def apply(c: Config): StrictEntityCollectionRule = StrictEntityCollectionRule(
+      pathPrefix = if (c.hasPath("path-prefix")) Some(c.getString("path-prefix")) else None,
+      contentType = if (c.hasPath("content-type")) Some(c.getString("content-type")) else None,
+      maxContentLength =
+        if (c.hasPath("max-content-length")) Some(c.getBytes("max-content-length").longValue) else None,
+      minCollectStrictEntitySize = c.getIntBytes("min-collect-strict-entity-size"))
+  }
+
   private[http] object Http2ServerSettingsImpl
       extends pekko.http.impl.util.SettingsCompanionImpl[Http2ServerSettingsImpl]("pekko.http.server.http2") {
+    val StreamPrioritizers = Seq("round-robin", "extensible-priorities", "deficit-round-robin")
+
     def fromSubConfig(root: Config, c: Config): Http2ServerSettingsImpl = Http2ServerSettingsImpl(
       maxConcurrentStreams = c.getInt("max-concurrent-streams"),
+      adaptiveConcurrencyEnabled = c.getBoolean("adaptive-concurrency.enabled"),
+      adaptiveConcurrencyMinConcurrentStreams = c.getInt("adaptive-concurrency.min-concurrent-streams"),
+      adaptiveConcurrencyLatencyTolerance = c.getDouble("adaptive-concurrency.latency-tolerance"),
       requestEntityChunkSize = c.getIntBytes("request-entity-chunk-size"),
       incomingConnectionLevelBufferSize = c.getIntBytes("incoming-connection-level-buffer-size"),
       incomingStreamLevelBufferSize = c.getIntBytes("incoming-stream-level-buffer-size"),
+      adaptiveFlowControl = c.getBoolean("adaptive-flow-control"),
+      maxIncomingConnectionLevelBufferSize = c.getIntBytes("max-incoming-connection-level-buffer-size"),
+      maxIncomingStreamLevelBufferSize = c.getIntBytes("max-incoming-stream-level-buffer-size"),
       minCollectStrictEntitySize = c.getIntBytes("min-collect-strict-entity-size"),
+      strictEntityCollectionRules =
+        c.getConfigList("strict-entity-collection-rules").asScala.iterator.map(StrictEntityCollectionRule(_)).toList,
+      streamPrioritizer = c.getString("stream-prioritizer"),
+      deficitRoundRobinQuantum = c.getIntBytes("deficit-round-robin-quantum"),
+      streamSendRateLimit = c.getIntBytes("stream-send-rate-limit"),
       outgoingControlFrameBufferSize = c.getIntBytes("outgoing-control-frame-buffer-size"),
+      frameWriteBatchSize = c.getIntBytes("frame-write-batch-size"),
       logFrames = c.getBoolean("log-frames"),
       pingInterval = c.getFiniteDuration("ping-interval"),
       pingTimeout = c.getFiniteDuration("ping-timeout"),
@@ -173,6 +328,10 @@ object Http2ServerSettings extends SettingsCompanion[Http2ServerSettings] {
       frameTypeThrottleCost = c.getInt("frame-type-throttle.cost"),
       frameTypeThrottleBurst = c.getInt("frame-type-throttle.burst"),
       frameTypeThrottleInterval = c.getFiniteDuration("frame-type-throttle.interval"),
+      hpackIndexingStrategy = c.getString("hpack.indexing-strategy"),
+      hpackAlwaysIndexHeaders = Http2CommonSettings.headerNames(c, "hpack.always-index-headers"),
+      hpackNeverIndexHeaders = Http2CommonSettings.headerNames(c, "hpack.never-index-headers"),
+      hpackMaxEncoderTableSize = c.getIntBytes("hpack.max-encoder-table-size"),
       None // no possibility to configure internal settings with config
     )
   }
@@ -200,6 +359,17 @@ trait Http2ClientSettings extends javadsl.settings.Http2ClientSettings with Http
   override def withIncomingStreamLevelBufferSize(newValue: Int): Http2ClientSettings =
     copy(incomingStreamLevelBufferSize = newValue)
 
+  def adaptiveFlowControl: Boolean
+  override def withAdaptiveFlowControl(newValue: Boolean): Http2ClientSettings = copy(adaptiveFlowControl = newValue)
+
+  def maxIncomingConnectionLevelBufferSize: Int
+  override def withMaxIncomingConnectionLevelBufferSize(newValue: Int): Http2ClientSettings =
+    copy(maxIncomingConnectionLevelBufferSize = newValue)
+
+  def maxIncomingStreamLevelBufferSize: Int
+  override def withMaxIncomingStreamLevelBufferSize(newValue: Int): Http2ClientSettings =
+    copy(maxIncomingStreamLevelBufferSize = newValue)
+
   def minCollectStrictEntitySize: Int = 0 // not yet supported on client side
 
   def maxConcurrentStreams: Int
@@ -209,6 +379,9 @@ trait Http2ClientSettings extends javadsl.settings.Http2ClientSettings with Http
   override def withOutgoingControlFrameBufferSize(newValue: Int): Http2ClientSettings =
     copy(outgoingControlFrameBufferSize = newValue)
 
+  def frameWriteBatchSize: Int
+  override def withFrameWriteBatchSize(newValue: Int): Http2ClientSettings = copy(frameWriteBatchSize = newValue)
+
   def logFrames: Boolean
   override def withLogFrames(shouldLog: Boolean): Http2ClientSettings = copy(logFrames = shouldLog)
 
@@ -230,6 +403,22 @@ trait Http2ClientSettings extends javadsl.settings.Http2ClientSettings with Http
   def maxConnectionBackoff: FiniteDuration
   def withMaxConnectionBackoff(backoff: FiniteDuration): Http2ClientSettings = copy(maxConnectionBackoff = backoff)
 
+  def hpackIndexingStrategy: String
+  override def withHpackIndexingStrategy(newValue: String): Http2ClientSettings =
+    copy(hpackIndexingStrategy = newValue)
+
+  def hpackAlwaysIndexHeaders: Set[String]
+  def withHpackAlwaysIndexHeaders(headerNames: Set[String]): Http2ClientSettings =
+    copy(hpackAlwaysIndexHeaders = headerNames.map(_.toRootLowerCase))
+
+  def hpackNeverIndexHeaders: Set[String]
+  def withHpackNeverIndexHeaders(headerNames: Set[String]): Http2ClientSettings =
+    copy(hpackNeverIndexHeaders = headerNames.map(_.toRootLowerCase))
+
+  def hpackMaxEncoderTableSize: Int
+  override def withHpackMaxEncoderTableSize(newValue: Int): Http2ClientSettings =
+    copy(hpackMaxEncoderTableSize = newValue)
+
   @InternalApi
   private[http] def internalSettings: Option[Http2InternalClientSettings]
   @InternalApi
@@ -247,7 +436,11 @@ object Http2ClientSettings extends SettingsCompanion[Http2ClientSettings] {
       requestEntityChunkSize: Int,
       incomingConnectionLevelBufferSize: Int,
       incomingStreamLevelBufferSize: Int,
+      adaptiveFlowControl: Boolean,
+      maxIncomingConnectionLevelBufferSize: Int,
+      maxIncomingStreamLevelBufferSize: Int,
       outgoingControlFrameBufferSize: Int,
+      frameWriteBatchSize: Int,
       logFrames: Boolean,
       pingInterval: FiniteDuration,
       pingTimeout: FiniteDuration,
@@ -255,13 +448,20 @@ object Http2ClientSettings extends SettingsCompanion[Http2ClientSettings] {
       completionTimeout: FiniteDuration,
       baseConnectionBackoff: FiniteDuration,
       maxConnectionBackoff: FiniteDuration,
+      hpackIndexingStrategy: String,
+      hpackAlwaysIndexHeaders: Set[String],
+      hpackNeverIndexHeaders: Set[String],
+      hpackMaxEncoderTableSize: Int,
       internalSettings: Option[Http2InternalClientSettings])
       extends Http2ClientSettings with javadsl.settings.Http2ClientSettings {
     require(maxConcurrentStreams >= 0, "max-concurrent-streams must be >= 0")
     require(requestEntityChunkSize > 0, "request-entity-chunk-size must be > 0")
     require(incomingConnectionLevelBufferSize > 0, "incoming-connection-level-buffer-size must be > 0")
     require(incomingStreamLevelBufferSize > 0, "incoming-stream-level-buffer-size must be > 0")
+    require(maxIncomingConnectionLevelBufferSize > 0, "max-incoming-connection-level-buffer-size must be > 0")
+    require(maxIncomingStreamLevelBufferSize > 0, "max-incoming-stream-level-buffer-size must be > 0")
     require(outgoingControlFrameBufferSize > 0, "outgoing-control-frame-buffer-size must be > 0")
+    require(frameWriteBatchSize >= 0, "frame-write-batch-size must be >= 0")
     require(maxPersistentAttempts >= 0, "max-persistent-attempts must be >= 0")
     require(completionTimeout > Duration.Zero, "completion-timeout must be > 0")
     require(baseConnectionBackoff <= maxConnectionBackoff, "base-connection-backoff must be <= max-connection-backoff")
@@ -275,7 +475,11 @@ object Http2ClientSettings extends SettingsCompanion[Http2ClientSettings] {
       requestEntityChunkSize = c.getIntBytes("request-entity-chunk-size"),
       incomingConnectionLevelBufferSize = c.getIntBytes("incoming-connection-level-buffer-size"),
       incomingStreamLevelBufferSize = c.getIntBytes("incoming-stream-level-buffer-size"),
+      adaptiveFlowControl = c.getBoolean("adaptive-flow-control"),
+      maxIncomingConnectionLevelBufferSize = c.getIntBytes("max-incoming-connection-level-buffer-size"),
+      maxIncomingStreamLevelBufferSize = c.getIntBytes("max-incoming-stream-level-buffer-size"),
       outgoingControlFrameBufferSize = c.getIntBytes("outgoing-control-frame-buffer-size"),
+      frameWriteBatchSize = c.getIntBytes("frame-write-batch-size"),
       logFrames = c.getBoolean("log-frames"),
       pingInterval = c.getFiniteDuration("ping-interval"),
       pingTimeout = c.getFiniteDuration("ping-timeout"),
@@ -283,6 +487,10 @@ object Http2ClientSettings extends SettingsCompanion[Http2ClientSettings] {
       completionTimeout = c.getFiniteDuration("completion-timeout"),
       baseConnectionBackoff = c.getFiniteDuration("base-connection-backoff"),
       maxConnectionBackoff = c.getFiniteDuration("max-connection-backoff"),
+      hpackIndexingStrategy = c.getString("hpack.indexing-strategy"),
+      hpackAlwaysIndexHeaders = Http2CommonSettings.headerNames(c, "hpack.always-index-headers"),
+      hpackNeverIndexHeaders = Http2CommonSettings.headerNames(c, "hpack.never-index-headers"),
+      hpackMaxEncoderTableSize = c.getIntBytes("hpack.max-encoder-table-size"),
       internalSettings = None // no possibility to configure internal settings with config
     )
   }
@@ -64,6 +64,7 @@ abstract class ParserSettings private[pekko] () extends pekko.http.javadsl.setti
   def customStatusCodes: Int => Option[StatusCode]
   def customMediaTypes: MediaTypes.FindCustom
   def modeledHeaderParsing: Boolean
+  def sharedHeaderCacheSize: Int
 
   /* Java APIs */
   override def getCookieParsingMode: js.ParserSettings.CookieParsingMode = this.cookieParsingMode
@@ -98,6 +99,7 @@ abstract class ParserSettings private[pekko] () extends pekko.http.javadsl.setti
     (mainType: String, subType: String) =>
       (self.customMediaTypes(mainType, subType): Option[pekko.http.javadsl.model.MediaType]).toJava
   def getModeledHeaderParsing: Boolean = this.modeledHeaderParsing
+  override def getSharedHeaderCacheSize: Int = this.sharedHeaderCacheSize
 
   // override for more specific return type
   override def withMaxUriLength(newValue: Int): ParserSettings = self.copy(maxUriLength = newValue)
@@ -122,6 +124,7 @@ abstract class ParserSettings private[pekko] () extends pekko.http.javadsl.setti
   override def withIncludeSslSessionAttribute(newValue: Boolean): ParserSettings =
     self.copy(includeSslSessionAttribute = newValue)
   override def withModeledHeaderParsing(newValue: Boolean): ParserSettings = self.copy(modeledHeaderParsing = newValue)
+  override def withSharedHeaderCacheSize(newValue: Int): ParserSettings = self.copy(sharedHeaderCacheSize = newValue)
   override def withIgnoreIllegalHeaderFor(newValue: List[String]): ParserSettings =
     self.copy(ignoreIllegalHeaderFor = newValue.map(toRootLowerCase).toSet)
 
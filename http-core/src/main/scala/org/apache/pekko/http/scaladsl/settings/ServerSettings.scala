@@ -46,7 +46,9 @@ abstract class ServerSettings private[pekko] () extends pekko.http.javadsl.setti
   def transparentHeadRequests: Boolean
   def verboseErrorMessages: Boolean
   def responseHeaderSizeHint: Int
+  def responseRenderingBufferSize: Int
   def backlog: Int
+  def acceptListeners: Int
   def socketOptions: immutable.Seq[SocketOption]
   def defaultHostHeader: Host
   def websocketSettings: WebSocketSettings
@@ -70,6 +72,7 @@ abstract class ServerSettings private[pekko] () extends pekko.http.javadsl.setti
   /* Java APIs */
 
   override def getBacklog = this.backlog
+  override def getAcceptListeners = this.acceptListeners
 
   override def getDefaultHostHeader = this.defaultHostHeader.asJava
   override def getPipeliningLimit = this.pipeliningLimit
@@ -77,6 +80,7 @@ abstract class ServerSettings private[pekko] () extends pekko.http.javadsl.setti
   override def getMaxConnections = this.maxConnections
   override def getTransparentHeadRequests = this.transparentHeadRequests
   override def getResponseHeaderSizeHint = this.responseHeaderSizeHint
+  override def getResponseRenderingBufferSize = this.responseRenderingBufferSize
   override def getVerboseErrorMessages = this.verboseErrorMessages
   override def getSocketOptions = this.socketOptions.asJava
   override def getServerHeader = this.serverHeader.map(_.asJava).toJava
@@ -102,7 +106,10 @@ abstract class ServerSettings private[pekko] () extends pekko.http.javadsl.setti
     self.copy(transparentHeadRequests = newValue)
   override def withVerboseErrorMessages(newValue: Boolean): ServerSettings = self.copy(verboseErrorMessages = newValue)
   override def withResponseHeaderSizeHint(newValue: Int): ServerSettings = self.copy(responseHeaderSizeHint = newValue)
+  override def withResponseRenderingBufferSize(newValue: Int): ServerSettings =
+    self.copy(responseRenderingBufferSize = newValue)
   override def withBacklog(newValue: Int): ServerSettings = self.copy(backlog = newValue)
+  override def withAcceptListeners(newValue: Int): ServerSettings = self.copy(acceptListeners = newValue)
   override def withSocketOptions(newValue: java.lang.Iterable[SocketOption]): ServerSettings =
     self.copy(socketOptions = newValue.asScala.toList)
   override def getWebsocketSettings: WebSocketSettings = self.websocketSettings
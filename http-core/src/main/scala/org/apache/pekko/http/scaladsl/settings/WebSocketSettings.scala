@@ -13,11 +13,13 @@
 
 package org.apache.pekko.http.scaladsl.settings
 import java.util.Random
-import java.util.function.Supplier
+import java.util.function.{ Predicate, Supplier }
 
 import org.apache.pekko
-import pekko.annotation.DoNotInherit
+import pekko.annotation.{ ApiMayChange, DoNotInherit }
 import pekko.http.impl.settings.WebSocketSettingsImpl
+import pekko.http.javadsl
+import pekko.http.scaladsl.model.ws.Message
 import pekko.util.ByteString
 
 import scala.concurrent.duration._
@@ -48,4 +50,24 @@ abstract class WebSocketSettings extends pekko.http.javadsl.settings.WebSocketSe
 
   def logFrames: Boolean
   override def withLogFrames(shouldLog: Boolean): WebSocketSettings = copy(logFrames = shouldLog)
+
+  override def withCompressionMinMessageSize(newValue: Long): WebSocketSettings =
+    copy(compression = compression.copy(minMessageSize = newValue))
+  override def withCompressionBackOff(maxRatio: Double, sampleSize: Int, backOffMessages: Int): WebSocketSettings =
+    copy(compression = compression.copy(
+      maxCompressionRatio = maxRatio, ratioSampleSize = sampleSize, backOffMessages = backOffMessages))
+
+  /**
+   * Decides for each outgoing message whether it may be compressed, e.g. by its content, in addition to the
+   * `shouldCompress` function given when handling the WebSocket upgrade.
+   */
+  @ApiMayChange
+  def compressionFilter: Message => Boolean = compression.messageFilter
+  override final def getCompressionPredicate: Predicate[javadsl.model.ws.Message] =
+    message => self.compression.messageFilter(message.asScala)
+  @ApiMayChange
+  def withCompressionFilter(newValue: Message => Boolean): WebSocketSettings =
+    copy(compression = compression.copy(messageFilter = newValue))
+  override def withCompressionPredicate(newValue: Predicate[javadsl.model.ws.Message]): WebSocketSettings =
+    copy(compression = compression.copy(messageFilter = message => newValue.test(message)))
 }
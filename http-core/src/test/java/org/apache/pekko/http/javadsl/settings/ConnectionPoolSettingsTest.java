@@ -16,6 +16,8 @@ package org.apache.pekko.http.javadsl.settings;
 import org.apache.pekko.actor.ActorSystem;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class ConnectionPoolSettingsTest {
 
   @Test
@@ -23,4 +25,14 @@ public class ConnectionPoolSettingsTest {
     ActorSystem sys = ActorSystem.create("test");
     ConnectionPoolSettings settings = ConnectionPoolSettings.create(sys);
   }
+
+  @Test
+  public void testWithSlotSelection() {
+    ActorSystem sys = ActorSystem.create("test");
+    ConnectionPoolSettings settings =
+        ConnectionPoolSettings.create(sys)
+            .withSlotSelection(ConnectionPoolSettings.ewmaLatencySlotSelection());
+    assertEquals(ConnectionPoolSettings.ewmaLatencySlotSelection(), settings.getSlotSelection());
+    sys.terminate();
+  }
 }
@@ -187,6 +187,29 @@ class HostConnectionPoolSpec extends PekkoSpecWithMaterializer(
           expectResponse()
           conn1.expectRequestToPath("/3")
         })
+      "dispatch to the connection with the lowest latency with slot-selection = ewma-latency".inWithShutdown(
+        new SetupWithServerProbes(
+          _.withMaxConnections(2).withSlotSelection(ConnectionPoolSettings.SlotSelection.EwmaLatency)) {
+          pushRequest(HttpRequest(uri = "/1"))
+          val conn1 = expectNextConnection()
+          conn1.expectRequestToPath("/1")
+
+          pushRequest(HttpRequest(uri = "/2"))
+          val conn2 = expectNextConnection()
+          conn2.expectRequestToPath("/2")
+
+          // "/1" was dispatched before "/2" and is answered after the response to "/2" was received, so conn1 has
+          // the higher latency
+          conn2.pushResponse(HttpResponse())
+          expectResponse()
+          conn1.pushResponse(HttpResponse())
+          expectResponse()
+
+          // with first-idle the request would go to conn1
+          pushRequest(HttpRequest(uri = "/3"))
+          conn2.expectRequestToPath("/3")
+          conn1.expectNoRequest()
+        })
       "only buffer a reasonable number of extra requests" in pending
       "only send next request when last response entity was read completely".inWithShutdown(
         new SetupWithServerProbes() {
@@ -471,6 +471,47 @@ class NewConnectionPoolSpec extends PekkoSpecWithMaterializer("""
       awaitCond({ Await.result(gateway.poolStatus(), 1500.millis.dilated).isEmpty }, 2000.millis.dilated)
     }
 
+    "establish the warm-up-connections ahead of the first request" in new TestSetup(autoAccept = true) {
+      val settings = ConnectionPoolSettings(system).withMaxConnections(4).withWarmUpConnections(3)
+      Await.result(Http().warmUpHostConnectionPool(serverHostName, serverPort, settings), 3.seconds.dilated)
+      awaitCond(incomingConnectionCounter.get == 3)
+
+      val response = Await.result(
+        Http().singleRequest(HttpRequest(uri = s"http://$serverHostName:$serverPort/warm"), settings = settings),
+        3.seconds.dilated)
+      connNr(response) should be <= 3
+      incomingConnectionCounter.get shouldEqual 3
+    }
+
+    "limit the warm-up-connections to max-connections" in new TestSetup(autoAccept = true) {
+      val settings = ConnectionPoolSettings(system).withMaxConnections(2).withWarmUpConnections(5)
+      Await.result(Http().warmUpHostConnectionPool(serverHostName, serverPort, settings), 3.seconds.dilated)
+      awaitCond(incomingConnectionCounter.get == 2)
+    }
+
+    "retry failed warm-up connection attempts until the warm-up-connections are established" in new TestSetup(
+      autoAccept = true) {
+      val connectionAttempts = new AtomicInteger
+      // the first two connection attempts fail, the later ones connect to the test server
+      val transport = new ClientTransport {
+        def connectTo(host: String, port: Int, settings: ClientConnectionSettings)(
+            implicit system: ActorSystem): Flow[ByteString, ByteString, Future[OutgoingConnection]] =
+          if (connectionAttempts.incrementAndGet() <= 2)
+            Flow.fromSinkAndSource(Sink.ignore, Source.failed[ByteString](TE("Connection refused")))
+              .mapMaterializedValue(_ => Future.failed(TE("Connection refused")))
+          else ClientTransport.TCP.connectTo(host, port, settings)
+      }
+      val settings =
+        ConnectionPoolSettings(system)
+          .withMaxConnections(4)
+          .withWarmUpConnections(3)
+          .withTransport(transport)
+
+      Await.result(Http().warmUpHostConnectionPool(serverHostName, serverPort, settings), 5.seconds.dilated)
+      awaitCond(incomingConnectionCounter.get == 3)
+      connectionAttempts.get shouldEqual 5
+    }
+
     "use the configured ClientTransport" in new ClientTransportTestSetup {
       def issueRequest(request: HttpRequest, settings: ConnectionPoolSettings): Future[HttpResponse] =
         Source.single(request.withUri(request.uri.toRelative))
@@ -19,6 +19,7 @@ import java.security.cert.CertificateFactory
 import org.apache.pekko
 import pekko.NotUsed
 import org.scalatest.concurrent.PatienceConfiguration.Timeout
+import pekko.stream.Attributes
 import pekko.stream.scaladsl._
 import pekko.http.impl.util._
 import pekko.http.scaladsl.{ ConnectionContext, Http }
@@ -108,6 +109,19 @@ class TlsEndpointVerificationSpec extends PekkoSpecWithMaterializer("""
         tlsInfo.peerPrincipal.get.getName shouldEqual "CN=pekko.example.org,O=Apache Foundation"
       }
     }
+    "resume the TLS session of an earlier connection to the same peer" in {
+      val stats = new TlsSessionStats
+      def request(): Future[HttpResponse] =
+        Source.single(HttpRequest(uri = "https://pekko.example.org:8443/"))
+          .via(pipelineFlow(ExampleHttpContexts.exampleClientContext, "pekko.example.org", port = 8443)
+            .addAttributes(Attributes(TlsSessionTracking.Stats(stats))))
+          .runWith(Sink.head)
+
+      whenReady(request(), timeout)(_.status shouldEqual StatusCodes.OK)
+      whenReady(request(), timeout)(_.status shouldEqual StatusCodes.OK)
+      stats.fullHandshakes shouldEqual 1
+      stats.resumedHandshakes shouldEqual 1
+    }
 
     if (includeTestsHittingActualWebsites) {
       /*
@@ -142,7 +156,8 @@ class TlsEndpointVerificationSpec extends PekkoSpecWithMaterializer("""
   def pipeline(clientContext: ConnectionContext, hostname: String): HttpRequest => Future[HttpResponse] = req =>
     Source.single(req).via(pipelineFlow(clientContext, hostname)).runWith(Sink.head)
 
-  def pipelineFlow(clientContext: ConnectionContext, hostname: String): Flow[HttpRequest, HttpResponse, NotUsed] = {
+  def pipelineFlow(clientContext: ConnectionContext, hostname: String,
+      port: Int = 8080): Flow[HttpRequest, HttpResponse, NotUsed] = {
     val handler: HttpRequest => HttpResponse = { req =>
       // verify Tls-Session-Info header information
       val name = req.attribute(AttributeKeys.sslSession).flatMap(_.localPrincipal).map(_.getName)
@@ -151,7 +166,7 @@ class TlsEndpointVerificationSpec extends PekkoSpecWithMaterializer("""
     }
 
     val serverSideTls = Http().sslTlsServerStage(ExampleHttpContexts.exampleServerContext)
-    val clientSideTls = Http().sslTlsClientStage(clientContext, hostname, 8080)
+    val clientSideTls = Http().sslTlsClientStage(clientContext, hostname, port)
 
     val server =
       Http().serverLayer()
@@ -160,7 +175,7 @@ class TlsEndpointVerificationSpec extends PekkoSpecWithMaterializer("""
         .join(Flow[HttpRequest].map(handler))
 
     val client =
-      Http().clientLayer(Host(hostname, 8080))
+      Http().clientLayer(Host(hostname, port))
         .atop(clientSideTls)
 
     client.join(server)
@@ -16,14 +16,19 @@ package org.apache.pekko.http.impl.engine.parsing
 import java.lang.{ StringBuilder => JStringBuilder }
 
 import org.apache.pekko
+import pekko.NotUsed
+import pekko.event.NoLogging
+import pekko.http.impl.engine.http2.TelemetrySpi
 import pekko.http.scaladsl.settings.ParserSettings
+import pekko.stream.Attributes
+import pekko.stream.scaladsl.{ BidiFlow, Flow, Tcp }
 
 import scala.annotation.tailrec
 import scala.util.Random
 import pekko.util.ByteString
 import pekko.actor.ActorSystem
 import pekko.http.HashCodeCollider
-import pekko.http.scaladsl.model.{ ErrorInfo, HttpHeader }
+import pekko.http.scaladsl.model.{ ErrorInfo, HttpHeader, HttpRequest, HttpResponse }
 import pekko.http.scaladsl.model.headers._
 import pekko.http.impl.model.parser.CharacterClasses
 import pekko.http.impl.util._
@@ -322,6 +327,78 @@ abstract class HttpHeaderParserSpec(mode: String, newLine: String) extends Pekko
       parseAndCache(s"X-Forwarded-Host: localhost:8888${newLine}x")(
         s"X-FORWARDED-Host: localhost:8888${newLine}x") shouldEqual RawHeader("X-Forwarded-Host", "localhost:8888")
     }
+    "share parsed header values between parsers via a shared cache" in new TestSetup() {
+      val cache = new SharedHeaderValueCache(maxEntries = 16, maxValueLength = 1000)
+      val root = parser.withSharedCache(cache)
+      def parseWithNewParser(line: String): HttpHeader = {
+        val connectionParser = root.createShallowCopy()
+        connectionParser.parseHeaderLine(ByteString(line))()
+        connectionParser.resultHeader
+      }
+
+      val userAgent = parseWithNewParser(s"User-Agent: curl/8.4.0${newLine}x")
+      userAgent shouldEqual `User-Agent`("curl/8.4.0")
+      (parseWithNewParser(s"user-agent: curl/8.4.0${newLine}x") should be).theSameInstanceAs(userAgent)
+      parseWithNewParser(s"Fancy: foo${newLine}x") shouldEqual RawHeader("Fancy", "foo")
+      parseWithNewParser(s"Fancy: foo${newLine}x") shouldEqual RawHeader("Fancy", "foo")
+
+      val stats = cache.stats
+      stats.hits shouldEqual 2
+      stats.misses shouldEqual 2
+      stats.size shouldEqual 2
+    }
+
+    "not consult the shared cache for folded or uncacheable header values" in new TestSetup(
+      parserSettings = createParserSettings(system).withHeaderValueCacheLimits(Map("default" -> 12, "date" -> 0))) {
+      val cache = new SharedHeaderValueCache(maxEntries = 16, maxValueLength = 1000)
+      val root = parser.withSharedCache(cache)
+
+      root.createShallowCopy().parseHeaderLine(ByteString(s"Connection: foo,${newLine} bar${newLine}x"))()
+      root.createShallowCopy().parseHeaderLine(ByteString(s"Date: Wed, 13 Jul 2011 08:12:31 GMT${newLine}x"))()
+      a[NotEnoughDataException.type] should be thrownBy
+      root.createShallowCopy().parseHeaderLine(ByteString(s"User-Agent: curl/8.4.0${newLine}"))()
+
+      cache.stats.lookups shouldEqual 0
+    }
+
+    "evict values from a full shared cache" in new TestSetup() {
+      val cache = new SharedHeaderValueCache(maxEntries = 4, maxValueLength = 1000)
+      val root = parser.withSharedCache(cache)
+
+      val userAgents = (1 to 100).map(i => `User-Agent`(s"agent-$i"))
+      userAgents.foreach { header =>
+        val connectionParser = root.createShallowCopy()
+        connectionParser.parseHeaderLine(ByteString(s"$header${newLine}x"))()
+        connectionParser.resultHeader shouldEqual header
+      }
+
+      val stats = cache.stats
+      stats.size shouldEqual 4
+      stats.evictions shouldEqual 96
+    }
+
+    "report the shared cache statistics to the telemetry" in new TestSetup() {
+      val cache = new SharedHeaderValueCache(maxEntries = 16, maxValueLength = 1000)
+      val root = parser.withSharedCache(cache)
+      root.createShallowCopy().parseHeaderLine(ByteString(s"User-Agent: curl/8.4.0${newLine}x"))()
+      root.createShallowCopy().parseHeaderLine(ByteString(s"User-Agent: curl/8.4.0${newLine}x"))()
+
+      var reported: List[(Long, Long, Long, Int, Int)] = Nil
+      val telemetry = new TelemetrySpi {
+        override def client: BidiFlow[HttpRequest, HttpRequest, HttpResponse, HttpResponse, NotUsed] =
+          BidiFlow.identity
+        override def serverBinding: Flow[Tcp.IncomingConnection, Tcp.IncomingConnection, NotUsed] =
+          Flow[Tcp.IncomingConnection]
+        override def serverConnection: BidiFlow[HttpResponse, HttpResponse, HttpRequest, HttpRequest, NotUsed] =
+          BidiFlow.identity
+        override def serverSharedHeaderCacheStats(connectionAttributes: Attributes, hits: Long, misses: Long,
+            evictions: Long, size: Int, capacity: Int): Unit =
+          reported ::= ((hits, misses, evictions, size, capacity))
+      }
+      cache.report(NoLogging, telemetry, Attributes.none)
+      reported shouldEqual List((1L, 1L, 0L, 1, 16))
+    }
+
     "disables the logging of warning message when set the whitelist for illegal headers" in new TestSetup(
       testSetupMode = TestSetupMode.Default,
       parserSettings = createParserSettings(system).withIgnoreIllegalHeaderFor(List("Content-Type"))) {
@@ -255,6 +255,81 @@ abstract class RequestParserSpec(mode: String, newLine: String) extends AnyFreeS
           headers = List(Host("x"), `Strict-Transport-Security`(1, None)),
           protocol = `HTTP/1.1`))
       }
+
+      "with a complete header section followed by an incomplete one" in new Test {
+        Seq("""GET / HTTP/1.1
+          |Host: x
+          |
+          |GET /b HTTP/1.1
+          |Ho""", """st: y
+          |
+          |""") should multiParseTo(
+          HttpRequest(headers = List(Host("x"))),
+          HttpRequest(uri = "/b", headers = List(Host("y"))))
+        closeAfterResponseCompletion shouldEqual Seq(false, false)
+      }
+
+      "with more headers than collected by the fast path" in new Test {
+        override protected def parserSettings: ParserSettings =
+          super.parserSettings.withMaxHeaderCount(100)
+
+        val extraHeaders = (1 to 70).map(i => RawHeader(s"X-$i", i.toString))
+        s"""GET / HTTP/1.1
+          |Host: x
+          |${extraHeaders.map(h => s"${h.name}: ${h.value}").mkString("\n|")}
+          |
+          |""" should parseTo(HttpRequest(headers = Host("x") +: extraHeaders.toList))
+        closeAfterResponseCompletion shouldEqual Seq(false)
+      }
+
+      "with a `Host` header right after as many headers as the fast path collects" in new Test {
+        override protected def parserSettings: ParserSettings =
+          super.parserSettings.withMaxHeaderCount(100)
+
+        val extraHeaders = (1 to 64).map(i => RawHeader(s"X-$i", i.toString))
+        s"""GET / HTTP/1.1
+          |${extraHeaders.map(h => s"${h.name}: ${h.value}").mkString("\n|")}
+          |Host: x
+          |
+          |""" should parseTo(HttpRequest(headers = extraHeaders.toList :+ Host("x")))
+        closeAfterResponseCompletion shouldEqual Seq(false)
+      }
+
+      "with a `Connection` header right after as many headers as the fast path collects" in new Test {
+        override protected def parserSettings: ParserSettings =
+          super.parserSettings.withMaxHeaderCount(100)
+
+        val extraHeaders = (1 to 63).map(i => RawHeader(s"X-$i", i.toString))
+        s"""GET / HTTP/1.1
+          |Host: x
+          |${extraHeaders.map(h => s"${h.name}: ${h.value}").mkString("\n|")}
+          |Connection: close
+          |
+          |""" should parseTo(HttpRequest(headers = Host("x") +: extraHeaders.toList :+ Connection("close")))
+        closeAfterResponseCompletion shouldEqual Seq(true)
+      }
+
+      "with several `Connection` headers" in new Test {
+        """GET / HTTP/1.1
+          |Host: x
+          |Connection: keep-alive
+          |Connection: close
+          |
+          |""" should parseTo(HttpRequest(headers = List(Host("x"), Connection("keep-alive"))))
+        closeAfterResponseCompletion shouldEqual Seq(true)
+      }
+
+      "with headers before and after a header not handled by the fast path" in new Test {
+        """GET / HTTP/1.1
+          |Host: x
+          |X-A: a
+          |Content-Length: 0
+          |Content-Length: 0
+          |X-B: b
+          |
+          |""" should parseTo(HttpRequest(headers = List(Host("x"), RawHeader("X-A", "a"), RawHeader("X-B", "b"))))
+        closeAfterResponseCompletion shouldEqual Seq(false)
+      }
     }
 
     "properly parse a chunked request" - {
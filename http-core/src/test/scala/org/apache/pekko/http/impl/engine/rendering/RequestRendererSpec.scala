@@ -127,6 +127,26 @@ class RequestRendererSpec extends AnyFreeSpec with Matchers with BeforeAndAfterA
         }
       }
 
+      "PUT request, pre-rendered headers that need special treatment and a body" in new TestSetup() {
+        HttpRequest(PUT, "/abc/xyz",
+          List(
+            PreRenderedHeader(RawHeader("X-Fancy", "naa")),
+            PreRenderedHeader(Host("spray.io")),
+            PreRenderedHeader(`User-Agent`("my-client")),
+            PreRenderedHeader(`Content-Length`(42)),
+            PreRenderedHeader(`Content-Type`(ContentTypes.`application/json`)))).withEntity(
+          "The content please!") should renderTo {
+          """PUT /abc/xyz HTTP/1.1
+            |X-Fancy: naa
+            |Host: spray.io
+            |User-Agent: my-client
+            |Content-Type: text/plain; charset=UTF-8
+            |Content-Length: 19
+            |
+            |The content please!"""
+        }
+      }
+
       "PUT request with a custom Transfer-Encoding header" in new TestSetup() {
         HttpRequest(PUT, "/abc/xyz", List(`Transfer-Encoding`(TransferEncodings.Extension("fancy"))))
           .withEntity("The content please!") should renderTo {
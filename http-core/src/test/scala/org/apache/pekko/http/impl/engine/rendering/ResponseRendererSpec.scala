@@ -253,6 +253,57 @@ class ResponseRendererSpec extends AnyFreeSpec with Matchers with BeforeAndAfter
         }
       }
     }
+    "responses with a rendering buffer," - {
+      "the same way as without one when several responses are rendered over one connection" in new TestSetup(
+        renderingBufferSize = 256) {
+        val responses = List(
+          HttpResponse(200, entity = "first"),
+          // headers don't fit into what is left of the buffer
+          HttpResponse(400, List.tabulate(5)(i => RawHeader(s"X-Header-$i", "x" * 40)), "second"),
+          HttpResponse(entity = HttpEntity(ContentTypes.`text/plain(UTF-8)`, 5, Source.single(ByteString("third")))),
+          HttpResponse(204))
+
+        val rendered = renderAll(responses)
+        rendered shouldEqual new TestSetup().renderAll(responses)
+        rendered should include("X-Header-4")
+        rendered should endWith("Content-Length: 5\r\n\r\nthirdHTTP/1.1 204 No Content\r\n" +
+          "Server: pekko-http/1.0.0\r\nDate: Thu, 25 Aug 2011 09:10:29 GMT\r\n\r\n")
+      }
+    }
+    "responses with pre-rendered headers," - {
+      "the same way as the wrapped headers" in new TestSetup() {
+        HttpResponse(200,
+          List(PreRenderedHeader(Age(30)), PreRenderedHeader(RawHeader("X-Fancy", "of course")),
+            PreRenderedHeader(`Cache-Control`(CacheDirectives.`no-cache`))),
+          entity = "Yeah") should renderTo {
+          """HTTP/1.1 200 OK
+              |Age: 30
+              |X-Fancy: of course
+              |Cache-Control: no-cache
+              |Server: pekko-http/1.0.0
+              |Date: Thu, 25 Aug 2011 09:10:29 GMT
+              |Content-Type: text/plain; charset=UTF-8
+              |Content-Length: 4
+              |
+              |Yeah"""
+        }
+      }
+      "keeping the special treatment of the wrapped headers" in new TestSetup() {
+        ResponseRenderingContext(HttpResponse(200,
+          List(PreRenderedHeader(Server("my-server")), PreRenderedHeader(Connection("close")),
+            PreRenderedHeader(RawHeader("Content-Length", "42"))))) should renderTo(
+          """HTTP/1.1 200 OK
+              |Server: my-server
+              |Date: Thu, 25 Aug 2011 09:10:29 GMT
+              |Connection: close
+              |Content-Length: 0
+              |
+              |""", close = true)
+      }
+      "rejecting headers containing CR or LF on creation" in {
+        an[IllegalArgumentException] should be thrownBy PreRenderedHeader(RawHeader("X-Broken", "a\r\nb"))
+      }
+    }
     "a response with a Default (streamed with explicit content-length body," - {
       "status 400 and a few headers" in new TestSetup() {
         HttpResponse(400, List(Age(30), Connection("Keep-Alive")),
@@ -721,14 +772,15 @@ class ResponseRendererSpec extends AnyFreeSpec with Matchers with BeforeAndAfter
 
   override def afterAll() = TestKit.shutdownActorSystem(system)
 
-  class TestSetup(val serverHeader: Option[Server] = Some(Server("pekko-http/1.0.0"))) {
+  class TestSetup(val serverHeader: Option[Server] = Some(Server("pekko-http/1.0.0")),
+      renderingBufferSize: Int = 0) {
     private val rendererFactory = new HttpResponseRendererFactory(serverHeader, responseHeaderSizeHint = 64, NoLogging,
       new DateHeaderRendering {
         override def renderHeaderPair(): (String, String) = ???
         override def renderHeaderBytes(): Array[Byte] =
           (Date(DateTime(currentTimeMillis())).render(new ByteArrayRendering(24)) ~~ CrLf).get // fake rendering
         override def renderHeaderValue(): String = ???
-      })
+      }, renderingBufferSize)
 
     def awaitAtMost: FiniteDuration = 3.seconds.dilated
 
@@ -756,6 +808,15 @@ class ResponseRendererSpec extends AnyFreeSpec with Matchers with BeforeAndAfter
         }
       }
 
+    def renderAll(responses: List[HttpResponse]): String = {
+      val resultFuture =
+        Source(responses.map(ResponseRenderingContext(_)))
+          .via(rendererFactory.renderer.named("renderer"))
+          .collect { case ResponseRenderingOutput.HttpData(bytes) => bytes }
+          .runWith(Sink.fold(ByteString.empty)(_ ++ _))
+      Await.result(resultFuture, awaitAtMost).utf8String
+    }
+
     def currentTimeMillis(): Long = DateTime(2011, 8, 25, 9, 10, 29).clicks /* provide a stable date for testing */
   }
 
@@ -145,6 +145,42 @@ class HttpServerWithExplicitSchedulerSpec extends PekkoSpecWithMaterializer(
         netIn.sendComplete()
       })
 
+      "apply to each pipelined request" in assertAllStagesStopped(new RequestTimeoutTestSetup(50.millis) {
+        override def settings = super.settings.withPipeliningLimit(2)
+
+        send("GET /first HTTP/1.1\r\nHost: example.com\r\n\r\nGET /second HTTP/1.1\r\nHost: example.com\r\n\r\n")
+        expectRequest().header[`Timeout-Access`].foreach(_.timeoutAccess.updateTimeout(250.millis))
+        expectRequest().uri.path.toString shouldEqual "/second"
+
+        // the second request times out while the first one is still being handled
+        scheduler.timePasses(100.millis)
+        netOut.expectNoBytes(Duration.Zero)
+
+        responses.sendNext(HttpResponse())
+        expectResponseWithWipedDate(
+          """HTTP/1.1 200 OK
+            |Server: pekko-http/test
+            |Date: XXXX
+            |Content-Length: 0
+            |
+            |""")
+        expectResponseWithWipedDate(
+          """HTTP/1.1 503 Service Unavailable
+            |Server: pekko-http/test
+            |Date: XXXX
+            |Content-Type: text/plain; charset=UTF-8
+            |Content-Length: 105
+            |
+            |The server was not able to produce a timely response to your request.
+            |Please try again in a short while!""")
+
+        requests.expectComplete()
+        responses.sendError(new RuntimeException)
+
+        netOut.expectComplete()
+        netIn.sendComplete()
+      })
+
       "have a programmatically set timeout handler" in assertAllStagesStopped(new RequestTimeoutTestSetup(400.millis) {
         send("GET / HTTP/1.1\r\nHost: example.com\r\n\r\n")
         val timeoutResponse = HttpResponse(StatusCodes.InternalServerError, entity = "OOPS!")
@@ -301,6 +301,36 @@ class FramingSpec extends PekkoSpecWithMaterializer {
     }
   }
 
+  "The WebSocket frame masking" should {
+    def maskBytewise(bytes: ByteString, mask: Int): ByteString =
+      ByteString(bytes.toArray.zipWithIndex.map {
+        case (b, i) => (b ^ (mask >>> (24 - (i % 4) * 8))).toByte
+      })
+    val data = ByteString(Array.tabulate[Byte](1031)(_.toByte))
+    val mask = 0xA1B2C3D4
+
+    "XOR each byte with the corresponding byte of the mask" in {
+      ((0 to 33).map(data.take) :+ data).foreach { bytes =>
+        FrameEventParser.mask(bytes, mask)._1 shouldEqual maskBytewise(bytes, mask)
+      }
+    }
+    "continue with the right mask for the bytes following in the same frame" in {
+      (0 to 17).foreach { split =>
+        val (first, newMask) = FrameEventParser.mask(data.take(split), mask)
+        val (second, _) = FrameEventParser.mask(data.drop(split), newMask)
+        (first ++ second) shouldEqual maskBytewise(data, mask)
+      }
+    }
+    "mask bytes spread over several chunks" in {
+      val chunked = data.grouped(5).reduce(_ ++ _)
+      FrameEventParser.mask(chunked, mask)._1 shouldEqual maskBytewise(data, mask)
+    }
+    "be its own inverse" in {
+      val masked = FrameEventParser.mask(data, mask)._1
+      FrameEventParser.mask(masked, mask)._1 shouldEqual data
+    }
+  }
+
   private def parseTo(events: FrameEvent*): Matcher[ByteString] =
     parseMultipleTo(events: _*).compose(Seq(_))
 
@@ -257,6 +257,19 @@ class MessageSpec extends PekkoSpecWithMaterializer(
           expectTextMessage(TextMessage.Strict(""))
         }
       }
+      "drop the rest of a streamed message the user cancelled" in new ClientTestSetup {
+        pushInput(frameHeader(Opcode.Binary, 3, fin = false) ++ ByteString("abc"))
+        val sub = TestSubscriber.manualProbe[ByteString]()
+        expectBinaryMessage().dataStream.runWith(Sink.fromSubscriber(sub))
+        val s = sub.expectSubscription()
+        s.request(1)
+        sub.expectNext(ByteString("abc"))
+        s.cancel()
+
+        pushInput(frameHeader(Opcode.Continuation, 3, fin = true) ++ ByteString("def"))
+        pushInput(frameHeader(Opcode.Binary, 3, fin = true) ++ ByteString("ghi"))
+        expectBinaryMessage(BinaryMessage.Strict(ByteString("ghi")))
+      }
       "apply backpressure to the network if a message isn't read by the user" in new ServerTestSetup {
         val mask = Random.nextInt()
         val header = frameHeader(Opcode.Text, 65535, fin = false, mask = Some(mask))
@@ -870,6 +883,12 @@ class MessageSpec extends PekkoSpecWithMaterializer(
           data)
         expectCloseCodeOnNetwork(Protocol.CloseCodes.InconsistentData)
       }
+      "truncated utf8 encoding for streamed frame ending with an empty continuation" in new ClientTestSetup {
+        val data = ByteString("€", UTF_8).take(1) // half a euro
+        pushInput(frameHeader(Opcode.Text, 1, fin = false) ++ data ++
+          frameHeader(Opcode.Continuation, 0, fin = true))
+        expectCloseCodeOnNetwork(Protocol.CloseCodes.InconsistentData)
+      }
       "half a surrogate pair in utf8 encoding for a strict frame" in new ClientTestSetup {
         val data = ByteString(0xED, 0xA0, 0x80) // not strictly supported by utf-8
         pushInput(frameHeader(Opcode.Text, 3, fin = true) ++ data)
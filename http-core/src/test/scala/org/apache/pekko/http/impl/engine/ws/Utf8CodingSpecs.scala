@@ -47,6 +47,30 @@ class Utf8CodingSpecs extends PekkoSpecWithMaterializer with ScalaCheckPropertyC
         decodeUtf8(encodeUtf8(utf16)) shouldEqual utf16
       }
     }
+    "decode ASCII and non-ASCII characters at any position relative to the eight byte words" in {
+      for {
+        prefix <- 0 to 17
+        char <- Seq("a", "\u00e4", "\u20ac", "\ud83d\ude00")
+      } {
+        val text = "x" * prefix + char + "y" * 9
+        Utf8Decoder.decode(ByteString(text, "UTF-8")).get shouldEqual text
+        decodeUtf8(ByteString(text, "UTF-8")) shouldEqual text
+      }
+    }
+    "reject invalid bytes after a run of ASCII characters" in {
+      for (prefix <- 0 to 17) {
+        val bytes = ByteString("x" * prefix, "UTF-8") ++ ByteString(0xFF) ++ ByteString("y" * 9, "UTF-8")
+        Utf8Decoder.decode(bytes).isFailure shouldBe true
+      }
+    }
+    "reject a character truncated at the end of input" in {
+      Utf8Decoder.decode(ByteString("abcdefghij\u20ac", "UTF-8").dropRight(1)).isFailure shouldBe true
+    }
+    "reject a character truncated by empty input at the end" in {
+      val decoder = Utf8Decoder.create()
+      decoder.decode(ByteString("abc\u20ac", "UTF-8").dropRight(1), endOfInput = false).get shouldEqual "abc"
+      decoder.decode(ByteString.empty, endOfInput = true).isFailure shouldBe true
+    }
   }
 
   def encodeUtf8(str: String): ByteString =
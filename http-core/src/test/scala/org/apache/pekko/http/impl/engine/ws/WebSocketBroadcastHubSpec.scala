@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.ws
+
+import scala.concurrent.duration._
+
+import org.apache.pekko
+import pekko.http.impl.util._
+import pekko.http.scaladsl.model.ws.{ BinaryMessage, Message, TextMessage, WebSocketBroadcastHub }
+import pekko.http.scaladsl.model.ws.WebSocketBroadcastHub.OverflowPolicy
+import pekko.stream.BufferOverflowException
+import pekko.stream.scaladsl.{ Keep, Sink, Source }
+import pekko.stream.testkit.scaladsl.{ TestSink, TestSource }
+import pekko.util.ByteString
+
+class WebSocketBroadcastHubSpec extends PekkoSpecWithMaterializer {
+  val text = TextMessage.Strict("market data market data market data")
+
+  def render(message: Message, compress: Boolean, sendPreCompressed: Boolean, minMessageSize: Long = 0): FrameStart =
+    Source.single(message)
+      .via(MessageToFrameRenderer.create(
+        serverSide = true, Some((_: Message) => compress), sendPreCompressed, minMessageSize))
+      .runWith(Sink.head)
+      .awaitResult(3.seconds)
+
+  def hub(policy: OverflowPolicy) = {
+    val (publisher, subscribe) =
+      TestSource[Message]().toMat(WebSocketBroadcastHub(subscriberBufferSize = 2, policy))(Keep.both).run()
+    val subscriber = subscribe.runWith(TestSink[Message]())
+    (publisher, subscriber)
+  }
+
+  "A PreEncodedMessage" should {
+    "be rendered to the same frame on every connection" in {
+      val encoded = PreEncodedMessage(text, compressionLevel = -1)
+      encoded shouldEqual text
+      PreEncodedMessage.of(text) shouldBe null // the message of the user is not changed
+
+      val frame = render(encoded, compress = false, sendPreCompressed = false)
+      frame shouldEqual FrameEvent.fullFrame(Protocol.Opcode.Text, None, ByteString(text.text), fin = true)
+      render(encoded, compress = false, sendPreCompressed = false) should be theSameInstanceAs frame
+    }
+    "send the pre-compressed frame only on connections without context takeover" in {
+      val encoded = PreEncodedMessage(BinaryMessage.Strict(ByteString(text.text)), compressionLevel = 6)
+
+      val preCompressed = render(encoded, compress = true, sendPreCompressed = true)
+      preCompressed.header.rsv1 shouldBe true
+      preCompressed.header.preCompressed shouldBe true
+      preCompressed.data shouldEqual PerMessageDeflate.compressMessage(ByteString(text.text), 6)
+
+      // compressed by the connection itself
+      val toCompress = render(encoded, compress = true, sendPreCompressed = false)
+      toCompress.header.rsv1 shouldBe true
+      toCompress.header.preCompressed shouldBe false
+      toCompress.data shouldEqual ByteString(text.text)
+
+      render(encoded, compress = false, sendPreCompressed = true).header.rsv1 shouldBe false
+    }
+    "leave messages below the minimum size to the compression policy of the connection" in {
+      val encoded = PreEncodedMessage(text, compressionLevel = 6)
+
+      val frame = render(encoded, compress = true, sendPreCompressed = true, minMessageSize = text.text.length + 1)
+      frame.header.preCompressed shouldBe false
+      frame.data shouldEqual ByteString(text.text)
+
+      render(encoded, compress = true, sendPreCompressed = true, minMessageSize = text.text.length)
+        .header.preCompressed shouldBe true
+    }
+    "not be kept by copies of the message" in {
+      val encoded = PreEncodedMessage(text, compressionLevel = -1).asInstanceOf[TextMessage.Strict]
+      val changed = encoded.copy(text = "changed")
+      PreEncodedMessage.of(changed) shouldBe null
+      render(changed, compress = false, sendPreCompressed = false).data shouldEqual ByteString("changed")
+    }
+    "not be created from streamed messages" in {
+      an[IllegalArgumentException] should be thrownBy
+      PreEncodedMessage(TextMessage(Source.single("streamed")), compressionLevel = -1)
+    }
+  }
+
+  "The WebSocketBroadcastHub" should {
+    "send pre-encoded messages to its subscribers" in {
+      val (publisher, subscriber) = hub(OverflowPolicy.DropOldest)
+      publisher.sendNext(text)
+      val message = subscriber.requestNext()
+      message shouldEqual text
+      PreEncodedMessage.of(message) should not be null
+      publisher.sendComplete()
+      subscriber.expectComplete()
+    }
+    "drop the oldest messages of slow subscribers" in {
+      val (publisher, subscriber) = hub(OverflowPolicy.DropOldest)
+      (1 to 5).foreach(i => publisher.sendNext(TextMessage.Strict(i.toString)))
+      subscriber.expectSubscription()
+      subscriber.expectNoMessage(100.millis)
+
+      subscriber.request(5)
+      subscriber.expectNext(TextMessage.Strict("4"), TextMessage.Strict("5"))
+      subscriber.expectNoMessage(100.millis)
+      publisher.sendComplete()
+      subscriber.expectComplete()
+    }
+    "disconnect slow subscribers" in {
+      val (publisher, subscriber) = hub(OverflowPolicy.Disconnect)
+      (1 to 3).foreach(i => publisher.sendNext(TextMessage.Strict(i.toString)))
+      subscriber.expectSubscriptionAndError() shouldBe a[BufferOverflowException]
+      publisher.sendComplete()
+    }
+    "conflate the messages of slow subscribers to the latest" in {
+      val (publisher, subscriber) = hub(OverflowPolicy.Conflate)
+      (1 to 5).foreach(i => publisher.sendNext(TextMessage.Strict(i.toString)))
+      subscriber.expectSubscription()
+      subscriber.expectNoMessage(100.millis)
+
+      subscriber.request(5)
+      subscriber.expectNext(TextMessage.Strict("5"))
+      subscriber.expectNoMessage(100.millis)
+      publisher.sendComplete()
+      subscriber.expectComplete()
+    }
+    "fail on streamed messages" in {
+      val (publisher, subscriber) = hub(OverflowPolicy.DropOldest)
+      publisher.sendNext(TextMessage(Source.single("streamed")))
+      subscriber.expectSubscriptionAndError() shouldBe an[IllegalArgumentException]
+    }
+  }
+}
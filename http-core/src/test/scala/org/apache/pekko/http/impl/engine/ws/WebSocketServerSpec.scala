@@ -22,12 +22,15 @@ import java.util.zip.Deflater
 import java.util.zip.Inflater
 
 import org.apache.pekko
+import pekko.NotUsed
 import pekko.actor.ActorSystem
+import pekko.http.impl.engine.http2.TelemetrySpi
 import pekko.http.javadsl.model.ws.{ Message => JavaMessage, TextMessage => JavaTextMessage }
 import pekko.http.scaladsl.model.ws._
+import pekko.http.scaladsl.model.{ HttpRequest, HttpResponse }
 import pekko.http.scaladsl.model.AttributeKeys.webSocketUpgrade
-import pekko.stream.Materializer
-import pekko.stream.scaladsl.{ Flow, Keep, Sink, Source }
+import pekko.stream.{ Attributes, Materializer }
+import pekko.stream.scaladsl.{ BidiFlow, Flow, Keep, Sink, Source, Tcp }
 import pekko.stream.testkit.Utils
 import pekko.stream.testkit.scaladsl.TestSink
 import pekko.util.ByteString
@@ -1254,6 +1257,222 @@ class WebSocketServerSpec extends PekkoSpecWithMaterializer("pekko.http.server.w
         }
       }
 
+      "negotiate no context takeover in both directions when configured" in Utils.assertAllStagesStopped {
+        new TestSetup {
+          override def settings = {
+            val defaults = super.settings.websocketSettings.asInstanceOf[WebSocketSettingsImpl]
+            super.settings.withWebsocketSettings(
+              defaults.copy(compression = defaults.compression.copy(noContextTakeover = true)))
+          }
+
+          sendWebSocketRequest("Sec-WebSocket-Extensions: permessage-deflate\r\n")
+
+          val request = expectRequest()
+          val upgrade = request.attribute(webSocketUpgrade)
+          val message = "same server message same server message same server message"
+          val response = upgrade.get.handleMessages(
+            Flow.fromSinkAndSource(
+              Sink.ignore,
+              Source(List(TextMessage.Strict(message), TextMessage.Strict(message)))))
+          responses.sendNext(response)
+
+          expectResponseWithWipedDate(
+            """HTTP/1.1 101 Switching Protocols
+              |Upgrade: websocket
+              |Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo=
+              |Sec-WebSocket-Extensions: permessage-deflate; client_no_context_takeover; server_no_context_takeover
+              |Server: pekko-http/test
+              |Date: XXXX
+              |Connection: upgrade
+              |
+              |""")
+
+          val firstPayload = expectCompressedFrame(Protocol.Opcode.Text, fin = true, rsv1 = true)
+          val secondPayload = expectCompressedFrame(Protocol.Opcode.Text, fin = true, rsv1 = true)
+          firstPayload shouldEqual deflatePerMessage(ByteString(message))
+          secondPayload shouldEqual firstPayload
+          expectWSCloseFrame(Protocol.CloseCodes.Regular)
+
+          sendWSCloseFrame(Protocol.CloseCodes.Regular, mask = true)
+          closeNetworkInput()
+          expectNetworkClose()
+        }
+      }
+
+      "send the pre-compressed frame of a broadcast message without context takeover" in
+      Utils.assertAllStagesStopped {
+        new TestSetup {
+          override def settings = {
+            val defaults = super.settings.websocketSettings.asInstanceOf[WebSocketSettingsImpl]
+            super.settings.withWebsocketSettings(
+              defaults.copy(compression = defaults.compression.copy(noContextTakeover = true)))
+          }
+
+          sendWebSocketRequest("Sec-WebSocket-Extensions: permessage-deflate\r\n")
+
+          val request = expectRequest()
+          val upgrade = request.attribute(webSocketUpgrade)
+          val message = "broadcast message broadcast message broadcast message"
+          val response = upgrade.get.handleMessages(
+            Flow.fromSinkAndSource(
+              Sink.ignore,
+              Source.single(PreEncodedMessage(TextMessage.Strict(message), compressionLevel = 1))))
+          responses.sendNext(response)
+
+          expectResponseWithWipedDate(
+            """HTTP/1.1 101 Switching Protocols
+              |Upgrade: websocket
+              |Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo=
+              |Sec-WebSocket-Extensions: permessage-deflate; client_no_context_takeover; server_no_context_takeover
+              |Server: pekko-http/test
+              |Date: XXXX
+              |Connection: upgrade
+              |
+              |""")
+
+          // compressed up front with level 1 instead of the connection's level 6
+          expectCompressedFrame(Protocol.Opcode.Text, fin = true, rsv1 = true) shouldEqual
+          deflatePerMessage(ByteString(message), compressionLevel = 1)
+          expectWSCloseFrame(Protocol.CloseCodes.Regular)
+
+          sendWSCloseFrame(Protocol.CloseCodes.Regular, mask = true)
+          closeNetworkInput()
+          expectNetworkClose()
+        }
+      }
+
+      "reuse pooled compression instances up to the pool size" in {
+        val pool = new PerMessageDeflate.PooledCompressionFactory(maxIdle = 1)
+
+        val inflater1 = pool.newInflater()
+        val inflater2 = pool.newInflater()
+        pool.releaseInflater(inflater1)
+        pool.releaseInflater(inflater2) // pool is full, ended
+        pool.newInflater() shouldBe theSameInstanceAs(inflater1)
+        pool.newInflater() should (not be theSameInstanceAs(inflater1) and not be theSameInstanceAs(inflater2))
+
+        val deflater = pool.newDeflater(1)
+        pool.releaseDeflater(deflater)
+        pool.newDeflater(9) should not be theSameInstanceAs(deflater)
+        pool.newDeflater(1) shouldBe theSameInstanceAs(deflater)
+      }
+
+      "apply the compression policy of the WebSocket settings" in Utils.assertAllStagesStopped {
+        new TestSetup {
+          override def settings =
+            super.settings.withWebsocketSettings(
+              super.settings.websocketSettings
+                .withCompressionMinMessageSize(10)
+                .withCompressionFilter(_.isText))
+
+          sendWebSocketRequest("Sec-WebSocket-Extensions: permessage-deflate\r\n")
+
+          val request = expectRequest()
+          val upgrade = request.attribute(webSocketUpgrade)
+          val message = "compressed server message"
+          val response = upgrade.get.handleMessages(
+            Flow.fromSinkAndSource(
+              Sink.ignore,
+              Source(List(
+                TextMessage.Strict("small"),
+                BinaryMessage.Strict(ByteString(message)),
+                TextMessage.Strict(message)))))
+          responses.sendNext(response)
+
+          expectResponseWithWipedDate(
+            """HTTP/1.1 101 Switching Protocols
+              |Upgrade: websocket
+              |Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo=
+              |Sec-WebSocket-Extensions: permessage-deflate
+              |Server: pekko-http/test
+              |Date: XXXX
+              |Connection: upgrade
+              |
+              |""")
+
+          expectWSFrame(Protocol.Opcode.Text, ByteString("small"), fin = true)
+          expectWSFrame(Protocol.Opcode.Binary, ByteString(message), fin = true)
+          inflatePerMessage(expectCompressedFrame(Protocol.Opcode.Text, fin = true, rsv1 = true)).utf8String shouldEqual
+          message
+          expectWSCloseFrame(Protocol.CloseCodes.Regular)
+
+          sendWSCloseFrame(Protocol.CloseCodes.Regular, mask = true)
+          closeNetworkInput()
+          expectNetworkClose()
+        }
+      }
+
+      "back off from compressing messages that do not compress well" in {
+        val deflater = policyDeflaterFlow(
+          compressionSettings.copy(maxCompressionRatio = 0.9, ratioSampleSize = 2, backOffMessages = 3))
+        val random = new scala.util.Random(42)
+        val incompressible = FrameEvent.fullFrame(
+          Protocol.Opcode.Binary, None, ByteString(Array.fill[Byte](1024)(random.nextInt().toByte)), fin = true)
+        def compressed(): Boolean = deflater(incompressible).head.asInstanceOf[FrameStart].header.rsv1
+
+        try {
+          Seq.fill(2)(compressed()) shouldEqual Seq(true, true) // sampled
+          Seq.fill(3)(compressed()) shouldEqual Seq(false, false, false) // backing off
+          compressed() shouldEqual true // sampled again
+        } finally deflater.close()
+      }
+
+      "keep compressing messages that compress well" in {
+        val deflater = policyDeflaterFlow(
+          compressionSettings.copy(maxCompressionRatio = 0.9, ratioSampleSize = 2, backOffMessages = 3))
+        val compressible = FrameEvent.fullFrame(Protocol.Opcode.Text, None, ByteString("a" * 1024), fin = true)
+
+        try Seq.fill(6)(deflater(compressible).head.asInstanceOf[FrameStart].header.rsv1) shouldEqual Seq.fill(6)(true)
+        finally deflater.close()
+      }
+
+      "report compressed frames and messages sent uncompressed to the telemetry" in {
+        val compressedFrames = new AtomicInteger
+        val uncompressedMessages = new AtomicInteger
+        val telemetry = new TelemetrySpi {
+          override def client: BidiFlow[HttpRequest, HttpRequest, HttpResponse, HttpResponse, NotUsed] =
+            BidiFlow.identity
+          override def serverBinding: Flow[Tcp.IncomingConnection, Tcp.IncomingConnection, NotUsed] =
+            Flow[Tcp.IncomingConnection]
+          override def serverConnection: BidiFlow[HttpResponse, HttpResponse, HttpRequest, HttpRequest, NotUsed] =
+            BidiFlow.identity
+          override def webSocketFrameCompressed(connectionAttributes: Attributes, uncompressedBytes: Int,
+              compressedBytes: Int, compressionNanos: Long): Unit = {
+            uncompressedBytes shouldEqual 1024
+            compressedBytes should be < 1024
+            compressedFrames.incrementAndGet()
+          }
+          override def webSocketMessageSentUncompressed(connectionAttributes: Attributes): Unit =
+            uncompressedMessages.incrementAndGet()
+        }
+        val deflater = policyDeflaterFlow(compressionSettings.copy(minMessageSize = 100))
+        deflater.open(telemetry, Attributes.none)
+
+        try {
+          deflater(FrameEvent.fullFrame(Protocol.Opcode.Text, None, ByteString("a" * 1024), fin = true))
+          deflater(FrameEvent.fullFrame(Protocol.Opcode.Text, None, ByteString("small"), fin = true))
+          compressedFrames.get() shouldEqual 1
+          uncompressedMessages.get() shouldEqual 1
+        } finally deflater.close()
+      }
+
+      "pass pre-compressed frames through unchanged" in {
+        val deflater = new PerMessageDeflate.DeflaterFlow(
+          noContextTakeover = false,
+          compressionSettings,
+          PerMessageDeflate.compressionFactory(noContextTakeover = false, compressionSettings),
+          start => start.header.rsv1 && !start.header.preCompressed,
+          rsv1IndicatesCompression = true)
+        val compressed = deflatePerMessage(ByteString("pre-compressed message"))
+        val frame =
+          FrameStart(
+            FrameHeader(Protocol.Opcode.Text, None, compressed.length, fin = true, rsv1 = true, preCompressed = true),
+            compressed)
+
+        try deflater(frame) shouldEqual List(frame)
+        finally deflater.close()
+      }
+
       "not compress server control frames" in Utils.assertAllStagesStopped {
         new TestSetup {
           sendWebSocketRequest("Sec-WebSocket-Extensions: permessage-deflate\r\n")
@@ -1850,6 +2069,14 @@ class WebSocketServerSpec extends PekkoSpecWithMaterializer("pekko.http.server.w
       compressionSettings,
       compressionFactory)
 
+  private def policyDeflaterFlow(settings: WebSocketCompressionSettingsImpl) =
+    new PerMessageDeflate.DeflaterFlow(
+      noContextTakeover = false,
+      settings,
+      PerMessageDeflate.compressionFactory(noContextTakeover = false, settings),
+      _ => true,
+      rsv1IndicatesCompression = false)
+
   private final class TrackingCompression extends PerMessageDeflate.CompressionFactory {
     private val inflaterCreated = new AtomicInteger
     private val deflaterCreated = new AtomicInteger
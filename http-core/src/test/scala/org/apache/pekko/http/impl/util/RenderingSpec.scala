@@ -51,6 +51,28 @@ class RenderingSpec extends PekkoSpecWithMaterializer with Matchers {
     }
   }
 
+  "The ByteArrayRendering" should {
+    "not touch the bytes of earlier renderings when rendering several times into the same array" in {
+      val r = new ByteArrayRendering(16, Logging(system, "test").warning)
+      val first = (r ~~ "first").asByteString
+      r.startNext(4)
+      val second = (r ~~ "second").asByteString
+      r.startNext(4) // 5 bytes left
+      // grows into a new array, taking only the current rendering along
+      r ~~ "thi"
+      val third = (r ~~ "rd, longer than the array").asByteString
+      r.startNext(8) // starts in a new array
+      val fourth = EventFilter.warning(pattern = "Invalid outgoing header was discarded").intercept {
+        (r ~~ "fourth" ~~ RawHeader("Test", "broken\nvalue")).asByteString
+      }
+
+      first.utf8String shouldEqual "first"
+      second.utf8String shouldEqual "second"
+      third.utf8String shouldEqual "third, longer than the array"
+      fourth.utf8String shouldEqual "fourth"
+    }
+  }
+
   "Renderings" should {
     trait RenderingSetup {
       type R <: Rendering
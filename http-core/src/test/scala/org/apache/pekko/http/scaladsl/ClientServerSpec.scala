@@ -153,6 +153,23 @@ abstract class ClientServerSpecBase(http2: Boolean) extends PekkoSpecWithMateria
       Await.result(b1.unbind(), 1.second.dilated)
     }
 
+    "run with several accept listeners" in {
+      val settings = ServerSettings(system).withAcceptListeners(4)
+      val binding = Http().newServerAt("localhost", 0).withSettings(settings).bindSync(_ => HttpResponse())
+      val b1 = Await.result(binding, 3.seconds.dilated)
+
+      def runRequest(): Future[HttpResponse] =
+        Http().connectionTo("localhost").toPort(b1.localAddress.getPort).http()
+          .runWith(Source.single(HttpRequest(uri = "/abc")), Sink.head)._2
+
+      val responses = Await.result(Future.sequence(List.fill(20)(runRequest())), 3.seconds.dilated)
+      responses.map(_.status).distinct shouldEqual List(StatusCodes.OK)
+
+      Await.result(b1.terminate(1.second), 3.seconds.dilated)
+      // none of the listeners accepts connections anymore
+      runRequest().failed.futureValue shouldBe a[StreamTcpException]
+    }
+
     "prevent more than the configured number of max-connections with bind" in {
       val settings = ServerSettings(system).withMaxConnections(1)
 
@@ -104,6 +104,16 @@ class HttpMessageSpec extends AnyWordSpec with Matchers {
       val request = HttpRequest().withHeaders(oneCookieHeader, anotherCookieHeader, hostHeader)
       request.headers[`Set-Cookie`] should ===(Seq(oneCookieHeader, anotherCookieHeader))
     }
+    "look into pre-rendered headers when retrieving headers by class" in {
+      val cacheControl = `Cache-Control`(CacheDirectives.`no-cache`)
+      val cookieHeader = `Set-Cookie`(HttpCookie("foo", "bar"))
+      val response = HttpResponse().withHeaders(PreRenderedHeader(cacheControl), PreRenderedHeader(cookieHeader),
+        `Set-Cookie`(HttpCookie("foz", "baz")))
+      response.header[`Cache-Control`] shouldBe Some(cacheControl)
+      response.getHeader(classOf[jm.headers.CacheControl]).get shouldBe cacheControl
+      response.headers[`Set-Cookie`] should ===(Seq(cookieHeader, `Set-Cookie`(HttpCookie("foz", "baz"))))
+      response.header[PreRenderedHeader] shouldBe Some(PreRenderedHeader(cacheControl))
+    }
     "retrieve an attribute by key" in {
       val oneStringKey = AttributeKey[String]("one")
       // keys with the same type but different names should be different
@@ -37,6 +37,20 @@ class Http2CommonSettingsSpec extends PekkoSpec {
       }
     }
 
+    "require the maximum buffer sizes of adaptive flow control to be at least the initial ones" in {
+      val default = Http2ServerSettings(system).withAdaptiveFlowControl(true)
+      default.withMaxIncomingStreamLevelBufferSize(default.incomingStreamLevelBufferSize) // equal is ok
+      intercept[IllegalArgumentException] {
+        default.withMaxIncomingConnectionLevelBufferSize(default.incomingConnectionLevelBufferSize - 1)
+      }
+      intercept[IllegalArgumentException] {
+        default.withMaxIncomingStreamLevelBufferSize(default.incomingStreamLevelBufferSize - 1)
+      }
+      // without adaptive flow control the maximum sizes are not used
+      default.withAdaptiveFlowControl(false)
+        .withMaxIncomingStreamLevelBufferSize(default.incomingStreamLevelBufferSize - 1)
+    }
+
   }
 
 }
@@ -68,7 +68,11 @@ object Encoder {
   private[coding] def isCompressible(msg: HttpMessage): Boolean =
     msg.entity.contentType.mediaType.isCompressible
 
-  private[coding] val isContentEncodingHeader: HttpHeader => Boolean = _.isInstanceOf[`Content-Encoding`]
+  private[coding] val isContentEncodingHeader: HttpHeader => Boolean = {
+    case _: `Content-Encoding`                    => true
+    case PreRenderedHeader(_: `Content-Encoding`) => true
+    case _                                        => false
+  }
 }
 
 /** A stateful object representing ongoing compression. */
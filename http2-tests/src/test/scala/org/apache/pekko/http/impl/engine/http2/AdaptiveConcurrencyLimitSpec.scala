@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import org.apache.pekko
+import pekko.http.scaladsl.settings.Http2ServerSettings
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class AdaptiveConcurrencyLimitSpec extends AnyWordSpec with Matchers {
+  val Millis = 1000000L
+
+  /** Dispatches and answers `n` requests with the given latency, returns the limits that were advertised */
+  def respond(limit: AdaptiveConcurrencyLimit, n: Int, latencyMillis: Long): Seq[Int] = {
+    var now = 0L
+    (1 to n).map { i =>
+      limit.onRequestDispatched(i, now)
+      now += latencyMillis * Millis
+      limit.onResponse(i, now)
+    }.filter(_ != -1)
+  }
+
+  "The AdaptiveConcurrencyLimit" should {
+    "only be created if enabled in the settings" in {
+      AdaptiveConcurrencyLimit(Http2ServerSettings("")) shouldBe None
+      AdaptiveConcurrencyLimit(Http2ServerSettings("").withAdaptiveConcurrencyEnabled(true)) shouldBe defined
+    }
+    "keep the maximum limit while the latency is stable" in {
+      val limit = new AdaptiveConcurrencyLimit(8, 100, 2.0)
+      respond(limit, 100, 1) shouldBe empty
+      limit.limit shouldBe 100
+    }
+    "shrink the limit down to the minimum when the latency rises and grow it again when it recovers" in {
+      val limit = new AdaptiveConcurrencyLimit(8, 100, 2.0)
+      respond(limit, 20, 1)
+
+      val shrinking = respond(limit, 50, 20)
+      shrinking should not be empty
+      shrinking shouldBe shrinking.sorted.reverse
+      shrinking.last shouldBe 8
+      limit.limit shouldBe 8
+
+      val growing = respond(limit, 100, 1)
+      growing should not be empty
+      growing shouldBe growing.sorted
+      growing.last shouldBe 100
+      limit.limit shouldBe 100
+    }
+    "only advertise changes of at least 10%" in {
+      val limit = new AdaptiveConcurrencyLimit(8, 100, 2.0)
+      respond(limit, 20, 1)
+      val advertised = 100 +: respond(limit, 50, 20)
+      advertised.sliding(2).foreach {
+        case Seq(previous, next) if next != 8 => (previous - next) * 10 should be >= previous
+        case _                                =>
+      }
+    }
+    "enforce a lowered limit only after the peer acknowledged it" in {
+      val limit = new AdaptiveConcurrencyLimit(8, 100, 2.0)
+      respond(limit, 20, 1)
+      respond(limit, 50, 20).size should be > 1
+      limit.enforcedLimit shouldBe 100
+
+      // the initial SETTINGS frame
+      limit.onSettingsAcknowledged()
+      limit.enforcedLimit should be < 100
+      limit.enforcedLimit should be > 8
+
+      while (limit.enforcedLimit != 8) limit.onSettingsAcknowledged()
+      limit.enforcedLimit shouldBe limit.limit
+    }
+    "track the requests waiting for a response" in {
+      val limit = new AdaptiveConcurrencyLimit(8, 100, 2.0)
+      limit.onRequestDispatched(1, 0)
+      limit.onRequestDispatched(3, 0)
+      limit.pendingRequests shouldBe 2
+      limit.onResponse(1, Millis)
+      limit.pendingRequests shouldBe 1
+      // a response for a stream that was not dispatched, e.g. an error response
+      limit.onResponse(5, Millis) shouldBe -1
+      limit.pendingRequests shouldBe 1
+    }
+  }
+}
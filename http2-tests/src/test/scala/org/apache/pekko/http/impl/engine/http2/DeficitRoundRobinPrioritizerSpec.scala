@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class DeficitRoundRobinPrioritizerSpec extends AnyWordSpec with Matchers {
+
+  /**
+   * Simulates the multiplexer: every stream always has data and sends frames of the given size, it is enqueued again
+   * right after it was served. Returns the ids of the streams in the order they were served.
+   */
+  def serve(queue: StreamPrioritizer.SendQueue, frameSizes: Map[Int, Int], frames: Int): Seq[Int] = {
+    frameSizes.keys.toSeq.sorted.foreach(queue.enqueue)
+    (1 to frames).map { _ =>
+      val streamId = queue.dequeue()
+      queue.onDataSent(streamId, frameSizes(streamId))
+      queue.enqueue(streamId)
+      streamId
+    }
+  }
+
+  "The DeficitRoundRobinPrioritizer" should {
+    "serve all streams in turn if all of them send the quantum per frame" in {
+      val queue = new DeficitRoundRobinPrioritizer(1000).newSendQueue()
+      serve(queue, Map(1 -> 1000, 3 -> 1000, 5 -> 1000), 6) shouldBe Seq(1, 3, 5, 1, 3, 5)
+    }
+    "let a stream send several small frames per turn" in {
+      val queue = new DeficitRoundRobinPrioritizer(1000).newSendQueue()
+      serve(queue, Map(1 -> 1000, 3 -> 250), 10) shouldBe Seq(1, 3, 3, 3, 3, 1, 3, 3, 3, 3)
+    }
+    "make a stream that overdraws its quantum skip turns" in {
+      val queue = new DeficitRoundRobinPrioritizer(1000).newSendQueue()
+      serve(queue, Map(1 -> 3000, 3 -> 1000), 8) shouldBe Seq(1, 3, 3, 3, 1, 3, 3, 3)
+    }
+    "drop the credit of a stream that ran out of data" in {
+      val queue = new DeficitRoundRobinPrioritizer(1000).newSendQueue()
+      Seq(1, 3).foreach(queue.enqueue)
+      queue.dequeue() shouldBe 1
+      queue.onDataSent(1, 100) // stream 1 has no more data
+      queue.dequeue() shouldBe 3
+      queue.onDataSent(3, 1000)
+      // stream 1 gets new data and starts over with a single quantum
+      serve(queue, Map(1 -> 600, 3 -> 1000), 3) shouldBe Seq(1, 1, 3)
+    }
+    "forget removed streams" in {
+      val queue = new DeficitRoundRobinPrioritizer(1000).newSendQueue()
+      Seq(1, 3, 5).foreach(queue.enqueue)
+      queue.remove(3)
+      queue.contains(3) shouldBe false
+      queue.dequeue() shouldBe 1
+      queue.dequeue() shouldBe 5
+      queue.isEmpty shouldBe true
+    }
+  }
+}
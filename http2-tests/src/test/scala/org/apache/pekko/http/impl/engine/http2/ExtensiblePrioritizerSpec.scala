@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class ExtensiblePrioritizerSpec extends AnyWordSpec with Matchers {
+  import ExtensiblePrioritizer.parsePriority
+
+  def dequeueAll(queue: StreamPrioritizer.SendQueue): Seq[Int] =
+    Iterator.continually(queue).takeWhile(_.nonEmpty).map(_.dequeue()).toList
+
+  "ExtensiblePrioritizer.parsePriority" should {
+    "default to urgency 3, not incremental" in {
+      parsePriority("") shouldBe parsePriority("u=3")
+      ExtensiblePrioritizer.urgency(parsePriority("")) shouldBe 3
+      ExtensiblePrioritizer.incremental(parsePriority("")) shouldBe false
+    }
+    "parse urgency and incremental parameters" in {
+      val priority = parsePriority("u=1, i")
+      ExtensiblePrioritizer.urgency(priority) shouldBe 1
+      ExtensiblePrioritizer.incremental(priority) shouldBe true
+
+      ExtensiblePrioritizer.incremental(parsePriority("i=?1")) shouldBe true
+      ExtensiblePrioritizer.incremental(parsePriority("i=?0")) shouldBe false
+      ExtensiblePrioritizer.urgency(parsePriority("u=7;foo=bar")) shouldBe 7
+    }
+    "ignore unknown and invalid members" in {
+      parsePriority("u=8") shouldBe parsePriority("")
+      parsePriority("u=-1, i=1") shouldBe parsePriority("")
+      parsePriority("x=1, u=2") shouldBe parsePriority("u=2")
+      parsePriority("garbage") shouldBe parsePriority("")
+    }
+  }
+
+  "The ExtensiblePrioritizer" should {
+    "serve streams in the order of their urgency" in {
+      val prioritizer = new ExtensiblePrioritizer
+      val queue = prioritizer.newSendQueue()
+      prioritizer.updateExtensiblePriority(1, "u=5", fromHeader = true)
+      prioritizer.updateExtensiblePriority(5, "u=0", fromHeader = true)
+      Seq(1, 3, 5).foreach(queue.enqueue)
+      dequeueAll(queue) shouldBe Seq(5, 3, 1)
+    }
+    "serve non-incremental streams one after the other and incremental streams round-robin" in {
+      val prioritizer = new ExtensiblePrioritizer
+      val queue = prioritizer.newSendQueue()
+      Seq(5, 7).foreach(prioritizer.updateExtensiblePriority(_, "i", fromHeader = true))
+      Seq(1, 3, 5, 7).foreach(queue.enqueue)
+
+      // a stream that still has data is enqueued again right after it was served
+      def serve(): Int = {
+        val streamId = queue.dequeue()
+        queue.enqueue(streamId)
+        streamId
+      }
+      Seq.fill(6)(serve()) shouldBe Seq(1, 1, 1, 1, 1, 1)
+      queue.remove(1)
+      serve() shouldBe 3
+      queue.remove(3)
+      Seq.fill(4)(serve()) shouldBe Seq(5, 7, 5, 7)
+    }
+    "keep non-incremental streams in the order of their stream ids" in {
+      val prioritizer = new ExtensiblePrioritizer
+      val queue = prioritizer.newSendQueue()
+      Seq(7, 3, 9, 1, 5).foreach(queue.enqueue)
+      dequeueAll(queue) shouldBe Seq(1, 3, 5, 7, 9)
+    }
+    "move an enqueued stream when its priority changes" in {
+      val prioritizer = new ExtensiblePrioritizer
+      val queue = prioritizer.newSendQueue()
+      Seq(1, 3).foreach(queue.enqueue)
+      prioritizer.updateExtensiblePriority(3, "u=2", fromHeader = false)
+      queue.contains(3) shouldBe true
+      dequeueAll(queue) shouldBe Seq(3, 1)
+    }
+    "not let the priority header override a priority from a PRIORITY_UPDATE frame" in {
+      val prioritizer = new ExtensiblePrioritizer
+      val queue = prioritizer.newSendQueue()
+      prioritizer.updateExtensiblePriority(3, "u=0", fromHeader = false)
+      prioritizer.updateExtensiblePriority(3, "u=6", fromHeader = true)
+      Seq(1, 3).foreach(queue.enqueue)
+      dequeueAll(queue) shouldBe Seq(3, 1)
+    }
+    "forget the priority of removed streams" in {
+      val prioritizer = new ExtensiblePrioritizer
+      val queue = prioritizer.newSendQueue()
+      prioritizer.updateExtensiblePriority(3, "u=6", fromHeader = true)
+      queue.enqueue(3)
+      prioritizer.removeStream(3)
+      queue.isEmpty shouldBe true
+      Seq(3, 1).foreach(queue.enqueue)
+      dequeueAll(queue) shouldBe Seq(1, 3)
+    }
+  }
+}
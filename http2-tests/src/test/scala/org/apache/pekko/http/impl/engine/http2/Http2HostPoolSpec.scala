@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+import scala.concurrent.{ Future, Promise }
+
+import org.apache.pekko
+import pekko.http.impl.util.PekkoSpecWithMaterializer
+import pekko.http.scaladsl.Http
+import pekko.http.scaladsl.model.{ AttributeKeys, HttpProtocols, HttpRequest, HttpResponse }
+import pekko.http.scaladsl.settings.ConnectionPoolSettings
+
+class Http2HostPoolSpec extends PekkoSpecWithMaterializer("""
+    pekko.http.server.remote-address-attribute = on
+  """) {
+
+  "A host connection pool with use-http2 = on" should {
+    // the remote port of each request together with the promise to respond to it
+    val serverRequests = new LinkedBlockingQueue[(Int, Promise[HttpResponse])]
+    def handler(request: HttpRequest): Future[HttpResponse] = {
+      val response = Promise[HttpResponse]()
+      serverRequests.put(request.attribute(AttributeKeys.remoteAddress).get.getPort() -> response)
+      response.future
+    }
+    val binding = Http().newServerAt("127.0.0.1", 0).bind(handler).futureValue
+    val uri = s"http://127.0.0.1:${binding.localAddress.getPort}/"
+
+    val settings =
+      ConnectionPoolSettings(system)
+        .withUseHttp2(true)
+        .withHttp2StreamsPerConnection(2)
+        .withMaxConnections(3)
+
+    def sendRequests(n: Int, uri: String = uri, settings: ConnectionPoolSettings = settings)
+        : Seq[Future[HttpResponse]] =
+      (1 to n).map(_ => Http().singleRequest(HttpRequest(uri = uri), settings = settings))
+    def expectServerRequests(n: Int): Seq[(Int, Promise[HttpResponse])] =
+      (1 to n).map { _ =>
+        val request = serverRequests.poll(3, TimeUnit.SECONDS)
+        request should not be null
+        request
+      }
+
+    "open another connection once the streams of the existing ones are used up and scale down when idle" in {
+      val responses = sendRequests(5)
+      val requests = expectServerRequests(5)
+      val ports = requests.map(_._1)
+      // 2 + 2 + 1 streams
+      ports.groupBy(identity).values.map(_.size).toSeq.sorted shouldBe Seq(1, 2, 2)
+      serverRequests.poll(100, TimeUnit.MILLISECONDS) shouldBe null
+
+      requests.foreach(_._2.success(HttpResponse()))
+      responses.foreach(_.futureValue.protocol shouldBe HttpProtocols.`HTTP/2.0`)
+
+      // all but one connection were drained, so both requests go to the remaining one
+      val moreResponses = sendRequests(2)
+      val moreRequests = expectServerRequests(2)
+      val remainingPorts = moreRequests.map(_._1).distinct
+      remainingPorts should have size 1
+      ports should contain(remainingPorts.head)
+
+      moreRequests.foreach(_._2.success(HttpResponse()))
+      moreResponses.foreach(_.futureValue.protocol shouldBe HttpProtocols.`HTTP/2.0`)
+    }
+
+    "warm up connections and spread the first requests over them" in {
+      val warmUpSettings = settings.withWarmUpConnections(2)
+      Http().warmUpHostConnectionPool("127.0.0.1", binding.localAddress.getPort, warmUpSettings).futureValue
+
+      val responses = sendRequests(2, settings = warmUpSettings)
+      val requests = expectServerRequests(2)
+      requests.map(_._1).distinct should have size 2
+
+      requests.foreach(_._2.success(HttpResponse()))
+      responses.foreach(_.futureValue.protocol shouldBe HttpProtocols.`HTTP/2.0`)
+    }
+
+    "not send more concurrent requests over a connection than the server allows" in {
+      val limitedBinding =
+        Http().newServerAt("127.0.0.1", 0)
+          .adaptSettings(_.mapHttp2Settings(_.withMaxConcurrentStreams(1)))
+          .bind(handler).futureValue
+      val limitedPort = limitedBinding.localAddress.getPort
+      val limitedSettings = settings.withWarmUpConnections(1)
+      // the pool knows the limit once the server's SETTINGS arrived
+      Http().warmUpHostConnectionPool("127.0.0.1", limitedPort, limitedSettings).futureValue
+
+      val responses = sendRequests(2, uri = s"http://127.0.0.1:$limitedPort/", settings = limitedSettings)
+      val requests = expectServerRequests(2)
+      requests.map(_._1).distinct should have size 2
+
+      requests.foreach(_._2.success(HttpResponse()))
+      responses.foreach(_.futureValue.protocol shouldBe HttpProtocols.`HTTP/2.0`)
+      limitedBinding.unbind().futureValue
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import scala.concurrent.duration._
+
+import org.apache.pekko
+import pekko.http.scaladsl.model._
+import pekko.testkit.ExplicitlyTriggeredScheduler
+
+/**
+ * Tests of `stream-send-rate-limit`, which need ExplicitlyTriggeredScheduler to control the throttling.
+ */
+class Http2ServerSendRateLimitSpec extends Http2SpecWithMaterializer("""
+    pekko.http.server.http2.log-frames = on
+    pekko.http.server.http2.stream-send-rate-limit = 1000
+    pekko.scheduler.implementation = "org.apache.pekko.testkit.ExplicitlyTriggeredScheduler"
+  """) {
+  def scheduler: ExplicitlyTriggeredScheduler = system.scheduler.asInstanceOf[ExplicitlyTriggeredScheduler]
+
+  "The Http/2 server implementation" should {
+    "pace the data of a stream that exceeds stream-send-rate-limit".inAssertAllStagesStopped(
+      new TestSetup with RequestResponseProbes {
+        val TheStreamId = 1
+        network.sendRequest(TheStreamId, HttpRequest(protocol = HttpProtocols.`HTTP/2.0`))
+        user.expectRequest()
+
+        user.emitResponse(TheStreamId, HttpResponse(entity = HttpEntity(bytes(2500, 0x23))))
+        network.expectDecodedHEADERS(streamId = TheStreamId, endStream = false)
+
+        // the burst of 1000 bytes is sent at once, the strict data after it in pieces at 1000 bytes per second
+        network.expectDATA(TheStreamId, endStream = false, 1000)
+        scheduler.timePasses(900.millis)
+        network.toNet.expectNoBytes(100.millis)
+        scheduler.timePasses(100.millis)
+        network.expectDATA(TheStreamId, endStream = false, 1000)
+        scheduler.timePasses(500.millis)
+        network.expectDATA(TheStreamId, endStream = true, 500)
+      })
+  }
+}
@@ -13,6 +13,7 @@
 
 package org.apache.pekko.http.impl.engine.http2
 
+import java.util.concurrent.atomic.AtomicLong
 import javax.net.ssl.SSLContext
 
 import scala.collection.immutable
@@ -28,8 +29,8 @@ import pekko.http.impl.engine.ws.ByteStringSinkProbe
 import pekko.http.scaladsl.client.RequestBuilding.Get
 import pekko.http.scaladsl.model._
 import pekko.http.scaladsl.model.headers.{ CacheDirectives, RawHeader }
-import pekko.http.scaladsl.settings.ServerSettings
-import pekko.stream.OverflowStrategy
+import pekko.http.scaladsl.settings.{ Http2ServerSettings, ServerSettings }
+import pekko.stream.{ Attributes, OverflowStrategy }
 import pekko.stream.scaladsl.{ BidiFlow, Flow, Source, SourceQueueWithComplete }
 import pekko.stream.testkit.TestPublisher
 import pekko.stream.testkit.TestPublisher.ManualProbe
@@ -604,6 +605,30 @@ class Http2ServerSpec extends Http2SpecWithMaterializer("""
             network.sendDATA(1, endStream = true, ByteString.empty) // send fi
             entityDataIn.expectComplete()
           })
+        "collect Strict entity only for requests matching a strict-entity-collection-rule".inAssertAllStagesStopped(
+          new TestSetup with RequestResponseProbes {
+            override def settings: ServerSettings =
+              super.settings.mapHttp2Settings(_.withStrictEntityCollectionRules(
+                Http2ServerSettings.StrictEntityCollectionRule(Some("/small/"), None, None, 10) :: Nil))
+            network.sendRequestHEADERS(1, HttpRequest(HttpMethods.POST, "/small/call", entity = HttpEntity("abcde")),
+              endStream = false)
+            user.requestIn.ensureSubscription()
+            user.requestIn.expectNoMessage(100.millis) // don't expect request yet
+            network.sendDATA(1, endStream = true, ByteString("abcde"))
+            val smallRequest = user.expectRequest()
+            smallRequest.entity shouldBe Symbol("strict")
+            smallRequest.entity.asInstanceOf[HttpEntity.Strict].data.utf8String shouldBe "abcde"
+
+            network.sendRequestHEADERS(3, HttpRequest(HttpMethods.POST, "/upload", entity = HttpEntity("abcde")),
+              endStream = false)
+            val upload = user.expectRequest() // dispatched right away
+            upload.entity shouldNot be(Symbol("strict"))
+            val entityDataIn = ByteStringSinkProbe()
+            upload.entity.dataBytes.runWith(entityDataIn.sink)
+            network.sendDATA(3, endStream = true, ByteString("abcde"))
+            entityDataIn.expectUtf8EncodedString("abcde")
+            entityDataIn.expectComplete()
+          })
         def sendOutConnectionLevelWindowUpdate(singleDataFrame: Boolean) =
           s"eventually send out WINDOW_UPDATE for dispatched data (singleDataFrame = $singleDataFrame)".inAssertAllStagesStopped(
             new WaitingForRequestData {
@@ -702,6 +727,57 @@ class Http2ServerSpec extends Http2SpecWithMaterializer("""
         entityDataOut.sendComplete()
         network.expectDATA(TheStreamId, endStream = true, ByteString.empty)
       })
+      "send the data of a single-element default entity in one data frame".inAssertAllStagesStopped(
+        new WaitingForResponseSetup {
+          val data = ByteString("abcdefghij")
+          val response = HttpResponse(entity = HttpEntity.Default(ContentTypes.`application/octet-stream`,
+            data.length, Source.single(data)))
+          user.emitResponse(TheStreamId, response)
+          val pairs = network.expectDecodedResponseHEADERSPairs(streamId = TheStreamId, endStream = false).toMap
+          pairs should contain("content-length" -> "10")
+          // the data is sent like that of a strict entity, together with the end of the stream
+          network.expectDATAFrame(TheStreamId) shouldBe ((true, data))
+        })
+      "send the data of a single-chunk chunked entity in one data frame".inAssertAllStagesStopped(
+        new WaitingForResponseSetup {
+          val data = ByteString("abcdefghij")
+          val response = HttpResponse(entity = HttpEntity.Chunked(ContentTypes.`application/octet-stream`,
+            Source.single(HttpEntity.Chunk(data))))
+          user.emitResponse(TheStreamId, response)
+          network.expectDecodedHEADERS(streamId = TheStreamId, endStream = false)
+          // the data is sent like that of a strict entity, together with the end of the stream
+          network.expectDATAFrame(TheStreamId) shouldBe ((true, data))
+        })
+      "rate limit the data of single-element entities with stream-send-rate-limit" should {
+        abstract class RateLimitedSetup extends WaitingForResponseSetup {
+          override def settings: ServerSettings =
+            super.settings.mapHttp2Settings(_.withStreamSendRateLimit(1000))
+
+          val data = ByteString("x" * 2000)
+
+          /** The data frames of the stream until the one that ends it, none of them larger than the rate limit */
+          def expectRateLimitedDATA(): ByteString = {
+            val (endStream, frameData) = network.expectDATAFrame(TheStreamId)
+            frameData.length should be <= 1000
+            if (endStream) frameData else frameData ++ expectRateLimitedDATA()
+          }
+        }
+
+        "for a default entity".inAssertAllStagesStopped(new RateLimitedSetup {
+          val response = HttpResponse(entity = HttpEntity.Default(ContentTypes.`application/octet-stream`,
+            data.length, Source.single(data)))
+          user.emitResponse(TheStreamId, response)
+          network.expectDecodedHEADERS(streamId = TheStreamId, endStream = false)
+          expectRateLimitedDATA() shouldEqual data
+        })
+        "for a chunked entity".inAssertAllStagesStopped(new RateLimitedSetup {
+          val response = HttpResponse(entity = HttpEntity.Chunked(ContentTypes.`application/octet-stream`,
+            Source.single(HttpEntity.Chunk(data))))
+          user.emitResponse(TheStreamId, response)
+          network.expectDecodedHEADERS(streamId = TheStreamId, endStream = false)
+          expectRateLimitedDATA() shouldEqual data
+        })
+      }
       "keep sending entity data when WINDOW_UPDATE is received intermediately".inAssertAllStagesStopped(
         new WaitingForResponseDataSetup {
           val data1 = ByteString("abcd")
@@ -1262,6 +1338,85 @@ class Http2ServerSpec extends Http2SpecWithMaterializer("""
         }))
     }
 
+    "support extensible priorities" should {
+      abstract class PrioritySetup extends TestSetup with RequestResponseProbes {
+        override def settings: ServerSettings =
+          super.settings.mapHttp2Settings(_.withStreamPrioritizer("extensible-priorities"))
+
+        def stream3Request: HttpRequest = HttpRequest(protocol = HttpProtocols.`HTTP/2.0`)
+        def beforeRequests(): Unit = ()
+        def beforeResponses(): Unit = ()
+
+        beforeRequests()
+        network.sendRequest(1, HttpRequest(protocol = HttpProtocols.`HTTP/2.0`))
+        user.expectRequest()
+        network.sendRequest(3, stream3Request)
+        user.expectRequest()
+        beforeResponses()
+
+        val entity1DataOut = TestPublisher.probe[ByteString]()
+        val entity3DataOut = TestPublisher.probe[ByteString]()
+        Seq(1 -> entity1DataOut, 3 -> entity3DataOut).foreach {
+          case (streamId, entityDataOut) =>
+            user.emitResponse(streamId,
+              HttpResponse(entity = HttpEntity(ContentTypes.`application/octet-stream`,
+                Source.fromPublisher(entityDataOut))))
+            network.expectDecodedHEADERS(streamId, endStream = false)
+        }
+
+        // use up the connection-level window so that data of both streams is queued in the multiplexer
+        network.sendWINDOW_UPDATE(1, 100)
+        entity1DataOut.sendNext(bytes(Http2Protocol.InitialWindowSize, 0x23))
+        network.expectDATA(1, endStream = false, Http2Protocol.InitialWindowSize)
+        entity1DataOut.sendNext(ByteString("abc"))
+        entity3DataOut.sendNext(ByteString("def"))
+        network.toNet.expectNoBytes(100.millis)
+
+        def expectMoreUrgentStreamFirst(): Unit = {
+          network.sendWINDOW_UPDATE(0, 100)
+          network.expectDATA(3, endStream = false, ByteString("def"))
+          network.expectDATA(1, endStream = false, ByteString("abc"))
+        }
+
+        def expectStreamsInOrder(): Unit = {
+          network.sendWINDOW_UPDATE(0, 100)
+          network.expectDATA(1, endStream = false, ByteString("abc"))
+          network.expectDATA(3, endStream = false, ByteString("def"))
+        }
+      }
+
+      "send data of the more urgent stream first according to the priority header".inAssertAllStagesStopped(
+        new PrioritySetup {
+          override def stream3Request: HttpRequest =
+            super.stream3Request.addHeader(RawHeader("priority", "u=0"))
+
+          expectMoreUrgentStreamFirst()
+        })
+      "send data of the more urgent stream first according to a PRIORITY_UPDATE frame".inAssertAllStagesStopped(
+        new PrioritySetup {
+          override def beforeResponses(): Unit = network.sendFrame(PriorityUpdateFrame(3, "u=0"))
+
+          expectMoreUrgentStreamFirst()
+        })
+      "keep PRIORITY_UPDATE frames for at most max-concurrent-streams streams that are not open yet".inAssertAllStagesStopped(
+        new PrioritySetup {
+          override def settings: ServerSettings = super.settings.mapHttp2Settings(_.withMaxConcurrentStreams(2))
+          override def beforeRequests(): Unit = {
+            network.sendFrame(PriorityUpdateFrame(5, "u=0"))
+            network.sendFrame(PriorityUpdateFrame(7, "u=0"))
+            network.sendFrame(PriorityUpdateFrame(3, "u=0")) // ignored, two unopened streams have updates already
+          }
+
+          expectStreamsInOrder()
+        })
+      "reject a PRIORITY_UPDATE frame for stream 0 with PROTOCOL_ERROR".inAssertAllStagesStopped(
+        new TestSetup with RequestResponseProbes {
+          network.sendFrame(PriorityUpdateFrame(0, "u=0"))
+          val (_, errorCode) = network.expectGOAWAY()
+          errorCode should ===(ErrorCode.PROTOCOL_ERROR)
+        })
+    }
+
     "respect flow-control" should {
       "not exceed connection-level window while sending" in pending
       "not exceed stream-level window while sending" in pending
@@ -1297,6 +1452,23 @@ class Http2ServerSpec extends Http2SpecWithMaterializer("""
             errorCode should ===(ErrorCode.FLOW_CONTROL_ERROR)
           })
 
+      "send a BDP ping with adaptive-flow-control = on and accept its acknowledgement".inAssertAllStagesStopped(
+        new TestSetup with RequestResponseProbes {
+          override def settings: ServerSettings = super.settings.mapHttp2Settings(_.withAdaptiveFlowControl(true))
+
+          network.sendRequestHEADERS(1, HttpRequest(protocol = HttpProtocols.`HTTP/2.0`), endStream = false)
+          user.expectRequest()
+
+          network.sendDATA(1, endStream = false, ByteString("0" * 1000))
+          network.expectFrame(FrameType.PING, ByteFlag.Zero, 0, IncomingFlowController.BdpPing.data)
+          network.expectWindowUpdate()
+
+          network.sendFrame(PingFrame(ack = true, IncomingFlowController.BdpPing.data))
+          network.expectNoBytes(100.millis)
+
+          network.toNet.cancel()
+        })
+
       "backpressure incoming frames when outgoing control frame buffer fills".inAssertAllStagesStopped(
         new TestSetup with HandlerFunctionSupport {
           override def settings: ServerSettings =
@@ -1471,6 +1643,57 @@ class Http2ServerSpec extends Http2SpecWithMaterializer("""
           network.expectRST_STREAM(firstInvalidStreamId, ErrorCode.REFUSED_STREAM)
         })
 
+      "lower SETTINGS_MAX_CONCURRENT_STREAMS when the handler slows down with adaptive concurrency".inAssertAllStagesStopped(
+        new TestSetup with RequestResponseProbes {
+          override def settings: ServerSettings =
+            super.settings.mapHttp2Settings(
+              _.withMaxConcurrentStreams(16)
+                .withAdaptiveConcurrencyEnabled(true)
+                .withAdaptiveConcurrencyMinConcurrentStreams(4))
+          // the handler latency is measured with this clock, which the round trips advance
+          lazy val nowNanos = new AtomicLong
+          override def modifyServer(
+              server: BidiFlow[HttpResponse, ByteString, ByteString, HttpRequest, ServerTerminator]) =
+            server.addAttributes(Attributes(AdaptiveConcurrencyLimit.Clock(() => nowNanos.get)))
+          val requestHeaderBlock: ByteString = HPackSpecExamples.C41FirstRequestWithHuffman
+
+          var nextStreamId = 1
+
+          /** Runs a request through the handler, returns the limit if a SETTINGS frame was sent with its response */
+          def roundTrip(latency: FiniteDuration): Option[Int] = {
+            val streamId = nextStreamId
+            nextStreamId += 2
+            network.sendHEADERS(streamId, endStream = true, endHeaders = true, requestHeaderBlock)
+            user.expectRequest()
+            nowNanos.addAndGet(latency.toNanos)
+            user.emitResponse(streamId, HttpResponse())
+
+            network.expect[FrameEvent]() match {
+              case SettingsFrame(Setting(SettingIdentifier.SETTINGS_MAX_CONCURRENT_STREAMS, limit) :: Nil) =>
+                network.expect[HeadersFrame]().streamId shouldBe streamId
+                Some(limit)
+              case HeadersFrame(`streamId`, _, _, _, _) => None
+              case other                                => fail(s"Unexpected frame $other")
+            }
+          }
+
+          (1 to 5).foreach(_ => roundTrip(1.milli) shouldBe None)
+          val limit = Iterator.continually(roundTrip(200.millis)).take(10).collectFirst { case Some(limit) => limit }
+          limit shouldBe defined
+          limit.get should be < 16
+
+          // the lowered limit is enforced once the client acknowledged it and the initial SETTINGS
+          network.sendFrame(SettingsAckFrame(Nil))
+          network.sendFrame(SettingsAckFrame(Nil))
+          (0 until limit.get).foreach { _ =>
+            network.sendHEADERS(nextStreamId, endStream = false, endHeaders = true, requestHeaderBlock)
+            nextStreamId += 2
+          }
+          network.expectNoBytes(100.millis)
+          network.sendHEADERS(nextStreamId, endStream = false, endHeaders = true, requestHeaderBlock)
+          network.expectRST_STREAM(nextStreamId, ErrorCode.REFUSED_STREAM)
+        })
+
     }
 
     "support low-level features" should {
@@ -126,6 +126,25 @@ class HttpMessageRenderingSpec extends AnyWordSpec with Matchers {
       builder.result().exists(_._1 != "date") shouldBe false
     }
 
+    "add pre-rendered headers with the cached name and value" in {
+      val builder = new VectorBuilder[(String, String)]
+      val cacheControl = PreRenderedHeader(`Cache-Control`(CacheDirectives.`no-cache`))
+      renderServerHeaders(Seq(cacheControl, PreRenderedHeader(Server("explicit server"))), builder,
+        Some(("server", "default server")))
+      val result = builder.result()
+      (result.find(_._1 == "cache-control").get._2 should be).theSameInstanceAs(cacheControl.value)
+      result.find(_._1 == "server").map(_._2) shouldEqual Some("explicit server")
+      result.count(_._1 == "server") shouldEqual 1
+    }
+
+    "exclude pre-rendered headers that are not valid for HTTP/2" in {
+      val builder = new VectorBuilder[(String, String)]
+      renderServerHeaders(Seq(PreRenderedHeader(Connection("whatever")), PreRenderedHeader(RawHeader("date", "x"))),
+        builder)
+      builder.result().exists(_._1 != "date") shouldBe false
+      (builder.result().find(_._1 == "date").map(_._2) should not).equal(Some("x"))
+    }
+
     // Client-specific tests
     "add user-agent header if default provided (in client mode)" in {
       val builder = new VectorBuilder[(String, String)]
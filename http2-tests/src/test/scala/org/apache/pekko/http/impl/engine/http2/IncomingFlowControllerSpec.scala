@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import org.apache.pekko
+import pekko.http.impl.engine.http2.IncomingFlowController.WindowIncrements
+import pekko.http.scaladsl.settings.Http2ServerSettings
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class IncomingFlowControllerSpec extends AnyWordSpec with Matchers {
+  val settings =
+    Http2ServerSettings("")
+      .withIncomingConnectionLevelBufferSize(10000000)
+      .withIncomingStreamLevelBufferSize(30000)
+      .withMaxIncomingStreamLevelBufferSize(100000)
+
+  // the stream window after 48000 of the initial 65535 bytes were received and dispatched
+  def streamIncrement(controller: IncomingFlowController): Int =
+    controller.onStreamDataDispatched(10000000, 0, Http2Protocol.InitialWindowSize - 48000, 0).streamLevel
+
+  "The default IncomingFlowController" should {
+    "never ask for BDP pings" in {
+      val controller = IncomingFlowController(settings)
+      controller.onDataFrameReceived(16000) shouldBe false
+      controller.onBdpPingAck() shouldBe false
+    }
+    "only update the windows up to the configured buffer sizes" in {
+      val controller = IncomingFlowController(settings)
+      streamIncrement(controller) shouldBe 0
+      controller.onStreamDataDispatched(10000000, 0, 10000, 0) shouldBe WindowIncrements(0, 20000)
+    }
+  }
+
+  "The adaptive IncomingFlowController" should {
+    "send a single BDP ping per round-trip" in {
+      val controller = IncomingFlowController(settings.withAdaptiveFlowControl(true))
+      controller.onDataFrameReceived(16000) shouldBe true
+      controller.onDataFrameReceived(16000) shouldBe false
+      controller.onBdpPingAck()
+      controller.onDataFrameReceived(16000) shouldBe true
+    }
+    "grow the stream-level window to twice the data received within a round-trip" in {
+      val controller = IncomingFlowController(settings.withAdaptiveFlowControl(true))
+      controller.onDataFrameReceived(16000)
+      controller.onDataFrameReceived(16000)
+      // the connection-level window of 10 MB is far from being used up
+      controller.onBdpPingAck() shouldBe false
+      // window is now 64000
+      streamIncrement(controller) shouldBe 64000 - (Http2Protocol.InitialWindowSize - 48000)
+    }
+    "not grow the windows when little data was received within a round-trip" in {
+      val controller = IncomingFlowController(settings.withAdaptiveFlowControl(true))
+      controller.onDataFrameReceived(1000)
+      controller.onBdpPingAck() shouldBe false
+      streamIncrement(controller) shouldBe 0
+    }
+    "grow the connection-level window up to its maximum and stop pinging once both windows reached their maximum" in {
+      val controller = IncomingFlowController(
+        settings
+          .withAdaptiveFlowControl(true)
+          .withIncomingConnectionLevelBufferSize(30000)
+          .withMaxIncomingConnectionLevelBufferSize(50000)
+          .withMaxIncomingStreamLevelBufferSize(50000))
+      controller.onDataFrameReceived(16000) shouldBe true
+      controller.onDataFrameReceived(16000)
+      controller.onBdpPingAck() shouldBe true
+      controller.onConnectionDataReceived(0, 0) shouldBe 50000
+      controller.onDataFrameReceived(16000) shouldBe false
+    }
+  }
+}
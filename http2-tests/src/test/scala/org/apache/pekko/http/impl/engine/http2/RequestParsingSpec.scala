@@ -65,7 +65,7 @@ class RequestParsingSpec extends PekkoSpecWithMaterializer with Inside with Insp
             Http2SubStream(
               initialHeaders = headers,
               trailingHeaders = OptionVal.None,
-              data = Right(data),
+              data = Right(data.map(HttpEntity.Chunk(_))), // the demux emits chunks
               correlationAttributes = Map.empty)
         }
         .map(parseRequest)
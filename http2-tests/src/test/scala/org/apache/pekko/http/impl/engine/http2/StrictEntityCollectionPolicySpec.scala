@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+
+import org.apache.pekko
+import pekko.http.impl.engine.http2.FrameEvent.ParsedHeadersFrame
+import pekko.http.scaladsl.model.{ ContentType, ContentTypes, MediaType, Uri }
+import pekko.http.scaladsl.settings.Http2ServerSettings
+import pekko.http.scaladsl.settings.Http2ServerSettings.StrictEntityCollectionRule
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class StrictEntityCollectionPolicySpec extends AnyWordSpec with Matchers {
+  val grpc = ContentType(MediaType.applicationBinary("grpc+proto", MediaType.NotCompressible))
+
+  def headers(path: String, contentType: ContentType = ContentTypes.`application/octet-stream`,
+      contentLength: Option[Long] = None): ParsedHeadersFrame =
+    ParsedHeadersFrame(1, endStream = false,
+      Seq(":method" -> "POST", ":path" -> (Uri.Path(path) -> None), "content-type" -> contentType) ++
+      contentLength.map(l => "content-length" -> l.toString),
+      None, None)
+
+  "The StrictEntityCollectionPolicy" should {
+    "apply min-collect-strict-entity-size without rules" in {
+      new StrictEntityCollectionPolicy(0, Nil).minCollectStrictEntitySize(headers("/upload")) shouldBe 0
+      new StrictEntityCollectionPolicy(100, Nil).minCollectStrictEntitySize(headers("/upload")) shouldBe 100
+    }
+    "apply the first rule that matches path prefix, content type and content length" in {
+      val policy = new StrictEntityCollectionPolicy(0,
+        StrictEntityCollectionRule(Some("/my.Service/"), Some("application/grpc"), None, 65536) ::
+        StrictEntityCollectionRule(None, None, Some(1000), 1000) ::
+        StrictEntityCollectionRule(Some("/my"), None, None, 10) :: Nil)
+
+      policy.minCollectStrictEntitySize(headers("/my.Service/Call", grpc)) shouldBe 65536
+      policy.minCollectStrictEntitySize(headers("/my.Service/Call")) shouldBe 10
+      policy.minCollectStrictEntitySize(headers("/other.Service/Call", grpc)) shouldBe 0
+      policy.minCollectStrictEntitySize(headers("/upload", contentLength = Some(1000))) shouldBe 1000
+      policy.minCollectStrictEntitySize(headers("/upload", contentLength = Some(1001))) shouldBe 0
+    }
+    "stream requests that declare a content-length larger than what would be collected right away" in {
+      val policy = new StrictEntityCollectionPolicy(100, Nil)
+      policy.minCollectStrictEntitySize(headers("/upload", contentLength = Some(100))) shouldBe 100
+      policy.minCollectStrictEntitySize(headers("/upload", contentLength = Some(101))) shouldBe 0
+    }
+    "read its rules from the settings" in {
+      val settings = Http2ServerSettings(
+        """pekko.http.server.http2.strict-entity-collection-rules = [
+          |  { path-prefix = "/my.Service/", content-type = "application/grpc", min-collect-strict-entity-size = 1k },
+          |  { max-content-length = 10k, min-collect-strict-entity-size = 2k }
+          |]""".stripMargin)
+      settings.strictEntityCollectionRules shouldBe
+      StrictEntityCollectionRule(Some("/my.Service/"), Some("application/grpc"), None, 1024) ::
+      StrictEntityCollectionRule(None, None, Some(10240), 2048) :: Nil
+
+      val policy = StrictEntityCollectionPolicy(settings)
+      policy.minCollectStrictEntitySize(headers("/my.Service/Call", grpc)) shouldBe 1024
+      policy.minCollectStrictEntitySize(headers("/upload", contentLength = Some(2048))) shouldBe 2048
+    }
+  }
+}
@@ -23,6 +23,8 @@ import scala.util.Success
 import org.apache.pekko
 import pekko.NotUsed
 import pekko.actor.ActorSystem
+import pekko.http.impl.engine.client.TlsSessionStats
+import pekko.http.impl.engine.client.TlsSessionTracking
 import pekko.http.impl.util.ExampleHttpContexts
 import pekko.http.impl.util.PekkoSpecWithMaterializer
 import pekko.http.impl.util.StreamUtils
@@ -60,6 +62,12 @@ class TestTelemetryImpl(system: ActorSystem) extends TelemetrySpi {
   override def serverBinding: Flow[Tcp.IncomingConnection, Tcp.IncomingConnection, NotUsed] = delegate.get.serverBinding
   override def serverConnection: BidiFlow[HttpResponse, HttpResponse, HttpRequest, HttpRequest, NotUsed] =
     delegate.get.serverConnection
+  override def serverStreamQueueingDelay(
+      connectionAttributes: Attributes, streamId: Int, queueingDelayNanos: Long): Unit =
+    delegate.get.serverStreamQueueingDelay(connectionAttributes, streamId, queueingDelayNanos)
+  override def headerBlockEncoded(connectionAttributes: Attributes, fields: Int, dynamicTableHits: Int,
+      uncompressedBytes: Int, encodedBytes: Int): Unit =
+    delegate.get.headerBlockEncoded(connectionAttributes, fields, dynamicTableHits, uncompressedBytes, encodedBytes)
 
 }
 
@@ -77,11 +85,11 @@ abstract class TelemetrySpiSpec(useTls: Boolean) extends PekkoSpecWithMaterializ
 
   case class ConnectionId(id: String) extends Attribute
 
-  def bindAndConnect(
-      probe: TestProbe): (Http.ServerBinding, Flow[HttpRequest, HttpResponse, Future[Http.OutgoingConnection]]) = {
+  def bindAndConnect(probe: TestProbe, response: HttpResponse = HttpResponse())
+      : (Http.ServerBinding, Flow[HttpRequest, HttpResponse, Future[Http.OutgoingConnection]]) = {
     val handler: HttpRequest => Future[HttpResponse] = { request =>
       request.headers.find(_.lowercaseName == "request-id").foreach(found => probe.ref ! found.value)
-      Future.successful(HttpResponse())
+      Future.successful(response)
     }
 
     val serverBinding =
@@ -247,6 +255,110 @@ abstract class TelemetrySpiSpec(useTls: Boolean) extends PekkoSpecWithMaterializ
       telemetryProbe.expectMsg("unbind-seen")
     }
 
+    "report queueing delays of HTTP2 server streams" in {
+      val telemetryProbe = TestProbe()
+      TestTelemetryImpl.delegate = Some(new TelemetrySpi {
+        override def client: BidiFlow[HttpRequest, HttpRequest, HttpResponse, HttpResponse, NotUsed] =
+          BidiFlow.identity
+        override def serverBinding: Flow[Tcp.IncomingConnection, Tcp.IncomingConnection, NotUsed] =
+          Flow[Tcp.IncomingConnection].map { conn =>
+            val connId = ConnectionId(UUID.randomUUID().toString)
+            telemetryProbe.ref ! connId
+            conn.copy(flow = conn.flow.addAttributes(Attributes(connId)))
+          }
+        override def serverConnection: BidiFlow[HttpResponse, HttpResponse, HttpRequest, HttpRequest, NotUsed] =
+          BidiFlow.identity
+        override def serverStreamQueueingDelay(
+            connectionAttributes: Attributes, streamId: Int, queueingDelayNanos: Long): Unit = {
+          connectionAttributes.get[ConnectionId].foreach(telemetryProbe.ref ! _)
+          telemetryProbe.ref ! (streamId -> queueingDelayNanos)
+        }
+      })
+
+      val (serverBinding, http2ClientFlow) = bindAndConnect(telemetryProbe, HttpResponse(entity = "hello"))
+      val responses =
+        Source.single(HttpRequest())
+          .concat(Source.never)
+          .via(http2ClientFlow)
+          .runWith(Sink.head)
+
+      val connId = telemetryProbe.expectMsgType[ConnectionId]
+      telemetryProbe.expectMsg(connId)
+      val (streamId, queueingDelayNanos) = telemetryProbe.expectMsgType[(Int, Long)]
+      streamId should ===(1)
+      queueingDelayNanos should be >= 0L
+      responses.futureValue.entity.toStrict(3.seconds).futureValue.data.utf8String should ===("hello")
+
+      serverBinding.terminate(3.seconds).futureValue
+    }
+
+    "report header compression of HTTP2 connections" in {
+      val telemetryProbe = TestProbe()
+      TestTelemetryImpl.delegate = Some(new TelemetrySpi {
+        override def client: BidiFlow[HttpRequest, HttpRequest, HttpResponse, HttpResponse, NotUsed] =
+          BidiFlow.identity
+        override def serverBinding: Flow[Tcp.IncomingConnection, Tcp.IncomingConnection, NotUsed] =
+          Flow[Tcp.IncomingConnection].map { conn =>
+            conn.copy(flow = conn.flow.addAttributes(Attributes(ConnectionId(UUID.randomUUID().toString))))
+          }
+        override def serverConnection: BidiFlow[HttpResponse, HttpResponse, HttpRequest, HttpRequest, NotUsed] =
+          BidiFlow.identity
+        override def headerBlockEncoded(connectionAttributes: Attributes, fields: Int, dynamicTableHits: Int,
+            uncompressedBytes: Int, encodedBytes: Int): Unit =
+          // only report the server side of the connection
+          if (connectionAttributes.get[ConnectionId].isDefined)
+            telemetryProbe.ref ! ((fields, dynamicTableHits, uncompressedBytes, encodedBytes))
+      })
+
+      val (serverBinding, http2ClientFlow) =
+        bindAndConnect(telemetryProbe, HttpResponse(headers = List(headers.RawHeader("x-tenant", "acme"))))
+      val responses =
+        Source(List(HttpRequest(), HttpRequest()))
+          .concat(Source.never)
+          .via(http2ClientFlow)
+          .take(2)
+          .runWith(Sink.seq)
+
+      val (fields1, hits1, uncompressed1, encoded1) = telemetryProbe.expectMsgType[(Int, Int, Int, Int)]
+      fields1 should be > 0
+      hits1 should ===(0)
+      encoded1 should be < uncompressed1
+      val (_, hits2, uncompressed2, encoded2) = telemetryProbe.expectMsgType[(Int, Int, Int, Int)]
+      // at least the `x-tenant` header was sent by reference to the dynamic table
+      hits2 should be >= 1
+      encoded2 should be < encoded1
+      encoded2 should be < uncompressed2
+      responses.futureValue should have size 2
+
+      serverBinding.terminate(3.seconds).futureValue
+    }
+
+    if (useTls) "track TLS session resumption of HTTP2 client connections" in {
+      TestTelemetryImpl.delegate = Some(new TelemetrySpi {
+        override def client: BidiFlow[HttpRequest, HttpRequest, HttpResponse, HttpResponse, NotUsed] =
+          BidiFlow.identity
+        override def serverBinding: Flow[Tcp.IncomingConnection, Tcp.IncomingConnection, NotUsed] =
+          Flow[Tcp.IncomingConnection]
+        override def serverConnection: BidiFlow[HttpResponse, HttpResponse, HttpRequest, HttpRequest, NotUsed] =
+          BidiFlow.identity
+      })
+
+      val (serverBinding, http2ClientFlow) = bindAndConnect(TestProbe())
+      val stats = new TlsSessionStats
+      def request(): Future[HttpResponse] =
+        Source.single(HttpRequest())
+          .concat(Source.never)
+          .via(http2ClientFlow.addAttributes(Attributes(TlsSessionTracking.Stats(stats))))
+          .runWith(Sink.head)
+
+      request().futureValue
+      request().futureValue
+      stats.fullHandshakes should ===(1L)
+      stats.resumedHandshakes should ===(1L)
+
+      serverBinding.terminate(3.seconds).futureValue
+    }
+
     "fallback if impl class cannot be found" in {
       val system = ActorSystem(s"${getClass.getSimpleName}-noImplFound",
         ConfigFactory.parseString(
@@ -24,7 +24,9 @@ import pekko.event.Logging
 import pekko.http.impl.engine.http2.Http2Protocol.ErrorCode
 import pekko.http.impl.engine.ws.BitBuilder
 import pekko.http.impl.util._
-import pekko.stream.scaladsl.{ Sink, Source }
+import pekko.stream.scaladsl.{ Flow, Keep, Sink, Source }
+import pekko.stream.testkit.TestSubscriber
+import pekko.stream.testkit.scaladsl.TestSink
 import pekko.testkit._
 import pekko.util.ByteString
 
@@ -78,6 +80,18 @@ class Http2FramingSpec extends PekkoSpecWithMaterializer {
             00000000
          """ should parseTo(DataFrame(0x234223AB, endStream = false, ByteString("bcdefg")), checkRendering = false)
       }
+      "without payload" in {
+        b"""xxxxxxxx
+            xxxxxxxx
+            xxxxxxxx=0   # length
+            00000000     # type = 0x0 = DATA
+            00000001     # flags = END_STREAM
+            xxxxxxxx
+            xxxxxxxx
+            xxxxxxxx
+            xxxxxxxx=234223ab # stream ID
+         """ should parseTo(DataFrame(0x234223AB, endStream = true, ByteString.empty))
+      }
     }
     "HEADER frames" should {
       "without padding + priority settings" in {
@@ -426,6 +440,26 @@ class Http2FramingSpec extends PekkoSpecWithMaterializer {
           xxxxxxxx=15   # weight
          """ should parseTo(PriorityFrame(0xDEAD, exclusiveFlag = false, streamDependency = 0xBEEF, weight = 0x15))
     }
+    "PRIORITY_UPDATE" in {
+      b"""xxxxxxxx
+          xxxxxxxx
+          xxxxxxxx=7   # length
+          00010000     # type = 0x10 = PRIORITY_UPDATE
+          00000000     # no flags
+          xxxxxxxx
+          xxxxxxxx
+          xxxxxxxx
+          xxxxxxxx=0   # stream ID = 0
+          0            # reserved bit
+           xxxxxxx
+          xxxxxxxx
+          xxxxxxxx
+          xxxxxxxx=3   # prioritized stream ID = 3
+          xxxxxxxx=75  # u
+          xxxxxxxx=3d  # =
+          xxxxxxxx=30  # 0
+         """ should parseTo(PriorityUpdateFrame(3, "u=0"))
+    }
     "WINDOW_UPDATE" in {
       b"""xxxxxxxx
           xxxxxxxx
@@ -487,6 +521,43 @@ class Http2FramingSpec extends PekkoSpecWithMaterializer {
     }
   }
 
+  "The HTTP/2 framing layer" should {
+    val frames = (1 to 10).map(i => WindowUpdateFrame(i, i))
+    /** Renders `frames` and returns a probe for the bytes written to the network */
+    def renderWithBatchSize(frameWriteBatchSize: Int): TestSubscriber.Probe[ByteString] = {
+      val framing = Http2Blueprint.framing(Logging(system, classOf[Http2FramingSpec]), frameWriteBatchSize)
+      val network = Flow.fromSinkAndSourceCoupledMat(TestSink[ByteString](), Source.maybe[ByteString])(Keep.left)
+      Source(frames).viaMat(framing.joinMat(network)(Keep.right))(Keep.right).to(Sink.ignore).run()
+    }
+
+    "combine frames into one write while the network side is busy" in {
+      val probe = renderWithBatchSize(1000)
+      probe.ensureSubscription()
+      probe.expectNoMessage(100.millis) // let all frames arrive while there is no demand
+      probe.request(1)
+      probe.expectNext() shouldEqual frames.map(FrameRenderer.render).reduce(_ ++ _)
+      probe.request(1)
+      probe.expectComplete()
+    }
+    "not combine frames beyond frame-write-batch-size" in {
+      val probe = renderWithBatchSize(30) // a WINDOW_UPDATE frame is 13 bytes long
+      probe.ensureSubscription()
+      probe.expectNoMessage(100.millis)
+      (1 to 5).map { _ =>
+        probe.request(1)
+        probe.expectNext().length
+      } shouldEqual Seq(26, 26, 26, 26, 26)
+      probe.request(1)
+      probe.expectComplete()
+    }
+    "write every frame on its own with frame-write-batch-size = 0" in {
+      val probe = renderWithBatchSize(0)
+      probe.request(20)
+      probe.expectNextN(10) shouldEqual frames.map(FrameRenderer.render)
+      probe.expectComplete()
+    }
+  }
+
   private def parseTo(events: FrameEvent*): Matcher[ByteString] =
     parseMultipleTo(events: _*).compose(Seq(_)) // TODO: try random chunkings
 
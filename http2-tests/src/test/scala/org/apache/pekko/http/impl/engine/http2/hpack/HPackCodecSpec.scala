@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * license agreements; and to You under the Apache License, version 2.0:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * This file is part of the Apache Pekko project, which was derived from Akka.
+ */
+
+package org.apache.pekko.http.impl.engine.http2
+package hpack
+
+import org.apache.pekko
+import pekko.http.scaladsl.settings.Http2ServerSettings
+import pekko.util.ByteString
+
+import com.typesafe.config.ConfigFactory
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class HPackCodecSpec extends AnyWordSpec with Matchers {
+  import HPackSpecExamples._
+
+  // the header lists of https://www.rfc-editor.org/rfc/rfc7541#appendix-C.4
+  val requests = Seq(
+    Seq(":method" -> "GET", ":scheme" -> "http", ":path" -> "/", ":authority" -> "www.example.com"),
+    Seq(":method" -> "GET", ":scheme" -> "http", ":path" -> "/", ":authority" -> "www.example.com",
+      "cache-control" -> "no-cache"),
+    Seq(":method" -> "GET", ":scheme" -> "https", ":path" -> "/index.html", ":authority" -> "www.example.com",
+      "custom-key" -> "custom-value"))
+  val encodedRequests = Seq(C41FirstRequestWithHuffman, C42SecondRequestWithHuffman, C43ThirdRequestWithHuffman)
+
+  // the header lists of https://www.rfc-editor.org/rfc/rfc7541#appendix-C.6, encoded with a table size of 256
+  val responses = Seq(
+    Seq(":status" -> "302", "cache-control" -> "private", "date" -> "Mon, 21 Oct 2013 20:13:21 GMT",
+      "location" -> "https://www.example.com"),
+    Seq(":status" -> "307", "cache-control" -> "private", "date" -> "Mon, 21 Oct 2013 20:13:21 GMT",
+      "location" -> "https://www.example.com"),
+    Seq(":status" -> "200", "cache-control" -> "private", "date" -> "Mon, 21 Oct 2013 20:13:22 GMT",
+      "location" -> "https://www.example.com", "content-encoding" -> "gzip",
+      "set-cookie" -> "foo=ASDJKHQKBZXOQWEOPIUAXQWEOIU; max-age=3600; version=1"))
+  val encodedResponses = Seq(C61FirstResponseWithHuffman, C62SecondResponseWithHuffman, C63ThirdResponseWithHuffman)
+
+  def decode(decoder: HPackDecoder, block: ByteString): Seq[(String, String)] = {
+    val fields = Seq.newBuilder[(String, String)]
+    decoder.decode(block,
+      new HPackDecoder.HeaderHandler {
+        def onHeader(name: String, value: String, parsed: AnyRef): AnyRef = {
+          fields += name -> value
+          null
+        }
+      })
+    fields.result()
+  }
+
+  def encode(encoder: HPackEncoder, fields: Seq[(String, String)]): ByteString = {
+    fields.foreach { case (name, value) => encoder.encodeHeader(name, value) }
+    encoder.encodedHeaderBlock()
+  }
+
+  "The HPackDecoder" should {
+    "decode the request examples of the specification" in {
+      val decoder = new HPackDecoder(4096)
+      encodedRequests.map(decode(decoder, _)) shouldBe requests
+    }
+    "decode the response examples of the specification, evicting fields from the dynamic table" in {
+      val decoder = new HPackDecoder(256)
+      encodedResponses.map(decode(decoder, _)) shouldBe responses
+      decoder.dynamicTableLength shouldBe 3
+    }
+    "decode header blocks that are split over several ByteStrings" in {
+      val decoder = new HPackDecoder(4096)
+      decode(decoder, C41FirstRequestWithHuffman.take(5) ++ C41FirstRequestWithHuffman.drop(5)) shouldBe requests.head
+    }
+    "pass the cached parsed value of indexed fields to the handler" in {
+      val decoder = new HPackDecoder(4096)
+      val parsedValues = Seq.newBuilder[AnyRef]
+      val handler = new HPackDecoder.HeaderHandler {
+        def onHeader(name: String, value: String, parsed: AnyRef): AnyRef = {
+          parsedValues += parsed
+          if (parsed eq null) s"parsed $name" else parsed
+        }
+      }
+      decoder.decode(C41FirstRequestWithHuffman, handler)
+      decoder.decode(C42SecondRequestWithHuffman, handler)
+      parsedValues.result() shouldBe Seq(null, null, null, null,
+        "parsed :method", "parsed :scheme", "parsed :path", "parsed :authority", null)
+    }
+    "fail on malformed header blocks" in {
+      def failsToDecode(block: String) =
+        an[HPackDecoder.DecompressionException] should be thrownBy decode(new HPackDecoder(4096),
+          block.parseHexByteString)
+
+      failsToDecode("80") // index 0
+      failsToDecode("be") // index 62 with an empty dynamic table
+      failsToDecode("418c f1e3 c2e5") // string literal longer than the block
+      failsToDecode("4181 ff") // Huffman coded string with 8 bits of padding
+      failsToDecode("4181 1e") // Huffman coded string with padding that is not all ones
+      failsToDecode("4184 ffff fffc") // Huffman coded EOS
+      failsToDecode("3fe2 1f") // table size update to 4097
+      failsToDecode("8220") // table size update after a field
+      failsToDecode("ff80 8080 8080 01") // integer overflow
+    }
+  }
+
+  "The HPackEncoder" should {
+    "encode the request examples of the specification" in {
+      val encoder = new HPackEncoder(4096)
+      requests.map(encode(encoder, _)) shouldBe encodedRequests
+    }
+    "encode the response examples of the specification, evicting fields from the dynamic table" in {
+      val encoder = new HPackEncoder(256)
+      // "307" is not Huffman coded because that doesn't make it shorter
+      responses.map(encode(encoder, _)) shouldBe
+      Seq(C61FirstResponseWithHuffman, C52SecondResponseWithoutHuffman, C63ThirdResponseWithHuffman)
+      encoder.dynamicTableLength shouldBe 3
+    }
+    "signal a changed table size at the beginning of the next header block" in {
+      val encoder = new HPackEncoder(4096)
+      encoder.setMaxHeaderTableSize(0)
+      encode(encoder, Seq(":status" -> "200", "x-custom" -> "a")) shouldBe hex"20 88 0086 f2b1 2d42 4f4f 0161"
+      encoder.dynamicTableLength shouldBe 0
+    }
+    "not add fields that the indexing strategy rejects to the dynamic table" in {
+      val encoder = new HPackEncoder(4096, HPackIndexingStrategy.Never)
+      val decoder = new HPackDecoder(4096)
+      requests.foreach(request => decode(decoder, encode(encoder, request)) shouldBe request)
+      encoder.dynamicTableLength shouldBe 0
+      decoder.dynamicTableLength shouldBe 0
+    }
+  }
+
+  "The adaptive HPackIndexingStrategy" should {
+    "stop indexing fields of a header whose values don't repeat" in {
+      val encoder = new HPackEncoder(4096, HPackIndexingStrategy.adaptive())
+      (1 to 20).foreach(i => encode(encoder, Seq(":path" -> s"/items/$i", "x-tenant" -> "acme")))
+      // the first 8 paths and the tenant
+      encoder.dynamicTableLength shouldBe 9
+      encoder.dynamicTableHits shouldBe 19
+    }
+    "start indexing fields of a header again when its values repeat" in {
+      val encoder = new HPackEncoder(4096, HPackIndexingStrategy.adaptive())
+      (1 to 20).foreach(i => encode(encoder, Seq(":path" -> s"/items/$i")))
+      Seq("/a", "/b", "/a", "/b", "/a", "/b").foreach(path => encode(encoder, Seq(":path" -> path)))
+      // "/a" and "/b" are indexed when they are seen for the second time and sent by index the third time
+      encoder.dynamicTableLength shouldBe 10
+      encoder.dynamicTableHits shouldBe 2
+    }
+    "be overridden per header name by the settings" in {
+      val settings = Http2ServerSettings(ConfigFactory.load())
+        .withHpackIndexingStrategy("never")
+        .withHpackAlwaysIndexHeaders(Set("Content-Type"))
+      val encoder = new HPackEncoder(4096, HPackIndexingStrategy(settings))
+      encode(encoder, Seq("content-type" -> "application/grpc", "grpc-status" -> "0"))
+      encoder.dynamicTableLength shouldBe 1
+    }
+  }
+
+  "HPACK encoding and decoding" should {
+    "round-trip all byte values" in {
+      val encoder = new HPackEncoder(4096)
+      val decoder = new HPackDecoder(4096)
+      val fields = (0 until 256).grouped(16).map(chars => "x-header" -> chars.map(_.toChar).mkString).toSeq
+      fields.foreach { field =>
+        decode(decoder, encode(encoder, field :: Nil)) shouldBe Seq(field)
+      }
+      decode(decoder, encode(encoder, fields)) shouldBe fields
+    }
+  }
+}